@@ -2,6 +2,8 @@ package com.fractal.app.algorithms.balancers;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -11,12 +13,17 @@ import java.util.Map;
 
 import com.fractal.app.algorithms.math.ComplexNumber;
 import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.Image;
+import com.fractal.app.image.IterationField;
 import com.fractal.app.networking.Data;
 import com.fractal.app.networking.DataListener;
 import com.fractal.app.networking.NetworkInterface;
 
 /**
- * This class provides an interface to a load balancing algorithm.
+ * This class provides an interface to a load balancing algorithm, which breaks a frame apart into
+ * blocks of rows and columns. Frames which are symmetric are only calculated on one side of their
+ * axis of symmetry; the images of the other side are mirrored from them by the client.
  *
  * @author Scott Gigawatt
  *
@@ -35,6 +42,12 @@ public class BlockRegionBalancer implements Distributable {
   /** Represents the height (in pixels) of a region.. */
   private static final int HEIGHT = WIDTH;
 
+  /** The width (in pixels) of a block. */
+  private final int blockWidth;
+
+  /** The height (in pixels) of a block. */
+  private final int blockHeight;
+
   /** The number of regions wide to create. */
   private int numRegionsWide;
 
@@ -56,6 +69,12 @@ public class BlockRegionBalancer implements Distributable {
   /** A mapping of servers to number of calculations to perform. */
   private Map<NetworkInterface, Integer> serverToNumCalcsMap;
 
+  /** A mapping of the ids of the sub-regions of a symmetric frame to the parts mirroring them. */
+  private Map<Integer, Mirror> mirrors;
+
+  /** The choice of coloring algorithm with which the current frame was requested. */
+  private int colorAlg;
+
   /**
    * Constructs a new {@link BlockRegionBalancer} with the specified number of rows.
    *
@@ -70,12 +89,41 @@ public class BlockRegionBalancer implements Distributable {
    * default number of rows.
    */
   public BlockRegionBalancer(DataListener client, int numRegionsWide, int numRegionsHigh) {
+    this(client, numRegionsWide, numRegionsHigh, WIDTH, HEIGHT);
+  }
+
+  /**
+   * Constructs a new {@link BlockRegionBalancer} without a client, which breaks frames apart into
+   * blocks of the specified size to be calculated on this machine.
+   *
+   * @param blockWidth The width (in pixels) of a block.
+   * @param blockHeight The height (in pixels) of a block.
+   */
+  public BlockRegionBalancer(int blockWidth, int blockHeight) {
+    this(null, DEFAULT_NUM_REGIONS_WIDE, DEFAULT_NUM_REGIONS_HIGH, blockWidth, blockHeight);
+  }
+
+  /**
+   * Constructs a new {@link BlockRegionBalancer} with the specified client, number of rows and
+   * size of the blocks.
+   *
+   * @param client The client which contains the load to be balanced.
+   * @param numRegionsWide The number of regions wide to create.
+   * @param numRegionsHigh The number of regions high to create.
+   * @param blockWidth The width (in pixels) of a block.
+   * @param blockHeight The height (in pixels) of a block.
+   */
+  private BlockRegionBalancer(DataListener client, int numRegionsWide, int numRegionsHigh,
+      int blockWidth, int blockHeight) {
     this.client = client;
     this.numRegionsWide = numRegionsWide;
     this.numRegionsHigh = numRegionsHigh;
+    this.blockWidth = blockWidth;
+    this.blockHeight = blockHeight;
     servers = new ArrayList<NetworkInterface>();
     serverAssignMap = new HashMap<NetworkInterface, List<Region>>();
     serverToNumCalcsMap = new HashMap<NetworkInterface, Integer>();
+    mirrors = Collections.synchronizedMap(new HashMap<Integer, Mirror>());
     regions = Collections.synchronizedList(new LinkedList<Region>());
   }
 
@@ -99,60 +147,275 @@ public class BlockRegionBalancer implements Distributable {
    * @throws IOException If any input or output exception should occur.
    */
   public void distribute(Region region) throws IOException {
+    List<Region> subRegions = subdivide(region);
+
+    this.regions.clear();
+
+    for (int i = 0; i < this.servers.size(); i++) {
+      this.serverAssignMap.get(servers.get(i)).clear();
+    }
+
+    regions.addAll(subRegions);
+    sendInitialRegions();
+  }
+
+  /**
+   * Breaks apart the specified region into the sub-regions to be calculated, in rows of blocks. If
+   * the frame is symmetric, only the rows on the larger side of the axis of symmetry are returned,
+   * and the images of the rows on the other side are later {@link #mirror(Image) mirrored} from
+   * them. The blocks are then laid from the axis, so that each of them mirrors onto a single block
+   * of the other side; the blocks at the edges of the frame are clipped to it.
+   *
+   * @param region The region to break apart.
+   *
+   * @return The sub-regions to be calculated.
+   */
+  public List<Region> subdivide(Region region) {
+    // Choose the precision of the frame first, so that it is subdivided with enough precision.
+    SetFactory.choosePrecision(region);
+
+    List<Region> subRegions = new ArrayList<Region>();
     Region tmpRegion = null;
     ComplexNumber min = null;
     ComplexNumber max = null;
     ComplexNumber julia = region.getJulia();
-    double tmpXMin = 0.0;
-    double tmpYMin = 0.0;
-    double tmpXMax = 0.0;
-    double tmpYMax = 0.0;
-    double minX = region.getMin().getX();
-    double minY = region.getMin().getY();
-    double maxX = region.getMax().getX();
-    double maxY = region.getMax().getY();
     int width = region.getWidth();
     int height = region.getHeight();
     int maxIt = region.getMaxIt();
     int power = region.getPower();
-    int colorAlg = region.getColorAlg();
     int precisionBits = region.getPrecisionBits();
+    int axis = getAxis(region);
     boolean precision = region.isPrecise();
-    double regionWidth = ((maxX - minX) / width) * WIDTH;
-    double regionHeight = ((maxY - minY) / height) * HEIGHT;
-    this.numRegionsWide = width / WIDTH;
-    this.numRegionsHigh = height / HEIGHT;
+    boolean columns = (axis >= 0) && (julia != null);
+    double minX = region.getMin().getX();
+    double minY = region.getMin().getY();
+    double dx = (region.getMax().getX() - minX) / width;
+    double dy = (region.getMax().getY() - minY) / height;
+    int[] rowBounds = getRowBounds(height, axis);
+    int[] columnBounds = getBounds(0, width, blockWidth, false);
+    // The rows which are mirrored are those on the other side of the rows to be calculated.
+    int mirrorFirst = (rowBounds[0] > 0) ? 0 : rowBounds[rowBounds.length - 1];
+    int mirrorLast = (rowBounds[0] > 0) ? rowBounds[0] : height;
+    MathContext mc = new MathContext(precisionBits, RoundingMode.HALF_EVEN);
+    BigDecimal two = new BigDecimal(2);
+    BigDecimal pMinX = null;
+    BigDecimal pMinY = null;
+    BigDecimal pDx = null;
+    BigDecimal pDy = null;
+    ComplexNumber reference = null;
+
+    colorAlg = region.getColorAlg();
+    mirrors.clear();
+    this.numRegionsWide = columnBounds.length - 1;
+    this.numRegionsHigh = rowBounds.length - 1;
+
+    // Move a symmetric frame by a fraction of a pixel, so that its pixels mirror each other.
+    if (axis >= 0) {
+      minY = -axis * dy / 2;
+      minX = columns ? -(width - 1) * dx / 2 : minX;
+    }
 
-    this.regions.clear();
+    if (precision) {
+      // Subdivide with increased precision and share the center of the frame as the reference
+      // point for perturbation calculations.
+      pMinX = region.getMin().getPreciseX();
+      pMinY = region.getMin().getPreciseY();
+      pDx = region.getMax().getPreciseX().subtract(pMinX, mc).divide(new BigDecimal(width), mc);
+      pDy = region.getMax().getPreciseY().subtract(pMinY, mc).divide(new BigDecimal(height), mc);
+
+      if (axis >= 0) {
+        pMinY = pDy.multiply(new BigDecimal(-axis), mc).divide(two, mc);
+        pMinX = columns ? pDx.multiply(new BigDecimal(1 - width), mc).divide(two, mc) : pMinX;
+      }
 
-    for (int i = 0; i < this.servers.size(); i++) {
-      this.serverAssignMap.get(servers.get(i)).clear();
+      reference = new ComplexNumber(
+          pMinX.add(pDx.multiply(new BigDecimal(width), mc).divide(two, mc), mc),
+          pMinY.add(pDy.multiply(new BigDecimal(height), mc).divide(two, mc), mc));
     }
 
-    for (int i = 0, server = 0, id = 0; i < numRegionsHigh; i++) {
-      for (int j = 0; j < numRegionsWide; j++, server++, id++) {
-        server = server % servers.size();
-        tmpXMin = minX + (j * regionWidth);
-        tmpXMax = minX + ((j + 1) * regionWidth);
-        tmpYMax = minY + ((i + 1) * regionHeight);
-        tmpYMin = minY + (i * regionHeight);
+    for (int i = 0, id = 0; i < rowBounds.length - 1; i++) {
+      for (int j = 0; j < columnBounds.length - 1; j++, id++) {
+        int x0 = columnBounds[j];
+        int x1 = columnBounds[j + 1];
+        int y0 = rowBounds[i];
+        int y1 = rowBounds[i + 1];
 
         if (!precision) {
-          min = new ComplexNumber(tmpXMin, tmpYMin);
-          max = new ComplexNumber(tmpXMax, tmpYMax);
+          min = new ComplexNumber(minX + (x0 * dx), minY + (y0 * dy));
+          max = new ComplexNumber(minX + (x1 * dx), minY + (y1 * dy));
         } else {
-          min = new ComplexNumber(new BigDecimal(tmpXMin), new BigDecimal(tmpYMin));
-          max = new ComplexNumber(new BigDecimal(tmpXMax), new BigDecimal(tmpYMax));
+          min = new ComplexNumber(pMinX.add(pDx.multiply(new BigDecimal(x0), mc), mc),
+              pMinY.add(pDy.multiply(new BigDecimal(y0), mc), mc));
+          max = new ComplexNumber(pMinX.add(pDx.multiply(new BigDecimal(x1), mc), mc),
+              pMinY.add(pDy.multiply(new BigDecimal(y1), mc), mc));
         }
 
-        tmpRegion = new Region(min, max, julia, WIDTH, HEIGHT, maxIt, power, id, j * WIDTH,
-            i * HEIGHT, colorAlg, precisionBits, precision);
-
-        regions.add(tmpRegion);
+        tmpRegion = new Region(min, max, julia, x1 - x0, y1 - y0, maxIt, power, id, x0, y0,
+            colorAlg, precisionBits, precision);
+        tmpRegion.setReference(reference);
+        tmpRegion.setApproximationTolerance(region.getApproximationTolerance());
+        tmpRegion.setAutoPrecision(region.isAutoPrecision());
+        tmpRegion.setRenderMode(region.getRenderMode());
+        tmpRegion.setDistanceEstimation(region.isDistanceEstimation());
+        tmpRegion.setTrap(region.getTrap());
+        tmpRegion.setSupersampling(region.getSupersampling());
+        tmpRegion.setSampleBudget(region.getSampleBudget());
+        tmpRegion.setFrame(region.getFrame());
+        SetFactory.choosePrecision(tmpRegion);
+
+        subRegions.add(tmpRegion);
+
+        if (axis >= 0) {
+          // The rows of the other side which mirror the rows of the block, row axis - y of row y.
+          int first = Math.max(mirrorFirst, axis - y1 + 1);
+          int last = Math.min(mirrorLast, axis - y0 + 1);
+
+          if (first < last) {
+            mirrors.put(id, new Mirror(axis - last + 1 - y0, axis - first + 1 - y0,
+                columns ? width - x1 : x0, first, columns));
+          }
+        }
       }
     }
 
-    sendInitialRegions();
+    return subRegions;
+  }
+
+  /**
+   * Returns the number of sub-regions into which the specified region will be broken apart.
+   *
+   * @param region The region to break apart.
+   *
+   * @return The number of sub-regions.
+   */
+  public int getNumRegions(Region region) {
+    return (getBounds(0, region.getWidth(), blockWidth, false).length - 1)
+        * (getRowBounds(region.getHeight(), getAxis(region)).length - 1);
+  }
+
+  /**
+   * Returns the image of the part of the frame which mirrors the specified image of a sub-region,
+   * colored with the coloring algorithm of the frame, and without statistics. The mirrored image
+   * carries the frame number of the image; if another frame has been subdivided since, the part
+   * it is drawn at belongs to that frame, and the mirrored image is dropped with the image.
+   *
+   * @param image The image of a sub-region of the current frame.
+   *
+   * @return The mirrored image, null if no part of the frame mirrors the image.
+   */
+  public Image mirror(Image image) {
+    Mirror mirror = mirrors.get(image.getId());
+    IterationField field = image.getField();
+
+    if (mirror == null || field == null || field.getHeight() < mirror.lastRow) {
+      return null;
+    }
+
+    IterationField mirrored = field.mirror(mirror.firstRow, mirror.lastRow, mirror.columns);
+    Image mirroredImage = new Image(mirrored,
+        SetFactory.createColoringAlgorithm(colorAlg, mirrored), image.getId(), mirror.x, mirror.y);
+
+    // Nothing was calculated for the mirrored image, so it is not counted as a region.
+    mirroredImage.setStatistics(null);
+    mirroredImage.setFrame(image.getFrame());
+
+    return mirroredImage;
+  }
+
+  /**
+   * Returns the sum of the rows of the specified region which mirror each other across its axis of
+   * symmetry, once the frame is moved by at most a quarter of a pixel vertically. A Mandelbrot set
+   * is symmetric about the real axis. A Julia set of an even power is symmetric about the origin,
+   * which is used only if the frame is centered on the imaginary axis to within half a pixel, by
+   * which it is moved so that each row mirrors a whole row. The colors of orbit traps are not
+   * symmetric in general, so frames with a trap are not mirrored.
+   *
+   * @param region The region to break apart.
+   *
+   * @return The sum of the mirrored rows, or -1 if no row of the frame mirrors another one.
+   */
+  private static int getAxis(Region region) {
+    ComplexNumber min = region.getMin();
+    ComplexNumber max = region.getMax();
+    int width = region.getWidth();
+    int height = region.getHeight();
+
+    // NaN fails the comparisons.
+    if (region.getTrap() != null || (region.getJulia() != null && ((region.getPower() & 1) != 0
+        || !(Math.abs(getAxis(min.getPreciseX(), max.getPreciseX(), width) - (width - 1)) <= 1)))) {
+      return -1;
+    }
+
+    double axis = Math.rint(getAxis(min.getPreciseY(), max.getPreciseY(), height));
+
+    // At least one row must lie on each side of the axis.
+    return (axis >= 1 && axis <= (2 * height) - 3) ? (int) axis : -1;
+  }
+
+  /**
+   * Returns the sum of the indices of the pixels along a side of the frame which mirror each other
+   * across zero, which need not be an integer.
+   *
+   * @param min The lowest value along the side.
+   * @param max The highest value along the side.
+   * @param size The number of pixels along the side.
+   *
+   * @return The sum of the indices, NaN if the side is empty.
+   */
+  private static double getAxis(BigDecimal min, BigDecimal max, int size) {
+    BigDecimal span = max.subtract(min);
+
+    if (span.signum() <= 0) {
+      return Double.NaN;
+    }
+
+    return min.multiply(new BigDecimal(-2L * size)).divide(span, MathContext.DECIMAL64)
+        .doubleValue();
+  }
+
+  /**
+   * Returns the boundaries of the rows of blocks to be calculated. Without an axis of symmetry the
+   * blocks cover the frame from its first row; otherwise they cover the larger side of the axis,
+   * with the row on the axis if there is one, from the axis outwards.
+   *
+   * @param height The height of the frame.
+   * @param axis The sum of the rows which mirror each other, -1 if none do.
+   *
+   * @return The boundaries of the rows of blocks in ascending order.
+   */
+  private int[] getRowBounds(int height, int axis) {
+    int below = (axis + 1) / 2;
+    int above = height - 1 - (axis / 2);
+
+    if (axis < 0) {
+      return getBounds(0, height, blockHeight, false);
+    } else if (above >= below) {
+      return getBounds(below, height, blockHeight, false);
+    }
+
+    return getBounds(0, (axis / 2) + 1, blockHeight, true);
+  }
+
+  /**
+   * Returns the boundaries of blocks of the specified size laid over a range of pixels, starting
+   * from one end of the range; the last block is clipped to the other end.
+   *
+   * @param from The first pixel of the range.
+   * @param to The pixel after the last pixel of the range.
+   * @param size The size of a block.
+   * @param fromEnd True to lay the blocks from the end of the range, false from its start.
+   *
+   * @return The boundaries of the blocks in ascending order.
+   */
+  private static int[] getBounds(int from, int to, int size, boolean fromEnd) {
+    int[] bounds = new int[((to - from + size - 1) / size) + 1];
+
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = fromEnd ? Math.max(from, to - ((bounds.length - 1 - i) * size))
+          : Math.min(to, from + (i * size));
+    }
+
+    return bounds;
   }
 
   /**
@@ -246,4 +509,42 @@ public class BlockRegionBalancer implements Distributable {
   public int getNumServers() {
     return this.servers.size();
   }
+
+  /**
+   * This class describes the part of a symmetric frame which mirrors the image of a sub-region: the
+   * rows of the image which it mirrors, and where the mirrored rows are drawn.
+   */
+  private static class Mirror {
+    /** The first row of the image to mirror. */
+    private final int firstRow;
+
+    /** The row after the last row of the image to mirror. */
+    private final int lastRow;
+
+    /** The x-value image buffer index of the mirrored rows. */
+    private final int x;
+
+    /** The y-value image buffer index of the mirrored rows. */
+    private final int y;
+
+    /** True if the columns are mirrored as well as the rows, false otherwise. */
+    private final boolean columns;
+
+    /**
+     * Creates a new {@link Mirror} of the specified rows of an image.
+     *
+     * @param firstRow The first row of the image to mirror.
+     * @param lastRow The row after the last row of the image to mirror.
+     * @param x The x-value image buffer index of the mirrored rows.
+     * @param y The y-value image buffer index of the mirrored rows.
+     * @param columns True if the columns are mirrored as well as the rows, false otherwise.
+     */
+    Mirror(int firstRow, int lastRow, int x, int y, boolean columns) {
+      this.firstRow = firstRow;
+      this.lastRow = lastRow;
+      this.x = x;
+      this.y = y;
+      this.columns = columns;
+    }
+  }
 }
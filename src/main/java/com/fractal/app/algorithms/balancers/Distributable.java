@@ -3,6 +3,7 @@ package com.fractal.app.algorithms.balancers;
 import java.io.IOException;
 
 import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.image.Image;
 import com.fractal.app.networking.NetworkInterface;
 
 /**
@@ -23,6 +24,25 @@ public interface Distributable {
    */
   public void distribute(Region region) throws IOException;
 
+  /**
+   * Returns the number of sub-regions into which the specified region will be broken apart.
+   *
+   * @param region The region to break apart.
+   *
+   * @return The number of sub-regions.
+   */
+  public int getNumRegions(Region region);
+
+  /**
+   * Returns the image of the part of the frame which mirrors the specified image of a sub-region,
+   * if the frame is symmetric and only one side of it was distributed.
+   *
+   * @param image The image of a sub-region of the current frame.
+   *
+   * @return The mirrored image, null if no part of the frame mirrors the image.
+   */
+  public Image mirror(Image image);
+
   /**
    * Called when a region has been received back from a server. Removes the region from the servers
    * list of assigned regions.
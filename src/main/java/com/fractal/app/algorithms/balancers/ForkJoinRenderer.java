@@ -0,0 +1,173 @@
+package com.fractal.app.algorithms.balancers;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.gui.listener.ImageCreationListener;
+import com.fractal.app.image.Image;
+
+/**
+ * This class renders frames on this machine, for a client to which no servers are connected. A
+ * frame is broken apart into blocks by a {@link BlockRegionBalancer}, so that a symmetric frame is
+ * only calculated on one side of its axis, and the blocks are calculated by a work-stealing
+ * {@link ForkJoinPool} with a worker for each core. The image of each block, preceded by the image
+ * of the part of the frame which mirrors it, is passed to the listener as soon as it has been
+ * calculated, on the worker which calculated it.
+ * <p>
+ * Rendering a frame does not wait for it to be calculated. Once another frame is rendered, the
+ * blocks of the previous frame which have not been started are skipped, and the images of those
+ * still being calculated are discarded.
+ *
+ * @author Scott Gigawatt
+ * @version 7 July 2017
+ */
+public class ForkJoinRenderer {
+  /** The default width and height (in pixels) of a block. */
+  public static final int DEFAULT_BLOCK_SIZE = 64;
+
+  /** The pool which calculates the blocks. */
+  private final ForkJoinPool pool;
+
+  /** The balancer which breaks frames apart and mirrors the blocks of symmetric frames. */
+  private final BlockRegionBalancer balancer;
+
+  /** The number of frames rendered, which identifies the current frame. */
+  private volatile int frame;
+
+  /** Constructs a new {@link ForkJoinRenderer} with a worker for each core. */
+  public ForkJoinRenderer() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Constructs a new {@link ForkJoinRenderer} with the specified number of workers and size of the
+   * blocks.
+   *
+   * @param parallelism The number of workers which calculate the blocks.
+   * @param blockSize The width and height (in pixels) of a block.
+   */
+  public ForkJoinRenderer(int parallelism, int blockSize) {
+    this.pool = new ForkJoinPool(parallelism);
+    this.balancer = new BlockRegionBalancer(blockSize, blockSize);
+  }
+
+  /**
+   * Starts rendering the specified region, passing the image of each block to the specified
+   * listener as it is calculated. The images of any frame rendered before are no longer passed on.
+   *
+   * @param region The {@link Region} to be calculated.
+   * @param listener The listener to which the images of the frame are passed.
+   *
+   * @return The task which renders the frame, complete once every image has been passed on.
+   */
+  public synchronized ForkJoinTask<Void> render(Region region, ImageCreationListener listener) {
+    List<Region> blocks = balancer.subdivide(region);
+    RenderTask task = new RenderTask(blocks, ++frame, listener, 0, blocks.size());
+
+    pool.execute(task);
+
+    return task;
+  }
+
+  /**
+   * Returns the number of blocks into which the specified region will be broken apart.
+   *
+   * @param region The region to break apart.
+   *
+   * @return The number of blocks.
+   */
+  public int getNumRegions(Region region) {
+    return balancer.getNumRegions(region);
+  }
+
+  /** Stops calculating any frame and shuts down the workers. */
+  public void close() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Passes the image of a block of the specified frame, preceded by its mirrored image if there is
+   * one, to the specified listener, unless another frame has been rendered since.
+   *
+   * @param image The image of the block.
+   * @param frame The frame to which the block belongs.
+   * @param listener The listener to which the images of the frame are passed.
+   */
+  private synchronized void imageCreated(Image image, int frame, ImageCreationListener listener) {
+    if (frame == this.frame) {
+      Image mirror = balancer.mirror(image);
+
+      if (mirror != null) {
+        listener.imageCreated(mirror);
+      }
+
+      listener.imageCreated(image);
+    }
+  }
+
+  /** This class calculates a range of blocks of a frame, split in half until one remains. */
+  private class RenderTask extends RecursiveAction {
+    /** A unique id associated with this {@link java.io.Serializable} object. */
+    private static final long serialVersionUID = -6021869432250517148L;
+
+    /** The blocks of the frame. */
+    private final List<Region> blocks;
+
+    /** The frame to which the blocks belong. */
+    private final int frame;
+
+    /** The listener to which the images of the frame are passed. */
+    private final ImageCreationListener listener;
+
+    /** The index of the first block of the range. */
+    private final int from;
+
+    /** The index after the last block of the range. */
+    private final int to;
+
+    /**
+     * Creates a new {@link RenderTask} for the specified range of blocks.
+     *
+     * @param blocks The blocks of the frame.
+     * @param frame The frame to which the blocks belong.
+     * @param listener The listener to which the images of the frame are passed.
+     * @param from The index of the first block of the range.
+     * @param to The index after the last block of the range.
+     */
+    RenderTask(List<Region> blocks, int frame, ImageCreationListener listener, int from, int to) {
+      this.blocks = blocks;
+      this.frame = frame;
+      this.listener = listener;
+      this.from = from;
+      this.to = to;
+    }
+
+    /** Calculates the range of blocks, forking its halves if it holds more than one block. */
+    @Override
+    protected void compute() {
+      if (frame != ForkJoinRenderer.this.frame) {
+        return;
+      } else if (to - from == 1) {
+        Region block = blocks.get(from);
+        Set set = SetFactory.createSet(block);
+
+        set.generate(block.getJulia());
+
+        Image image = set.getImage();
+
+        image.setFrame(block.getFrame());
+        imageCreated(image, frame, listener);
+      } else if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+
+        invokeAll(new RenderTask(blocks, frame, listener, from, middle),
+            new RenderTask(blocks, frame, listener, middle, to));
+      }
+    }
+  }
+}
@@ -1,20 +1,27 @@
 package com.fractal.app.algorithms.color;
 
+import java.util.Arrays;
+
 import com.fractal.app.algorithms.math.ComplexNumber;
 
 /**
- * This class provides an interface for a {@link ColoringAlgorithm}.
+ * This class provides an interface for a {@link ColoringAlgorithm}. The color of a band depends
+ * only on how many iterations before the maximum it escaped, so every instance reads its colors
+ * from one shared table, which is only ever replaced by a longer copy.
  *
  * @author Scott Gigawatt
  *
  * @version 25 September 2010
  */
 public class BandedColoringAlgorithm implements ColoringAlgorithm {
-  /** Colors to use for coloring points. */
-  private int[] colors;
+  /** The color of each band, indexed by the number of iterations before the maximum. */
+  private static int[] bands = new int[0];
+
+  /** Colors to use for coloring points, indexed by the number of iterations before the maximum. */
+  private final int[] colors;
 
   /** The maximum number of iterations. */
-  private int maxIt;
+  private final int maxIt;
 
   /**
    * Creates a new {@link BandedColoringAlgorithm} and initializes the colors to the default colors.
@@ -23,15 +30,13 @@ public class BandedColoringAlgorithm implements ColoringAlgorithm {
    */
   public BandedColoringAlgorithm(int maxIt) {
     this.maxIt = maxIt;
-    this.colors = new int[maxIt];
-
-    initializeColors();
+    this.colors = getBands(maxIt);
   }
 
   /**
    * Gets the RGB color value for a specified point with the "escape" value specified by the number
    * of iterations taken to escape and the maximum number of iterations.
-   * 
+   *
    * @param z The value of the point when it "escaped".
    * @param c The point to color.
    * @param iterations The number of iterations taken to "escape".
@@ -39,18 +44,87 @@ public class BandedColoringAlgorithm implements ColoringAlgorithm {
    * @return The RGB value of the color to assign to the point.
    */
   public int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot) {
-    return colors[iterations];
+    return colors[maxIt - 1 - iterations];
   }
 
-  /** Initializes the array of colors used to color points. */
-  private void initializeColors() {
-    for (int i = 0; i < colors.length; ++i) {
-      /* Technicolor */
-      // colors[maxIt - 1 - i] = (i * 4) ^ ((i * 3) << 6) ^ ((i * 7) << 13);
-      colors[maxIt - 1 - i] = (i * 4) ^ ((i * 3) << 8) ^ ((i * 7) << 16);
+  /**
+   * Gets the RGB color value for a specified point with the "escape" value specified by the number
+   * of iterations taken to escape and the maximum number of iterations.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point to color.
+   * @param cy The imaginary coefficient of the point to color.
+   * @param iterations The number of iterations taken to "escape".
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot) {
+    return colors[maxIt - 1 - iterations];
+  }
 
-      /* Grayscale */
-      // colors[maxIt - 1 - i] = (i * 4 << 16) + (i * 4 << 8) + i * 4;
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it. Bands depend only
+   * on the number of iterations.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot) {
+    return colors[maxIt - 1 - iterations];
+  }
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, with the bands of
+   * escaped points rotated by the specified number of bands. Points which did not escape keep the
+   * color of the last band.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param paletteOffset The number of bands by which to rotate the palette.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot,
+      int paletteOffset) {
+    if (paletteOffset != 0 && iterations < maxIt - 1) {
+      iterations = (iterations + Math.floorMod(paletteOffset, maxIt - 1)) % (maxIt - 1);
     }
+
+    return colors[maxIt - 1 - iterations];
+  }
+
+  /**
+   * Returns the shared table of the colors of the bands, extending it if it holds fewer than the
+   * specified number of bands.
+   *
+   * @param length The number of bands needed.
+   *
+   * @return The colors of the bands, indexed by the number of iterations before the maximum.
+   */
+  private static synchronized int[] getBands(int length) {
+    if (bands.length < length) {
+      int[] colors = Arrays.copyOf(bands, Math.max(length, 2 * bands.length));
+
+      for (int i = bands.length; i < colors.length; ++i) {
+        /* Technicolor */
+        // colors[i] = (i * 4) ^ ((i * 3) << 6) ^ ((i * 7) << 13);
+        colors[i] = (i * 4) ^ ((i * 3) << 8) ^ ((i * 7) << 16);
+
+        /* Grayscale */
+        // colors[i] = (i * 4 << 16) + (i * 4 << 8) + i * 4;
+      }
+
+      bands = colors;
+    }
+
+    return bands;
   }
 }
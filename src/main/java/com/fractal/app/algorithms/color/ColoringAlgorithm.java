@@ -3,7 +3,9 @@ package com.fractal.app.algorithms.color;
 import com.fractal.app.algorithms.math.ComplexNumber;
 
 /**
- * This class provides an interface for a {@link ColoringAlgorithm}.
+ * This class provides an interface for a {@link ColoringAlgorithm}. Implementations are immutable
+ * and share their palettes read-only, so that one algorithm can color the pixels of an image from
+ * any number of threads at once.
  *
  * @author Scott Gigawatt
  *
@@ -21,4 +23,51 @@ public interface ColoringAlgorithm {
    * @return The RGB value of the color to assign to the point.
    */
   public int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot);
+
+  /**
+   * Gets the RGB color value for a specified point with the "escape" value specified by the number
+   * of iterations taken to escape and the maximum number of iterations. This method takes the
+   * components of the points as primitive values so that no objects need to be allocated.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point to color.
+   * @param cy The imaginary coefficient of the point to color.
+   * @param iterations The number of iterations taken to "escape".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot);
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, so that a pixel can
+   * be colored without iterating its point again.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot);
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, with the colors
+   * assigned to escaped points rotated by the specified number of entries of the palette, so that
+   * the palette can be cycled over an image without calculating it again. Points which did not
+   * escape keep their color.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot,
+      int paletteOffset);
 }
@@ -0,0 +1,185 @@
+package com.fractal.app.algorithms.color;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+
+/**
+ * This class colors points by histogram equalization: the color of an escaped point is chosen by
+ * the fraction of the escaped pixels of the whole image which escaped in as many iterations or
+ * fewer, so that the colors are spread evenly over the pixels however the escape counts are
+ * distributed. Deep views, whose counts are crowded into a narrow range near the maximum, are no
+ * longer colored with a handful of nearly identical colors.
+ * <p>
+ * The histogram of an image can only be known once every pixel of it has been calculated, so the
+ * algorithm is created with the histogram after the image has been calculated; without one, each
+ * number of iterations is given its own color, as the {@link BandedColoringAlgorithm} does. The
+ * position of each number of iterations within the palette is kept in fixed point, and the two
+ * colors around it are blended.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class HistogramColoringAlgorithm implements ColoringAlgorithm {
+  /** The default range of the colors for coloring points. */
+  public static final int DEFAULT_COLOR_RANGE = SmoothColoringAlgorithm.DEFAULT_COLOR_RANGE;
+
+  /** Colors to use for coloring points. */
+  private final int[] colors;
+
+  /** The maximum number of iterations. */
+  private final int maxIt;
+
+  /** The range of the colors for coloring points. */
+  private final int colorRange;
+
+  /**
+   * The fixed-point position within the palette of each number of iterations taken to escape, null
+   * if the algorithm has no histogram.
+   */
+  private final int[] positions;
+
+  /**
+   * Creates a new {@link HistogramColoringAlgorithm} without a histogram and initializes the colors
+   * to the default colors.
+   *
+   * @param maxIt The maximum number of iterations.
+   */
+  public HistogramColoringAlgorithm(int maxIt) {
+    this(maxIt, null);
+  }
+
+  /**
+   * Creates a new {@link HistogramColoringAlgorithm} for the specified histogram and initializes
+   * the colors to the default colors.
+   *
+   * @param maxIt The maximum number of iterations.
+   * @param histogram The number of pixels which took each number of iterations, at least maxIt - 1
+   *        entries long, or null to color without a histogram.
+   */
+  public HistogramColoringAlgorithm(int maxIt, long[] histogram) {
+    this(maxIt, DEFAULT_COLOR_RANGE, histogram);
+  }
+
+  /**
+   * Creates a new {@link HistogramColoringAlgorithm} for the specified histogram of the escape
+   * counts of the image to color. Each number of iterations taken to escape is colored by the
+   * fraction of the escaped pixels which escaped in as many iterations or fewer; pixels which did
+   * not escape are not counted.
+   *
+   * @param maxIt The maximum number of iterations.
+   * @param colorRange The range of the colors for coloring points.
+   * @param histogram The number of pixels which took each number of iterations, at least maxIt - 1
+   *        entries long, or null to color without a histogram.
+   */
+  public HistogramColoringAlgorithm(int maxIt, int colorRange, long[] histogram) {
+    this.maxIt = maxIt;
+    this.colorRange = colorRange;
+    this.colors = SmoothColoringAlgorithm.getColors(colorRange);
+    this.positions = (histogram == null) ? null : getPositions(histogram);
+  }
+
+  /**
+   * Gets the RGB color value for a specified point with the "escape" value specified by the number
+   * of iterations taken to escape and the maximum number of iterations.
+   *
+   * @param z The value of the point when it "escaped".
+   * @param c The point to color.
+   * @param iterations The number of iterations taken to "escape".
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot) {
+    return getColor(iterations, 0.0f, 0.0f, isMandelbrot);
+  }
+
+  /**
+   * Gets the RGB color value for a specified point with the "escape" value specified by the number
+   * of iterations taken to escape and the maximum number of iterations.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point to color.
+   * @param cy The imaginary coefficient of the point to color.
+   * @param iterations The number of iterations taken to "escape".
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot) {
+    return getColor(iterations, 0.0f, 0.0f, isMandelbrot);
+  }
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it. The color depends
+   * only on the number of iterations and the histogram; pixels which did not escape are black.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot) {
+    return getColor(iterations, mu, magnitude, isMandelbrot, 0);
+  }
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, with the colors of
+   * escaped points rotated by the specified number of entries of the palette. Points which did not
+   * escape stay black.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot,
+      int paletteOffset) {
+    if (iterations >= maxIt - 1) {
+      return 0;
+    }
+
+    int offset = Math.floorMod(paletteOffset, colorRange);
+
+    if (positions == null) {
+      return colors[((iterations % colorRange) + offset) % colorRange];
+    }
+
+    int fixed = positions[iterations];
+    int index = ((fixed >> SmoothColoringAlgorithm.FRACTION_BITS) + offset) % colorRange;
+    int weight = fixed & ((1 << SmoothColoringAlgorithm.FRACTION_BITS) - 1);
+
+    return SmoothColoringAlgorithm.interpolate(colors[index], colors[(index + 1) % colorRange],
+        weight);
+  }
+
+  /**
+   * Computes the fixed-point position within the palette of each number of iterations taken to
+   * escape, from the cumulative histogram of the escaped pixels.
+   *
+   * @param histogram The number of pixels which took each number of iterations.
+   *
+   * @return The fixed-point positions, maxIt - 1 entries long.
+   */
+  private int[] getPositions(long[] histogram) {
+    long scale = (long) (colorRange - 1) << SmoothColoringAlgorithm.FRACTION_BITS;
+    int[] cumulative = new int[Math.max(maxIt - 1, 0)];
+    long escaped = 0;
+    long total = 0;
+
+    for (int i = 0; i < cumulative.length; ++i) {
+      escaped += histogram[i];
+    }
+
+    for (int i = 0; i < cumulative.length; ++i) {
+      total += histogram[i];
+      cumulative[i] = (escaped == 0) ? 0 : (int) ((total * scale) / escaped);
+    }
+
+    return cumulative;
+  }
+}
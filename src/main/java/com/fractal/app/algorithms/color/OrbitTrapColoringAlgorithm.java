@@ -0,0 +1,131 @@
+package com.fractal.app.algorithms.color;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.OrbitTrap;
+
+/**
+ * This class provides an interface for a {@link ColoringAlgorithm}. Points are colored by the
+ * smallest distance of their orbits from an {@link OrbitTrap}, in units of the radius of the trap:
+ * the palette runs backwards from the trap, and points whose orbits never came within the radius
+ * are given the first color. The distance is recorded by the set which iterated the point; points
+ * for which no distance was recorded are colored by their smooth escape value instead.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class OrbitTrapColoringAlgorithm implements ColoringAlgorithm {
+  /** The number of fractional bits of a fixed-point palette index. */
+  private static final int FRACTION_BITS = SmoothColoringAlgorithm.FRACTION_BITS;
+
+  /** The fractional bits of a fixed-point palette index. */
+  private static final int FRACTION_MASK = (1 << FRACTION_BITS) - 1;
+
+  /** Colors to use for coloring points. */
+  private final int[] colors;
+
+  /** The range of the colors for coloring points. */
+  private final int colorRange;
+
+  /** The algorithm which colors points for which no distance was recorded. */
+  private final SmoothColoringAlgorithm smooth;
+
+  /**
+   * Creates a new {@link OrbitTrapColoringAlgorithm} and initializes the colors to the default
+   * colors.
+   *
+   * @param maxIt The maximum number of iterations.
+   */
+  public OrbitTrapColoringAlgorithm(int maxIt) {
+    this.colorRange = SmoothColoringAlgorithm.DEFAULT_COLOR_RANGE;
+    this.colors = SmoothColoringAlgorithm.getColors(colorRange);
+    this.smooth = new SmoothColoringAlgorithm(maxIt, colorRange);
+  }
+
+  /**
+   * Gets the RGB color value for a specified point by its smooth escape value, as no distance from
+   * a trap is known for it.
+   *
+   * @param z The value of the point when it "escaped".
+   * @param c The point to color.
+   * @param iterations The number of iterations taken to "escape".
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot) {
+    return smooth.getColor(z, c, iterations, isMandelbrot);
+  }
+
+  /**
+   * Gets the RGB color value for a specified point by its smooth escape value, as no distance from
+   * a trap is known for it.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point to color.
+   * @param cy The imaginary coefficient of the point to color.
+   * @param iterations The number of iterations taken to "escape".
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot) {
+    return smooth.getColor(zx, zy, cx, cy, iterations, isMandelbrot);
+  }
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, by its smooth
+   * escape value, as no distance from a trap is known for it.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot) {
+    return smooth.getColor(iterations, mu, magnitude, isMandelbrot);
+  }
+
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, by its smooth
+   * escape value, with the colors rotated by the specified number of entries of the palette.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot,
+      int paletteOffset) {
+    return smooth.getColor(iterations, mu, magnitude, isMandelbrot, paletteOffset);
+  }
+
+  /**
+   * Gets the RGB color value for a pixel from the smallest distance of its orbit from the trap,
+   * with the colors rotated by the specified number of entries of the palette. The position within
+   * the palette is taken in fixed point, and the two colors around it are blended by its fraction.
+   *
+   * @param trapDistance The smallest distance of the orbit from the trap, in units of the radius
+   *        of the trap.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getTrapColor(float trapDistance, int paletteOffset) {
+    // NaN and infinity fail the comparison.
+    if (!(trapDistance < 1.0f)) {
+      return colors[0];
+    }
+
+    int fixed = (int) ((1.0f - trapDistance) * (colorRange - 1) * (1 << FRACTION_BITS));
+    int index = ((fixed >> FRACTION_BITS) + Math.floorMod(paletteOffset, colorRange)) % colorRange;
+
+    return SmoothColoringAlgorithm.interpolate(colors[index], colors[(index + 1) % colorRange],
+        fixed & FRACTION_MASK);
+  }
+}
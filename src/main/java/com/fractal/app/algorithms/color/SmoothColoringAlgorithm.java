@@ -2,10 +2,13 @@ package com.fractal.app.algorithms.color;
 
 import java.awt.Color;
 
+import com.fractal.app.algorithms.math.AbstractComplexSet;
 import com.fractal.app.algorithms.math.ComplexNumber;
 
 /**
- * This class provides an interface for a {@link ColoringAlgorithm}.
+ * This class provides an interface for a {@link ColoringAlgorithm}. The smooth escape value of a
+ * point is calculated by the set which iterated it; this class only looks it up in the palette,
+ * blending the two nearest colors by its fraction in fixed point.
  *
  * @author Scott Gigawatt
  *
@@ -18,20 +21,29 @@ public class SmoothColoringAlgorithm implements ColoringAlgorithm {
   /** The maximum allowable value for an RGB value. */
   private static final int MAX_RGB_VALUE = 255;
 
+  /** The number of fractional bits of a fixed-point palette index. */
+  static final int FRACTION_BITS = 8;
+
+  /** The fractional bits of a fixed-point palette index. */
+  private static final int FRACTION_MASK = (1 << FRACTION_BITS) - 1;
+
+  /** The red and blue bits of an RGB value. */
+  private static final int RED_BLUE = 0xFF00FF;
+
+  /** The green bits of an RGB value. */
+  private static final int GREEN = 0x00FF00;
+
+  /** The colors of the default range, shared by every algorithm which uses them. */
+  private static final int[] DEFAULT_COLORS = createColors(DEFAULT_COLOR_RANGE);
+
   /** Colors to use for coloring points. */
-  private static int[] colors;
+  private final int[] colors;
 
   /** The maximum number of iterations. */
-  private int maxIt;
+  private final int maxIt;
 
   /** The range of the colors for coloring points. */
-  private int colorRange;
-
-  /** The escape value of the point. */
-  private ComplexNumber z;
-
-  /** The point to color. */
-  private ComplexNumber c;
+  private final int colorRange;
 
   /**
    * Creates a new {@link SmoothColoringAlgorithm} and initializes the colors to the default colors.
@@ -51,15 +63,13 @@ public class SmoothColoringAlgorithm implements ColoringAlgorithm {
   public SmoothColoringAlgorithm(int maxIt, int colorRange) {
     this.maxIt = maxIt;
     this.colorRange = colorRange;
-    SmoothColoringAlgorithm.colors = new int[colorRange];
-
-    initializeColors();
+    this.colors = getColors(colorRange);
   }
 
   /**
    * Gets the RGB color value for a specified point with the "escape" value specified by the number
    * of iterations taken to escape and the maximum number of iterations.
-   * 
+   *
    * @param z The value of the point when it "escaped".
    * @param c The point to color.
    * @param iterations The number of iterations taken to "escape".
@@ -67,80 +77,85 @@ public class SmoothColoringAlgorithm implements ColoringAlgorithm {
    * @return The RGB value of the color to assign to the point.
    */
   public int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot) {
-    this.z = z;
-    this.c = c;
-    int color;
-
-    if (isMandelbrot) {
-      color = getMandelbrotColor(iterations);
-    } else {
-      color = getJuliaColor();
-    }
-
-    return color;
+    return getColor(z.getX(), z.getY(), c.getX(), c.getY(), iterations, isMandelbrot);
   }
 
   /**
-   * Gets the RGB color value for a Mandelbrot point with the "escape" value specified by the number
+   * Gets the RGB color value for a specified point with the "escape" value specified by the number
    * of iterations taken to escape and the maximum number of iterations.
    *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point to color.
+   * @param cy The imaginary coefficient of the point to color.
    * @param iterations The number of iterations taken to "escape".
    *
    * @return The RGB value of the color to assign to the point.
    */
-  private int getMandelbrotColor(int iterations) {
-    // Extra iterations to reduce the error in mu.
-    for (int i = 0; i < 3; ++i, ++iterations) {
-      z = z.mult(z).add(c);
-    }
-
-    double mag = Math.sqrt(z.mag());
-    double mu = iterations - (Math.log(Math.log(mag)) / Math.log(2));
-    int index = (int) (mu / maxIt * colorRange);
-
-    if (index >= colorRange || index < 0) {
-      index = 0;
-    }
-
-    if (Double.isNaN(mu) || Double.isInfinite(mu)) {
-      index = 0;
-    }
+  public int getColor(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot) {
+    float mu = AbstractComplexSet.getMu(zx, zy, cx, cy, iterations, maxIt, isMandelbrot);
 
-    /*
-     * This block of code will add color to the points in the set, but it does not do it for all of
-     * the points in the set.
-     *
-     * if (Double.isNaN(mu) || Double.isInfinite(mu)) { index = colorRange - 1; }
-     *
-     */
-    return colors[index];
+    return getColor(iterations, mu, (float) Math.sqrt((zx * zx) + (zy * zy)), isMandelbrot);
   }
 
   /**
-   * Gets the RGB color value for a Julia set point.
+   * Gets the RGB color value for a pixel from the raw values calculated for it.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point, see
+   *        {@link AbstractComplexSet#getMu(double, double, double, double, int, int, boolean)}.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
    *
    * @return The RGB value of the color to assign to the point.
    */
-  private int getJuliaColor() {
-    double smoothColor = Math.exp(Math.sqrt(-z.mag()));
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot) {
+    return getColor(iterations, mu, magnitude, isMandelbrot, 0);
+  }
 
-    for (int i = 0; i < maxIt && z.mag() < 900; ++i) {
-      z = z.mult(z).add(c);
-      smoothColor += Math.exp(Math.sqrt(-z.mag()));
+  /**
+   * Gets the RGB color value for a pixel from the raw values calculated for it, with the colors
+   * rotated by the specified number of entries of the palette. The position of the point within
+   * the palette is taken in fixed point, and the two colors around it are blended by its fraction.
+   * Points whose smooth escape value is undefined or outside the palette are given the first color.
+   *
+   * @param iterations The number of iterations taken to "escape".
+   * @param mu The smooth escape value of the point.
+   * @param magnitude The magnitude of the point when it "escaped".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  public int getColor(int iterations, float mu, float magnitude, boolean isMandelbrot,
+      int paletteOffset) {
+    // The continuous iteration count of a Mandelbrot point and the smoothing sum of the orbit of
+    // a Julia point both grow by at most one per iteration.
+    float position = mu / maxIt * colorRange;
+
+    // NaN fails both comparisons.
+    if (!(position >= 0.0f && position < colorRange)) {
+      return colors[0];
     }
 
-    smoothColor /= maxIt;
-    int colorIndex = (int) (smoothColor % colorRange);
+    int fixed = (int) (position * (1 << FRACTION_BITS));
+    int index = ((fixed >> FRACTION_BITS) + Math.floorMod(paletteOffset, colorRange)) % colorRange;
 
-    if (colorIndex >= colorRange || colorIndex < 0) {
-      colorIndex = 0;
-    }
-
-    return colors[colorIndex];
+    return interpolate(colors[index], colors[(index + 1) % colorRange], fixed & FRACTION_MASK);
   }
 
-  /** Initializes the array of {@link Color}s used to color points. */
-  private void initializeColors() {
+  /**
+   * Creates the array of {@link Color}s used to color points, a ramp from black through blue and
+   * green to red.
+   *
+   * @param colorRange The number of colors.
+   *
+   * @return The RGB values of the colors.
+   */
+  public static int[] createColors(int colorRange) {
+    int[] colors = new int[colorRange];
+
     for (int i = 0; i < colorRange; ++i) {
       int colorValueR = 0;
       int colorValueG = 0;
@@ -158,5 +173,36 @@ public class SmoothColoringAlgorithm implements ColoringAlgorithm {
 
       colors[i] = colorValueB | colorValueG << 8 | colorValueR << 16;
     }
+
+    return colors;
+  }
+
+  /**
+   * Returns the colors of the specified range, shared read-only if it is the default range.
+   *
+   * @param colorRange The number of colors.
+   *
+   * @return The RGB values of the colors.
+   */
+  static int[] getColors(int colorRange) {
+    return (colorRange == DEFAULT_COLOR_RANGE) ? DEFAULT_COLORS : createColors(colorRange);
+  }
+
+  /**
+   * Blends two RGB values in fixed point. The red and blue channels are blended together, as are
+   * the green, each in a single multiplication.
+   *
+   * @param from The color at a weight of zero.
+   * @param to The color at the full weight.
+   * @param weight The weight of the second color, out of 1 << {@link #FRACTION_BITS}.
+   *
+   * @return The blended RGB value.
+   */
+  static int interpolate(int from, int to, int weight) {
+    int inverse = (1 << FRACTION_BITS) - weight;
+    int redBlue = (((from & RED_BLUE) * inverse) + ((to & RED_BLUE) * weight)) >>> FRACTION_BITS;
+    int green = (((from & GREEN) * inverse) + ((to & GREEN) * weight)) >>> FRACTION_BITS;
+
+    return (redBlue & RED_BLUE) | (green & GREEN);
   }
 }
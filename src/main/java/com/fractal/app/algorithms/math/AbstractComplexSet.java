@@ -1,12 +1,41 @@
 package com.fractal.app.algorithms.math;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
 import com.fractal.app.image.Image;
+import com.fractal.app.image.IterationField;
 
 /**
  * This class abstractly represents a set of {@link ComplexNumber complex numbers}. It provides
  * state and behaviors which are common to {@link ComplexSet complex sets}.
+ * <p>
+ * Generating a set is done in two passes. Rendering iterates the pixels and records the raw values
+ * of each one, as passed to {@link #escape(double, double, double, double, int, boolean)}, in the
+ * {@link IterationField} of the image; the field is then colored into the pixels of the image.
+ * <p>
+ * When the {@link Region} estimates distances, sets also track the derivative of each orbit with
+ * respect to the point on which it depends, and record the estimated distance of each escaped point
+ * from the boundary with {@link #estimateDistance(double, double, double, double)}. A point whose
+ * derivative grows beyond {@link #getDerivativeLimit()} before it escapes lies within a fraction of
+ * a pixel of the boundary, so it stops iterating and is recorded on the boundary with
+ * {@link #reachBoundary(double, double, double, double, int, boolean, double)}.
+ * <p>
+ * When the {@link Region} carries an {@link OrbitTrap}, sets measure every point of each orbit
+ * against it and record the smallest squared distance with {@link #recordTrap(double)}. Sets only
+ * take these paths when distances are estimated or a trap is set, so the plain iteration carries no
+ * per-iteration hooks.
+ * <p>
+ * When the {@link Region} supersamples, coloring is followed by an anti-aliasing stage: the pixels
+ * whose colors differ from a neighbor by more than {@link #EDGE_CONTRAST}, the sharpest edges first
+ * within the sample budget of the region, are sampled again on a grid within the pixel with
+ * {@link #testSample(double, double)}, and the samples are stored in the
+ * {@link IterationField} so that a pixel is colored by the average of its samples whenever the
+ * field is colored. Smooth areas of the image are never sampled again.
  *
  * @author Scott Gigawatt
  *
@@ -16,6 +45,62 @@ public abstract class AbstractComplexSet implements Set {
   /** The escape threshold for testing points. */
   public static final double THRESHOLD = 4.0;
 
+  /** Represents rendering every pixel in raster order. */
+  public static final int RENDER_RASTER = 0;
+
+  /**
+   * Represents rendering by Mariani-Silver subdivision: only the border of a rectangle is
+   * calculated, and its interior is filled if the whole border has the same iterations and color.
+   */
+  public static final int RENDER_SUBDIVISION = RENDER_RASTER + 1;
+
+  /**
+   * Represents rendering by solid guessing: a coarse grid of pixels is calculated first, and each
+   * finer pass only calculates the pixels whose surrounding pixels disagree, guessing the rest. The
+   * result is not exact, but deep views come back in a fraction of the time.
+   */
+  public static final int RENDER_GUESSING = RENDER_SUBDIVISION + 1;
+
+  /** Masks an RGB value to the bits stored by an RGB image buffer. */
+  protected static final int RGB_MASK = 0xFFFFFF;
+
+  /** The largest rectangle, in pixels across, whose interior is calculated instead of divided. */
+  private static final int MIN_SUBDIVISION = 6;
+
+  /** The distance between the pixels of the coarsest pass of solid guessing, a power of two. */
+  private static final int GUESS_STEP = 8;
+
+  /**
+   * The sum of the differences of the red, green and blue channels between the colors of adjacent
+   * pixels beyond which both pixels are supersampled.
+   */
+  private static final int EDGE_CONTRAST = 64;
+
+  /** The largest difference between two colors, as measured for {@link #EDGE_CONTRAST}. */
+  private static final int MAX_CONTRAST = 3 * 0xFF;
+
+  /**
+   * The squared magnitude beyond which the extra iterations of an escaped Mandelbrot point stop,
+   * so that raising it to a high power cannot overflow.
+   */
+  private static final double MU_LIMIT = 1.0e32;
+
+  /**
+   * The magnitude of the derivative of an orbit, in units of the reciprocal of the pixel size,
+   * beyond which a point which has not escaped is taken to lie on the boundary of the set. The
+   * estimated distance of such a point after it escaped would be well below a tenth of a pixel.
+   */
+  private static final double DERIVATIVE_LIMIT = 64.0;
+
+  /** The number of entries of the smoothing table per unit of squared magnitude. */
+  private static final int SMOOTHING_SCALE = 256;
+
+  /**
+   * The exponential smoothing term, e^-|z|, of each squared magnitude from zero to the escape
+   * threshold, in steps of 1 / {@link #SMOOTHING_SCALE}.
+   */
+  private static final float[] SMOOTHING = createSmoothing();
+
   /** The minimum point of the region for the set. */
   private ComplexNumber min;
 
@@ -31,6 +116,87 @@ public abstract class AbstractComplexSet implements Set {
   /** The maximum number of iterations to perform. */
   private int maxIt;
 
+  /** The power to which the set is raised. */
+  private int power;
+
+  /** The math context for performing precision calculations. */
+  private MathContext mc;
+
+  /** The strategy used to render the pixels of the image. */
+  private int renderMode;
+
+  /** The point on which the set being generated is based, can be null. */
+  private ComplexNumber basis;
+
+  /** The real portion of the first pixel. */
+  private double xMin;
+
+  /** The imaginary coefficient of the first pixel. */
+  private double yMin;
+
+  /** The distance between the real portions of adjacent pixels. */
+  private double dx;
+
+  /** The distance between the imaginary coefficients of adjacent pixels. */
+  private double dy;
+
+  /** The real portion of the first pixel, for precision calculations. */
+  private BigDecimal pxMin;
+
+  /** The imaginary coefficient of the first pixel, for precision calculations. */
+  private BigDecimal pyMin;
+
+  /** The distance between the real portions of adjacent pixels, for precision calculations. */
+  private BigDecimal pdx;
+
+  /**
+   * The distance between the imaginary coefficients of adjacent pixels, for precision
+   * calculations.
+   */
+  private BigDecimal pdy;
+
+  /** The number of iterations of each pixel calculated while subdividing. */
+  private int[] iterations;
+
+  /** The number of iterations taken to escape by the last point tested. */
+  private int count;
+
+  /** The smooth escape value of the last point tested. */
+  private float mu;
+
+  /** The magnitude of the last point tested when it escaped. */
+  private float magnitude;
+
+  /** True if the last point tested belongs to a Mandelbrot set. */
+  private boolean mandelbrot;
+
+  /** The estimated distance of the last point tested from the boundary of the set, in pixels. */
+  private float distance;
+
+  /** True if the distance of each pixel from the boundary of the set is estimated. */
+  private boolean distanceEstimation;
+
+  /** The distance between the real portions of adjacent pixels, used to scale distances. */
+  private double pixelSize;
+
+  /** The trap which the orbit of each pixel is measured against, null for none. */
+  private OrbitTrap trap;
+
+  /** The smallest distance of the orbit of the last point tested from the trap, in radii. */
+  private float trapDistance;
+
+  /** The number of samples across each side of a supersampled pixel, one or less for none. */
+  private int supersampling;
+
+  /** The largest number of additional samples per pixel, on average. */
+  private double sampleBudget;
+
+  /** The column of the origin of the complex plane, in pixels. */
+  private double originColumn;
+
+  /** The row of the origin of the complex plane, in pixels. */
+  private double originRow;
+
   /**
    * Creates a new {@link AbstractComplexSet} based on the specified {@link Region}.
    *
@@ -41,8 +207,21 @@ public abstract class AbstractComplexSet implements Set {
     this.max = region.getMax();
     this.precision = region.isPrecise();
     this.maxIt = region.getMaxIt();
+    this.power = region.getPower();
+    this.renderMode = region.getRenderMode();
+    this.mc = (region.getPrecisionBits() > 0)
+        ? new MathContext(region.getPrecisionBits(), RoundingMode.HALF_EVEN)
+        : MathContext.DECIMAL128;
     this.image = new Image(region.getWidth(), region.getHeight(), region.getId(), region.getX(),
         region.getY());
+    this.distanceEstimation = region.isDistanceEstimation();
+    this.pixelSize =
+        max.getPreciseX().subtract(min.getPreciseX()).doubleValue() / region.getWidth();
+    this.trap = region.getTrap();
+    this.supersampling = region.getSupersampling();
+    this.sampleBudget = region.getSampleBudget();
+    image.getField().setDistanceEstimation(distanceEstimation);
+    image.getField().setTrapped(trap != null);
   }
 
   /**
@@ -51,11 +230,16 @@ public abstract class AbstractComplexSet implements Set {
    * @param basisPoint The point on which to base the set, can be null.
    */
   public void generate(ComplexNumber basisPoint) {
+    basis = basisPoint;
+
     if (!precision) {
-      doubleSet(basisPoint);
+      doubleSet();
     } else {
-      precisionSet(basisPoint);
+      precisionSet();
     }
+
+    render();
+    color(basisPoint == null);
   }
 
   /**
@@ -85,6 +269,33 @@ public abstract class AbstractComplexSet implements Set {
     this.maxIt = maxIt;
   }
 
+  /**
+   * Returns the strategy used to render the pixels of the image.
+   *
+   * @return The render mode.
+   */
+  protected int getRenderMode() {
+    return renderMode;
+  }
+
+  /**
+   * Returns the lower bound of the region for the set.
+   *
+   * @return The lower bound of the region for the set.
+   */
+  protected ComplexNumber getMin() {
+    return min;
+  }
+
+  /**
+   * Returns the upper bound of the region for the set.
+   *
+   * @return The upper bound of the region for the set.
+   */
+  protected ComplexNumber getMax() {
+    return max;
+  }
+
   /**
    * Gets the current image.
    *
@@ -94,6 +305,13 @@ public abstract class AbstractComplexSet implements Set {
     return image;
   }
 
+  /**
+   * Returns the {@link ColoringAlgorithm} with which the image is colored.
+   *
+   * @return The {@link ColoringAlgorithm} of the set.
+   */
+  protected abstract ColoringAlgorithm getColoringAlgorithm();
+
   /**
    * Determines whether or not a point is in the set by iterating over a function.
    *
@@ -105,56 +323,845 @@ public abstract class AbstractComplexSet implements Set {
   public abstract int testPoint(ComplexNumber z, ComplexNumber c);
 
   /**
-   * Computes a color value for each pixel representing a point within the set.
+   * Determines whether or not the point with the specified coordinates is in the set, recording its
+   * raw values. The default implementation wraps the coordinates in a {@link ComplexNumber}; sets
+   * which iterate on primitive values should override this method to avoid the allocation.
+   *
+   * @param x The real portion of the point to test for set inclusion.
+   * @param y The imaginary coefficient of the point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
    *
-   * @param c The point on which to base the set, can be null.
+   * @return The number of iterations taken to escape.
    */
-  private void doubleSet(ComplexNumber c) {
-    double xMin = min.getX();
-    double yMin = min.getY();
-    double xMax = max.getX();
-    double yMax = max.getY();
-    double dx = (xMax - xMin) / image.getWidth();
-    double dy = (yMax - yMin) / image.getHeight();
-    ComplexNumber z = new ComplexNumber(xMin, yMin);
+  protected int testPoint(double x, double y, ComplexNumber c) {
+    testPoint(new ComplexNumber(x, y), c);
 
-    // Loop through the pixels.
-    for (int i = 0; i < image.getHeight(); z.translate(0.0, dy), ++i) {
-      z.setX(xMin);
-      for (int j = 0; j < image.getWidth(); z.translate(dx, 0.0), ++j) {
-        // For each pixel, call testPoint() to determine a value,
-        // then map that value to a color and set it in the image.
-        image.getImage().setRGB(j, i, testPoint(z, c));
+    return count;
+  }
+
+  /**
+   * Returns the number of iterations performed by the last call to
+   * {@link #testPoint(double, double, ComplexNumber)} or {@link #testPixel(int, int)}, so that
+   * rendering strategies can tell iteration bands apart. Sets which do not record their iterations
+   * return zero, and their pixels are compared by color alone.
+   *
+   * @return The number of iterations performed for the last point tested.
+   */
+  protected int getIterations() {
+    return 0;
+  }
+
+  /**
+   * Records the raw values of a point which has finished iterating, so that they can be stored
+   * with {@link #store(int)} and colored with {@link #getColor()}. Every set calls this method
+   * once for each point it tests.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point which was added in each iteration.
+   * @param cy The imaginary coefficient of the point which was added in each iteration.
+   * @param iterations The number of iterations taken to escape, maxIt - 1 if it did not escape.
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  protected int escape(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot) {
+    return escape(zx, zy, cx, cy, iterations, isMandelbrot, 0.0);
+  }
+
+  /**
+   * Records the raw values of a point which has finished iterating, as
+   * {@link #escape(double, double, double, double, int, boolean)} does. The smooth escape value of
+   * a Julia point is the exponential smoothing sum of its whole orbit, which the set accumulates
+   * with {@link #getSmoothingTerm(double)} while it iterates the point, so that the orbit is never
+   * iterated twice.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point which was added in each iteration.
+   * @param cy The imaginary coefficient of the point which was added in each iteration.
+   * @param iterations The number of iterations taken to escape, maxIt - 1 if it did not escape.
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param orbitSum The sum of the smoothing terms of the orbit of a Julia point before it escaped,
+   *        ignored for a Mandelbrot point.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  protected int escape(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot, double orbitSum) {
+    count = iterations;
+    mu = isMandelbrot ? getMu(zx, zy, cx, cy, iterations, maxIt, true, power)
+        : getJuliaMu((zx * zx) + (zy * zy), orbitSum);
+    magnitude = (float) Math.sqrt((zx * zx) + (zy * zy));
+    mandelbrot = isMandelbrot;
+    distance = Float.POSITIVE_INFINITY;
+    trapDistance = Float.POSITIVE_INFINITY;
+
+    return iterations;
+  }
+
+  /**
+   * Returns the trap which the orbit of each pixel is measured against.
+   *
+   * @return The {@link OrbitTrap}, null for none.
+   */
+  protected OrbitTrap getTrap() {
+    return trap;
+  }
+
+  /**
+   * Records the smallest distance of the orbit of the point which has just finished iterating from
+   * the trap. The raw values of the point must have been recorded with
+   * {@link #escape(double, double, double, double, int, boolean, double)} first.
+   *
+   * @param squaredDistance The smallest squared distance of the orbit from the trap.
+   */
+  protected void recordTrap(double squaredDistance) {
+    if (trap != null) {
+      trapDistance = (float) (Math.sqrt(squaredDistance) / trap.getRadius());
+    }
+  }
+
+  /**
+   * Returns true if the distance of each pixel from the boundary of the set is estimated.
+   *
+   * @return True if distances are estimated, false otherwise.
+   */
+  protected boolean isDistanceEstimation() {
+    return distanceEstimation;
+  }
+
+  /**
+   * Returns the squared magnitude of the derivative of an orbit beyond which a point which has not
+   * escaped is taken to lie on the boundary of the set, see {@link #DERIVATIVE_LIMIT}.
+   *
+   * @return The squared limit of the derivative.
+   */
+  protected double getDerivativeLimit() {
+    double limit = DERIVATIVE_LIMIT / pixelSize;
+
+    return limit * limit;
+  }
+
+  /**
+   * Records the estimated distance from the boundary of the set of the point which has just
+   * escaped, 0.5 |z| ln|z| / |dz|, in pixels. The raw values of the point must have been recorded
+   * with {@link #escape(double, double, double, double, int, boolean, double)} first.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param dzx The real portion of the derivative of the orbit when it escaped.
+   * @param dzy The imaginary coefficient of the derivative of the orbit when it escaped.
+   */
+  protected void estimateDistance(double zx, double zy, double dzx, double dzy) {
+    double mag = (zx * zx) + (zy * zy);
+
+    // |z| ln|z| = 0.5 sqrt(m) ln(m) for the squared magnitude m.
+    distance = (float) (0.25 * Math.sqrt(mag) * Math.log(mag)
+        / (Math.sqrt((dzx * dzx) + (dzy * dzy)) * pixelSize));
+  }
+
+  /**
+   * Records the raw values of a point whose derivative grew beyond {@link #getDerivativeLimit()}
+   * before it escaped. The point is colored as a point which did not escape, with no distance from
+   * the boundary, and the iterations it did not perform are recorded in the statistics.
+   *
+   * @param zx The real portion of the point when it stopped.
+   * @param zy The imaginary coefficient of the point when it stopped.
+   * @param cx The real portion of the point which was added in each iteration.
+   * @param cy The imaginary coefficient of the point which was added in each iteration.
+   * @param iterations The number of iterations performed.
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param orbitSum The sum of the smoothing terms of the orbit of a Julia point.
+   *
+   * @return The number of iterations recorded, maxIt - 1.
+   */
+  protected int reachBoundary(double zx, double zy, double cx, double cy, int iterations,
+      boolean isMandelbrot, double orbitSum) {
+    image.getStatistics().addBoundaryPoint(maxIt - 1 - iterations);
+    escape(zx, zy, cx, cy, maxIt - 1, isMandelbrot, orbitSum);
+    distance = 0.0f;
+
+    return maxIt - 1;
+  }
+
+  /**
+   * Returns the exponential smoothing term, e^-|z|, of a point of the orbit of a Julia point. Terms
+   * of points within the escape threshold, which are added on every iteration, are looked up in a
+   * shared table rather than calculated.
+   *
+   * @param magnitude The squared magnitude of the point.
+   *
+   * @return The smoothing term of the point.
+   */
+  protected static double getSmoothingTerm(double magnitude) {
+    if (magnitude > THRESHOLD) {
+      return Math.exp(-Math.sqrt(magnitude));
+    }
+
+    return SMOOTHING[(int) ((magnitude * SMOOTHING_SCALE) + 0.5)];
+  }
+
+  /**
+   * Computes the smooth escape value of a point. For a Mandelbrot point, this is the continuous
+   * number of iterations taken to escape. For a Julia point, it is the exponential smoothing term
+   * of the point which escaped; the terms of the rest of its orbit are accumulated by the set as it
+   * iterates, see {@link #escape(double, double, double, double, int, boolean, double)}. The extra
+   * iterations are done here, as the point finishes iterating, so that coloring only has to look
+   * the value up in a palette.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point which was added in each iteration.
+   * @param cy The imaginary coefficient of the point which was added in each iteration.
+   * @param iterations The number of iterations taken to "escape".
+   * @param maxIt The maximum number of iterations.
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The smooth escape value of the point, NaN for a Julia point which did not escape.
+   */
+  public static float getMu(double zx, double zy, double cx, double cy, int iterations, int maxIt,
+      boolean isMandelbrot) {
+    return getMu(zx, zy, cx, cy, iterations, maxIt, isMandelbrot, 2);
+  }
+
+  /**
+   * Computes the smooth escape value of a point of a set raised to the specified power, as
+   * {@link #getMu(double, double, double, double, int, int, boolean)} does. The magnitude of an
+   * escaping point is raised to the power on every iteration, so the continuous number of
+   * iterations of a Mandelbrot point takes the double logarithm of its magnitude to the base of
+   * the power.
+   *
+   * @param zx The real portion of the point when it "escaped".
+   * @param zy The imaginary coefficient of the point when it "escaped".
+   * @param cx The real portion of the point which was added in each iteration.
+   * @param cy The imaginary coefficient of the point which was added in each iteration.
+   * @param iterations The number of iterations taken to "escape".
+   * @param maxIt The maximum number of iterations.
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param power The power to which the set is raised.
+   *
+   * @return The smooth escape value of the point, NaN for a Julia point which did not escape.
+   */
+  public static float getMu(double zx, double zy, double cx, double cy, int iterations, int maxIt,
+      boolean isMandelbrot, int power) {
+    double tmp;
+
+    if (isMandelbrot) {
+      int top = Integer.highestOneBit(power);
+
+      // Extra iterations to reduce the error in mu, which stop early at high powers.
+      for (int i = 0; i < 3 && (zx * zx) + (zy * zy) < MU_LIMIT; ++i, ++iterations) {
+        double bx = zx;
+        double by = zy;
+
+        for (int bit = top >> 1; bit != 0; bit >>= 1) {
+          tmp = (zx * zx) - (zy * zy);
+          zy = (zy * zx) + (zx * zy);
+          zx = tmp;
+
+          if ((power & bit) != 0) {
+            tmp = (zx * bx) - (zy * by);
+            zy = (zy * bx) + (zx * by);
+            zx = tmp;
+          }
+        }
+
+        zx += cx;
+        zy += cy;
       }
+
+      double mag = Math.sqrt((zx * zx) + (zy * zy));
+
+      return (float) (iterations - (Math.log(Math.log(mag)) / Math.log(power)));
+    }
+
+    return getJuliaMu((zx * zx) + (zy * zy), 0.0);
+  }
+
+  /**
+   * Computes the smooth escape value of a Julia point from the smoothing sum of its orbit before it
+   * escaped.
+   *
+   * @param magnitude The squared magnitude of the point when it "escaped".
+   * @param orbitSum The sum of the smoothing terms of the orbit before the point escaped.
+   *
+   * @return The smooth escape value of the point, NaN if it did not escape.
+   */
+  private static float getJuliaMu(double magnitude, double orbitSum) {
+    if (magnitude <= THRESHOLD) {
+      return Float.NaN;
     }
+
+    return (float) (orbitSum + getSmoothingTerm(magnitude));
   }
 
   /**
-   * Computes a color value for each pixel representing a point within the set using
-   * {@link BigDecimal}s.
+   * Creates the table of the smoothing terms of the squared magnitudes up to the escape threshold.
    *
-   * @param c The point on which to base the set, can be null.
+   * @return The smoothing terms.
    */
-  private void precisionSet(ComplexNumber c) {
-    BigDecimal xMin = min.getPx();
-    BigDecimal yMin = min.getPy();
-    BigDecimal xMax = max.getPx();
-    BigDecimal yMax = max.getPy();
-    BigDecimal zero = new BigDecimal(0.0);
-    BigDecimal w = new BigDecimal(image.getWidth() + 0.0);
-    BigDecimal h = new BigDecimal(image.getHeight() + 0.0);
-    BigDecimal dx = xMax.subtract(xMin).divide(w);
-    BigDecimal dy = yMax.subtract(yMin).divide(h);
-    ComplexNumber z = new ComplexNumber(xMin, yMin);
+  private static float[] createSmoothing() {
+    float[] terms = new float[((int) THRESHOLD * SMOOTHING_SCALE) + 1];
+
+    for (int i = 0; i < terms.length; ++i) {
+      terms[i] = (float) Math.exp(-Math.sqrt((double) i / SMOOTHING_SCALE));
+    }
+
+    return terms;
+  }
+
+  /**
+   * Stores the raw values of the last point tested in the {@link IterationField} of the image.
+   *
+   * @param index The index of the pixel, in row-major order.
+   */
+  protected void store(int index) {
+    store(image.getField(), index);
+  }
+
+  /**
+   * Stores the raw values of the last point tested in the specified {@link IterationField}.
+   *
+   * @param field The field, the field of the image or the field of its samples.
+   * @param index The index of the pixel or sample.
+   */
+  private void store(IterationField field, int index) {
+    field.set(index, count, mu, magnitude);
+
+    if (distanceEstimation) {
+      field.setDistance(index, distance);
+    }
+
+    if (trap != null) {
+      field.setTrapDistance(index, trapDistance);
+    }
+  }
+
+  /**
+   * Returns the color of the last point tested, from the distance of its orbit from the trap if it
+   * is colored by an {@link OrbitTrapColoringAlgorithm}.
+   *
+   * @return The RGB value of the color for the point.
+   */
+  protected int getColor() {
+    ColoringAlgorithm colorAlg = getColoringAlgorithm();
+
+    if (trap != null && colorAlg instanceof OrbitTrapColoringAlgorithm) {
+      return ((OrbitTrapColoringAlgorithm) colorAlg).getTrapColor(trapDistance, 0);
+    }
+
+    return colorAlg.getColor(count, mu, magnitude, mandelbrot);
+  }
+
+  /**
+   * Colors the pixels of the image from its {@link IterationField}. A
+   * {@link HistogramColoringAlgorithm} is replaced by one created with the histogram of the image.
+   * If the region supersamples, the pixels on the edges of the colored image are then sampled
+   * again and the image is colored with their samples.
+   *
+   * @param isMandelbrot True if the set is a Mandelbrot set, false for a Julia set.
+   */
+  protected void color(boolean isMandelbrot) {
+    IterationField field = image.getField();
+    ColoringAlgorithm colorAlg = getColoringAlgorithm();
+
+    field.setMandelbrot(isMandelbrot);
+    field.setMaxIt(maxIt);
+
+    if (colorAlg instanceof HistogramColoringAlgorithm) {
+      colorAlg = new HistogramColoringAlgorithm(maxIt, field.getHistogram());
+    }
+
+    field.color(colorAlg, image.getPixels());
+
+    if (supersampling > 1 && supersample()) {
+      field.color(colorAlg, image.getPixels());
+    }
+  }
+
+  /**
+   * Samples every pixel on an edge of the colored image again on a grid of
+   * {@link #supersampling} by {@link #supersampling} points spread evenly over the pixel. The
+   * center of the grid of an odd size is the point of the first pass, which is not sampled again.
+   * The refined pixels and the cost of their samples, in iterations relative to those of the first
+   * pass, are recorded in the statistics of the image.
+   *
+   * @return True if any pixel was supersampled, false otherwise.
+   */
+  private boolean supersample() {
+    IterationField field = image.getField();
+    int width = image.getWidth();
+    int pixels = width * image.getHeight();
+    int size = supersampling;
+    int center = ((size & 1) != 0) ? size / 2 : -1;
+    int perPixel = (size * size) - ((center >= 0) ? 1 : 0);
+    int[] refined = findEdges((int) Math.min(pixels, sampleBudget * pixels / perPixel));
+    long pixelIterations = 0;
+    long sampleIterations = 0;
+    int sample = 0;
+
+    if (refined.length == 0) {
+      return false;
+    }
+
+    field.setSupersampling(refined, perPixel);
+
+    IterationField samples = field.getSamples();
+
+    for (int index : refined) {
+      for (int i = 0; i < size; ++i) {
+        for (int j = 0; j < size; ++j) {
+          if (i != center || j != center) {
+            testSample((index % width) + ((j + 0.5) / size) - 0.5,
+                (index / width) + ((i + 0.5) / size) - 0.5);
+            store(samples, sample++);
+            sampleIterations += count + 1;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < pixels; ++i) {
+      pixelIterations += field.getCount(i) + 1;
+    }
+
+    image.getStatistics().addRefinedPixels(refined.length, sample, pixelIterations,
+        sampleIterations);
+
+    return true;
+  }
+
+  /**
+   * Returns the indices of the pixels whose colors differ from the color of any of the four
+   * pixels beside them by more than {@link #EDGE_CONTRAST}. If there are more such pixels than the
+   * specified limit, those with the sharpest edges are returned, found from a histogram of the
+   * contrasts so that the pixels are never sorted; pixels tied at the lowest contrast returned are
+   * taken in raster order.
+   *
+   * @param limit The largest number of pixels to return.
+   *
+   * @return The indices of the pixels on edges, in ascending order.
+   */
+  private int[] findEdges(int limit) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] pixels = image.getPixels();
+    int[] contrasts = new int[width * height];
+    int[] histogram = new int[MAX_CONTRAST + 1];
+    int threshold = MAX_CONTRAST;
+    int count = 0;
+
+    for (int i = 0; i < height; ++i) {
+      for (int j = 0; j < width; ++j) {
+        int index = (i * width) + j;
+        int color = pixels[index];
+        int contrast = 0;
+
+        contrast = (j > 0) ? getContrast(color, pixels[index - 1]) : contrast;
+        contrast = (j < width - 1) ? Math.max(contrast, getContrast(color, pixels[index + 1]))
+            : contrast;
+        contrast = (i > 0) ? Math.max(contrast, getContrast(color, pixels[index - width]))
+            : contrast;
+        contrast = (i < height - 1)
+            ? Math.max(contrast, getContrast(color, pixels[index + width])) : contrast;
+        contrasts[index] = contrast;
+        ++histogram[contrast];
+      }
+    }
+
+    // Every pixel sharper than the threshold is taken, and as many as fit at the threshold.
+    while (threshold > EDGE_CONTRAST && count + histogram[threshold] <= limit) {
+      count += histogram[threshold--];
+    }
+
+    int ties = (threshold > EDGE_CONTRAST) ? limit - count : 0;
+    int[] edges = new int[count + ties];
+
+    count = 0;
+
+    for (int i = 0; i < contrasts.length; ++i) {
+      if (contrasts[i] > threshold || (contrasts[i] == threshold && ties-- > 0)) {
+        edges[count++] = i;
+      }
+    }
+
+    return edges;
+  }
+
+  /**
+   * Returns the sum of the differences of the red, green and blue channels between the specified
+   * colors.
+   *
+   * @param color The RGB value of one pixel.
+   * @param other The RGB value of the other pixel.
+   *
+   * @return The contrast between the colors, from zero to {@link #MAX_CONTRAST}.
+   */
+  private static int getContrast(int color, int other) {
+    return Math.abs(((color >> 16) & 0xFF) - ((other >> 16) & 0xFF))
+        + Math.abs(((color >> 8) & 0xFF) - ((other >> 8) & 0xFF))
+        + Math.abs((color & 0xFF) - (other & 0xFF));
+  }
+
+  /**
+   * Tests the point at the specified fractional column and row of the image, recording its raw
+   * values as {@link #testPixel(int, int)} does. Sets which override
+   * {@link #generate(ComplexNumber)} should override this method to sample with their own
+   * representations.
+   *
+   * @param column The column of the point, within half a pixel of the column of a pixel.
+   * @param row The row of the point, within half a pixel of the row of a pixel.
+   */
+  protected void testSample(double column, double row) {
+    if (!precision) {
+      testPoint(xMin + (column * dx), yMin + (row * dy), basis);
+    } else {
+      testPoint(getSamplePoint(column, row), basis);
+    }
+  }
+
+  /**
+   * Returns the point at the specified fractional column and row of the image, with increased
+   * precision.
+   *
+   * @param column The column of the point.
+   * @param row The row of the point.
+   *
+   * @return The point.
+   */
+  protected ComplexNumber getSamplePoint(double column, double row) {
+    BigDecimal x = min.getPreciseX();
+    BigDecimal y = min.getPreciseY();
+    BigDecimal width = max.getPreciseX().subtract(x, mc);
+    BigDecimal height = max.getPreciseY().subtract(y, mc);
+
+    return new ComplexNumber(
+        x.add(width.multiply(new BigDecimal(column / image.getWidth()), mc), mc),
+        y.add(height.multiply(new BigDecimal(row / image.getHeight()), mc), mc));
+  }
+
+  /**
+   * Tests the pixel in the specified column and row of the image, recording its raw values with
+   * {@link #escape(double, double, double, double, int, boolean)}. Sets which override
+   * {@link #generate(ComplexNumber)} to iterate on other representations should prepare them,
+   * override this method, and then call {@link #render()} and {@link #color(boolean)}.
+   *
+   * @param column The column of the pixel.
+   * @param row The row of the pixel.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  protected int testPixel(int column, int row) {
+    if (!precision) {
+      return testPoint(xMin + (column * dx), yMin + (row * dy), basis);
+    }
+
+    testPoint(new ComplexNumber(pxMin.add(pdx.multiply(new BigDecimal(column), mc), mc),
+        pyMin.add(pdy.multiply(new BigDecimal(row), mc), mc)), basis);
+
+    return count;
+  }
+
+  /** Computes the raw values of each pixel with the rendering strategy of the {@link Region}. */
+  protected void render() {
+    if (renderMode == RENDER_SUBDIVISION) {
+      subdivisionSet();
+    } else if (renderMode == RENDER_GUESSING) {
+      guessingSet();
+    } else {
+      rasterSet();
+    }
+  }
+
+  /** Prepares the distances between pixels for calculations with {@link Double doubles}. */
+  private void doubleSet() {
+    xMin = min.getX();
+    yMin = min.getY();
+    dx = (max.getX() - xMin) / image.getWidth();
+    dy = (max.getY() - yMin) / image.getHeight();
+  }
+
+  /** Prepares the distances between pixels for calculations with {@link BigDecimal}s. */
+  private void precisionSet() {
+    BigDecimal w = new BigDecimal(image.getWidth());
+    BigDecimal h = new BigDecimal(image.getHeight());
+
+    pxMin = min.getPreciseX();
+    pyMin = min.getPreciseY();
+    pdx = max.getPreciseX().subtract(pxMin, mc).divide(w, mc);
+    pdy = max.getPreciseY().subtract(pyMin, mc).divide(h, mc);
+  }
+
+  /** Computes the raw values of every pixel in raster order. */
+  private void rasterSet() {
+    int width = image.getWidth();
+    int height = image.getHeight();
 
     // Loop through the pixels.
-    for (int i = 0; i < image.getHeight(); z.pTranslate(zero, dy), ++i) {
-      z.setPx(xMin);
-      for (int j = 0; j < image.getWidth(); z.pTranslate(dx, zero), ++j) {
-        // For each pixel, call testPoint() to determine a value,
-        // then map that value to a color and set it in the image.
-        image.getImage().setRGB(j, i, testPoint(z, c));
+    for (int i = 0; i < height; ++i) {
+      for (int j = 0; j < width; ++j) {
+        // For each pixel, call testPixel() to determine its values,
+        // then store them in the iteration field of the image.
+        testPixel(j, i);
+        store((i * width) + j);
+      }
+    }
+  }
+
+  /**
+   * Computes a color value for each pixel by Mariani-Silver subdivision. The border of the image is
+   * calculated first, then each rectangle whose border has a single number of iterations and a
+   * single color is filled, and any other rectangle is split in two along its longer side.
+   * <p>
+   * Filling relies on the points which take longer to escape forming a connected area around the
+   * origin, so that such points cannot hide inside a uniform border. That area may lie entirely
+   * inside a rectangle which contains the origin, so such rectangles are never filled.
+   */
+  private void subdivisionSet() {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    BigDecimal xMin = min.getPreciseX();
+    BigDecimal yMin = min.getPreciseY();
+
+    iterations = new int[width * height];
+    originColumn = -xMin.doubleValue() / max.getPreciseX().subtract(xMin).doubleValue() * width;
+    originRow = -yMin.doubleValue() / max.getPreciseY().subtract(yMin).doubleValue() * height;
+
+    for (int j = 0; j < width; ++j) {
+      calculatePixel(j, 0);
+      calculatePixel(j, height - 1);
+    }
+
+    for (int i = 1; i < height - 1; ++i) {
+      calculatePixel(0, i);
+      calculatePixel(width - 1, i);
+    }
+
+    subdivide(0, 0, width - 1, height - 1);
+    iterations = null;
+  }
+
+  /**
+   * Fills or divides the rectangle with the specified corners, whose border has been calculated.
+   *
+   * @param x0 The column of the left border.
+   * @param y0 The row of the top border.
+   * @param x1 The column of the right border.
+   * @param y1 The row of the bottom border.
+   */
+  private void subdivide(int x0, int y0, int x1, int y1) {
+    int width = image.getWidth();
+    int[] pixels = image.getPixels();
+
+    if (x1 - x0 < 2 || y1 - y0 < 2) {
+      return;
+    }
+
+    if (!containsOrigin(x0, y0, x1, y1) && isUniform(x0, y0, x1, y1)) {
+      int corner = (y0 * width) + x0;
+
+      for (int i = y0 + 1; i < y1; ++i) {
+        for (int j = x0 + 1; j < x1; ++j) {
+          pixels[(i * width) + j] = pixels[corner];
+          image.getField().copy(corner, (i * width) + j);
+        }
+      }
+
+      image.getStatistics().addFilledPixels((x1 - x0 - 1) * (y1 - y0 - 1));
+    } else if (x1 - x0 <= MIN_SUBDIVISION && y1 - y0 <= MIN_SUBDIVISION) {
+      for (int i = y0 + 1; i < y1; ++i) {
+        for (int j = x0 + 1; j < x1; ++j) {
+          testPixel(j, i);
+          store((i * width) + j);
+        }
+      }
+    } else if (x1 - x0 >= y1 - y0) {
+      int mid = (x0 + x1) >>> 1;
+
+      for (int i = y0 + 1; i < y1; ++i) {
+        calculatePixel(mid, i);
+      }
+
+      subdivide(x0, y0, mid, y1);
+      subdivide(mid, y0, x1, y1);
+    } else {
+      int mid = (y0 + y1) >>> 1;
+
+      for (int j = x0 + 1; j < x1; ++j) {
+        calculatePixel(j, mid);
+      }
+
+      subdivide(x0, y0, x1, mid);
+      subdivide(x0, mid, x1, y1);
+    }
+  }
+
+  /**
+   * Computes a color value for each pixel by solid guessing. The pixels in every eighth row and
+   * column, and in the last row and column, are calculated first. Each following pass halves the
+   * distance between the pixels: a new pixel is calculated only if the four known pixels around it
+   * differ in iterations or color, and otherwise takes their color.
+   */
+  private void guessingSet() {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int guessed = 0;
+
+    iterations = new int[width * height];
+
+    for (int i = 0; i < height; ++i) {
+      for (int j = 0; j < width; ++j) {
+        if (isOnGrid(j, width, GUESS_STEP) && isOnGrid(i, height, GUESS_STEP)) {
+          calculatePixel(j, i);
+        }
+      }
+    }
+
+    for (int step = GUESS_STEP; step > 1; step >>>= 1) {
+      for (int i = 0; i < height; ++i) {
+        for (int j = 0; j < width; ++j) {
+          if (isOnGrid(j, width, step >>> 1) && isOnGrid(i, height, step >>> 1)
+              && !(isOnGrid(j, width, step) && isOnGrid(i, height, step))) {
+            guessed += guessPixel(j, i, step) ? 1 : 0;
+          }
+        }
+      }
+    }
+
+    image.getStatistics().addFilledPixels(guessed);
+    iterations = null;
+  }
+
+  /**
+   * Returns true if the specified column or row belongs to the grid of pixels with the specified
+   * distance between them. The last column or row always belongs to the grid.
+   *
+   * @param index The column or row.
+   * @param size The width or height of the image.
+   * @param step The distance between the pixels of the grid.
+   *
+   * @return True if the column or row belongs to the grid, false otherwise.
+   */
+  private boolean isOnGrid(int index, int size, int step) {
+    return index % step == 0 || index == size - 1;
+  }
+
+  /**
+   * Guesses the color of the pixel in the specified column and row from the four pixels around it
+   * on the grid with the specified distance between pixels, calculating it if they differ.
+   *
+   * @param column The column of the pixel.
+   * @param row The row of the pixel.
+   * @param step The distance between the pixels of the known grid.
+   *
+   * @return True if the pixel was guessed, false if it was calculated.
+   */
+  private boolean guessPixel(int column, int row, int step) {
+    int width = image.getWidth();
+    int[] pixels = image.getPixels();
+    int x0 = column - (column % step);
+    int y0 = row - (row % step);
+    int x1 = Math.min(x0 + step, width - 1);
+    int y1 = Math.min(y0 + step, image.getHeight() - 1);
+    int corner = (y0 * width) + x0;
+    int index = (row * width) + column;
+
+    if (isSame(x1, y0, pixels[corner], iterations[corner])
+        && isSame(x0, y1, pixels[corner], iterations[corner])
+        && isSame(x1, y1, pixels[corner], iterations[corner])) {
+      pixels[index] = pixels[corner];
+      iterations[index] = iterations[corner];
+      image.getField().copy(corner, index);
+
+      return true;
+    }
+
+    calculatePixel(column, row);
+
+    return false;
+  }
+
+  /**
+   * Returns true if the rectangle with the specified corners contains the origin of the complex
+   * plane.
+   *
+   * @param x0 The column of the left border.
+   * @param y0 The row of the top border.
+   * @param x1 The column of the right border.
+   * @param y1 The row of the bottom border.
+   *
+   * @return True if the rectangle contains the origin, false otherwise.
+   */
+  private boolean containsOrigin(int x0, int y0, int x1, int y1) {
+    return x0 <= originColumn && originColumn <= x1 && y0 <= originRow && originRow <= y1;
+  }
+
+  /**
+   * Returns true if every pixel on the border of the rectangle with the specified corners has the
+   * same number of iterations and the same color.
+   *
+   * @param x0 The column of the left border.
+   * @param y0 The row of the top border.
+   * @param x1 The column of the right border.
+   * @param y1 The row of the bottom border.
+   *
+   * @return True if the border is uniform, false otherwise.
+   */
+  private boolean isUniform(int x0, int y0, int x1, int y1) {
+    int width = image.getWidth();
+    int[] pixels = image.getPixels();
+    int index = (y0 * width) + x0;
+    int color = pixels[index];
+    int count = iterations[index];
+
+    for (int j = x0; j <= x1; ++j) {
+      if (!isSame(j, y0, color, count) || !isSame(j, y1, color, count)) {
+        return false;
       }
     }
+
+    for (int i = y0 + 1; i < y1; ++i) {
+      if (!isSame(x0, i, color, count) || !isSame(x1, i, color, count)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns true if the pixel in the specified column and row has the specified color and number of
+   * iterations.
+   *
+   * @param column The column of the pixel.
+   * @param row The row of the pixel.
+   * @param color The color.
+   * @param count The number of iterations.
+   *
+   * @return True if the pixel matches, false otherwise.
+   */
+  private boolean isSame(int column, int row, int color, int count) {
+    int index = (row * image.getWidth()) + column;
+
+    return image.getPixels()[index] == color && iterations[index] == count;
+  }
+
+  /**
+   * Calculates the raw values, the color and the number of iterations of the pixel in the specified
+   * column and row. The color is written to the image early so that neighboring pixels can be
+   * compared; the image is colored again from its {@link IterationField} once it is complete.
+   *
+   * @param column The column of the pixel.
+   * @param row The row of the pixel.
+   */
+  private void calculatePixel(int column, int row) {
+    int index = (row * image.getWidth()) + column;
+
+    testPixel(column, row);
+    store(index);
+    image.getPixels()[index] = getColor() & RGB_MASK;
+    iterations[index] = getIterations();
   }
 }
@@ -180,6 +180,26 @@ public class ComplexNumber implements Serializable {
     return py;
   }
 
+  /**
+   * Returns the real component with increased precision. If no increased precision value has been
+   * set, the double value is converted exactly.
+   *
+   * @return The real component with increased precision.
+   */
+  public BigDecimal getPreciseX() {
+    return (px != null) ? px : new BigDecimal(x);
+  }
+
+  /**
+   * Returns the imaginary coefficient with increased precision. If no increased precision value has
+   * been set, the double value is converted exactly.
+   *
+   * @return The imaginary coefficient with increased precision.
+   */
+  public BigDecimal getPreciseY() {
+    return (py != null) ? py : new BigDecimal(y);
+  }
+
   /**
    * Sets the value of the real component.
    *
@@ -2,11 +2,13 @@ package com.fractal.app.algorithms.math;
 
 import com.fractal.app.algorithms.color.BandedColoringAlgorithm;
 import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
 import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
 
 /**
  * This class models and displays a graphical representations of the well known Mandelbrot and Julia
- * sets.
+ * sets. Points are iterated on primitive values, so no objects are allocated while testing a point.
  *
  * @author Scott Gigawatt
  *
@@ -19,6 +21,12 @@ public class ComplexSet extends AbstractComplexSet {
   /** Represents the selection of the {@link SmoothColoringAlgorithm}. */
   private static final int COLOR_ALG_SMOOTH = COLOR_ALG_BANDED + 1;
 
+  /** Represents the selection of the {@link HistogramColoringAlgorithm}. */
+  private static final int COLOR_ALG_HISTOGRAM = COLOR_ALG_SMOOTH + 1;
+
+  /** Represents the selection of the {@link OrbitTrapColoringAlgorithm}. */
+  private static final int COLOR_ALG_TRAP = COLOR_ALG_HISTOGRAM + 1;
+
   /** The maximum number of iterations to perform. */
   private int maxIt;
 
@@ -28,6 +36,15 @@ public class ComplexSet extends AbstractComplexSet {
   /** The algorithm used to choose colors for points within the set. */
   private ColoringAlgorithm colorAlg;
 
+  /** True if points inside the main cardioid and period-2 bulb are detected without iterating. */
+  private boolean interiorCheck = true;
+
+  /** True if points whose orbits enter a cycle stop iterating. */
+  private boolean periodicityCheck = true;
+
+  /** The number of iterations performed for the last point tested, maxIt if it did not escape. */
+  private int iterations;
+
   /**
    * Creates a new {@link AbstractComplexSet} based on the specified {@link Region}.
    *
@@ -51,15 +68,45 @@ public class ComplexSet extends AbstractComplexSet {
    * @return The RGB value of the color for the point.
    */
   public int testPoint(ComplexNumber z, ComplexNumber c) {
-    int color = 0;
+    testPoint(z.getX(), z.getY(), c);
+
+    return getColor();
+  }
 
-    if (c == null) {
-      color = testMandelbrotPoint(z);
+  /**
+   * Tests for point inclusion within the set, based on some point. The iteration is performed on
+   * primitive values so that no objects are allocated while testing the point.
+   *
+   * @param x The real portion of the point to test for set inclusion.
+   * @param y The imaginary coefficient of the point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  @Override
+  protected int testPoint(double x, double y, ComplexNumber c) {
+    int count = 0;
+
+    if (isDistanceEstimation() || getTrap() != null) {
+      count = (c == null) ? testTrackedPoint(0.0, 0.0, x, y, true)
+          : testTrackedPoint(x, y, c.getX(), c.getY(), false);
+    } else if (c == null) {
+      count = testMandelbrotPoint(x, y);
     } else {
-      color = testJuliaPoint(z, c);
+      count = testJuliaPoint(x, y, c.getX(), c.getY());
     }
 
-    return color;
+    return count;
+  }
+
+  /**
+   * Returns the number of iterations performed for the last point tested.
+   *
+   * @return The number of iterations performed, the maximum if the point did not escape.
+   */
+  @Override
+  protected int getIterations() {
+    return iterations;
   }
 
   /**
@@ -72,61 +119,365 @@ public class ComplexSet extends AbstractComplexSet {
   }
 
   /**
-   * The primary method for computing the well known Mandelbrot set. For each point z in the complex
-   * plane, we iterate over z = z^2 + c using complex arithmetic. Iteration halts when the squared
-   * magnitude of z is greater than our threshold or we exceed the maximum number of iterations. The
-   * number of iterations is returned and mapped to a color.
+   * Returns the power to which the set is raised.
+   *
+   * @return The power to which the set is raised.
+   */
+  protected int getPower() {
+    return power;
+  }
+
+  /**
+   * Returns the {@link ColoringAlgorithm} of the set.
    *
-   * @param c The point to test for set inclusion.
+   * @return The {@link ColoringAlgorithm} of the set.
+   */
+  @Override
+  protected ColoringAlgorithm getColoringAlgorithm() {
+    return colorAlg;
+  }
+
+  /**
+   * Returns true if points inside the main cardioid and the period-2 bulb are detected without
+   * iterating them.
    *
-   * @return The RGB value of the color for the point.
+   * @return True if interior points are detected, false otherwise.
+   */
+  protected boolean isInteriorCheck() {
+    return interiorCheck;
+  }
+
+  /**
+   * Returns true if points whose orbits enter a cycle stop iterating.
+   *
+   * @return True if cycles are detected, false otherwise.
    */
-  private int testMandelbrotPoint(ComplexNumber c) {
-    ComplexNumber z = new ComplexNumber(0.0, 0.0);
+  protected boolean isPeriodicityCheck() {
+    return periodicityCheck;
+  }
+
+  /**
+   * Enables or disables detecting points inside the main cardioid and the period-2 bulb of the
+   * power-2 Mandelbrot set without iterating them.
+   *
+   * @param interiorCheck True to detect interior points, false to iterate every point.
+   */
+  public void setInteriorCheck(boolean interiorCheck) {
+    this.interiorCheck = interiorCheck;
+  }
+
+  /**
+   * Enables or disables detecting points whose orbits enter a cycle. Such points never escape, so
+   * they stop iterating as soon as the cycle is found.
+   *
+   * @param periodicityCheck True to detect cycles, false to iterate every point to the maximum.
+   */
+  public void setPeriodicityCheck(boolean periodicityCheck) {
+    this.periodicityCheck = periodicityCheck;
+  }
+
+  /**
+   * Determines whether or not the specified point lies inside the main cardioid or the period-2
+   * bulb of the power-2 Mandelbrot set. Such points never escape, so they need not be iterated.
+   *
+   * @param cx The real portion of the point.
+   * @param cy The imaginary coefficient of the point.
+   *
+   * @return True if the point lies inside the main cardioid or the period-2 bulb.
+   */
+  public static boolean isInterior(double cx, double cy) {
+    double x = cx - 0.25;
+    double y2 = cy * cy;
+    double q = (x * x) + y2;
+
+    // The main cardioid, then the disk of radius 1/4 centered at -1.
+    return (q * (q + x) < 0.25 * y2) || (((cx + 1.0) * (cx + 1.0)) + y2 < 0.0625);
+  }
+
+  /**
+   * The primary method for computing the well known Mandelbrot set. For each point c in the complex
+   * plane, we iterate over z = z^power + c using complex arithmetic. Iteration halts when the
+   * squared magnitude of z is greater than our threshold or we exceed the maximum number of
+   * iterations. The number of iterations is returned and mapped to a color. Iteration also halts
+   * when z returns to an earlier value, as the point is then certain never to escape.
+   *
+   * @param cx The real portion of the point to test for set inclusion.
+   * @param cy The imaginary coefficient of the point to test for set inclusion.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  private int testMandelbrotPoint(double cx, double cy) {
+    double zx = 0.0;
+    double zy = 0.0;
+    double bx = 0.0;
+    double by = 0.0;
+    double tmp = 0.0;
+    int top = Integer.highestOneBit(power);
+
+    if (power == 2 && interiorCheck && isInterior(cx, cy)) {
+      // The color of a point which never escapes does not depend on its final value.
+      iterations = maxIt;
+
+      return escape(zx, zy, cx, cy, maxIt - 1, true);
+    }
+
+    double sx = zx;
+    double sy = zy;
+    int checkpoint = 1;
 
     for (int i = 0; i < maxIt; ++i) {
-      for (int j = 1; j < power; ++j) {
-        z = z.mult(z);
+      bx = zx;
+      by = zy;
+
+      // z^power by squaring for each bit of the power below the highest, multiplying by the
+      // starting value of the iteration for each bit which is set.
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        tmp = (zx * zx) - (zy * zy);
+        zy = (zy * zx) + (zx * zy);
+        zx = tmp;
+
+        if ((power & bit) != 0) {
+          tmp = (zx * bx) - (zy * by);
+          zy = (zy * bx) + (zx * by);
+          zx = tmp;
+        }
       }
 
-      z = z.add(c);
+      zx += cx;
+      zy += cy;
 
-      if (z.mag() > THRESHOLD) {
-        return colorAlg.getColor(z, c, i, true);
+      if ((zx * zx) + (zy * zy) > THRESHOLD) {
+        iterations = i;
+
+        return escape(zx, zy, cx, cy, i, true);
+      }
+
+      if (periodicityCheck) {
+        // An orbit which returns exactly to an earlier value repeats forever, so it never escapes.
+        // Any tolerance would also stop points close to repelling cycles, which do escape.
+        if (zx == sx && zy == sy) {
+          getImage().getStatistics().addPeriodicPoint(maxIt - 1 - i);
+          iterations = maxIt;
+
+          return escape(zx, zy, cx, cy, maxIt - 1, true);
+        }
+
+        // Brent's method: compare against snapshots taken at doubling intervals.
+        if (i == checkpoint) {
+          sx = zx;
+          sy = zy;
+          checkpoint <<= 1;
+        }
       }
     }
 
-    return colorAlg.getColor(z, c, maxIt - 1, true);
+    iterations = maxIt;
+
+    return escape(zx, zy, cx, cy, maxIt - 1, true);
   }
 
   /**
    * The primary method for computing a Julia set. For each point z in the complex plane, we iterate
-   * over z = z^2 + c using complex arithmetic, where c is the Julia point on which the set will be
-   * based. Iteration halts when the squared magnitude of z is greater than our threshold or we
-   * exceed the maximum number of iterations. The number of iterations is returned and mapped to a
-   * color.
+   * over z = z^power + c using complex arithmetic, where c is the Julia point on which the set
+   * will be based. Iteration halts when the squared magnitude of z is greater than our threshold or
+   * we exceed the maximum number of iterations, or when z returns to an earlier value. The number
+   * of iterations is returned and mapped to a color. The exponential smoothing sum of the orbit is
+   * accumulated as it is iterated, so that smooth coloring needs no second pass over the orbit.
    *
-   * @param z The point to test for set inclusion.
-   * @param c The point which serves as a basis for a Julia set.
+   * @param zx The real portion of the point to test for set inclusion.
+   * @param zy The imaginary coefficient of the point to test for set inclusion.
+   * @param cx The real portion of the point which serves as a basis for a Julia set.
+   * @param cy The imaginary coefficient of the point which serves as a basis for a Julia set.
    *
-   * @return The RGB value of the color for the point.
+   * @return The number of iterations taken to escape.
+   */
+  private int testJuliaPoint(double zx, double zy, double cx, double cy) {
+    double bx = 0.0;
+    double by = 0.0;
+    double tmp = 0.0;
+    double mag = (zx * zx) + (zy * zy);
+    double sum = getSmoothingTerm(mag);
+    int top = Integer.highestOneBit(power);
+
+    double sx = zx;
+    double sy = zy;
+    int checkpoint = 1;
+
+    for (int i = 0; i < maxIt; ++i) {
+      bx = zx;
+      by = zy;
+
+      // z^power by squaring for each bit of the power below the highest, multiplying by the
+      // starting value of the iteration for each bit which is set.
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        tmp = (zx * zx) - (zy * zy);
+        zy = (zy * zx) + (zx * zy);
+        zx = tmp;
+
+        if ((power & bit) != 0) {
+          tmp = (zx * bx) - (zy * by);
+          zy = (zy * bx) + (zx * by);
+          zx = tmp;
+        }
+      }
+
+      zx += cx;
+      zy += cy;
+      mag = (zx * zx) + (zy * zy);
+
+      if (mag > THRESHOLD) {
+        iterations = i;
+
+        return escape(zx, zy, cx, cy, i, false, sum);
+      }
+
+      sum += getSmoothingTerm(mag);
+
+      if (periodicityCheck) {
+        // An orbit which returns exactly to an earlier value repeats forever, so it never escapes.
+        // Any tolerance would also stop points close to repelling cycles, which do escape.
+        if (zx == sx && zy == sy) {
+          getImage().getStatistics().addPeriodicPoint(maxIt - 1 - i);
+          iterations = maxIt;
+
+          return escape(zx, zy, cx, cy, maxIt - 1, false, sum);
+        }
+
+        // Brent's method: compare against snapshots taken at doubling intervals.
+        if (i == checkpoint) {
+          sx = zx;
+          sy = zy;
+          checkpoint <<= 1;
+        }
+      }
+    }
+
+    iterations = maxIt;
+
+    return escape(zx, zy, cx, cy, maxIt - 1, false, sum);
+  }
+
+  /**
+   * Computes a Mandelbrot or Julia point as {@link #testMandelbrotPoint(double, double)} and
+   * {@link #testJuliaPoint(double, double, double, double)} do, with the hooks which the plain
+   * iteration does without. When distances are estimated, the derivative of the orbit is tracked,
+   * dz' = power z^(power - 1) dz + 1 with respect to c for a Mandelbrot point, or without the 1
+   * with respect to the starting point for a Julia point; the distance of an escaped point from the
+   * boundary is estimated from it, and a point whose derivative exceeds the limit of the set stops
+   * on the boundary. When a trap is set, every point of the orbit after the first is measured
+   * against it, and interior points are iterated rather than skipped so that they are trapped too.
+   * At the power of two the escape counts match those of the plain iteration exactly; the
+   * derivative at most doubles the work of each iteration.
+   *
+   * @param zx The real portion of the starting point.
+   * @param zy The imaginary coefficient of the starting point.
+   * @param cx The real portion of the point which is added in each iteration.
+   * @param cy The imaginary coefficient of the point which is added in each iteration.
+   * @param isMandelbrot True for a Mandelbrot point, false for a Julia point.
+   *
+   * @return The number of iterations taken to escape.
    */
-  private int testJuliaPoint(ComplexNumber z, ComplexNumber c) {
-    // double smoothJulia;
+  private int testTrackedPoint(double zx, double zy, double cx, double cy, boolean isMandelbrot) {
+    OrbitTrap trap = getTrap();
+    boolean distance = isDistanceEstimation();
+    double dzx = isMandelbrot ? 0.0 : 1.0;
+    double dzy = 0.0;
+    double bx = 0.0;
+    double by = 0.0;
+    double tmp = 0.0;
+    double mag = (zx * zx) + (zy * zy);
+    double sum = isMandelbrot ? 0.0 : getSmoothingTerm(mag);
+    double limit = getDerivativeLimit();
+    double add = isMandelbrot ? 1.0 : 0.0;
+    double trapped = Double.POSITIVE_INFINITY;
+    int top = Integer.highestOneBit(power - 1);
+
+    if (isMandelbrot && power == 2 && interiorCheck && trap == null && isInterior(cx, cy)) {
+      iterations = maxIt;
+
+      return escape(zx, zy, cx, cy, maxIt - 1, true);
+    }
+
+    double sx = zx;
+    double sy = zy;
+    int checkpoint = 1;
 
     for (int i = 0; i < maxIt; ++i) {
-      for (int j = 1; j < power; ++j) {
-        z = z.mult(z);
+      bx = zx;
+      by = zy;
+
+      // z^(power - 1) by squaring, as in the plain iteration.
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        tmp = (bx * bx) - (by * by);
+        by = (by * bx) + (bx * by);
+        bx = tmp;
+
+        if (((power - 1) & bit) != 0) {
+          tmp = (bx * zx) - (by * zy);
+          by = (by * zx) + (bx * zy);
+          bx = tmp;
+        }
+      }
+
+      if (distance) {
+        // dz = power z^(power - 1) dz (+ 1).
+        tmp = (power * ((bx * dzx) - (by * dzy))) + add;
+        dzy = power * ((bx * dzy) + (by * dzx));
+        dzx = tmp;
       }
 
-      z = z.add(c);
+      // z = z^(power - 1) z + c.
+      tmp = ((bx * zx) - (by * zy)) + cx;
+      zy = ((by * zx) + (bx * zy)) + cy;
+      zx = tmp;
+      mag = (zx * zx) + (zy * zy);
 
-      if (z.mag() > THRESHOLD) {
-        return colorAlg.getColor(z, c, i, false);
+      if (mag > THRESHOLD) {
+        iterations = i;
+        escape(zx, zy, cx, cy, i, isMandelbrot, sum);
+        recordTrap(trapped);
+
+        if (distance) {
+          estimateDistance(zx, zy, dzx, dzy);
+        }
+
+        return i;
+      }
+
+      if (distance && (dzx * dzx) + (dzy * dzy) > limit) {
+        iterations = maxIt;
+        reachBoundary(zx, zy, cx, cy, i, isMandelbrot, sum);
+        recordTrap(trapped);
+
+        return maxIt - 1;
+      }
+
+      if (trap != null) {
+        trapped = Math.min(trapped, trap.getSquaredDistance(zx, zy));
+      }
+
+      sum += isMandelbrot ? 0.0 : getSmoothingTerm(mag);
+
+      if (periodicityCheck) {
+        if (zx == sx && zy == sy) {
+          // The rest of the cycle has been measured against the trap since the snapshot.
+          getImage().getStatistics().addPeriodicPoint(maxIt - 1 - i);
+          break;
+        }
+
+        if (i == checkpoint) {
+          sx = zx;
+          sy = zy;
+          checkpoint <<= 1;
+        }
       }
     }
 
-    return colorAlg.getColor(z, c, maxIt - 1, false);
+    iterations = maxIt;
+    escape(zx, zy, cx, cy, maxIt - 1, isMandelbrot, sum);
+    recordTrap(trapped);
+
+    return maxIt - 1;
   }
 
   /**
@@ -142,6 +493,12 @@ public class ComplexSet extends AbstractComplexSet {
       case COLOR_ALG_SMOOTH:
         colorAlg = new SmoothColoringAlgorithm(maxIt);
         break;
+      case COLOR_ALG_HISTOGRAM:
+        colorAlg = new HistogramColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_TRAP:
+        colorAlg = new OrbitTrapColoringAlgorithm(maxIt);
+        break;
     }
   }
 }
@@ -0,0 +1,305 @@
+package com.fractal.app.algorithms.math;
+
+import java.math.BigDecimal;
+
+/**
+ * This class models a mutable complex number whose real and imaginary parts are each represented by
+ * an unevaluated sum of two {@link Double doubles}, giving roughly 106 bits (32 decimal digits) of
+ * precision. The arithmetic is performed in place, so iterating a point does not allocate any
+ * objects.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class DoubleDoubleComplex {
+  /** The number of decimal digits which can be represented by a double-double. */
+  public static final int DIGITS = 32;
+
+  /** Splits a double into two halves whose products are exact, i.e. 2^27 + 1. */
+  private static final double SPLITTER = 134217729.0;
+
+  /** The high order portion of the real part. */
+  private double xHi;
+
+  /** The low order portion of the real part. */
+  private double xLo;
+
+  /** The high order portion of the imaginary coefficient. */
+  private double yHi;
+
+  /** The low order portion of the imaginary coefficient. */
+  private double yLo;
+
+  /** The high order portion of the result of the last operation. */
+  private double hi;
+
+  /** The low order portion of the result of the last operation. */
+  private double lo;
+
+  /** Creates a new {@link DoubleDoubleComplex} equal to zero. */
+  public DoubleDoubleComplex() {
+    this(0.0, 0.0);
+  }
+
+  /**
+   * Creates a new {@link DoubleDoubleComplex} with the specified real and imaginary parts.
+   *
+   * @param x The real portion of the complex number.
+   * @param y The imaginary coefficient of the complex number.
+   */
+  public DoubleDoubleComplex(double x, double y) {
+    this.xHi = x;
+    this.yHi = y;
+  }
+
+  /**
+   * Creates a new {@link DoubleDoubleComplex} with the specified real and imaginary parts, rounded
+   * to double-double precision.
+   *
+   * @param x The real portion of the complex number.
+   * @param y The imaginary coefficient of the complex number.
+   */
+  public DoubleDoubleComplex(BigDecimal x, BigDecimal y) {
+    this.xHi = x.doubleValue();
+    this.xLo = x.subtract(new BigDecimal(xHi)).doubleValue();
+    this.yHi = y.doubleValue();
+    this.yLo = y.subtract(new BigDecimal(yHi)).doubleValue();
+  }
+
+  /**
+   * Sets this complex number to the value of the specified complex number.
+   *
+   * @param other The complex number to copy.
+   */
+  public void set(DoubleDoubleComplex other) {
+    xHi = other.xHi;
+    xLo = other.xLo;
+    yHi = other.yHi;
+    yLo = other.yLo;
+  }
+
+  /**
+   * Sets this complex number to the specified real and imaginary parts.
+   *
+   * @param x The real portion of the complex number.
+   * @param y The imaginary coefficient of the complex number.
+   */
+  public void set(double x, double y) {
+    xHi = x;
+    xLo = 0.0;
+    yHi = y;
+    yLo = 0.0;
+  }
+
+  /**
+   * Sets this complex number to a point on a grid, i.e. the real part of the origin plus the
+   * specified multiple of the real part of the step, and likewise for the imaginary part.
+   *
+   * @param origin The origin of the grid.
+   * @param step The distance between the points of the grid.
+   * @param column The multiple of the real part of the step to add.
+   * @param row The multiple of the imaginary part of the step to add.
+   */
+  public void setGridPoint(DoubleDoubleComplex origin, DoubleDoubleComplex step, int column,
+      int row) {
+    multiply(step.xHi, step.xLo, column, 0.0);
+    add(origin.xHi, origin.xLo, hi, lo);
+    xHi = hi;
+    xLo = lo;
+    multiply(step.yHi, step.yLo, row, 0.0);
+    add(origin.yHi, origin.yLo, hi, lo);
+    yHi = hi;
+    yLo = lo;
+  }
+
+  /** Squares this complex number in place. */
+  public void square() {
+    double x2Hi = 0.0;
+    double x2Lo = 0.0;
+    double y2Hi = 0.0;
+    double y2Lo = 0.0;
+
+    multiply(xHi, xLo, xHi, xLo);
+    x2Hi = hi;
+    x2Lo = lo;
+    multiply(yHi, yLo, yHi, yLo);
+    y2Hi = hi;
+    y2Lo = lo;
+
+    // The imaginary part is 2xy; doubling is exact.
+    multiply(xHi, xLo, yHi, yLo);
+    yHi = 2.0 * hi;
+    yLo = 2.0 * lo;
+
+    add(x2Hi, x2Lo, -y2Hi, -y2Lo);
+    xHi = hi;
+    xLo = lo;
+  }
+
+  /**
+   * Multiplies this complex number by the specified complex number in place. The specified number
+   * must not be this number.
+   *
+   * @param other The complex number by which to multiply.
+   */
+  public void multiply(DoubleDoubleComplex other) {
+    double acHi = 0.0;
+    double acLo = 0.0;
+    double bdHi = 0.0;
+    double bdLo = 0.0;
+    double adHi = 0.0;
+    double adLo = 0.0;
+
+    // The real part is ac - bd and the imaginary part is ad + bc.
+    multiply(xHi, xLo, other.xHi, other.xLo);
+    acHi = hi;
+    acLo = lo;
+    multiply(yHi, yLo, other.yHi, other.yLo);
+    bdHi = hi;
+    bdLo = lo;
+    multiply(xHi, xLo, other.yHi, other.yLo);
+    adHi = hi;
+    adLo = lo;
+    multiply(yHi, yLo, other.xHi, other.xLo);
+    add(adHi, adLo, hi, lo);
+    yHi = hi;
+    yLo = lo;
+    add(acHi, acLo, -bdHi, -bdLo);
+    xHi = hi;
+    xLo = lo;
+  }
+
+  /**
+   * Adds the specified complex number to this complex number in place.
+   *
+   * @param other The complex number to add.
+   */
+  public void add(DoubleDoubleComplex other) {
+    add(xHi, xLo, other.xHi, other.xLo);
+    xHi = hi;
+    xLo = lo;
+    add(yHi, yLo, other.yHi, other.yLo);
+    yHi = hi;
+    yLo = lo;
+  }
+
+  /**
+   * Returns the real portion of the complex number, rounded to a double.
+   *
+   * @return The real portion of the complex number.
+   */
+  public double getX() {
+    return xHi;
+  }
+
+  /**
+   * Returns the imaginary coefficient of the complex number, rounded to a double.
+   *
+   * @return The imaginary coefficient of the complex number.
+   */
+  public double getY() {
+    return yHi;
+  }
+
+  /**
+   * Returns the exact real portion of the complex number.
+   *
+   * @return The real portion of the complex number.
+   */
+  public BigDecimal getPreciseX() {
+    return new BigDecimal(xHi).add(new BigDecimal(xLo));
+  }
+
+  /**
+   * Returns the exact imaginary coefficient of the complex number.
+   *
+   * @return The imaginary coefficient of the complex number.
+   */
+  public BigDecimal getPreciseY() {
+    return new BigDecimal(yHi).add(new BigDecimal(yLo));
+  }
+
+  /**
+   * Returns true if this complex number is exactly equal to the specified number, in both the high
+   * and the low order portions of its parts.
+   *
+   * @param other The complex number to compare.
+   *
+   * @return True if the numbers are equal, false otherwise.
+   */
+  public boolean isEqual(DoubleDoubleComplex other) {
+    return xHi == other.xHi && xLo == other.xLo && yHi == other.yHi && yLo == other.yLo;
+  }
+
+  /**
+   * Returns the squared magnitude of the complex number, rounded to a double.
+   *
+   * @return The squared magnitude of the complex number.
+   */
+  public double getMagnitude() {
+    return (xHi * xHi) + (yHi * yHi);
+  }
+
+  /**
+   * Returns the string representation of the complex number.
+   *
+   * @return The string representation of the complex number.
+   */
+  @Override
+  public String toString() {
+    return getPreciseX().toString() + " + " + getPreciseY().toString() + "i";
+  }
+
+  /**
+   * Adds two double-doubles, storing the normalized sum in {@link #hi} and {@link #lo}.
+   *
+   * @param aHi The high order portion of the first addend.
+   * @param aLo The low order portion of the first addend.
+   * @param bHi The high order portion of the second addend.
+   * @param bLo The low order portion of the second addend.
+   */
+  private void add(double aHi, double aLo, double bHi, double bLo) {
+    // Two-sum of the high and low order portions, i.e. s + e = aHi + bHi exactly.
+    double s = aHi + bHi;
+    double v = s - aHi;
+    double e = (aHi - (s - v)) + (bHi - v);
+    double t = aLo + bLo;
+    double w = t - aLo;
+    double f = (aLo - (t - w)) + (bLo - w);
+
+    e += t;
+    v = s + e;
+    e = e - (v - s);
+    e += f;
+    hi = v + e;
+    lo = e - (hi - v);
+  }
+
+  /**
+   * Multiplies two double-doubles, storing the normalized product in {@link #hi} and {@link #lo}.
+   *
+   * @param aHi The high order portion of the first factor.
+   * @param aLo The low order portion of the first factor.
+   * @param bHi The high order portion of the second factor.
+   * @param bLo The low order portion of the second factor.
+   */
+  private void multiply(double aHi, double aLo, double bHi, double bLo) {
+    // Dekker's product, i.e. p + e = aHi * bHi exactly.
+    double p = aHi * bHi;
+    double t = SPLITTER * aHi;
+    double a1 = t - (t - aHi);
+    double a2 = aHi - a1;
+    double b1 = 0.0;
+    double b2 = 0.0;
+    double e = 0.0;
+
+    t = SPLITTER * bHi;
+    b1 = t - (t - bHi);
+    b2 = bHi - b1;
+    e = (((a1 * b1) - p) + (a1 * b2) + (a2 * b1)) + (a2 * b2);
+    e += (aHi * bLo) + (aLo * bHi);
+    hi = p + e;
+    lo = e - (hi - p);
+  }
+}
@@ -0,0 +1,301 @@
+package com.fractal.app.algorithms.math;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import com.fractal.app.algorithms.color.BandedColoringAlgorithm;
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
+import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
+import com.fractal.app.image.Image;
+
+/**
+ * This class models and displays a graphical representations of the well known Mandelbrot and Julia
+ * sets using {@link DoubleDoubleComplex double-double} arithmetic. It bridges the gap between
+ * {@link Double doubles}, which are exhausted at a zoom of about 1e-15, and {@link BigDecimal}s,
+ * reaching zooms of about 1e-30 at a small multiple of the cost of doubles.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class DoubleDoubleComplexSet extends AbstractComplexSet {
+  /** Represents the selection of the {@link BandedColoringAlgorithm}. */
+  private static final int COLOR_ALG_BANDED = 0;
+
+  /** Represents the selection of the {@link SmoothColoringAlgorithm}. */
+  private static final int COLOR_ALG_SMOOTH = COLOR_ALG_BANDED + 1;
+
+  /** Represents the selection of the {@link HistogramColoringAlgorithm}. */
+  private static final int COLOR_ALG_HISTOGRAM = COLOR_ALG_SMOOTH + 1;
+
+  /** Represents the selection of the {@link OrbitTrapColoringAlgorithm}. */
+  private static final int COLOR_ALG_TRAP = COLOR_ALG_HISTOGRAM + 1;
+
+  /** The maximum number of iterations to perform. */
+  private int maxIt;
+
+  /** The power to which the set will be raised. */
+  private int power;
+
+  /** The number used to iterate each point. */
+  private DoubleDoubleComplex z = new DoubleDoubleComplex();
+
+  /** The value of each point at the start of the current iteration. */
+  private DoubleDoubleComplex base = new DoubleDoubleComplex();
+
+  /** The value of each point at the last checkpoint of the periodicity check. */
+  private DoubleDoubleComplex snapshot = new DoubleDoubleComplex();
+
+  /** True if points whose orbits enter a cycle stop iterating. */
+  private boolean periodicityCheck = true;
+
+  /** The point on which the set being generated is based, can be null. */
+  private DoubleDoubleComplex basis;
+
+  /** The lower bound of the region being generated. */
+  private DoubleDoubleComplex origin;
+
+  /** The distance between adjacent pixels. */
+  private DoubleDoubleComplex step;
+
+  /** The point of the pixel being tested. */
+  private DoubleDoubleComplex point = new DoubleDoubleComplex();
+
+  /** The number of iterations performed for the last point tested. */
+  private int iterations;
+
+  /** The algorithm used to choose colors for points within the set. */
+  private ColoringAlgorithm colorAlg;
+
+  /**
+   * Creates a new {@link DoubleDoubleComplexSet} based on the specified {@link Region}.
+   *
+   * @param region The {@link Region} on which to base the set.
+   */
+  public DoubleDoubleComplexSet(Region region) {
+    super(region);
+
+    this.power = region.getPower();
+    this.maxIt = region.getMaxIt();
+
+    setColorAlg(region.getColorAlg());
+  }
+
+  /**
+   * Computes a color value for each pixel representing a point within the set, with the rendering
+   * strategy of the {@link Region}.
+   *
+   * @param basisPoint The point on which to base the set, can be null.
+   */
+  @Override
+  public void generate(ComplexNumber basisPoint) {
+    Image image = getImage();
+    MathContext mc = new MathContext(DoubleDoubleComplex.DIGITS, RoundingMode.HALF_EVEN);
+    BigDecimal xMin = getMin().getPreciseX();
+    BigDecimal yMin = getMin().getPreciseY();
+    BigDecimal xMax = getMax().getPreciseX();
+    BigDecimal yMax = getMax().getPreciseY();
+
+    origin = new DoubleDoubleComplex(xMin, yMin);
+    step = new DoubleDoubleComplex(
+        xMax.subtract(xMin, mc).divide(new BigDecimal(image.getWidth()), mc),
+        yMax.subtract(yMin, mc).divide(new BigDecimal(image.getHeight()), mc));
+    basis = null;
+
+    if (basisPoint != null) {
+      basis = new DoubleDoubleComplex(basisPoint.getPreciseX(), basisPoint.getPreciseY());
+    }
+
+    render();
+    color(basisPoint == null);
+  }
+
+  /**
+   * Tests for point inclusion within the set. Point inclusion can be based on a specified point, c,
+   * e.g. calculating Julia sets.
+   *
+   * @param z The point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
+   *
+   * @return The RGB value of the color for the point.
+   */
+  public int testPoint(ComplexNumber z, ComplexNumber c) {
+    DoubleDoubleComplex point = new DoubleDoubleComplex(z.getPreciseX(), z.getPreciseY());
+    DoubleDoubleComplex basis = null;
+
+    if (c != null) {
+      basis = new DoubleDoubleComplex(c.getPreciseX(), c.getPreciseY());
+    }
+
+    testPoint(point, basis);
+
+    return getColor();
+  }
+
+  /**
+   * Tests the pixel in the specified column and row of the image, recording its raw values.
+   *
+   * @param column The column of the pixel.
+   * @param row The row of the pixel.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  @Override
+  protected int testPixel(int column, int row) {
+    point.setGridPoint(origin, step, column, row);
+
+    return testPoint(point, basis);
+  }
+
+  /**
+   * Tests the point at the specified fractional column and row of the image, recording its raw
+   * values.
+   *
+   * @param column The column of the point.
+   * @param row The row of the point.
+   */
+  @Override
+  protected void testSample(double column, double row) {
+    ComplexNumber sample = getSamplePoint(column, row);
+
+    testPoint(new DoubleDoubleComplex(sample.getPreciseX(), sample.getPreciseY()), basis);
+  }
+
+  /**
+   * Returns the number of iterations performed for the last point tested.
+   *
+   * @return The number of iterations performed, the maximum if the point did not escape.
+   */
+  @Override
+  protected int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Sets the {@link ColoringAlgorithm} of the set to the specified algorithm.
+   *
+   * @param color The new {@link ColoringAlgorithm} to use.
+   */
+  public void setColoringAlgorithm(ColoringAlgorithm colorAlg) {
+    this.colorAlg = colorAlg;
+  }
+
+  /**
+   * Returns the {@link ColoringAlgorithm} of the set.
+   *
+   * @return The {@link ColoringAlgorithm} of the set.
+   */
+  @Override
+  protected ColoringAlgorithm getColoringAlgorithm() {
+    return colorAlg;
+  }
+
+  /**
+   * Enables or disables detecting points whose orbits enter a cycle. Such points never escape, so
+   * they stop iterating as soon as the cycle is found.
+   *
+   * @param periodicityCheck True to detect cycles, false to iterate every point to the maximum.
+   */
+  public void setPeriodicityCheck(boolean periodicityCheck) {
+    this.periodicityCheck = periodicityCheck;
+  }
+
+  /**
+   * Iterates over z = z^power + c for the specified point. For Mandelbrot sets the point is c and
+   * z starts at zero; for Julia sets the point is the starting value of z. Iteration halts when the
+   * squared magnitude of z is greater than our threshold or we have reached the maximum number of
+   * iterations, or when z returns exactly to an earlier value.
+   *
+   * @param point The point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  private int testPoint(DoubleDoubleComplex point, DoubleDoubleComplex c) {
+    boolean isMandelbrot = c == null;
+    DoubleDoubleComplex add = isMandelbrot ? point : c;
+    int top = Integer.highestOneBit(power);
+    int checkpoint = 1;
+    double sum = 0.0;
+
+    if (isMandelbrot) {
+      z.set(0.0, 0.0);
+    } else {
+      z.set(point);
+    }
+
+    snapshot.set(z);
+
+    for (int i = 0; i < maxIt; ++i) {
+      if (!isMandelbrot) {
+        // The smoothing sum of the orbit is accumulated as it is iterated.
+        sum += getSmoothingTerm(z.getMagnitude());
+      }
+
+      base.set(z);
+
+      // z^power by squaring for each bit of the power below the highest, multiplying by the
+      // starting value of the iteration for each bit which is set.
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        z.square();
+
+        if ((power & bit) != 0) {
+          z.multiply(base);
+        }
+      }
+
+      z.add(add);
+
+      if (z.getMagnitude() > THRESHOLD) {
+        iterations = i;
+
+        return escape(z.getX(), z.getY(), add.getX(), add.getY(), i, isMandelbrot, sum);
+      }
+
+      if (periodicityCheck) {
+        // An orbit which returns exactly to an earlier value repeats forever, so it never escapes.
+        if (z.isEqual(snapshot)) {
+          getImage().getStatistics().addPeriodicPoint(maxIt - 1 - i);
+          iterations = maxIt;
+
+          return escape(z.getX(), z.getY(), add.getX(), add.getY(), maxIt - 1, isMandelbrot);
+        }
+
+        // Brent's method: compare against snapshots taken at doubling intervals.
+        if (i == checkpoint) {
+          snapshot.set(z);
+          checkpoint <<= 1;
+        }
+      }
+    }
+
+    iterations = maxIt;
+
+    return escape(z.getX(), z.getY(), add.getX(), add.getY(), maxIt - 1, isMandelbrot);
+  }
+
+  /**
+   * Instantiates the appropriate {@link ColoringAlgorithm}.
+   *
+   * @param choice The {@link ColoringAlgorithm} choice.
+   */
+  private void setColorAlg(int choice) {
+    switch (choice) {
+      case COLOR_ALG_BANDED:
+        colorAlg = new BandedColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_SMOOTH:
+        colorAlg = new SmoothColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_HISTOGRAM:
+        colorAlg = new HistogramColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_TRAP:
+        colorAlg = new OrbitTrapColoringAlgorithm(maxIt);
+        break;
+    }
+  }
+}
@@ -0,0 +1,505 @@
+package com.fractal.app.algorithms.math;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * This class models a mutable complex number whose real and imaginary parts are each a fixed-point
+ * value with a sign and a magnitude of 32-bit limbs stored in {@link Long longs}. The first limb
+ * holds the integer portion and every following limb holds the next 32 bits of the fraction. The
+ * arithmetic is performed in place using scratch limbs allocated with the number, so iterating a
+ * point does not allocate any objects or round through a {@link java.math.MathContext}.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class FixedPointComplex {
+  /** The number of bits held by each limb. */
+  private static final int LIMB_BITS = 32;
+
+  /** Masks the bits held by a limb. */
+  private static final long LIMB_MASK = 0xFFFFFFFFL;
+
+  /** The number of bits needed to represent a decimal digit. */
+  private static final double BITS_PER_DIGIT = Math.log(10) / Math.log(2);
+
+  /** The number of limbs, including the integer limb. */
+  private int limbs;
+
+  /** The magnitude of the real part. */
+  private long[] x;
+
+  /** The magnitude of the imaginary coefficient. */
+  private long[] y;
+
+  /** True if the real part is negative. */
+  private boolean xNegative;
+
+  /** True if the imaginary coefficient is negative. */
+  private boolean yNegative;
+
+  /** Accumulates the columns of a product. */
+  private long[] columns;
+
+  /** Holds the first intermediate result of an operation. */
+  private long[] t1;
+
+  /** Holds the second intermediate result of an operation. */
+  private long[] t2;
+
+  /** Holds the third intermediate result of an operation. */
+  private long[] t3;
+
+  /**
+   * Creates a new {@link FixedPointComplex} equal to zero with at least the specified number of
+   * fraction bits.
+   *
+   * @param bits The number of fraction bits.
+   */
+  public FixedPointComplex(int bits) {
+    this.limbs = 1 + Math.max(1, (bits + LIMB_BITS - 1) / LIMB_BITS);
+    this.x = new long[limbs];
+    this.y = new long[limbs];
+    this.columns = new long[limbs + 1];
+    this.t1 = new long[limbs];
+    this.t2 = new long[limbs];
+    this.t3 = new long[limbs];
+  }
+
+  /**
+   * Creates a new {@link FixedPointComplex} with at least the specified number of fraction bits and
+   * the specified real and imaginary parts, truncated to that precision.
+   *
+   * @param bits The number of fraction bits.
+   * @param x The real portion of the complex number.
+   * @param y The imaginary coefficient of the complex number.
+   */
+  public FixedPointComplex(int bits, BigDecimal x, BigDecimal y) {
+    this(bits);
+
+    set(x, y);
+  }
+
+  /**
+   * Returns the number of fraction bits needed to represent the specified number of decimal digits.
+   *
+   * @param digits The number of decimal digits.
+   *
+   * @return The number of fraction bits.
+   */
+  public static int bitsFor(int digits) {
+    return (int) Math.ceil(digits * BITS_PER_DIGIT);
+  }
+
+  /**
+   * Returns the number of fraction bits needed to tell apart points which are the specified
+   * distance apart, e.g. the pixels of a frame.
+   *
+   * @param resolution The distance between points.
+   *
+   * @return The number of fraction bits.
+   */
+  public static int bitsFor(BigDecimal resolution) {
+    BigDecimal abs = resolution.abs();
+
+    // The position of the leading digit after the decimal point, i.e. -log10(resolution).
+    return Math.max(0, bitsFor(abs.scale() - abs.precision() + 1));
+  }
+
+  /**
+   * Returns the number of fraction bits of this number.
+   *
+   * @return The number of fraction bits.
+   */
+  public int getBits() {
+    return (limbs - 1) * LIMB_BITS;
+  }
+
+  /**
+   * Sets this complex number to the value of the specified complex number, which must have the same
+   * number of fraction bits.
+   *
+   * @param other The complex number to copy.
+   */
+  public void set(FixedPointComplex other) {
+    System.arraycopy(other.x, 0, x, 0, limbs);
+    System.arraycopy(other.y, 0, y, 0, limbs);
+    xNegative = other.xNegative;
+    yNegative = other.yNegative;
+  }
+
+  /**
+   * Sets this complex number to the specified real and imaginary parts, truncated to the precision
+   * of this number.
+   *
+   * @param x The real portion of the complex number.
+   * @param y The imaginary coefficient of the complex number.
+   */
+  public void set(BigDecimal x, BigDecimal y) {
+    xNegative = toLimbs(x, this.x);
+    yNegative = toLimbs(y, this.y);
+  }
+
+  /** Sets this complex number to zero. */
+  public void setZero() {
+    for (int i = 0; i < limbs; ++i) {
+      x[i] = 0;
+      y[i] = 0;
+    }
+
+    xNegative = false;
+    yNegative = false;
+  }
+
+  /**
+   * Sets this complex number to a point on a grid, i.e. the real part of the origin plus the
+   * specified multiple of the real part of the step, and likewise for the imaginary part. The
+   * origin and the step must have the same number of fraction bits as this number.
+   *
+   * @param origin The origin of the grid.
+   * @param step The distance between the points of the grid.
+   * @param column The non-negative multiple of the real part of the step to add.
+   * @param row The non-negative multiple of the imaginary part of the step to add.
+   */
+  public void setGridPoint(FixedPointComplex origin, FixedPointComplex step, int column,
+      int row) {
+    multiplyMagnitude(step.x, column, t1);
+    xNegative = add(origin.xNegative, origin.x, step.xNegative, t1, x);
+    multiplyMagnitude(step.y, row, t1);
+    yNegative = add(origin.yNegative, origin.y, step.yNegative, t1, y);
+  }
+
+  /** Squares this complex number in place. */
+  public void square() {
+    multiplyMagnitude(x, x, t1);
+    multiplyMagnitude(y, y, t2);
+    multiplyMagnitude(x, y, t3);
+
+    // The imaginary part is 2xy; doubling the magnitude is a single addition.
+    yNegative = xNegative != yNegative && !isZero(t3);
+    addMagnitude(t3, t3, y);
+    xNegative = add(false, t1, true, t2, x);
+  }
+
+  /**
+   * Multiplies this complex number by the specified complex number in place. The specified number
+   * must have the same number of fraction bits as this number, and must not be this number.
+   *
+   * @param other The complex number by which to multiply.
+   */
+  public void multiply(FixedPointComplex other) {
+    boolean negative = false;
+
+    // The real part is ac - bd and the imaginary part is ad + bc.
+    multiplyMagnitude(x, other.x, t1);
+    multiplyMagnitude(y, other.y, t2);
+    negative = add(xNegative != other.xNegative, t1, yNegative == other.yNegative, t2, t3);
+    multiplyMagnitude(x, other.y, t1);
+    multiplyMagnitude(y, other.x, t2);
+    yNegative = add(xNegative != other.yNegative, t1, yNegative != other.xNegative, t2, y);
+    System.arraycopy(t3, 0, x, 0, limbs);
+    xNegative = negative;
+  }
+
+  /**
+   * Adds the specified complex number to this complex number in place. The specified number must
+   * have the same number of fraction bits as this number.
+   *
+   * @param other The complex number to add.
+   */
+  public void add(FixedPointComplex other) {
+    xNegative = add(xNegative, x, other.xNegative, other.x, x);
+    yNegative = add(yNegative, y, other.yNegative, other.y, y);
+  }
+
+  /**
+   * Returns true if this complex number is equal to the specified number. The specified number must
+   * have the same number of fraction bits as this number.
+   *
+   * @param other The complex number to compare.
+   *
+   * @return True if the numbers are equal, false otherwise.
+   */
+  public boolean isEqual(FixedPointComplex other) {
+    return xNegative == other.xNegative && yNegative == other.yNegative
+        && compareMagnitude(x, other.x) == 0 && compareMagnitude(y, other.y) == 0;
+  }
+
+  /**
+   * Returns the real portion of the complex number, rounded to a double.
+   *
+   * @return The real portion of the complex number.
+   */
+  public double getX() {
+    return toDouble(xNegative, x);
+  }
+
+  /**
+   * Returns the imaginary coefficient of the complex number, rounded to a double.
+   *
+   * @return The imaginary coefficient of the complex number.
+   */
+  public double getY() {
+    return toDouble(yNegative, y);
+  }
+
+  /**
+   * Returns the exact real portion of the complex number.
+   *
+   * @return The real portion of the complex number.
+   */
+  public BigDecimal getPreciseX() {
+    return toBigDecimal(xNegative, x);
+  }
+
+  /**
+   * Returns the exact imaginary coefficient of the complex number.
+   *
+   * @return The imaginary coefficient of the complex number.
+   */
+  public BigDecimal getPreciseY() {
+    return toBigDecimal(yNegative, y);
+  }
+
+  /**
+   * Returns the squared magnitude of the complex number, rounded to a double.
+   *
+   * @return The squared magnitude of the complex number.
+   */
+  public double getMagnitude() {
+    double real = getX();
+    double imaginary = getY();
+
+    return (real * real) + (imaginary * imaginary);
+  }
+
+  /**
+   * Returns the string representation of the complex number.
+   *
+   * @return The string representation of the complex number.
+   */
+  @Override
+  public String toString() {
+    return getPreciseX().toString() + " + " + getPreciseY().toString() + "i";
+  }
+
+  /**
+   * Adds two signed magnitudes. The result may be stored in either addend.
+   *
+   * @param aNegative True if the first addend is negative.
+   * @param a The magnitude of the first addend.
+   * @param bNegative True if the second addend is negative.
+   * @param b The magnitude of the second addend.
+   * @param sum The magnitude of the sum.
+   *
+   * @return True if the sum is negative.
+   */
+  private boolean add(boolean aNegative, long[] a, boolean bNegative, long[] b, long[] sum) {
+    boolean negative = aNegative;
+
+    if (aNegative == bNegative) {
+      addMagnitude(a, b, sum);
+    } else if (compareMagnitude(a, b) >= 0) {
+      subtractMagnitude(a, b, sum);
+    } else {
+      subtractMagnitude(b, a, sum);
+      negative = bNegative;
+    }
+
+    return negative && !isZero(sum);
+  }
+
+  /**
+   * Adds two magnitudes. The result may be stored in either addend.
+   *
+   * @param a The first addend.
+   * @param b The second addend.
+   * @param sum The sum.
+   */
+  private void addMagnitude(long[] a, long[] b, long[] sum) {
+    long carry = 0;
+
+    for (int i = limbs - 1; i >= 0; --i) {
+      carry += a[i] + b[i];
+      sum[i] = carry & LIMB_MASK;
+      carry >>>= LIMB_BITS;
+    }
+  }
+
+  /**
+   * Subtracts a magnitude from a magnitude which is not smaller. The result may be stored in either
+   * operand.
+   *
+   * @param a The minuend.
+   * @param b The subtrahend.
+   * @param difference The difference.
+   */
+  private void subtractMagnitude(long[] a, long[] b, long[] difference) {
+    long borrow = 0;
+
+    for (int i = limbs - 1; i >= 0; --i) {
+      borrow = a[i] - b[i] - borrow;
+      difference[i] = borrow & LIMB_MASK;
+      borrow >>>= 63;
+    }
+  }
+
+  /**
+   * Multiplies two magnitudes, truncating the product to the precision of this number. The product
+   * may be stored in either factor. The integer portion of the product must fit in a single limb.
+   *
+   * @param a The first factor.
+   * @param b The second factor.
+   * @param product The product.
+   */
+  private void multiplyMagnitude(long[] a, long[] b, long[] product) {
+    long p = 0;
+
+    for (int i = 0; i <= limbs; ++i) {
+      columns[i] = 0;
+    }
+
+    // Limb i + j of the product receives the low half of a[i] * b[j] and limb i + j - 1 receives
+    // the high half; products below the last limb only contribute through their high halves.
+    for (int i = 0; i < limbs; ++i) {
+      if (a[i] != 0) {
+        for (int j = 0; i + j <= limbs && j < limbs; ++j) {
+          p = a[i] * b[j];
+          columns[i + j] += p & LIMB_MASK;
+
+          if (i + j > 0) {
+            columns[i + j - 1] += p >>> LIMB_BITS;
+          }
+        }
+      }
+    }
+
+    for (int i = limbs; i > 0; --i) {
+      columns[i - 1] += columns[i] >>> LIMB_BITS;
+    }
+
+    for (int i = 0; i < limbs; ++i) {
+      product[i] = columns[i] & LIMB_MASK;
+    }
+  }
+
+  /**
+   * Multiplies a magnitude by a non-negative integer. The product may be stored in the magnitude.
+   *
+   * @param a The magnitude.
+   * @param n The non-negative integer.
+   * @param product The product.
+   */
+  private void multiplyMagnitude(long[] a, int n, long[] product) {
+    long carry = 0;
+
+    for (int i = limbs - 1; i >= 0; --i) {
+      carry += a[i] * n;
+      product[i] = carry & LIMB_MASK;
+      carry >>>= LIMB_BITS;
+    }
+  }
+
+  /**
+   * Compares two magnitudes.
+   *
+   * @param a The first magnitude.
+   * @param b The second magnitude.
+   *
+   * @return A negative number, zero, or a positive number as the first magnitude is less than,
+   *         equal to, or greater than the second.
+   */
+  private int compareMagnitude(long[] a, long[] b) {
+    for (int i = 0; i < limbs; ++i) {
+      if (a[i] != b[i]) {
+        return (a[i] < b[i]) ? -1 : 1;
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Returns true if the specified magnitude is zero.
+   *
+   * @param a The magnitude.
+   *
+   * @return True if the magnitude is zero, false otherwise.
+   */
+  private boolean isZero(long[] a) {
+    for (int i = 0; i < limbs; ++i) {
+      if (a[i] != 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Rounds a signed magnitude to a double. Only the leading limbs which can affect a double are
+   * read.
+   *
+   * @param negative True if the value is negative.
+   * @param a The magnitude.
+   *
+   * @return The value rounded to a double.
+   */
+  private double toDouble(boolean negative, long[] a) {
+    double value = 0.0;
+    int first = 0;
+
+    while (first < limbs - 1 && a[first] == 0) {
+      ++first;
+    }
+
+    for (int i = Math.min(limbs, first + 3) - 1; i >= first; --i) {
+      value += Math.scalb((double) a[i], -LIMB_BITS * i);
+    }
+
+    return negative ? -value : value;
+  }
+
+  /**
+   * Truncates a value to the precision of this number.
+   *
+   * @param value The value.
+   * @param a The magnitude of the truncated value.
+   *
+   * @return True if the truncated value is negative.
+   */
+  private boolean toLimbs(BigDecimal value, long[] a) {
+    BigInteger scaled = value.abs()
+        .multiply(new BigDecimal(BigInteger.ONE.shiftLeft(getBits()))).toBigInteger();
+
+    for (int i = limbs - 1; i >= 0; --i) {
+      a[i] = scaled.longValue() & LIMB_MASK;
+      scaled = scaled.shiftRight(LIMB_BITS);
+    }
+
+    return value.signum() < 0 && !isZero(a);
+  }
+
+  /**
+   * Converts a signed magnitude to an exact {@link BigDecimal}.
+   *
+   * @param negative True if the value is negative.
+   * @param a The magnitude.
+   *
+   * @return The exact value.
+   */
+  private BigDecimal toBigDecimal(boolean negative, long[] a) {
+    BigInteger scaled = BigInteger.ZERO;
+
+    for (int i = 0; i < limbs; ++i) {
+      scaled = scaled.shiftLeft(LIMB_BITS).or(BigInteger.valueOf(a[i]));
+    }
+
+    // Dividing by a power of two always terminates, so no rounding is needed.
+    BigDecimal value =
+        new BigDecimal(scaled).divide(new BigDecimal(BigInteger.ONE.shiftLeft(getBits())));
+
+    return negative ? value.negate() : value;
+  }
+}
@@ -0,0 +1,380 @@
+package com.fractal.app.algorithms.math;
+
+import com.fractal.app.image.Image;
+
+/**
+ * This class models and displays a graphical representations of the well known Mandelbrot and Julia
+ * sets, advancing several pixels at once in one scalar loop. Each iteration of a single pixel
+ * depends on the one before it, which leaves most of the floating point units of the CPU idle; the
+ * iterations of independent pixels can overlap instead. Each slot of the loop holds one pixel, and
+ * is refilled with the next pixel in raster order as soon as its pixel escapes, enters a cycle or
+ * reaches the maximum number of iterations, so a slow pixel does not hold up the others. Each pixel
+ * is iterated exactly as {@link ComplexSet} iterates it and is colored identically.
+ * <p>
+ * Only images calculated with {@link Double doubles} in raster order are interleaved; other render
+ * modes, and images whose distances are estimated or whose orbits are trapped, are tested one
+ * pixel at a time by {@link ComplexSet}.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class InterleavedComplexSet extends ComplexSet {
+  /** The number of pixels iterated at once, each held in its own local variables. */
+  private static final int SLOTS = 4;
+
+  /** The first step of an empty slot. */
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  /**
+   * The power to which the set is raised if this class is a kernel created by the
+   * {@link KernelFactory}, zero otherwise. The JIT folds it into the squaring loop of the kernel.
+   */
+  private static final int POWER = KernelFactory.getPower(InterleavedComplexSet.class);
+
+  /** The point on which the set being generated is based, can be null. */
+  private ComplexNumber basis;
+
+  /** The real portions of the values of the pixels in the slots. */
+  private double[] zx = new double[SLOTS];
+
+  /** The imaginary coefficients of the values of the pixels in the slots. */
+  private double[] zy = new double[SLOTS];
+
+  /** The real portions of the points added to the pixels in the slots. */
+  private double[] cx = new double[SLOTS];
+
+  /** The imaginary coefficients of the points added to the pixels in the slots. */
+  private double[] cy = new double[SLOTS];
+
+  /** The real portions of the earlier values against which the pixels are compared for cycles. */
+  private double[] sx = new double[SLOTS];
+
+  /** The imaginary coefficients of the earlier values against which the pixels are compared. */
+  private double[] sy = new double[SLOTS];
+
+  /** The exponential smoothing sums of the orbits of the pixels in the slots, for Julia sets. */
+  private double[] sum = new double[SLOTS];
+
+  /** The step at which the pixels in the slots were first iterated. */
+  private long[] start = new long[SLOTS];
+
+  /** The iteration at which the snapshot of the pixels in the slots is next taken. */
+  private int[] checkpoint = new int[SLOTS];
+
+  /** The index within the image of the pixels in the slots. */
+  private int[] index = new int[SLOTS];
+
+  /** The index within the image of the next pixel to place in a slot. */
+  private int next;
+
+  /** The column of the next pixel to place in a slot. */
+  private int column;
+
+  /** The row of the next pixel to place in a slot. */
+  private int row;
+
+  /** The number of iterations of the slots performed so far. */
+  private long step;
+
+  /** The real portion of the first pixel. */
+  private double xMin;
+
+  /** The imaginary coefficient of the first pixel. */
+  private double yMin;
+
+  /** The distance between the real portions of adjacent pixels. */
+  private double dx;
+
+  /** The distance between the imaginary coefficients of adjacent pixels. */
+  private double dy;
+
+  /**
+   * Creates a new {@link InterleavedComplexSet} based on the specified {@link Region}.
+   *
+   * @param region The {@link Region} on which to base the set.
+   */
+  public InterleavedComplexSet(Region region) {
+    super(region);
+  }
+
+  /**
+   * Computes a color value for each pixel representing a point within the set.
+   *
+   * @param basisPoint The point on which to base the set, can be null.
+   */
+  @Override
+  public void generate(ComplexNumber basisPoint) {
+    basis = basisPoint;
+
+    super.generate(basisPoint);
+  }
+
+  /**
+   * Computes the raw values of each pixel, several pixels at a time in raster order. The slots are
+   * held in local variables so that the JIT can keep them in registers; a slot is only handled by
+   * {@link #update()} when its pixel may have escaped or entered a cycle, or in the iteration at
+   * which a snapshot is due or the maximum is reached.
+   */
+  @Override
+  protected void render() {
+    if (isPrecise() || getRenderMode() != RENDER_RASTER || isDistanceEstimation()
+        || getTrap() != null) {
+      super.render();
+      return;
+    }
+
+    int power = (POWER != 0) ? POWER : getPower();
+    int top = Integer.highestOneBit(power);
+    boolean julia = basis != null;
+
+    xMin = getMin().getX();
+    yMin = getMin().getY();
+    dx = (getMax().getX() - xMin) / getImage().getWidth();
+    dy = (getMax().getY() - yMin) / getImage().getHeight();
+    next = 0;
+    column = 0;
+    row = 0;
+    step = 0;
+
+    for (int s = 0; s < SLOTS; ++s) {
+      fill(s, 0);
+    }
+
+    double x0 = zx[0];
+    double y0 = zy[0];
+    double x1 = zx[1];
+    double y1 = zy[1];
+    double x2 = zx[2];
+    double y2 = zy[2];
+    double x3 = zx[3];
+    double y3 = zy[3];
+    double s0 = sum[0];
+    double s1 = sum[1];
+    double s2 = sum[2];
+    double s3 = sum[3];
+    long event = nextEvent();
+
+    while (event < Long.MAX_VALUE) {
+      double b0x = x0;
+      double b0y = y0;
+      double b1x = x1;
+      double b1y = y1;
+      double b2x = x2;
+      double b2y = y2;
+      double b3x = x3;
+      double b3y = y3;
+
+      if (julia) {
+        // The smoothing sums of the orbits are accumulated as they are iterated.
+        s0 += getSmoothingTerm((b0x * b0x) + (b0y * b0y));
+        s1 += getSmoothingTerm((b1x * b1x) + (b1y * b1y));
+        s2 += getSmoothingTerm((b2x * b2x) + (b2y * b2y));
+        s3 += getSmoothingTerm((b3x * b3x) + (b3y * b3y));
+      }
+
+      // The slots do not depend on each other, so their iterations overlap. z^power is computed by
+      // squaring for each bit of the power below the highest, multiplying by the starting value of
+      // the iteration for each bit which is set.
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        double t0 = (x0 * x0) - (y0 * y0);
+        double t1 = (x1 * x1) - (y1 * y1);
+        double t2 = (x2 * x2) - (y2 * y2);
+        double t3 = (x3 * x3) - (y3 * y3);
+
+        y0 = (y0 * x0) + (x0 * y0);
+        y1 = (y1 * x1) + (x1 * y1);
+        y2 = (y2 * x2) + (x2 * y2);
+        y3 = (y3 * x3) + (x3 * y3);
+        x0 = t0;
+        x1 = t1;
+        x2 = t2;
+        x3 = t3;
+
+        if ((power & bit) != 0) {
+          t0 = (x0 * b0x) - (y0 * b0y);
+          t1 = (x1 * b1x) - (y1 * b1y);
+          t2 = (x2 * b2x) - (y2 * b2y);
+          t3 = (x3 * b3x) - (y3 * b3y);
+
+          y0 = (y0 * b0x) + (x0 * b0y);
+          y1 = (y1 * b1x) + (x1 * b1y);
+          y2 = (y2 * b2x) + (x2 * b2y);
+          y3 = (y3 * b3x) + (x3 * b3y);
+          x0 = t0;
+          x1 = t1;
+          x2 = t2;
+          x3 = t3;
+        }
+      }
+
+      x0 += cx[0];
+      y0 += cy[0];
+      x1 += cx[1];
+      y1 += cy[1];
+      x2 += cx[2];
+      y2 += cy[2];
+      x3 += cx[3];
+      y3 += cy[3];
+
+      // The conditions are combined without short-circuiting, so that they need a single branch.
+      if (((x0 * x0) + (y0 * y0) > THRESHOLD) | ((x1 * x1) + (y1 * y1) > THRESHOLD)
+          | ((x2 * x2) + (y2 * y2) > THRESHOLD) | ((x3 * x3) + (y3 * y3) > THRESHOLD)
+          | (x0 == sx[0]) | (x1 == sx[1]) | (x2 == sx[2]) | (x3 == sx[3]) | (step == event)) {
+        zx[0] = x0;
+        zy[0] = y0;
+        zx[1] = x1;
+        zy[1] = y1;
+        zx[2] = x2;
+        zy[2] = y2;
+        zx[3] = x3;
+        zy[3] = y3;
+        sum[0] = s0;
+        sum[1] = s1;
+        sum[2] = s2;
+        sum[3] = s3;
+
+        update();
+
+        x0 = zx[0];
+        y0 = zy[0];
+        x1 = zx[1];
+        y1 = zy[1];
+        x2 = zx[2];
+        y2 = zy[2];
+        x3 = zx[3];
+        y3 = zy[3];
+        s0 = sum[0];
+        s1 = sum[1];
+        s2 = sum[2];
+        s3 = sum[3];
+        event = nextEvent();
+      }
+
+      ++step;
+    }
+  }
+
+  /**
+   * Finishes the pixels in the slots which have escaped or entered a cycle in the current step, or
+   * reached the maximum number of iterations, refilling their slots, and takes the snapshots which
+   * are due.
+   */
+  private void update() {
+    int maxIt = getMaxIt();
+    boolean periodicityCheck = isPeriodicityCheck();
+
+    for (int s = 0; s < SLOTS; ++s) {
+      double x = zx[s];
+      double y = zy[s];
+      int i = (int) (step - start[s]);
+
+      if (start[s] == EMPTY) {
+        continue;
+      }
+
+      if ((x * x) + (y * y) > THRESHOLD) {
+        finish(s, i);
+        fill(s, step + 1);
+      } else if (periodicityCheck && x == sx[s] && y == sy[s]) {
+        // An orbit which returns exactly to an earlier value repeats forever, so it never escapes.
+        getImage().getStatistics().addPeriodicPoint(maxIt - 1 - i);
+        finish(s, maxIt);
+        fill(s, step + 1);
+      } else if (i == maxIt - 1) {
+        finish(s, maxIt);
+        fill(s, step + 1);
+      } else if (i == checkpoint[s]) {
+        // Brent's method: compare against snapshots taken at doubling intervals.
+        sx[s] = periodicityCheck ? x : Double.NaN;
+        sy[s] = y;
+        checkpoint[s] <<= 1;
+      }
+    }
+  }
+
+  /**
+   * Returns the next step at which a pixel in the slots takes a snapshot or reaches the maximum
+   * number of iterations.
+   *
+   * @return The step, or {@link Long#MAX_VALUE} if every slot is empty.
+   */
+  private long nextEvent() {
+    long event = Long.MAX_VALUE;
+
+    for (int s = 0; s < SLOTS; ++s) {
+      if (start[s] != EMPTY) {
+        event = Math.min(event, start[s] + Math.min(checkpoint[s], getMaxIt() - 1));
+      }
+    }
+
+    return event;
+  }
+
+  /**
+   * Places the next pixel which needs to be iterated in the specified slot. Pixels inside the main
+   * cardioid or the period-2 bulb are colored without iterating them. If no pixels remain, the slot
+   * is emptied: its values are set to NaN, which neither escapes nor matches a snapshot.
+   *
+   * @param slot The slot to fill.
+   * @param first The step at which the pixel is first iterated.
+   */
+  private void fill(int slot, long first) {
+    Image image = getImage();
+    int width = image.getWidth();
+    int pixels = width * image.getHeight();
+    boolean isMandelbrot = basis == null;
+
+    while (next < pixels) {
+      int pixel = next++;
+      double x = xMin + (column * dx);
+      double y = yMin + (row * dy);
+
+      if (++column == width) {
+        column = 0;
+        ++row;
+      }
+
+      if (isMandelbrot && getPower() == 2 && isInteriorCheck() && isInterior(x, y)) {
+        // The color of a point which never escapes does not depend on its final value.
+        escape(0.0, 0.0, x, y, getMaxIt() - 1, true);
+        store(pixel);
+        continue;
+      }
+
+      zx[slot] = isMandelbrot ? 0.0 : x;
+      zy[slot] = isMandelbrot ? 0.0 : y;
+      cx[slot] = isMandelbrot ? x : basis.getX();
+      cy[slot] = isMandelbrot ? y : basis.getY();
+      sx[slot] = isPeriodicityCheck() ? zx[slot] : Double.NaN;
+      sy[slot] = zy[slot];
+      sum[slot] = 0.0;
+      start[slot] = first;
+      checkpoint[slot] = 1;
+      index[slot] = pixel;
+
+      return;
+    }
+
+    zx[slot] = Double.NaN;
+    zy[slot] = Double.NaN;
+    cx[slot] = Double.NaN;
+    cy[slot] = Double.NaN;
+    sx[slot] = Double.NaN;
+    sy[slot] = Double.NaN;
+    start[slot] = EMPTY;
+  }
+
+  /**
+   * Stores the raw values of the pixel in the specified slot.
+   *
+   * @param slot The slot of the pixel.
+   * @param iterations The number of iterations taken to escape, maxIt if the pixel did not escape.
+   */
+  private void finish(int slot, int iterations) {
+    int count = Math.min(iterations, getMaxIt() - 1);
+
+    escape(zx[slot], zy[slot], cx[slot], cy[slot], count, basis == null, sum[slot]);
+    store(index[slot]);
+  }
+}
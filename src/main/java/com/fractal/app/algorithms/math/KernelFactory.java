@@ -0,0 +1,245 @@
+package com.fractal.app.algorithms.math;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class creates the kernels which iterate the pixels of {@link Double double} sets, each
+ * specialized for one configuration of a {@link Region}: its power, and whether it is a Mandelbrot
+ * or a Julia set. A kernel is a separate copy of the class of a set, loaded by its own class
+ * loader. The JIT compiles and profiles each copy on its own, so the power, which the copy reads
+ * from {@link #getPower(Class)} into a constant, is folded into its squaring loop, and its branches
+ * only ever see one configuration. Pixels are colored in a separate pass, so the coloring
+ * algorithm is not part of the configuration.
+ * <p>
+ * Only the class itself is copied, so only its own loops are specialized: the raster escape-time
+ * loop of the double sets. Regions rendered by subdivision or guessing, and regions whose distances
+ * are estimated or whose orbits are trapped, are handed to the inherited loops of
+ * {@link ComplexSet}, which is not copied and is shared by every configuration. The render mode and
+ * these flags are therefore not part of the configuration either.
+ * <p>
+ * Compiled kernels are expensive to warm up, so they are cached and shared by every set created
+ * for the same configuration, on the client and on the servers alike. A configuration whose kernel
+ * cannot be created is reported once, and its sets are created from the original class from then
+ * on.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public final class KernelFactory {
+  /**
+   * The constructors of the kernels created so far, keyed by class and configuration, or of the
+   * original class for configurations whose kernel could not be created.
+   */
+  private static final Map<String, Constructor<? extends Set>> CACHE =
+      new HashMap<String, Constructor<? extends Set>>();
+
+  /** Prevents instantiation of this utility class. */
+  private KernelFactory() {
+  }
+
+  /**
+   * Creates a set of the specified class for the specified {@link Region}, using the kernel
+   * specialized for the configuration of the region. The class must read its power from
+   * {@link #getPower(Class)}, and must only use members of other classes which are public or
+   * protected, as the kernel belongs to a different runtime package than the original class.
+   *
+   * @param type The class of the set.
+   * @param region The {@link Region} to be calculated.
+   *
+   * @return The set, an instance of the original class if the kernel cannot be created.
+   */
+  public static Set createSet(Class<? extends Set> type, Region region) {
+    try {
+      Constructor<? extends Set> kernel = getKernel(type, region);
+
+      try {
+        return kernel.newInstance(region);
+      } catch (InvocationTargetException e) {
+        // The copy cannot link against a member it may not access from its runtime package.
+        if (!(e.getCause() instanceof LinkageError) || kernel.getDeclaringClass() == type) {
+          throw e;
+        }
+
+        return fallBack(type, region, e.getCause()).newInstance(region);
+      }
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException(type.getName(), e);
+    }
+  }
+
+  /**
+   * Returns the power to which the sets of the specified class are raised, if it is a kernel.
+   *
+   * @param type The class of a set.
+   *
+   * @return The power of the kernel, or zero if the class is not a kernel.
+   */
+  public static int getPower(Class<?> type) {
+    ClassLoader loader = type.getClassLoader();
+
+    return (loader instanceof KernelLoader) ? ((KernelLoader) loader).power : 0;
+  }
+
+  /**
+   * Returns the constructor of the kernel of the specified class for the configuration of the
+   * specified {@link Region}, loading the kernel if it is not cached.
+   *
+   * @param type The class of the set.
+   * @param region The {@link Region} to be calculated.
+   *
+   * @return The constructor of the kernel, or of the original class if the kernel cannot be
+   *         loaded.
+   *
+   * @throws ReflectiveOperationException If the original class has no constructor for a region.
+   */
+  private static synchronized Constructor<? extends Set> getKernel(Class<? extends Set> type,
+      Region region) throws ReflectiveOperationException {
+    Constructor<? extends Set> kernel = CACHE.get(getKey(type, region));
+
+    if (kernel == null) {
+      KernelLoader loader = new KernelLoader(type, region.getPower());
+
+      try {
+        kernel = loader.loadClass(type.getName()).asSubclass(Set.class)
+            .getConstructor(Region.class);
+        CACHE.put(getKey(type, region), kernel);
+      } catch (ReflectiveOperationException | LinkageError e) {
+        kernel = fallBack(type, region, e);
+      }
+    }
+
+    return kernel;
+  }
+
+  /**
+   * Reports that the kernel of the specified class cannot be created for the configuration of the
+   * specified {@link Region}, and caches the constructor of the original class in its place.
+   *
+   * @param type The class of the set.
+   * @param region The {@link Region} to be calculated.
+   * @param cause The reason the kernel cannot be created.
+   *
+   * @return The constructor of the original class.
+   *
+   * @throws ReflectiveOperationException If the original class has no constructor for a region.
+   */
+  private static synchronized Constructor<? extends Set> fallBack(Class<? extends Set> type,
+      Region region, Throwable cause) throws ReflectiveOperationException {
+    Constructor<? extends Set> constructor = type.getConstructor(Region.class);
+
+    // The kernel may fail to link on several threads before its failure is cached; report one.
+    if (!constructor.equals(CACHE.put(getKey(type, region), constructor))) {
+      cause.printStackTrace();
+    }
+
+    return constructor;
+  }
+
+  /**
+   * Returns the key under which the kernel of the specified class is cached for the configuration
+   * of the specified {@link Region}, which only holds what the raster loop of the copy is
+   * specialized for.
+   *
+   * @param type The class of the set.
+   * @param region The {@link Region} to be calculated.
+   *
+   * @return The key of the kernel.
+   */
+  private static String getKey(Class<? extends Set> type, Region region) {
+    return type.getName() + ',' + region.getPower() + ',' + (region.getJulia() != null);
+  }
+
+  /**
+   * This class loads a single copy of the class of a set, delegating every other class to the
+   * loader of the original class.
+   */
+  private static class KernelLoader extends ClassLoader {
+    /** The name of the class to copy. */
+    private final String name;
+
+    /** The power to which the sets of the copy are raised. */
+    private final int power;
+
+    /**
+     * Creates a new {@link KernelLoader} for the specified class.
+     *
+     * @param type The class to copy.
+     * @param power The power to which the sets of the copy are raised.
+     */
+    KernelLoader(Class<?> type, int power) {
+      super(type.getClassLoader());
+
+      this.name = type.getName();
+      this.power = power;
+    }
+
+    /**
+     * Loads the class with the specified name, defining the copy if it is the copied class.
+     *
+     * @param className The name of the class.
+     * @param resolve True to resolve the class.
+     *
+     * @return The class.
+     *
+     * @throws ClassNotFoundException If the class cannot be found.
+     */
+    @Override
+    protected synchronized Class<?> loadClass(String className, boolean resolve)
+        throws ClassNotFoundException {
+      if (!name.equals(className)) {
+        return super.loadClass(className, resolve);
+      }
+
+      Class<?> type = findLoadedClass(className);
+
+      if (type == null) {
+        byte[] bytes = readClass(className);
+
+        type = defineClass(className, bytes, 0, bytes.length);
+      }
+
+      if (resolve) {
+        resolveClass(type);
+      }
+
+      return type;
+    }
+
+    /**
+     * Reads the class file of the class with the specified name from the parent loader.
+     *
+     * @param className The name of the class.
+     *
+     * @return The contents of the class file.
+     *
+     * @throws ClassNotFoundException If the class file cannot be read.
+     */
+    private byte[] readClass(String className) throws ClassNotFoundException {
+      String path = className.replace('.', '/') + ".class";
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int count = 0;
+
+      try (InputStream in = getParent().getResourceAsStream(path)) {
+        if (in == null) {
+          throw new ClassNotFoundException(className);
+        }
+
+        while ((count = in.read(buffer)) > 0) {
+          bytes.write(buffer, 0, count);
+        }
+      } catch (IOException e) {
+        throw new ClassNotFoundException(className, e);
+      }
+
+      return bytes.toByteArray();
+    }
+  }
+}
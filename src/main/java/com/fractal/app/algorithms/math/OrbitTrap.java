@@ -0,0 +1,142 @@
+package com.fractal.app.algorithms.math;
+
+import java.io.Serializable;
+
+/**
+ * This class models an orbit trap: a point, a line or a cross of two perpendicular lines in the
+ * complex plane. Sets whose {@link Region} carries a trap record, for each pixel, the smallest
+ * distance from the trap of any point of its orbit, measured in units of the radius of the trap,
+ * so that the pixel can be colored by how closely its orbit approached the trap. The trap is sent
+ * to the servers inside the region, so it is immutable and {@link Serializable}.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class OrbitTrap implements Serializable {
+  /** A unique id associated with this {@link Serializable} object. */
+  private static final long serialVersionUID = 5823607481046722953L;
+
+  /** Represents a trap at a single point. */
+  public static final int TRAP_POINT = 0;
+
+  /** Represents a trap along a line through the center of the trap. */
+  public static final int TRAP_LINE = TRAP_POINT + 1;
+
+  /** Represents a trap along two perpendicular lines crossing at the center of the trap. */
+  public static final int TRAP_CROSS = TRAP_LINE + 1;
+
+  /** The shape of the trap, one of the trap types of this class. */
+  private final int type;
+
+  /** The real portion of the center of the trap. */
+  private final double x;
+
+  /** The imaginary coefficient of the center of the trap. */
+  private final double y;
+
+  /** The angle of the line of the trap from the real axis, in radians. */
+  private final double angle;
+
+  /** The distance from the trap beyond which a point is not considered to be trapped. */
+  private final double radius;
+
+  /** The cosine of the angle of the line. */
+  private final double cos;
+
+  /** The sine of the angle of the line. */
+  private final double sin;
+
+  /**
+   * Creates a new {@link OrbitTrap} with the specified shape.
+   *
+   * @param type The shape of the trap, one of the trap types of this class.
+   * @param x The real portion of the center of the trap.
+   * @param y The imaginary coefficient of the center of the trap.
+   * @param angle The angle of the line of the trap from the real axis in radians, ignored for a
+   *        point.
+   * @param radius The distance from the trap beyond which a point is not considered to be trapped.
+   */
+  public OrbitTrap(int type, double x, double y, double angle, double radius) {
+    this.type = type;
+    this.x = x;
+    this.y = y;
+    this.angle = angle;
+    this.radius = radius;
+    this.cos = Math.cos(angle);
+    this.sin = Math.sin(angle);
+  }
+
+  /**
+   * Returns the squared distance of the specified point from the trap. Sets call this method for
+   * every point of an orbit, so the square root is only taken of the smallest distance.
+   *
+   * @param zx The real portion of the point.
+   * @param zy The imaginary coefficient of the point.
+   *
+   * @return The squared distance of the point from the trap.
+   */
+  public double getSquaredDistance(double zx, double zy) {
+    double px = zx - x;
+    double py = zy - y;
+
+    if (type == TRAP_POINT) {
+      return (px * px) + (py * py);
+    }
+
+    // The distances across the line and along it, which is the distance across the second line.
+    double across = (py * cos) - (px * sin);
+    double along = (px * cos) + (py * sin);
+
+    if (type == TRAP_LINE) {
+      return across * across;
+    }
+
+    return Math.min(across * across, along * along);
+  }
+
+  /**
+   * Returns the shape of the trap.
+   *
+   * @return The shape of the trap, one of the trap types of this class.
+   */
+  public int getType() {
+    return type;
+  }
+
+  /**
+   * Returns the real portion of the center of the trap.
+   *
+   * @return The real portion of the center of the trap.
+   */
+  public double getX() {
+    return x;
+  }
+
+  /**
+   * Returns the imaginary coefficient of the center of the trap.
+   *
+   * @return The imaginary coefficient of the center of the trap.
+   */
+  public double getY() {
+    return y;
+  }
+
+  /**
+   * Returns the angle of the line of the trap from the real axis.
+   *
+   * @return The angle in radians.
+   */
+  public double getAngle() {
+    return angle;
+  }
+
+  /**
+   * Returns the distance from the trap beyond which a point is not considered to be trapped.
+   *
+   * @return The radius of the trap.
+   */
+  public double getRadius() {
+    return radius;
+  }
+}
@@ -0,0 +1,607 @@
+package com.fractal.app.algorithms.math;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import com.fractal.app.algorithms.color.BandedColoringAlgorithm;
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
+import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
+import com.fractal.app.image.Image;
+
+/**
+ * This class models and displays a graphical representations of the well known Mandelbrot and Julia
+ * sets at zoom levels beyond the reach of {@link Double doubles}. A single {@link ReferenceOrbit}
+ * is computed with increased precision for the whole frame, and every pixel is iterated as a double
+ * precision delta against it. Pixels whose deltas lose precision relative to the orbit are detected
+ * as glitches and recomputed against the other reference points of the region, or against a new
+ * reference point at the pixel itself, so that the pixels can be tested in any order by the
+ * rendering strategy of the {@link Region}. When an error bound is set, the first iterations of
+ * every pixel against the reference orbit of the frame are replaced by a
+ * {@link SeriesApproximation}.
+ * <p>
+ * When distances are estimated, the derivative of the orbit of each pixel is tracked on the full
+ * value of the pixel, the reference point plus its delta, which is only needed to double precision.
+ * When the region carries an {@link OrbitTrap}, every point of the orbit must be measured against
+ * it, so no iterations are skipped by the series approximation.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class PerturbationComplexSet extends AbstractComplexSet {
+  /** Represents the selection of the {@link BandedColoringAlgorithm}. */
+  private static final int COLOR_ALG_BANDED = 0;
+
+  /** Represents the selection of the {@link SmoothColoringAlgorithm}. */
+  private static final int COLOR_ALG_SMOOTH = COLOR_ALG_BANDED + 1;
+
+  /** Represents the selection of the {@link HistogramColoringAlgorithm}. */
+  private static final int COLOR_ALG_HISTOGRAM = COLOR_ALG_SMOOTH + 1;
+
+  /** Represents the selection of the {@link OrbitTrapColoringAlgorithm}. */
+  private static final int COLOR_ALG_TRAP = COLOR_ALG_HISTOGRAM + 1;
+
+  /** Indicates that a pixel could not be computed accurately against the current reference. */
+  private static final int GLITCH = -1;
+
+  /**
+   * The squared ratio between the magnitudes of a pixel and the reference orbit below which the
+   * pixel is considered to be glitched.
+   */
+  private static final double GLITCH_TOLERANCE = 1.0e-6;
+
+  /** The maximum number of additional reference points to compute for glitched pixels. */
+  private static final int MAX_REFERENCES = 16;
+
+  /** The maximum number of iterations to perform. */
+  private int maxIt;
+
+  /** The power to which the set will be raised. */
+  private int power;
+
+  /** The number of digits to use for the reference orbit calculations. */
+  private int precision;
+
+  /** The reference point shared by the regions of the frame, can be null. */
+  private ComplexNumber reference;
+
+  /** The largest acceptable error of the series approximation in pixels, zero to disable it. */
+  private double tolerance;
+
+  /** The reference orbits against which the pixels were computed, in the order they were used. */
+  private ReferenceOrbit[] orbits = new ReferenceOrbit[MAX_REFERENCES + 1];
+
+  /** The number of reference orbits in use, including the reference orbit of the frame. */
+  private int references;
+
+  /** The approximation of the first iterations against the orbit of the frame, can be null. */
+  private SeriesApproximation series;
+
+  /** The number of pixels computed with the series approximation. */
+  private int approximated;
+
+  /** The real distance from each reference point to the lower bound of the region. */
+  private double[] orbitX = new double[MAX_REFERENCES + 1];
+
+  /** The imaginary distance from each reference point to the lower bound of the region. */
+  private double[] orbitY = new double[MAX_REFERENCES + 1];
+
+  /** The position within {@link #orbits} of the reference orbit which computed each pixel. */
+  private byte[] pixelOrbits;
+
+  /** The math context for the reference points. */
+  private MathContext mc;
+
+  /** The real portion of the lower bound of the region, for the reference points. */
+  private BigDecimal xMin;
+
+  /** The imaginary coefficient of the lower bound of the region, for the reference points. */
+  private BigDecimal yMin;
+
+  /** The real distance between pixels, for the reference points. */
+  private BigDecimal dx;
+
+  /** The imaginary distance between pixels, for the reference points. */
+  private BigDecimal dy;
+
+  /** The real distance between pixels. */
+  private double pixelX;
+
+  /** The imaginary distance between pixels. */
+  private double pixelY;
+
+  /** The point on which the set being generated is based, can be null. */
+  private ComplexNumber basis;
+
+  /** True if points whose orbits enter a cycle stop iterating. */
+  private boolean periodicityCheck = true;
+
+  /** The number of iterations taken to escape by the last pixel tested. */
+  private int iterations;
+
+  /** The algorithm used to choose colors for points within the set. */
+  private ColoringAlgorithm colorAlg;
+
+  /**
+   * Creates a new {@link PerturbationComplexSet} based on the specified {@link Region}.
+   *
+   * @param region The {@link Region} on which to base the set.
+   */
+  public PerturbationComplexSet(Region region) {
+    super(region);
+
+    this.power = region.getPower();
+    this.maxIt = region.getMaxIt();
+    this.precision = region.getPrecisionBits();
+    this.reference = region.getReference();
+    this.tolerance = region.getApproximationTolerance();
+
+    setColorAlg(region.getColorAlg());
+  }
+
+  /**
+   * Computes a color value for each pixel representing a point within the set, with the rendering
+   * strategy of the {@link Region}. The pixels are iterated against the reference orbit of the
+   * frame, and any glitched pixel against reference points chosen among the glitched pixels.
+   *
+   * @param basisPoint The point on which to base the set, can be null.
+   */
+  @Override
+  public void generate(ComplexNumber basisPoint) {
+    Image image = getImage();
+    BigDecimal two = new BigDecimal(2);
+    BigDecimal xMax = getMax().getPreciseX();
+    BigDecimal yMax = getMax().getPreciseY();
+    int width = image.getWidth();
+    int height = image.getHeight();
+
+    mc = new MathContext(precision, RoundingMode.HALF_EVEN);
+    xMin = getMin().getPreciseX();
+    yMin = getMin().getPreciseY();
+    dx = xMax.subtract(xMin, mc).divide(new BigDecimal(width), mc);
+    dy = yMax.subtract(yMin, mc).divide(new BigDecimal(height), mc);
+
+    BigDecimal refX = xMin.add(xMax, mc).divide(two, mc);
+    BigDecimal refY = yMin.add(yMax, mc).divide(two, mc);
+
+    if (reference != null) {
+      refX = reference.getPreciseX();
+      refY = reference.getPreciseY();
+    }
+
+    ReferenceOrbit orbit =
+        ReferenceOrbit.getInstance(refX, refY, basisPoint, power, maxIt, precision);
+    double xOffset = xMin.subtract(refX, mc).doubleValue();
+    double yOffset = yMin.subtract(refY, mc).doubleValue();
+
+    series = null;
+
+    if (tolerance > 0.0 && power == 2 && getTrap() == null) {
+      // The series must hold for the corner of the region farthest from the reference point.
+      double farX = Math.max(Math.abs(xOffset), Math.abs(xOffset + (width * dx.doubleValue())));
+      double farY = Math.max(Math.abs(yOffset), Math.abs(yOffset + (height * dy.doubleValue())));
+
+      series = new SeriesApproximation(orbit, basisPoint == null, Math.hypot(farX, farY),
+          Math.min(dx.doubleValue(), dy.doubleValue()), tolerance);
+    }
+
+    pixelOrbits = new byte[width * height];
+    pixelX = dx.doubleValue();
+    pixelY = dy.doubleValue();
+    basis = basisPoint;
+    orbits[0] = orbit;
+    orbitX[0] = xOffset;
+    orbitY[0] = yOffset;
+    references = 1;
+    approximated = 0;
+
+    render();
+
+    if (series != null && series.getSkippedIterations() > 0) {
+      image.getStatistics().addSkippedIterations(series.getSkippedIterations(), approximated,
+          series.getError());
+    }
+
+    color(basisPoint == null);
+  }
+
+  /**
+   * Tests for point inclusion within the set. The point serves as its own reference point, so the
+   * orbit is computed entirely with increased precision.
+   *
+   * @param z The point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
+   *
+   * @return The RGB value of the color for the point.
+   */
+  public int testPoint(ComplexNumber z, ComplexNumber c) {
+    ReferenceOrbit orbit =
+        new ReferenceOrbit(z.getPreciseX(), z.getPreciseY(), c, power, maxIt, precision);
+
+    testPoint(orbit, null, c, 0.0, 0.0, true);
+
+    return getColor() & RGB_MASK;
+  }
+
+  /**
+   * Tests the pixel in the specified column and row of the image, recording its raw values. The
+   * pixel is iterated against the reference orbit of the frame. If it is glitched, it is iterated
+   * against the other reference points of the region, the most recent first, and if it is glitched
+   * against all of them, against a new reference point at the pixel itself. Once
+   * {@link #MAX_REFERENCES} points have been added, such a pixel is iterated as its own reference
+   * point without keeping its orbit.
+   *
+   * @param column The column of the pixel.
+   * @param row The row of the pixel.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  @Override
+  protected int testPixel(int column, int row) {
+    int orbitIndex = 0;
+    int count = testPoint(0, series, column, row, false);
+
+    if (count != GLITCH) {
+      ++approximated;
+    }
+
+    for (int i = references - 1; i > 0 && count == GLITCH; --i) {
+      orbitIndex = i;
+      count = testPoint(i, null, column, row, false);
+    }
+
+    if (count == GLITCH && references < orbits.length) {
+      orbitIndex = addReference(column, row);
+      count = testPoint(orbitIndex, null, column, row, true);
+    } else if (count == GLITCH) {
+      // Every reference point is in use, so the pixel is iterated as its own reference point.
+      orbitIndex = references - 1;
+      count = testPoint(createOrbit(column, row), null, basis, 0.0, 0.0, true);
+    }
+
+    pixelOrbits[(row * getImage().getWidth()) + column] = (byte) orbitIndex;
+    iterations = count;
+
+    return count;
+  }
+
+  /**
+   * Tests the point at the specified fractional column and row of the image, recording its raw
+   * values. The point is iterated against the reference orbit which computed its pixel, which lies
+   * within half a pixel of it, then against the other reference points of the region. The values
+   * against the orbit of its pixel are accepted if it is glitched against all of them, as those of
+   * the pixels are once no more reference points can be added.
+   *
+   * @param column The column of the point.
+   * @param row The row of the point.
+   */
+  @Override
+  protected void testSample(double column, double row) {
+    int pixelOrbit = pixelOrbits[((int) Math.round(row) * getImage().getWidth())
+        + (int) Math.round(column)];
+    int count = testPoint(pixelOrbit, null, column, row, false);
+
+    for (int i = references - 1; i >= 0 && count == GLITCH; --i) {
+      if (i != pixelOrbit) {
+        count = testPoint(i, null, column, row, false);
+      }
+    }
+
+    if (count == GLITCH) {
+      testPoint(pixelOrbit, null, column, row, true);
+    }
+  }
+
+  /**
+   * Returns the number of iterations taken to escape by the last pixel tested.
+   *
+   * @return The number of iterations taken to escape.
+   */
+  @Override
+  protected int getIterations() {
+    return iterations;
+  }
+
+  /**
+   * Sets the {@link ColoringAlgorithm} of the set to the specified algorithm.
+   *
+   * @param color The new {@link ColoringAlgorithm} to use.
+   */
+  public void setColoringAlgorithm(ColoringAlgorithm colorAlg) {
+    this.colorAlg = colorAlg;
+  }
+
+  /**
+   * Returns the {@link ColoringAlgorithm} of the set.
+   *
+   * @return The {@link ColoringAlgorithm} of the set.
+   */
+  @Override
+  protected ColoringAlgorithm getColoringAlgorithm() {
+    return colorAlg;
+  }
+
+  /**
+   * Enables or disables detecting points whose orbits enter a cycle. Such points never escape, so
+   * they stop iterating as soon as the cycle is found.
+   *
+   * @param periodicityCheck True to detect cycles, false to iterate every point to the maximum.
+   */
+  public void setPeriodicityCheck(boolean periodicityCheck) {
+    this.periodicityCheck = periodicityCheck;
+  }
+
+  /**
+   * Adds a reference point at the specified column and row of the image.
+   *
+   * @param column The column of the reference point.
+   * @param row The row of the reference point.
+   *
+   * @return The position of its reference orbit within {@link #orbits}.
+   */
+  private int addReference(int column, int row) {
+    orbits[references] = createOrbit(column, row);
+    orbitX[references] = -column * pixelX;
+    orbitY[references] = -row * pixelY;
+
+    return references++;
+  }
+
+  /**
+   * Computes the reference orbit of the point at the specified column and row of the image.
+   *
+   * @param column The column of the point.
+   * @param row The row of the point.
+   *
+   * @return The {@link ReferenceOrbit}.
+   */
+  private ReferenceOrbit createOrbit(int column, int row) {
+    return new ReferenceOrbit(xMin.add(dx.multiply(new BigDecimal(column), mc), mc),
+        yMin.add(dy.multiply(new BigDecimal(row), mc), mc), basis, power, maxIt, precision);
+  }
+
+  /**
+   * Iterates the point at the specified fractional column and row of the image as a delta against
+   * the specified reference orbit.
+   *
+   * @param orbitIndex The position of the reference orbit within {@link #orbits}.
+   * @param series The approximation of the first iterations against the orbit, can be null.
+   * @param column The column of the point.
+   * @param row The row of the point.
+   * @param force True to accept the values of the point even if it is glitched.
+   *
+   * @return The number of iterations taken to escape, or {@link #GLITCH} if the point is glitched.
+   */
+  private int testPoint(int orbitIndex, SeriesApproximation series, double column, double row,
+      boolean force) {
+    return testPoint(orbits[orbitIndex], series, basis, orbitX[orbitIndex] + (column * pixelX),
+        orbitY[orbitIndex] + (row * pixelY), force);
+  }
+
+  /**
+   * Iterates a single pixel as a delta against the specified reference orbit. Iteration also halts
+   * when the pixel returns exactly to an earlier value, the reference point plus its delta. The
+   * delta must return to its earlier value as well: near a repelling cycle of the reference orbit,
+   * the delta of a pixel which escapes can be too small to change the sum of the two for many
+   * iterations.
+   *
+   * @param orbit The reference orbit.
+   * @param series The approximation of the first iterations against the orbit, can be null.
+   * @param c The point on which to base the set, can be null.
+   * @param xOffset The real distance from the reference point to the pixel.
+   * @param yOffset The imaginary distance from the reference point to the pixel.
+   * @param force True to accept the color of the pixel even if it is glitched.
+   *
+   * @return The number of iterations taken to escape, or {@link #GLITCH} if the pixel is glitched.
+   */
+  private int testPoint(ReferenceOrbit orbit, SeriesApproximation series, ComplexNumber c,
+      double xOffset, double yOffset, boolean force) {
+    double[] refX = orbit.getX();
+    double[] refY = orbit.getY();
+    int length = orbit.getLength();
+    boolean isMandelbrot = c == null;
+    double deltaX = isMandelbrot ? 0.0 : xOffset;
+    double deltaY = isMandelbrot ? 0.0 : yOffset;
+    double deltaCx = isMandelbrot ? xOffset : 0.0;
+    double deltaCy = isMandelbrot ? yOffset : 0.0;
+    double cx = isMandelbrot ? refX[Math.min(1, length - 1)] + xOffset : c.getX();
+    double cy = isMandelbrot ? refY[Math.min(1, length - 1)] + yOffset : c.getY();
+    int start = 0;
+    double zx = 0.0;
+    double zy = 0.0;
+    double wx = 0.0;
+    double wy = 0.0;
+    double z0x = 0.0;
+    double z0y = 0.0;
+    double d0x = 0.0;
+    double d0y = 0.0;
+    double tx = 0.0;
+    double ty = 0.0;
+    double tmp = 0.0;
+    double mag = 0.0;
+    double sum = 0.0;
+    boolean distance = isDistanceEstimation();
+    OrbitTrap trap = getTrap();
+    double trapped = Double.POSITIVE_INFINITY;
+    double dzx = isMandelbrot ? 0.0 : 1.0;
+    double dzy = 0.0;
+    double px = 0.0;
+    double py = 0.0;
+    double limit = getDerivativeLimit();
+    int top = Integer.highestOneBit(power);
+    int checkpoint = 1;
+    double sx = 0.0;
+    double sy = 0.0;
+    double sdx = 0.0;
+    double sdy = 0.0;
+
+    if (series != null && series.getSkippedIterations() > 0) {
+      start = series.getSkippedIterations();
+      deltaX = series.getX(xOffset, yOffset);
+      deltaY = series.getY(xOffset, yOffset);
+      dzx = series.getDerivativeX(xOffset, yOffset);
+      dzy = series.getDerivativeY(xOffset, yOffset);
+
+      if (!isMandelbrot) {
+        // The pixel follows the reference within the error bound over the skipped iterations, so
+        // their smoothing terms are taken from the orbit of the reference.
+        sum = orbit.getSmoothingSums()[start];
+      }
+    }
+
+    zx = refX[start] + deltaX;
+    zy = refY[start] + deltaY;
+    sx = zx;
+    sy = zy;
+    sdx = deltaX;
+    sdy = deltaY;
+
+    for (int i = start; i < maxIt; ++i) {
+      if (i + 1 >= length) {
+        // The reference escaped before this pixel did.
+        if (!force) {
+          return GLITCH;
+        }
+
+        escape(zx, zy, cx, cy, i, isMandelbrot, sum);
+        recordTrap(trapped);
+
+        return i;
+      }
+
+      if (!isMandelbrot) {
+        // The smoothing sum of the orbit is accumulated as it is iterated, from the first
+        // iteration which is not skipped by the series approximation.
+        sum += getSmoothingTerm((zx * zx) + (zy * zy));
+      }
+
+      wx = refX[i];
+      wy = refY[i];
+      z0x = wx + deltaX;
+      z0y = wy + deltaY;
+      d0x = deltaX;
+      d0y = deltaY;
+
+      if (distance) {
+        // dz = power z^(power - 1) dz (+ 1 for a Mandelbrot set), on the full value of the pixel.
+        px = z0x;
+        py = z0y;
+
+        for (int k = 2; k < power; ++k) {
+          tmp = (px * z0x) - (py * z0y);
+          py = (px * z0y) + (py * z0x);
+          px = tmp;
+        }
+
+        tmp = (power * ((px * dzx) - (py * dzy))) + (isMandelbrot ? 1.0 : 0.0);
+        dzy = power * ((px * dzy) + (py * dzx));
+        dzx = tmp;
+      }
+
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        // Squaring the reference point and the pixel, i.e. (W + d)^2 = W^2 + (2W + d)d.
+        tx = (2.0 * wx) + deltaX;
+        ty = (2.0 * wy) + deltaY;
+        tmp = (tx * deltaX) - (ty * deltaY);
+        deltaY = (tx * deltaY) + (ty * deltaX);
+        deltaX = tmp;
+        tmp = (wx * wx) - (wy * wy);
+        wy = 2.0 * wx * wy;
+        wx = tmp;
+
+        if ((power & bit) != 0) {
+          // Multiplying by the reference point and the pixel at the start of the iteration, i.e.
+          // (W + d)(W0 + d0) = W W0 + W d0 + d(W0 + d0).
+          tmp = ((wx * d0x) - (wy * d0y)) + ((deltaX * z0x) - (deltaY * z0y));
+          deltaY = ((wx * d0y) + (wy * d0x)) + ((deltaX * z0y) + (deltaY * z0x));
+          deltaX = tmp;
+          tmp = (wx * refX[i]) - (wy * refY[i]);
+          wy = (wx * refY[i]) + (wy * refX[i]);
+          wx = tmp;
+        }
+      }
+
+      deltaX += deltaCx;
+      deltaY += deltaCy;
+      wx = refX[i + 1];
+      wy = refY[i + 1];
+      zx = wx + deltaX;
+      zy = wy + deltaY;
+      mag = (zx * zx) + (zy * zy);
+
+      if (mag > THRESHOLD) {
+        escape(zx, zy, cx, cy, i, isMandelbrot, sum);
+        recordTrap(trapped);
+
+        if (distance) {
+          estimateDistance(zx, zy, dzx, dzy);
+        }
+
+        return i;
+      }
+
+      if (!force && mag < GLITCH_TOLERANCE * ((wx * wx) + (wy * wy))) {
+        return GLITCH;
+      }
+
+      if (distance && (dzx * dzx) + (dzy * dzy) > limit) {
+        int count = reachBoundary(zx, zy, cx, cy, i, isMandelbrot, sum);
+        recordTrap(trapped);
+
+        return count;
+      }
+
+      if (trap != null) {
+        trapped = Math.min(trapped, trap.getSquaredDistance(zx, zy));
+      }
+
+      if (periodicityCheck) {
+        // An orbit which returns exactly to an earlier value repeats forever, so it never escapes.
+        if (zx == sx && zy == sy && deltaX == sdx && deltaY == sdy) {
+          getImage().getStatistics().addPeriodicPoint(maxIt - 1 - i);
+          break;
+        }
+
+        // Brent's method: compare against snapshots taken at doubling intervals from the first
+        // iteration which is not skipped by the series approximation.
+        if (i - start == checkpoint) {
+          sx = zx;
+          sy = zy;
+          sdx = deltaX;
+          sdy = deltaY;
+          checkpoint <<= 1;
+        }
+      }
+    }
+
+    escape(zx, zy, cx, cy, maxIt - 1, isMandelbrot);
+    recordTrap(trapped);
+
+    return maxIt - 1;
+  }
+
+  /**
+   * Instantiates the appropriate {@link ColoringAlgorithm}.
+   *
+   * @param choice The {@link ColoringAlgorithm} choice.
+   */
+  private void setColorAlg(int choice) {
+    switch (choice) {
+      case COLOR_ALG_BANDED:
+        colorAlg = new BandedColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_SMOOTH:
+        colorAlg = new SmoothColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_HISTOGRAM:
+        colorAlg = new HistogramColoringAlgorithm(maxIt);
+        break;
+      case COLOR_ALG_TRAP:
+        colorAlg = new OrbitTrapColoringAlgorithm(maxIt);
+        break;
+    }
+  }
+}
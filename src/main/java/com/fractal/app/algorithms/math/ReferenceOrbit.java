@@ -0,0 +1,229 @@
+package com.fractal.app.algorithms.math;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class models the orbit of a single reference point computed with increased precision, using
+ * {@link FixedPointComplex fixed-point} arithmetic. The orbit is stored as {@link Double doubles}
+ * so that the points around the reference can be iterated as small double precision deltas against
+ * it. Orbits are expensive to compute, so the most recently used orbits are cached and shared
+ * between the regions of a frame.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class ReferenceOrbit {
+  /**
+   * The squared magnitude beyond which a reference point is certain to escape, so that squaring it
+   * cannot overflow the integer portion of a {@link FixedPointComplex}.
+   */
+  private static final double ESCAPE_LIMIT = 1.0e6;
+
+  /** The maximum number of orbits to keep in the cache. */
+  private static final int CACHE_SIZE = 4;
+
+  /** The most recently used orbits, keyed by the parameters used to compute them. */
+  private static final Map<String, ReferenceOrbit> CACHE =
+      new LinkedHashMap<String, ReferenceOrbit>(CACHE_SIZE, 0.75f, true) {
+        /** A unique id associated with this serializable object. */
+        private static final long serialVersionUID = 3045226683813574209L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReferenceOrbit> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  /** The real portions of the orbit. */
+  private double[] x;
+
+  /** The imaginary coefficients of the orbit. */
+  private double[] y;
+
+  /** The number of points in the orbit, including the starting point. */
+  private int length;
+
+  /**
+   * The sums of the smoothing terms of the points of a Julia orbit before each point, null for a
+   * Mandelbrot orbit.
+   */
+  private double[] smoothingSums;
+
+  /**
+   * Computes the orbit of the specified reference point with increased precision. The orbit ends
+   * once the reference point escapes or the maximum number of iterations has been performed.
+   *
+   * @param refX The real portion of the reference point.
+   * @param refY The imaginary coefficient of the reference point.
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param power The power to which the set will be raised.
+   * @param maxIt The maximum number of iterations to perform.
+   * @param precision The number of digits to use for the precision calculations.
+   */
+  public ReferenceOrbit(BigDecimal refX, BigDecimal refY, ComplexNumber julia, int power,
+      int maxIt, int precision) {
+    int bits = FixedPointComplex.bitsFor(precision);
+    FixedPointComplex z = new FixedPointComplex(bits);
+    FixedPointComplex c = new FixedPointComplex(bits, refX, refY);
+    FixedPointComplex base = new FixedPointComplex(bits);
+    int top = Integer.highestOneBit(power);
+    int bit = 0;
+
+    if (julia != null) {
+      z.set(c);
+      c.set(julia.getPreciseX(), julia.getPreciseY());
+    }
+
+    this.x = new double[maxIt + 1];
+    this.y = new double[maxIt + 1];
+    this.x[0] = z.getX();
+    this.y[0] = z.getY();
+    this.length = 1;
+
+    for (int i = 0; i < maxIt; ++i) {
+      base.set(z);
+
+      // z^power by squaring for each bit of the power below the highest, multiplying by the
+      // starting value of the iteration for each bit which is set.
+      for (bit = top >> 1; bit != 0 && z.getMagnitude() <= ESCAPE_LIMIT; bit >>= 1) {
+        z.square();
+
+        if ((power & bit) != 0) {
+          z.multiply(base);
+        }
+      }
+
+      if (bit != 0) {
+        // The reference point is certain to escape; finish the iteration with doubles.
+        escape(z.getX(), z.getY(), base.getX(), base.getY(), c.getX(), c.getY(), power, bit);
+        break;
+      }
+
+      z.add(c);
+      x[length] = z.getX();
+      y[length] = z.getY();
+      ++length;
+
+      if ((x[i + 1] * x[i + 1]) + (y[i + 1] * y[i + 1]) > AbstractComplexSet.THRESHOLD) {
+        break;
+      }
+    }
+
+    if (julia != null) {
+      smoothingSums = new double[length];
+
+      for (int i = 1; i < length; ++i) {
+        smoothingSums[i] = smoothingSums[i - 1]
+            + AbstractComplexSet.getSmoothingTerm((x[i - 1] * x[i - 1]) + (y[i - 1] * y[i - 1]));
+      }
+    }
+  }
+
+  /**
+   * Returns the orbit of the specified reference point, computing it only if it is not cached.
+   *
+   * @param refX The real portion of the reference point.
+   * @param refY The imaginary coefficient of the reference point.
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param power The power to which the set will be raised.
+   * @param maxIt The maximum number of iterations to perform.
+   * @param precision The number of digits to use for the precision calculations.
+   *
+   * @return The orbit of the reference point.
+   */
+  public static synchronized ReferenceOrbit getInstance(BigDecimal refX, BigDecimal refY,
+      ComplexNumber julia, int power, int maxIt, int precision) {
+    StringBuilder key = new StringBuilder();
+
+    key.append(refX).append(',').append(refY).append(',');
+    key.append(power).append(',').append(maxIt).append(',').append(precision);
+
+    if (julia != null) {
+      key.append(',').append(julia.getPreciseX()).append(',').append(julia.getPreciseY());
+    }
+
+    ReferenceOrbit orbit = CACHE.get(key.toString());
+
+    if (orbit == null) {
+      orbit = new ReferenceOrbit(refX, refY, julia, power, maxIt, precision);
+      CACHE.put(key.toString(), orbit);
+    }
+
+    return orbit;
+  }
+
+  /**
+   * Completes the current iteration of a reference point which is certain to escape with
+   * {@link Double doubles}, and appends the result to the orbit.
+   *
+   * @param zx The real portion of the reference point.
+   * @param zy The imaginary coefficient of the reference point.
+   * @param bx The real portion of the reference point at the start of the iteration.
+   * @param by The imaginary coefficient of the reference point at the start of the iteration.
+   * @param cx The real portion of the point to add.
+   * @param cy The imaginary coefficient of the point to add.
+   * @param power The power to which the set will be raised.
+   * @param bit The highest bit of the power which remains to be applied in the iteration.
+   */
+  private void escape(double zx, double zy, double bx, double by, double cx, double cy, int power,
+      int bit) {
+    double tmp = 0.0;
+
+    for (int b = bit; b != 0; b >>= 1) {
+      tmp = (zx * zx) - (zy * zy);
+      zy = (zy * zx) + (zx * zy);
+      zx = tmp;
+
+      if ((power & b) != 0) {
+        tmp = (zx * bx) - (zy * by);
+        zy = (zy * bx) + (zx * by);
+        zx = tmp;
+      }
+    }
+
+    x[length] = zx + cx;
+    y[length] = zy + cy;
+    ++length;
+  }
+
+  /**
+   * Returns the real portions of the orbit.
+   *
+   * @return The real portions of the orbit.
+   */
+  public double[] getX() {
+    return x;
+  }
+
+  /**
+   * Returns the imaginary coefficients of the orbit.
+   *
+   * @return The imaginary coefficients of the orbit.
+   */
+  public double[] getY() {
+    return y;
+  }
+
+  /**
+   * Returns the sums of the smoothing terms of the points of a Julia orbit before each point, so
+   * that the iterations of the points around the reference which are skipped by a
+   * {@link SeriesApproximation} still contribute to their smoothing sums.
+   *
+   * @return The sum before each point of the orbit, null for a Mandelbrot orbit.
+   */
+  public double[] getSmoothingSums() {
+    return smoothingSums;
+  }
+
+  /**
+   * Returns the number of points in the orbit, including the starting point.
+   *
+   * @return The number of points in the orbit.
+   */
+  public int getLength() {
+    return length;
+  }
+}
@@ -1,6 +1,9 @@
 package com.fractal.app.algorithms.math;
 
+import java.io.Serializable;
+
 import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.networking.Data;
 
 /**
  * This class models a {@link Region} in the Complex Plane.
@@ -9,7 +12,16 @@ import com.fractal.app.algorithms.color.ColoringAlgorithm;
  *
  * @version 6 July 2017
  */
-public class Region {
+public class Region implements Data {
+  /** A unique id associated with this {@link Serializable} object. */
+  private static final long serialVersionUID = -3467720914398157426L;
+
+  /**
+   * The default largest number of additional samples per pixel when supersampling, which bounds
+   * the samples of a region to twice those of its first pass.
+   */
+  public static final double DEFAULT_SAMPLE_BUDGET = 1.0;
+
   /** The lower bound of the region. */
   private ComplexNumber min;
 
@@ -19,6 +31,9 @@ public class Region {
   /** The point on which to base a Julia set. */
   private ComplexNumber julia;
 
+  /** The reference point shared by every region of a frame for perturbation calculations. */
+  private ComplexNumber reference;
+
   /** The width of the region. */
   private int width;
 
@@ -28,6 +43,9 @@ public class Region {
   /** A unique id associated with this region. */
   private int id;
 
+  /** The number of the frame to which this region belongs. */
+  private int frame;
+
   /** The x-value for the starting point of this region. */
   private int x;
 
@@ -49,6 +67,27 @@ public class Region {
   /** A value to indicate the use of increased precision in calculations. */
   private boolean precision;
 
+  /** A value to indicate that the precision should be chosen from the depth of the region. */
+  private boolean autoPrecision;
+
+  /** The largest acceptable error of the series approximation in pixels, zero to disable it. */
+  private double approximationTolerance;
+
+  /** The strategy used to render the pixels of the region. */
+  private int renderMode;
+
+  /** A value to indicate that the distance of each pixel from the boundary should be estimated. */
+  private boolean distanceEstimation;
+
+  /** The trap which the orbit of each pixel is measured against, null for none. */
+  private OrbitTrap trap;
+
+  /** The number of samples across each side of a supersampled pixel, one or less for none. */
+  private int supersampling;
+
+  /** The largest number of additional samples per pixel of the region, on average. */
+  private double sampleBudget = DEFAULT_SAMPLE_BUDGET;
+
   /**
    * Constructs a new region with specified bounds and specified width.
    *
@@ -173,6 +212,42 @@ public class Region {
     this.julia = julia;
   }
 
+  /**
+   * Returns the reference point shared by every region of a frame for perturbation calculations.
+   *
+   * @return The reference point; null if the region should use its own center.
+   */
+  public ComplexNumber getReference() {
+    return reference;
+  }
+
+  /**
+   * Sets the reference point shared by every region of a frame for perturbation calculations.
+   *
+   * @param reference The new reference point, can be null.
+   */
+  public void setReference(ComplexNumber reference) {
+    this.reference = reference;
+  }
+
+  /**
+   * Returns the largest acceptable error of the series approximation, in pixels.
+   *
+   * @return The largest acceptable error; zero if the approximation is disabled.
+   */
+  public double getApproximationTolerance() {
+    return approximationTolerance;
+  }
+
+  /**
+   * Sets the largest acceptable error of the series approximation, in pixels.
+   *
+   * @param approximationTolerance The largest acceptable error, zero to disable the approximation.
+   */
+  public void setApproximationTolerance(double approximationTolerance) {
+    this.approximationTolerance = approximationTolerance;
+  }
+
   /**
    * Returns the width of the region.
    *
@@ -227,6 +302,25 @@ public class Region {
     return id;
   }
 
+  /**
+   * Returns the number of the frame to which this region belongs.
+   *
+   * @return The number of the frame to which this region belongs.
+   */
+  public int getFrame() {
+    return frame;
+  }
+
+  /**
+   * Sets the number of the frame to which this region belongs. The images of the region carry the
+   * number back, so that those of a frame which has since been replaced can be dropped.
+   *
+   * @param frame The number of the frame to which this region belongs.
+   */
+  public void setFrame(int frame) {
+    this.frame = frame;
+  }
+
   /**
    * Returns the selection for the {@link ColoringAlgorithm}.
    *
@@ -254,6 +348,15 @@ public class Region {
     return precisionBits;
   }
 
+  /**
+   * Sets the number of bits used for performing precision calculations.
+   *
+   * @param precisionBits The new number of bits to use for performing precision calculations.
+   */
+  public void setPrecisionBits(int precisionBits) {
+    this.precisionBits = precisionBits;
+  }
+
   /**
    * Returns true if using precision mode, false otherwise.
    *
@@ -263,6 +366,134 @@ public class Region {
     return precision;
   }
 
+  /**
+   * Enables or disables precision mode.
+   *
+   * @param precision True for increased precision; false for normal.
+   */
+  public void setPrecise(boolean precision) {
+    this.precision = precision;
+  }
+
+  /**
+   * Returns true if the precision should be chosen from the depth of the region.
+   *
+   * @return True if the precision should be chosen automatically, false otherwise.
+   */
+  public boolean isAutoPrecision() {
+    return autoPrecision;
+  }
+
+  /**
+   * Sets whether or not the precision should be chosen from the depth of the region, in which case
+   * the precision settings of the region are replaced before it is calculated.
+   *
+   * @param autoPrecision True to choose the precision automatically, false otherwise.
+   */
+  public void setAutoPrecision(boolean autoPrecision) {
+    this.autoPrecision = autoPrecision;
+  }
+
+  /**
+   * Returns the strategy used to render the pixels of the region.
+   *
+   * @return The render mode, one of the render modes of the {@link AbstractComplexSet}.
+   */
+  public int getRenderMode() {
+    return renderMode;
+  }
+
+  /**
+   * Sets the strategy used to render the pixels of the region.
+   *
+   * @param renderMode The render mode, one of the render modes of the {@link AbstractComplexSet}.
+   */
+  public void setRenderMode(int renderMode) {
+    this.renderMode = renderMode;
+  }
+
+  /**
+   * Returns true if the distance of each pixel from the boundary of the set should be estimated.
+   *
+   * @return True if distances are estimated, false otherwise.
+   */
+  public boolean isDistanceEstimation() {
+    return distanceEstimation;
+  }
+
+  /**
+   * Sets whether or not the distance of each pixel from the boundary of the set should be
+   * estimated, in which case the derivative of each orbit is tracked as it is iterated, points
+   * close to the boundary stop iterating early, and the image is shaded by distance. Regions
+   * calculated with doubles are then iterated one pixel at a time, in at most two and a half times
+   * the time of the plain region; deeper regions take at most one and a half times as long.
+   *
+   * @param distanceEstimation True to estimate distances, false otherwise.
+   */
+  public void setDistanceEstimation(boolean distanceEstimation) {
+    this.distanceEstimation = distanceEstimation;
+  }
+
+  /**
+   * Returns the trap which the orbit of each pixel is measured against.
+   *
+   * @return The {@link OrbitTrap}, null for none.
+   */
+  public OrbitTrap getTrap() {
+    return trap;
+  }
+
+  /**
+   * Sets the trap which the orbit of each pixel is measured against. The smallest distance of each
+   * orbit from the trap is recorded for orbit trap coloring; without a trap, the sets iterate their
+   * points without any per-iteration hook.
+   *
+   * @param trap The {@link OrbitTrap}, null for none.
+   */
+  public void setTrap(OrbitTrap trap) {
+    this.trap = trap;
+  }
+
+  /**
+   * Returns the number of samples across each side of a supersampled pixel.
+   *
+   * @return The number of samples across each side, one or less if no pixel is supersampled.
+   */
+  public int getSupersampling() {
+    return supersampling;
+  }
+
+  /**
+   * Sets the number of samples across each side of a supersampled pixel. Only the pixels whose
+   * colors differ sharply from a neighbor after the first pass are supersampled, each on a grid of
+   * the specified size, within the sample budget of the region.
+   *
+   * @param supersampling The number of samples across each side, one or less for none.
+   */
+  public void setSupersampling(int supersampling) {
+    this.supersampling = supersampling;
+  }
+
+  /**
+   * Returns the largest number of additional samples per pixel of the region, on average.
+   *
+   * @return The sample budget, in samples per pixel.
+   */
+  public double getSampleBudget() {
+    return sampleBudget;
+  }
+
+  /**
+   * Sets the largest number of additional samples per pixel of the region, on average. When more
+   * pixels lie on edges than the budget allows, the pixels with the sharpest edges are
+   * supersampled.
+   *
+   * @param sampleBudget The sample budget, in samples per pixel.
+   */
+  public void setSampleBudget(double sampleBudget) {
+    this.sampleBudget = sampleBudget;
+  }
+
   /**
    * Returns the string representation of the region.
    *
@@ -0,0 +1,208 @@
+package com.fractal.app.algorithms.math;
+
+/**
+ * This class approximates the first iterations of the pixels around a {@link ReferenceOrbit} by a
+ * truncated power series in the distance from the reference point, d:
+ *
+ * <pre>
+ * delta(n) = A(n) d + B(n) d^2 + C(n) d^3
+ * </pre>
+ *
+ * The coefficients only depend on the reference orbit, so a single evaluation of the series
+ * replaces the first iterations of every pixel within a given radius of the reference point. The
+ * series is advanced for as long as the magnitude of the next, truncated, term stays within the
+ * error bound. The error is measured in pixels, i.e. relative to the distance between neighboring
+ * pixels after the same number of iterations. The approximation is only available for sets raised
+ * to the power of two.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class SeriesApproximation {
+  /** The number of iterations which may be skipped. */
+  private int skippedIterations;
+
+  /** The estimated error of the approximation after the skipped iterations, in pixels. */
+  private double error;
+
+  /** The real portion of the first order coefficient. */
+  private double ax;
+
+  /** The imaginary coefficient of the first order coefficient. */
+  private double ay;
+
+  /** The real portion of the second order coefficient. */
+  private double bx;
+
+  /** The imaginary coefficient of the second order coefficient. */
+  private double by;
+
+  /** The real portion of the third order coefficient. */
+  private double cx;
+
+  /** The imaginary coefficient of the third order coefficient. */
+  private double cy;
+
+  /**
+   * Computes the number of iterations which may be skipped for the pixels within the specified
+   * radius of the reference point.
+   *
+   * @param orbit The reference orbit.
+   * @param isMandelbrot True for a Mandelbrot set, false for a Julia set.
+   * @param radius The largest distance from the reference point to a pixel.
+   * @param spacing The distance between neighboring pixels.
+   * @param tolerance The largest acceptable error, in pixels.
+   */
+  public SeriesApproximation(ReferenceOrbit orbit, boolean isMandelbrot, double radius,
+      double spacing, double tolerance) {
+    double[] zx = orbit.getX();
+    double[] zy = orbit.getY();
+    double r2 = radius * radius;
+    double r4 = r2 * r2;
+    double ax = isMandelbrot ? 0.0 : 1.0;
+    double ay = 0.0;
+    double bx = 0.0;
+    double by = 0.0;
+    double cx = 0.0;
+    double cy = 0.0;
+    double dx = 0.0;
+    double dy = 0.0;
+    double tmp = 0.0;
+    double tx = 0.0;
+    double ty = 0.0;
+    double ux = 0.0;
+    double uy = 0.0;
+    double vx = 0.0;
+    double vy = 0.0;
+    double wx = 0.0;
+    double wy = 0.0;
+    double estimate = 0.0;
+
+    for (int i = 0; i + 2 < orbit.getLength(); ++i) {
+      tx = 2.0 * zx[i];
+      ty = 2.0 * zy[i];
+
+      // A' = 2ZA + 1, B' = 2ZB + A^2, C' = 2ZC + 2AB, D' = 2ZD + 2AC + B^2
+      ux = (tx * ax) - (ty * ay) + (isMandelbrot ? 1.0 : 0.0);
+      uy = (tx * ay) + (ty * ax);
+      vx = (tx * bx) - (ty * by) + (ax * ax) - (ay * ay);
+      vy = (tx * by) + (ty * bx) + (2.0 * ax * ay);
+      wx = (tx * cx) - (ty * cy) + (2.0 * ((ax * bx) - (ay * by)));
+      wy = (tx * cy) + (ty * cx) + (2.0 * ((ax * by) + (ay * bx)));
+      tmp = (tx * dx) - (ty * dy) + (2.0 * ((ax * cx) - (ay * cy))) + (bx * bx) - (by * by);
+      dy = (tx * dy) + (ty * dx) + (2.0 * ((ax * cy) + (ay * cx))) + (2.0 * bx * by);
+      dx = tmp;
+
+      estimate = Math.sqrt((dx * dx) + (dy * dy)) * r4
+          / (Math.sqrt((ux * ux) + (uy * uy)) * spacing);
+
+      if (!(estimate <= tolerance)) {
+        break;
+      }
+
+      ax = ux;
+      ay = uy;
+      bx = vx;
+      by = vy;
+      cx = wx;
+      cy = wy;
+      this.skippedIterations = i + 1;
+      this.error = estimate;
+    }
+
+    this.ax = ax;
+    this.ay = ay;
+    this.bx = bx;
+    this.by = by;
+    this.cx = cx;
+    this.cy = cy;
+  }
+
+  /**
+   * Returns the number of iterations which may be skipped.
+   *
+   * @return The number of iterations which may be skipped.
+   */
+  public int getSkippedIterations() {
+    return skippedIterations;
+  }
+
+  /**
+   * Returns the estimated error of the approximation after the skipped iterations, in pixels.
+   *
+   * @return The estimated error of the approximation.
+   */
+  public double getError() {
+    return error;
+  }
+
+  /**
+   * Returns the real portion of the approximated delta after the skipped iterations.
+   *
+   * @param dx The real distance from the reference point.
+   * @param dy The imaginary distance from the reference point.
+   *
+   * @return The real portion of the approximated delta.
+   */
+  public double getX(double dx, double dy) {
+    // Horner's method, i.e. d(A + d(B + dC)).
+    double px = bx + (cx * dx) - (cy * dy);
+    double py = by + (cx * dy) + (cy * dx);
+    double qx = ax + (px * dx) - (py * dy);
+    double qy = ay + (px * dy) + (py * dx);
+
+    return (qx * dx) - (qy * dy);
+  }
+
+  /**
+   * Returns the imaginary coefficient of the approximated delta after the skipped iterations.
+   *
+   * @param dx The real distance from the reference point.
+   * @param dy The imaginary distance from the reference point.
+   *
+   * @return The imaginary coefficient of the approximated delta.
+   */
+  public double getY(double dx, double dy) {
+    double px = bx + (cx * dx) - (cy * dy);
+    double py = by + (cx * dy) + (cy * dx);
+    double qx = ax + (px * dx) - (py * dy);
+    double qy = ay + (px * dy) + (py * dx);
+
+    return (qx * dy) + (qy * dx);
+  }
+
+  /**
+   * Returns the real portion of the derivative of the approximated delta with respect to the
+   * distance from the reference point, A + 2B d + 3C d^2, after the skipped iterations. This is the
+   * derivative of the orbit of the pixel, from which its distance from the boundary is estimated.
+   *
+   * @param dx The real distance from the reference point.
+   * @param dy The imaginary distance from the reference point.
+   *
+   * @return The real portion of the derivative.
+   */
+  public double getDerivativeX(double dx, double dy) {
+    // Horner's method, i.e. A + d(2B + 3Cd).
+    double px = (2.0 * bx) + (3.0 * ((cx * dx) - (cy * dy)));
+    double py = (2.0 * by) + (3.0 * ((cx * dy) + (cy * dx)));
+
+    return ax + (px * dx) - (py * dy);
+  }
+
+  /**
+   * Returns the imaginary coefficient of the derivative of the approximated delta with respect to
+   * the distance from the reference point after the skipped iterations.
+   *
+   * @param dx The real distance from the reference point.
+   * @param dy The imaginary distance from the reference point.
+   *
+   * @return The imaginary coefficient of the derivative.
+   */
+  public double getDerivativeY(double dx, double dy) {
+    double px = (2.0 * bx) + (3.0 * ((cx * dx) - (cy * dy)));
+    double py = (2.0 * by) + (3.0 * ((cx * dy) + (cy * dx)));
+
+    return ay + (px * dy) + (py * dx);
+  }
+}
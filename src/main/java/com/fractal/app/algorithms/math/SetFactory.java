@@ -0,0 +1,269 @@
+package com.fractal.app.algorithms.math;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import com.fractal.app.algorithms.color.BandedColoringAlgorithm;
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
+import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
+import com.fractal.app.image.IterationField;
+
+/**
+ * This class chooses the {@link Set} implementation used to calculate a {@link Region}, so that the
+ * client and the servers calculate a region in the same way. Regions which choose their precision
+ * automatically are given to the cheapest engine whose precision can tell their pixels apart.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public final class SetFactory {
+  /** Represents the {@link ComplexSet} engine. */
+  public static final int ENGINE_DOUBLE = 0;
+
+  /** Represents the {@link DoubleDoubleComplexSet} engine. */
+  public static final int ENGINE_DOUBLE_DOUBLE = ENGINE_DOUBLE + 1;
+
+  /** Represents the {@link PerturbationComplexSet} engine. */
+  public static final int ENGINE_PERTURBATION = ENGINE_DOUBLE_DOUBLE + 1;
+
+  /** The names of the engines, indexed by engine. */
+  public static final String[] ENGINE_NAMES = {"double", "double-double", "perturbation"};
+
+  /** Represents the {@link BandedColoringAlgorithm}. */
+  public static final int COLOR_ALG_BANDED = 0;
+
+  /** Represents the {@link SmoothColoringAlgorithm}. */
+  public static final int COLOR_ALG_SMOOTH = COLOR_ALG_BANDED + 1;
+
+  /** Represents the {@link HistogramColoringAlgorithm}. */
+  public static final int COLOR_ALG_HISTOGRAM = COLOR_ALG_SMOOTH + 1;
+
+  /** Represents the {@link OrbitTrapColoringAlgorithm}. */
+  public static final int COLOR_ALG_TRAP = COLOR_ALG_HISTOGRAM + 1;
+
+  /** The number of significant bits of a double. */
+  private static final int DOUBLE_BITS = 53;
+
+  /** The number of significant bits of a double-double. */
+  private static final int DOUBLE_DOUBLE_BITS = 2 * DOUBLE_BITS;
+
+  /**
+   * The number of significant bits lost to rounding errors accumulated over the iterations, beyond
+   * those needed to tell the pixels apart.
+   */
+  private static final int GUARD_BITS = 10;
+
+  /** The smallest magnitude for which significant bits are counted, i.e. the escape radius. */
+  private static final double MIN_MAGNITUDE = Math.sqrt(AbstractComplexSet.THRESHOLD);
+
+  /**
+   * The class of the vectorized double set, or null if the Vector API is not available or the host
+   * CPU cannot iterate more than one double at once.
+   */
+  private static final Class<? extends Set> VECTOR_SET = findVectorSet();
+
+  /** Prevents instantiation of this utility class. */
+  private SetFactory() {
+  }
+
+  /**
+   * Creates the appropriate {@link Set} for the specified {@link Region}. Regions which do not need
+   * increased precision use {@link Double doubles}, vectorized where supported and interleaved
+   * otherwise, regions whose precision fits within a double-double use {@link DoubleDoubleComplex
+   * double-doubles}, and any other regions are calculated by perturbation against a reference
+   * orbit. The precision of regions which choose it automatically is chosen first, and the engine
+   * is recorded in the statistics of the image. Regions which estimate distances or carry an
+   * {@link OrbitTrap} and need more than double precision are always calculated by perturbation,
+   * which tracks the derivative and the trap distance of each orbit in doubles.
+   *
+   * @param region The {@link Region} to be calculated.
+   *
+   * @return The {@link Set} for the region.
+   */
+  public static Set createSet(Region region) {
+    Set set = null;
+    int engine = ENGINE_DOUBLE;
+
+    choosePrecision(region);
+
+    if (!region.isPrecise()) {
+      set = createDoubleSet(region);
+    } else if (region.getPrecisionBits() <= DoubleDoubleComplex.DIGITS
+        && !region.isDistanceEstimation() && region.getTrap() == null) {
+      set = new DoubleDoubleComplexSet(region);
+      engine = ENGINE_DOUBLE_DOUBLE;
+    } else {
+      set = new PerturbationComplexSet(region);
+      engine = ENGINE_PERTURBATION;
+    }
+
+    set.getImage().getStatistics().addEngine(engine);
+
+    return set;
+  }
+
+  /**
+   * Creates the {@link ColoringAlgorithm} with which the sets color their images, so that an image
+   * can be colored again from its {@link IterationField} as its set would have colored it.
+   *
+   * @param choice The {@link ColoringAlgorithm} choice.
+   * @param maxIt The maximum number of iterations performed for the image.
+   *
+   * @return The {@link ColoringAlgorithm}.
+   */
+  public static ColoringAlgorithm createColoringAlgorithm(int choice, int maxIt) {
+    if (choice == COLOR_ALG_SMOOTH) {
+      return new SmoothColoringAlgorithm(maxIt);
+    } else if (choice == COLOR_ALG_HISTOGRAM) {
+      return new HistogramColoringAlgorithm(maxIt);
+    } else if (choice == COLOR_ALG_TRAP) {
+      return new OrbitTrapColoringAlgorithm(maxIt);
+    }
+
+    return new BandedColoringAlgorithm(maxIt);
+  }
+
+  /**
+   * Creates the {@link ColoringAlgorithm} with which the set of the specified field colored it. A
+   * {@link HistogramColoringAlgorithm} is created with the histogram of the field alone.
+   *
+   * @param choice The {@link ColoringAlgorithm} choice.
+   * @param field The {@link IterationField} to color.
+   *
+   * @return The {@link ColoringAlgorithm}.
+   */
+  public static ColoringAlgorithm createColoringAlgorithm(int choice, IterationField field) {
+    if (choice == COLOR_ALG_HISTOGRAM) {
+      return new HistogramColoringAlgorithm(field.getMaxIt(), field.getHistogram());
+    }
+
+    return createColoringAlgorithm(choice, field.getMaxIt());
+  }
+
+  /**
+   * Chooses the precision of the specified {@link Region} if it chooses its precision
+   * automatically. The number of significant bits needed is the number of bits needed to tell its
+   * pixels apart at the magnitude of its coordinates, plus guard bits; the region is then given the
+   * settings of the cheapest engine which provides them.
+   *
+   * @param region The {@link Region} whose precision to choose.
+   */
+  public static void choosePrecision(Region region) {
+    if (region.isAutoPrecision()) {
+      int bits = getRequiredBits(region);
+
+      if (bits <= DOUBLE_BITS) {
+        region.setPrecise(false);
+        region.setMin(toDouble(region.getMin()));
+        region.setMax(toDouble(region.getMax()));
+
+        if (region.getJulia() != null) {
+          region.setJulia(toDouble(region.getJulia()));
+        }
+      } else if (bits <= DOUBLE_DOUBLE_BITS) {
+        region.setPrecise(true);
+        region.setPrecisionBits(DoubleDoubleComplex.DIGITS);
+      } else {
+        region.setPrecise(true);
+        region.setPrecisionBits(Math.max(DoubleDoubleComplex.DIGITS + 1,
+            (int) Math.ceil(bits * Math.log10(2))));
+      }
+    }
+  }
+
+  /**
+   * Returns the number of significant bits needed to calculate the specified {@link Region}.
+   *
+   * @param region The {@link Region}.
+   *
+   * @return The number of significant bits needed.
+   */
+  public static int getRequiredBits(Region region) {
+    BigDecimal xMin = region.getMin().getPreciseX();
+    BigDecimal yMin = region.getMin().getPreciseY();
+    BigDecimal xMax = region.getMax().getPreciseX();
+    BigDecimal yMax = region.getMax().getPreciseY();
+    BigDecimal dx = xMax.subtract(xMin).divide(new BigDecimal(region.getWidth()),
+        MathContext.DECIMAL64);
+    BigDecimal dy = yMax.subtract(yMin).divide(new BigDecimal(region.getHeight()),
+        MathContext.DECIMAL64);
+    double magnitude = MIN_MAGNITUDE;
+
+    magnitude = Math.max(magnitude, Math.max(xMin.abs().doubleValue(), xMax.abs().doubleValue()));
+    magnitude = Math.max(magnitude, Math.max(yMin.abs().doubleValue(), yMax.abs().doubleValue()));
+
+    // The bits above the binary point plus the fraction bits needed to resolve a pixel.
+    return Math.getExponent(magnitude) + 1 + FixedPointComplex.bitsFor(dx.abs().min(dy.abs()))
+        + GUARD_BITS;
+  }
+
+  /**
+   * Returns true if regions calculated with {@link Double doubles} are iterated several pixels at a
+   * time with the Vector API.
+   *
+   * @return True if the vectorized double set is used, false otherwise.
+   */
+  public static boolean isVectorized() {
+    return VECTOR_SET != null;
+  }
+
+  /**
+   * Creates the {@link Set} for a {@link Region} calculated with {@link Double doubles}, from the
+   * kernel the {@link KernelFactory} specializes for the configuration of the region.
+   *
+   * @param region The {@link Region} to be calculated.
+   *
+   * @return The vectorized set if it is supported, an {@link InterleavedComplexSet} otherwise.
+   */
+  private static Set createDoubleSet(Region region) {
+    if (VECTOR_SET != null) {
+      return KernelFactory.createSet(VECTOR_SET, region);
+    }
+
+    return KernelFactory.createSet(InterleavedComplexSet.class, region);
+  }
+
+  /**
+   * Finds the class of the vectorized double set. The set is compiled separately for Java 17, and
+   * can only be loaded if the {@code jdk.incubator.vector} module has been added to the runtime, so
+   * it is looked up reflectively.
+   *
+   * @return The class, or null if the set is not supported.
+   */
+  private static Class<? extends Set> findVectorSet() {
+    try {
+      Class.forName("jdk.incubator.vector.DoubleVector");
+
+      Class<? extends Set> type =
+          Class.forName("com.fractal.app.algorithms.math.VectorComplexSet").asSubclass(Set.class);
+
+      if ((Boolean) type.getMethod("isSupported").invoke(null)) {
+        return type;
+      }
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // The interleaved set is used.
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns a {@link ComplexNumber} whose double values are set from the specified number.
+   *
+   * @param c The number to convert.
+   *
+   * @return The converted number.
+   */
+  private static ComplexNumber toDouble(ComplexNumber c) {
+    ComplexNumber converted = c;
+
+    if (c.getPx() != null || c.getPy() != null) {
+      converted = new ComplexNumber(c.getPreciseX().doubleValue(), c.getPreciseY().doubleValue());
+    }
+
+    return converted;
+  }
+}
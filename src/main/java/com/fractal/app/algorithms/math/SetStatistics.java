@@ -0,0 +1,375 @@
+package com.fractal.app.algorithms.math;
+
+import java.io.Serializable;
+
+/**
+ * This class collects statistics about the calculation of a set. The statistics of a single
+ * {@link Region} travel with its image, and the statistics of every region of a frame can be merged
+ * into a summary for the whole frame.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class SetStatistics implements Serializable {
+  /** A unique id associated with this {@link Serializable} object. */
+  private static final long serialVersionUID = -1573420986512374630L;
+
+  /** The number of regions represented by these statistics. */
+  private int regions;
+
+  /** The number of pixels represented by these statistics. */
+  private long pixels;
+
+  /** The number of iterations skipped by series approximation, summed over every pixel. */
+  private long skippedIterations;
+
+  /** The largest estimated error of the series approximation, in pixels. */
+  private double approximationError;
+
+  /** The number of pixels whose orbits were found to enter a cycle. */
+  private long periodicPixels;
+
+  /** The number of iterations saved by detecting cycles, summed over every pixel. */
+  private long savedIterations;
+
+  /** The number of pixels filled without being calculated. */
+  private long filledPixels;
+
+  /** The number of pixels taken to lie on the boundary by their estimated distance. */
+  private long boundaryPixels;
+
+  /** The number of iterations saved by stopping pixels on the boundary, summed over every pixel. */
+  private long boundaryIterations;
+
+  /** The number of pixels supersampled on the edges of the image. */
+  private long refinedPixels;
+
+  /** The number of additional samples taken of the supersampled pixels. */
+  private long samples;
+
+  /** The number of iterations of the first pass of the regions which supersample. */
+  private long pixelIterations;
+
+  /** The number of iterations of the additional samples. */
+  private long sampleIterations;
+
+  /** The number of regions calculated by each engine, indexed by engine. */
+  private int[] engines = new int[SetFactory.ENGINE_NAMES.length];
+
+  /**
+   * Creates new, empty {@link SetStatistics}.
+   */
+  public SetStatistics() {
+    this(0, 0);
+  }
+
+  /**
+   * Creates new {@link SetStatistics} for the specified number of regions and pixels.
+   *
+   * @param regions The number of regions represented by the statistics.
+   * @param pixels The number of pixels represented by the statistics.
+   */
+  public SetStatistics(int regions, long pixels) {
+    this.regions = regions;
+    this.pixels = pixels;
+  }
+
+  /**
+   * Adds the specified statistics to these statistics.
+   *
+   * @param other The statistics to add.
+   */
+  public void merge(SetStatistics other) {
+    regions += other.regions;
+    pixels += other.pixels;
+    skippedIterations += other.skippedIterations;
+    approximationError = Math.max(approximationError, other.approximationError);
+    periodicPixels += other.periodicPixels;
+    savedIterations += other.savedIterations;
+    filledPixels += other.filledPixels;
+    boundaryPixels += other.boundaryPixels;
+    boundaryIterations += other.boundaryIterations;
+    refinedPixels += other.refinedPixels;
+    samples += other.samples;
+    pixelIterations += other.pixelIterations;
+    sampleIterations += other.sampleIterations;
+
+    for (int i = 0; i < engines.length; ++i) {
+      engines[i] += other.engines[i];
+    }
+  }
+
+  /**
+   * Returns the number of regions represented by these statistics.
+   *
+   * @return The number of regions represented by these statistics.
+   */
+  public int getRegions() {
+    return regions;
+  }
+
+  /**
+   * Returns the number of pixels represented by these statistics.
+   *
+   * @return The number of pixels represented by these statistics.
+   */
+  public long getPixels() {
+    return pixels;
+  }
+
+  /**
+   * Returns the number of iterations skipped by series approximation, summed over every pixel.
+   *
+   * @return The number of iterations skipped by series approximation.
+   */
+  public long getSkippedIterations() {
+    return skippedIterations;
+  }
+
+  /**
+   * Returns the number of iterations skipped by series approximation per pixel, on average.
+   *
+   * @return The number of iterations skipped per pixel.
+   */
+  public long getSkippedIterationsPerPixel() {
+    return skippedIterations / Math.max(1, pixels);
+  }
+
+  /**
+   * Records that the specified number of iterations were skipped for the specified number of
+   * pixels, with the specified estimated error.
+   *
+   * @param iterations The number of iterations skipped for each pixel.
+   * @param count The number of pixels for which the iterations were skipped.
+   * @param error The estimated error of the approximation, in pixels.
+   */
+  public void addSkippedIterations(int iterations, int count, double error) {
+    skippedIterations += (long) iterations * count;
+    approximationError = Math.max(approximationError, error);
+  }
+
+  /**
+   * Returns the largest estimated error of the series approximation, in pixels.
+   *
+   * @return The largest estimated error of the series approximation.
+   */
+  public double getApproximationError() {
+    return approximationError;
+  }
+
+  /**
+   * Returns the number of pixels whose orbits were found to enter a cycle.
+   *
+   * @return The number of pixels whose orbits were found to enter a cycle.
+   */
+  public long getPeriodicPixels() {
+    return periodicPixels;
+  }
+
+  /**
+   * Returns the number of iterations saved by detecting cycles, summed over every pixel.
+   *
+   * @return The number of iterations saved by detecting cycles.
+   */
+  public long getSavedIterations() {
+    return savedIterations;
+  }
+
+  /**
+   * Records that the orbit of a pixel was found to enter a cycle, saving the specified number of
+   * iterations.
+   *
+   * @param iterations The number of iterations saved.
+   */
+  public void addPeriodicPoint(int iterations) {
+    ++periodicPixels;
+    savedIterations += iterations;
+  }
+
+  /**
+   * Returns the number of pixels filled without being calculated.
+   *
+   * @return The number of pixels filled without being calculated.
+   */
+  public long getFilledPixels() {
+    return filledPixels;
+  }
+
+  /**
+   * Records that the specified number of pixels were filled without being calculated.
+   *
+   * @param count The number of pixels filled.
+   */
+  public void addFilledPixels(int count) {
+    filledPixels += count;
+  }
+
+  /**
+   * Returns the number of pixels taken to lie on the boundary by their estimated distance.
+   *
+   * @return The number of pixels taken to lie on the boundary.
+   */
+  public long getBoundaryPixels() {
+    return boundaryPixels;
+  }
+
+  /**
+   * Returns the number of iterations saved by stopping pixels on the boundary, summed over every
+   * pixel.
+   *
+   * @return The number of iterations saved by stopping pixels on the boundary.
+   */
+  public long getBoundaryIterations() {
+    return boundaryIterations;
+  }
+
+  /**
+   * Records that a pixel was stopped as it was taken to lie on the boundary by its estimated
+   * distance, saving the specified number of iterations.
+   *
+   * @param iterations The number of iterations saved.
+   */
+  public void addBoundaryPoint(int iterations) {
+    ++boundaryPixels;
+    boundaryIterations += iterations;
+  }
+
+  /**
+   * Returns the number of pixels supersampled on the edges of the image.
+   *
+   * @return The number of supersampled pixels.
+   */
+  public long getRefinedPixels() {
+    return refinedPixels;
+  }
+
+  /**
+   * Returns the number of additional samples taken of the supersampled pixels.
+   *
+   * @return The number of additional samples.
+   */
+  public long getSamples() {
+    return samples;
+  }
+
+  /**
+   * Returns the fraction of the pixels which were supersampled.
+   *
+   * @return The fraction of the pixels, from zero to one.
+   */
+  public double getRefinedFraction() {
+    return (pixels == 0) ? 0.0 : (double) refinedPixels / pixels;
+  }
+
+  /**
+   * Returns the cost of the regions which supersample relative to a single sample per pixel,
+   * counted in iterations.
+   *
+   * @return The ratio of the iterations of the first pass and the additional samples to the
+   *         iterations of the first pass, one if no region supersampled.
+   */
+  public double getSupersamplingCost() {
+    return (pixelIterations == 0) ? 1.0
+        : (double) (pixelIterations + sampleIterations) / pixelIterations;
+  }
+
+  /**
+   * Records the pixels supersampled in a region, with the iterations of its first pass and of the
+   * additional samples.
+   *
+   * @param pixels The number of supersampled pixels.
+   * @param samples The number of additional samples.
+   * @param pixelIterations The number of iterations of the first pass of the region.
+   * @param sampleIterations The number of iterations of the additional samples.
+   */
+  public void addRefinedPixels(int pixels, int samples, long pixelIterations,
+      long sampleIterations) {
+    this.refinedPixels += pixels;
+    this.samples += samples;
+    this.pixelIterations += pixelIterations;
+    this.sampleIterations += sampleIterations;
+  }
+
+  /**
+   * Returns the number of regions calculated by the specified engine.
+   *
+   * @param engine The engine, one of the engines of the {@link SetFactory}.
+   *
+   * @return The number of regions calculated by the engine.
+   */
+  public int getEngineRegions(int engine) {
+    return engines[engine];
+  }
+
+  /**
+   * Records that a region was calculated by the specified engine.
+   *
+   * @param engine The engine, one of the engines of the {@link SetFactory}.
+   */
+  public void addEngine(int engine) {
+    ++engines[engine];
+  }
+
+  /**
+   * Returns true if any statistics beyond the number of regions and pixels have been recorded.
+   *
+   * @return True if any statistics have been recorded, false otherwise.
+   */
+  public boolean isEmpty() {
+    boolean empty = skippedIterations == 0 && periodicPixels == 0 && filledPixels == 0
+        && boundaryPixels == 0 && refinedPixels == 0;
+
+    for (int i = 0; i < engines.length; ++i) {
+      empty = empty && engines[i] == 0;
+    }
+
+    return empty;
+  }
+
+  /**
+   * Returns the string representation of the statistics.
+   *
+   * @return The string representation of the statistics.
+   */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+
+    builder.append(regions).append(" regions, ").append(pixels).append(" pixels");
+
+    for (int i = 0; i < engines.length; ++i) {
+      if (engines[i] > 0) {
+        builder.append(", ").append(engines[i]).append(' ').append(SetFactory.ENGINE_NAMES[i]);
+      }
+    }
+
+    if (skippedIterations > 0) {
+      builder.append(", skipped ").append(getSkippedIterationsPerPixel());
+      builder.append(" iterations per pixel (error ").append(approximationError).append(" px)");
+    }
+
+    if (periodicPixels > 0) {
+      builder.append(", ").append(periodicPixels).append(" periodic pixels saved ");
+      builder.append(savedIterations).append(" iterations");
+    }
+
+    if (filledPixels > 0) {
+      builder.append(", ").append(filledPixels).append(" pixels filled");
+    }
+
+    if (boundaryPixels > 0) {
+      builder.append(", ").append(boundaryPixels).append(" boundary pixels saved ");
+      builder.append(boundaryIterations).append(" iterations");
+    }
+
+    if (refinedPixels > 0) {
+      builder.append(", ").append(refinedPixels).append(" pixels refined (");
+      builder.append(String.format("%.1f%%", 100.0 * getRefinedFraction())).append(") with ");
+      builder.append(samples).append(" samples, ");
+      builder.append(String.format("%.2fx", getSupersamplingCost())).append(" iterations");
+    }
+
+    return builder.toString();
+  }
+}
@@ -0,0 +1,14 @@
+package com.fractal.app.gui.listener;
+
+/**
+ * This class provides an interface to classes which listen for changes in the coloring of the
+ * image.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 7 July 2017
+ */
+public interface ColorChangeListener {
+  /** Notify any listeners of a change in the coloring of the image. */
+  public void colorChanged();
+}
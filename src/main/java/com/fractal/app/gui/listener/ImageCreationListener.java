@@ -17,4 +17,10 @@ public interface ImageCreationListener {
    * @param image The newly created image.
    */
   public void imageCreated(Image image);
+
+  /**
+   * Notifies that every image of the current frame has been created, so that stages which need the
+   * whole frame can run.
+   */
+  public void frameCompleted();
 }
@@ -49,6 +49,11 @@ public class DisplayPanel extends JPanel implements ImageCreationListener {
     drawPanel.imageCreated(image);
   }
 
+  /** Notifies the drawing panel that every image of the current frame has been created. */
+  public void frameCompleted() {
+    drawPanel.frameCompleted();
+  }
+
   /** Creates the panel for displaying the Mandelbrot and stat panel. */
   private void createDisplayPanel() {
     setLayout(new BorderLayout());
@@ -12,6 +12,7 @@ import javax.imageio.ImageIO;
 import javax.swing.JPanel;
 
 import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.gui.listener.ColorChangeListener;
 import com.fractal.app.gui.listener.ImageCreationListener;
 import com.fractal.app.gui.listener.StateChangeListener;
 import com.fractal.app.gui.listener.ZoomListener;
@@ -19,24 +20,30 @@ import com.fractal.app.gui.shape.NullShape;
 import com.fractal.app.gui.shape.Shape;
 import com.fractal.app.gui.shape.ShapeCreationListener;
 import com.fractal.app.gui.shape.ShapeProducer;
+import com.fractal.app.image.FrameBuffer;
 import com.fractal.app.image.Image;
 
 /**
- * This class models the panel on which Mandelbrot and Julia sets will be displayed.
+ * This class models the panel on which Mandelbrot and Julia sets will be displayed. Changes to the
+ * coloring algorithm recolor the displayed frame from its iteration data, without calculating it
+ * again, and the palette can be cycled over the frame by a {@link PaletteCycler}.
  *
  * @author Scott Gigawatt
  * @version 7 July 2017
  */
-public class DrawPanel extends JPanel
-    implements ImageCreationListener, ShapeCreationListener, StateChangeListener, ZoomListener {
+public class DrawPanel extends JPanel implements ImageCreationListener, ShapeCreationListener,
+    StateChangeListener, ZoomListener, ColorChangeListener {
   /** A unique id associated with this {@link Serializable} object. */
   private static final long serialVersionUID = 796834345181573584L;
 
   /** The settings for the graphical user interface. */
   private Settings settings = Settings.getInstance();
 
-  /** The canvas on which we are drawing. */
-  private BufferedImage canvas;
+  /** The frame on which we are drawing. */
+  private FrameBuffer frame;
+
+  /** Cycles the palette over the frame. */
+  private PaletteCycler cycler;
 
   /** Represents the selection rectangle. */
   private Shape selectionRectangle;
@@ -45,8 +52,8 @@ public class DrawPanel extends JPanel
 
   /** Creates a new panel for displaying Mandelbrot and Julia sets. */
   public DrawPanel() {
-    canvas =
-        new BufferedImage(settings.getWidth(), settings.getHeight(), BufferedImage.TYPE_INT_RGB);
+    frame = new FrameBuffer(settings.getWidth(), settings.getHeight(), settings.getColorAlg());
+    cycler = new PaletteCycler(this);
     selectionRectangle = new NullShape();
     producer = settings.getProducer();
 
@@ -56,6 +63,7 @@ public class DrawPanel extends JPanel
     producer.setDrawColor(Color.BLACK);
     settings.addStateChangeListener(this);
     settings.addZoomListener(this);
+    settings.addColorChangeListener(this);
   }
 
   /**
@@ -123,12 +131,13 @@ public class DrawPanel extends JPanel
    * @param image The newly created image.
    */
   public void imageCreated(Image image) {
-    int w = image.getWidth();
-    int h = image.getHeight();
-    int x = image.getX();
-    int y = image.getY();
-    int[] rgbArray = image.getImage().getRGB(0, 0, w, h, null, 0, w);
-    canvas.setRGB(x, y, w, h, rgbArray, 0, w);
+    frame.addTile(image);
+    repaint();
+  }
+
+  /** Runs the coloring stages which need the whole frame and repaints the screen. */
+  public void frameCompleted() {
+    frame.complete();
     repaint();
   }
 
@@ -140,11 +149,34 @@ public class DrawPanel extends JPanel
     setPreferredSize(new Dimension(w, h));
     invalidate();
 
-    if (canvas.getWidth() != w) {
-      canvas = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+    if (frame.getImage().getWidth() != w) {
+      frame = new FrameBuffer(w, h, settings.getColorAlg());
+    } else {
+      colorChanged();
     }
   }
 
+  /**
+   * Recolors the frame with the current coloring algorithm, starts or stops cycling the palette and
+   * repaints the screen.
+   */
+  public void colorChanged() {
+    frame.setColorAlg(settings.getColorAlg());
+    cycler.setRunning(settings.isColorCycling());
+    repaint();
+  }
+
+  /**
+   * Recolors the frame with the palette rotated by the specified number of entries and repaints the
+   * screen.
+   *
+   * @param offset The number of entries by which to rotate the palette.
+   */
+  public void cycle(int offset) {
+    frame.setPaletteOffset(offset);
+    repaint();
+  }
+
   /** Updates the mouse listener for changes in zooming options. */
   public void zoomChanged() {
     removeMouseListener(producer);
@@ -158,7 +190,7 @@ public class DrawPanel extends JPanel
   }
 
   public void save(File file) throws IOException {
-    ImageIO.write(this.canvas, "JPEG", file);
+    ImageIO.write(frame.getImage(), "JPEG", file);
   }
 
   /**
@@ -168,6 +200,8 @@ public class DrawPanel extends JPanel
    */
   public void paintComponent(Graphics g) {
     super.paintComponent(g);
+    BufferedImage canvas = frame.getImage();
+
     g.drawImage(canvas, 0, 0, canvas.getWidth(), canvas.getHeight(), this);
     selectionRectangle.draw(g);
   }
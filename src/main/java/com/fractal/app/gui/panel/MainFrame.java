@@ -230,6 +230,11 @@ public class MainFrame extends JFrame implements ImageCreationListener, StateCha
     displayPanel.imageCreated(image);
   }
 
+  /** Notifies the display that every image of the current frame has been created. */
+  public void frameCompleted() {
+    displayPanel.frameCompleted();
+  }
+
   /**
    * Adds the specified {@link SelectionListener} to the list of listeners.
    *
@@ -0,0 +1,115 @@
+package com.fractal.app.gui.panel;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.Timer;
+
+/**
+ * This class cycles the palette over the image displayed by a {@link DrawPanel} at display rate,
+ * recoloring the image from its iteration data on each frame. The time taken to recolor each frame
+ * and the rate at which frames are shown are measured, and reported once every
+ * {@link #REPORT_FRAMES} frames.
+ *
+ * @author Scott Gigawatt
+ * @version 7 July 2017
+ */
+public class PaletteCycler implements ActionListener {
+  /** The number of frames shown per second. */
+  private static final int FRAME_RATE = 60;
+
+  /** The number of palette entries by which the palette is rotated on each frame. */
+  private static final int STEP = 2;
+
+  /** The number of frames between reports of the frame times. */
+  private static final int REPORT_FRAMES = 2 * FRAME_RATE;
+
+  /** The number of nanoseconds in a millisecond. */
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  /** The panel whose image is recolored. */
+  private final DrawPanel panel;
+
+  /** The timer which fires once per frame. */
+  private final Timer timer;
+
+  /** The number of entries by which the palette is currently rotated. */
+  private int offset;
+
+  /** The number of frames shown since the last report. */
+  private int frames;
+
+  /** The total time taken to recolor the frames since the last report, in nanoseconds. */
+  private long totalNanos;
+
+  /** The longest time taken to recolor a frame since the last report, in nanoseconds. */
+  private long maxNanos;
+
+  /** The time at which the first frame since the last report was shown, in nanoseconds. */
+  private long reportStart;
+
+  /**
+   * Creates a new, stopped {@link PaletteCycler} for the specified panel.
+   *
+   * @param panel The panel whose image is recolored.
+   */
+  public PaletteCycler(DrawPanel panel) {
+    this.panel = panel;
+    this.timer = new Timer(1000 / FRAME_RATE, this);
+  }
+
+  /**
+   * Starts or stops cycling the palette. The palette keeps its rotation when it is stopped.
+   *
+   * @param running True to cycle the palette, false to stop it.
+   */
+  public void setRunning(boolean running) {
+    if (running && !timer.isRunning()) {
+      frames = 0;
+      totalNanos = 0;
+      maxNanos = 0;
+      reportStart = System.nanoTime();
+      timer.start();
+    } else if (!running && timer.isRunning()) {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Returns true if the palette is being cycled.
+   *
+   * @return True if the palette is being cycled, false otherwise.
+   */
+  public boolean isRunning() {
+    return timer.isRunning();
+  }
+
+  /**
+   * Rotates the palette by one step, recolors the image and records the time taken.
+   *
+   * @param e The event fired by the timer.
+   */
+  public void actionPerformed(ActionEvent e) {
+    long start = System.nanoTime();
+
+    offset += STEP;
+    panel.cycle(offset);
+
+    long end = System.nanoTime();
+
+    totalNanos += end - start;
+    maxNanos = Math.max(maxNanos, end - start);
+
+    if (++frames == REPORT_FRAMES) {
+      double seconds = (end - reportStart) / (NANOS_PER_MILLI * 1000);
+
+      System.out.printf("Color cycling: %.1f fps, recolor mean %.2f ms, max %.2f ms%n",
+          frames / seconds, totalNanos / (frames * NANOS_PER_MILLI), maxNanos / NANOS_PER_MILLI);
+
+      frames = 0;
+      totalNanos = 0;
+      maxNanos = 0;
+      reportStart = end;
+    }
+  }
+}
@@ -31,6 +31,8 @@ import javax.swing.border.Border;
 import javax.swing.border.TitledBorder;
 
 import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.DoubleDoubleComplex;
+import com.fractal.app.algorithms.math.OrbitTrap;
 import com.fractal.app.gui.shape.NullShapeProducer;
 import com.fractal.app.gui.shape.SquareProducer;
 
@@ -108,24 +110,54 @@ public class SelectionPanel extends JPanel {
   /** Represents the selection choice for the sixth predefined region. */
   private static final int PRESET_6 = PRESET_5 + 1;
 
+  /** Represents the selection choice for set precision chosen from the depth of each region. */
+  private static final int BIT_AUTO = 0;
+
   /** Represents the selection choice for normal set precision. */
-  private static final int BIT_1 = 0;
+  private static final int BIT_1 = BIT_AUTO + 1;
 
-  /** Represents the selection choice for 256-bit set precision. */
+  /** Represents the selection choice for 128-bit (double-double) set precision. */
   private static final int BIT_2 = BIT_1 + 1;
 
-  /** Represents the selection choice for 512-bit set precision. */
+  /** Represents the selection choice for 256-bit set precision. */
   private static final int BIT_3 = BIT_2 + 1;
 
-  /** Represents the selection choice for 1024-bit set precision. */
+  /** Represents the selection choice for 512-bit set precision. */
   private static final int BIT_4 = BIT_3 + 1;
 
+  /** Represents the selection choice for 1024-bit set precision. */
+  private static final int BIT_5 = BIT_4 + 1;
+
+  /** Represents the selection choice for the default series approximation error bound. */
+  private static final int ERROR_1 = 0;
+
+  /** Represents the selection choice for a loose series approximation error bound. */
+  private static final int ERROR_2 = ERROR_1 + 1;
+
+  /** Represents the selection choice for a strict series approximation error bound. */
+  private static final int ERROR_3 = ERROR_2 + 1;
+
+  /** Represents the selection choice for disabling series approximation. */
+  private static final int ERROR_4 = ERROR_3 + 1;
+
   /** Represents the selection choice for power for smooth set coloring. */
   private static final int COLOR_ALG_BANDED = 0;
 
   /** Represents the selection choice for power for banded set coloring. */
   private static final int COLOR_ALG_SMOOTH = COLOR_ALG_BANDED + 1;
 
+  /** Represents the selection choice for histogram equalized set coloring. */
+  private static final int COLOR_ALG_HISTOGRAM = COLOR_ALG_SMOOTH + 1;
+
+  /** Represents the selection choice for orbit trap set coloring. */
+  private static final int COLOR_ALG_TRAP = COLOR_ALG_HISTOGRAM + 1;
+
+  /** Represents the selection choice for disabling orbit traps. */
+  private static final int TRAP_OFF = 0;
+
+  /** The radius of the orbit traps centered at the origin. */
+  private static final double TRAP_RADIUS = 0.5;
+
   /** Represents the size of a small image. */
   private static final int SIZE_SMALL = 500;
 
@@ -174,6 +206,9 @@ public class SelectionPanel extends JPanel {
   /** Represents a set power of 10. */
   private static final int POW_10 = POW_9 + 1;
 
+  /** Represents the selection choice for double-double set precision. */
+  private static final int PRECISION_128 = DoubleDoubleComplex.DIGITS;
+
   /** Represents the selection choice for normal set precision. */
   private static final int PRECISION_256 = 256;
 
@@ -183,6 +218,15 @@ public class SelectionPanel extends JPanel {
   /** Represents the selection choice for 512-bit set precision. */
   private static final int PRECISION_1024 = 1024;
 
+  /** Represents a series approximation error bound of a hundredth of a pixel. */
+  private static final double ERROR_HUNDREDTH = 0.01;
+
+  /** Represents a series approximation error bound of a tenth of a pixel. */
+  private static final double ERROR_TENTH = 0.1;
+
+  /** Represents a series approximation error bound of a thousandth of a pixel. */
+  private static final double ERROR_THOUSANDTH = 0.001;
+
   /** The application settings. */
   private Settings settings = Settings.getInstance();
 
@@ -228,6 +272,15 @@ public class SelectionPanel extends JPanel {
   /** A check box for enabling or disabling smooth coloring. */
   private JCheckBox smoothCheckBox;
 
+  /** A check box for enabling or disabling histogram equalized coloring. */
+  private JCheckBox histogramCheckBox;
+
+  /** A check box for enabling or disabling palette cycling. */
+  private JCheckBox cycleCheckBox;
+
+  /** A check box for enabling or disabling distance estimation. */
+  private JCheckBox distanceCheckBox;
+
   /** A combo box for selecting the size of the image to compute. */
   private JComboBox<String> sizeComboBox;
 
@@ -243,6 +296,18 @@ public class SelectionPanel extends JPanel {
   /** A combo box for selecting the Mandelbrot set precision. */
   private JComboBox<String> precisionComboBox;
 
+  /** A combo box for selecting the error bound of the series approximation. */
+  private JComboBox<String> errorComboBox;
+
+  /** A combo box for selecting the strategy for rendering the pixels of the image. */
+  private JComboBox<String> renderComboBox;
+
+  /** A combo box for selecting the shape of the orbit trap. */
+  private JComboBox<String> trapComboBox;
+
+  /** A combo box for selecting the number of samples of the pixels on edges. */
+  private JComboBox<String> samplingComboBox;
+
   /** A dialog for changing the application settings. */
   private JDialog dialog;
 
@@ -390,7 +455,11 @@ public class SelectionPanel extends JPanel {
     String[] sizeItems = {"500 x 500", "600 x 600", "700 x 700"};
     String[] eqnItems = {"z^2 + c", "z^3 + c", "z^4 + c", "z^5 + c", "z^6 + c", "z^7 + c",
         "z^8 + c", "z^9 + c", "z^10 + c"};
-    String[] bitItems = {"64-bit", "256-bit", "512-bit", "1024-bit"};
+    String[] bitItems = {"Auto", "64-bit", "128-bit", "256-bit", "512-bit", "1024-bit"};
+    String[] errorItems = {"0.01 px", "0.1 px", "0.001 px", "Off"};
+    String[] renderItems = {"Raster", "Subdivide", "Guess"};
+    String[] trapItems = {"Off", "Point", "Line", "Cross"};
+    String[] samplingItems = {"Off", "2 x 2", "3 x 3", "4 x 4"};
 
     title = BorderFactory.createTitledBorder(line, "Additional Options");
     title.setTitleJustification(TitledBorder.CENTER);
@@ -401,10 +470,21 @@ public class SelectionPanel extends JPanel {
     sizeComboBox = new JComboBox<String>(sizeItems);
     eqnComboBox = new JComboBox<String>(eqnItems);
     precisionComboBox = new JComboBox<String>(bitItems);
+    errorComboBox = new JComboBox<String>(errorItems);
+    renderComboBox = new JComboBox<String>(renderItems);
+    trapComboBox = new JComboBox<String>(trapItems);
+    samplingComboBox = new JComboBox<String>(samplingItems);
     smoothCheckBox = new JCheckBox("Use Logarithmic Smoothing");
+    histogramCheckBox = new JCheckBox("Equalize Colors");
+    cycleCheckBox = new JCheckBox("Cycle Colors");
+    distanceCheckBox = new JCheckBox("Estimate Distance");
     sizeComboBox.setMaximumSize(new Dimension(120, 20));
     eqnComboBox.setMaximumSize(new Dimension(120, 20));
     precisionComboBox.setMaximumSize(new Dimension(120, 20));
+    errorComboBox.setMaximumSize(new Dimension(120, 20));
+    renderComboBox.setMaximumSize(new Dimension(120, 20));
+    trapComboBox.setMaximumSize(new Dimension(120, 20));
+    samplingComboBox.setMaximumSize(new Dimension(120, 20));
 
     row = new JPanel();
     label = new JLabel("Equation:    ");
@@ -432,7 +512,46 @@ public class SelectionPanel extends JPanel {
     row.add(precisionComboBox);
     col.add(row);
     col.add(Box.createRigidArea(new Dimension(0, 5)));
+
+    row = new JPanel();
+    label = new JLabel("Skip Error:   ");
+    row.setLayout(new BoxLayout(row, BoxLayout.X_AXIS));
+    row.setAlignmentX(Component.LEFT_ALIGNMENT);
+    row.add(label);
+    row.add(errorComboBox);
+    col.add(row);
+    col.add(Box.createRigidArea(new Dimension(0, 5)));
+
+    row = new JPanel();
+    label = new JLabel("Rendering:    ");
+    row.setLayout(new BoxLayout(row, BoxLayout.X_AXIS));
+    row.setAlignmentX(Component.LEFT_ALIGNMENT);
+    row.add(label);
+    row.add(renderComboBox);
+    col.add(row);
+    col.add(Box.createRigidArea(new Dimension(0, 5)));
+
+    row = new JPanel();
+    label = new JLabel("Orbit Trap:   ");
+    row.setLayout(new BoxLayout(row, BoxLayout.X_AXIS));
+    row.setAlignmentX(Component.LEFT_ALIGNMENT);
+    row.add(label);
+    row.add(trapComboBox);
+    col.add(row);
+    col.add(Box.createRigidArea(new Dimension(0, 5)));
+
+    row = new JPanel();
+    label = new JLabel("Anti-Aliasing: ");
+    row.setLayout(new BoxLayout(row, BoxLayout.X_AXIS));
+    row.setAlignmentX(Component.LEFT_ALIGNMENT);
+    row.add(label);
+    row.add(samplingComboBox);
+    col.add(row);
+    col.add(Box.createRigidArea(new Dimension(0, 5)));
     col.add(smoothCheckBox);
+    col.add(histogramCheckBox);
+    col.add(cycleCheckBox);
+    col.add(distanceCheckBox);
     col.add(Box.createRigidArea(new Dimension(0, 15)));
 
     panel.setLayout(new BoxLayout(panel, BoxLayout.X_AXIS));
@@ -693,7 +812,14 @@ public class SelectionPanel extends JPanel {
     createSizeComboBoxListener();
     createEqnComboBoxListener();
     createPrecisionComboBoxListener();
+    createErrorComboBoxListener();
+    createRenderComboBoxListener();
+    createTrapComboBoxListener();
+    createSamplingComboBoxListener();
     createSmoothCheckBoxListener();
+    createHistogramCheckBoxListener();
+    createCycleCheckBoxListener();
+    createDistanceCheckBoxListener();
   }
 
   /** Creates the listener for the zoom selection combo box. */
@@ -904,24 +1030,32 @@ public class SelectionPanel extends JPanel {
       public void actionPerformed(ActionEvent e) {
         int selection = precisionComboBox.getSelectedIndex();
 
+        settings.setAutoPrecision(selection == BIT_AUTO);
+
         switch (selection) {
+          case BIT_AUTO:
           case BIT_1:
             settings.setPrecise(false);
             break;
           case BIT_2:
             settings.setPrecise(true);
-            settings.setPrecisionBits(PRECISION_256);
+            settings.setPrecisionBits(PRECISION_128);
             break;
           case BIT_3:
             settings.setPrecise(true);
-            settings.setPrecisionBits(PRECISION_512);
+            settings.setPrecisionBits(PRECISION_256);
             break;
           case BIT_4:
+            settings.setPrecise(true);
+            settings.setPrecisionBits(PRECISION_512);
+            break;
+          case BIT_5:
             settings.setPrecise(true);
             settings.setPrecisionBits(PRECISION_1024);
             break;
         }
 
+        System.out.println("Auto precision is: " + settings.isAutoPrecision());
         System.out.println("Precise is: " + settings.isPrecise());
 
         if (settings.isPrecise()) {
@@ -931,17 +1065,129 @@ public class SelectionPanel extends JPanel {
     });
   }
 
+  /** Creates the listener for the series approximation error bound combo box. */
+  private void createErrorComboBoxListener() {
+    errorComboBox.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        int selection = errorComboBox.getSelectedIndex();
+
+        switch (selection) {
+          case ERROR_1:
+            settings.setApproximationTolerance(ERROR_HUNDREDTH);
+            break;
+          case ERROR_2:
+            settings.setApproximationTolerance(ERROR_TENTH);
+            break;
+          case ERROR_3:
+            settings.setApproximationTolerance(ERROR_THOUSANDTH);
+            break;
+          case ERROR_4:
+            settings.setApproximationTolerance(0.0);
+            break;
+        }
+
+        System.out.println("Skip error is: " + settings.getApproximationTolerance());
+      }
+    });
+  }
+
+  /** Creates the listener for the rendering strategy combo box. */
+  private void createRenderComboBoxListener() {
+    renderComboBox.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        // The items are listed in the order of the render modes.
+        settings.setRenderMode(renderComboBox.getSelectedIndex());
+
+        System.out.println("Render mode is: " + settings.getRenderMode());
+      }
+    });
+  }
+
+  /** Creates the listener for the orbit trap combo box. */
+  private void createTrapComboBoxListener() {
+    trapComboBox.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        int selection = trapComboBox.getSelectedIndex();
+
+        // The items after "Off" are listed in the order of the trap types.
+        if (selection == TRAP_OFF) {
+          settings.setTrap(null);
+        } else {
+          settings.setTrap(new OrbitTrap(selection - 1, 0.0, 0.0, 0.0, TRAP_RADIUS));
+        }
+
+        System.out.println("Orbit trap is: " + trapComboBox.getSelectedItem());
+        updateColorAlg();
+      }
+    });
+  }
+
+  /** Creates the listener for the anti-aliasing combo box. */
+  private void createSamplingComboBoxListener() {
+    samplingComboBox.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        // The items are listed by the number of samples across each side of a pixel, from one.
+        settings.setSupersampling(samplingComboBox.getSelectedIndex() + 1);
+
+        System.out.println("Supersampling is: " + settings.getSupersampling());
+      }
+    });
+  }
+
   /** Creates the listener for the smooth coloring check box. */
   private void createSmoothCheckBoxListener() {
     smoothCheckBox.addItemListener(new ItemListener() {
       public void itemStateChanged(ItemEvent e) {
-        if (smoothCheckBox.isSelected()) {
-          settings.setColorAlg(COLOR_ALG_SMOOTH);
-        } else {
-          settings.setColorAlg(COLOR_ALG_BANDED);
-        }
+        updateColorAlg();
+      }
+    });
+  }
+
+  /** Creates the listener for the histogram equalized coloring check box. */
+  private void createHistogramCheckBoxListener() {
+    histogramCheckBox.addItemListener(new ItemListener() {
+      public void itemStateChanged(ItemEvent e) {
+        updateColorAlg();
+      }
+    });
+  }
+
+  /**
+   * Sets the coloring algorithm from the coloring check boxes and the orbit trap. An orbit trap
+   * takes precedence over histogram equalization, which takes precedence over smoothing.
+   */
+  private void updateColorAlg() {
+    if (settings.getTrap() != null) {
+      settings.setColorAlg(COLOR_ALG_TRAP);
+    } else if (histogramCheckBox.isSelected()) {
+      settings.setColorAlg(COLOR_ALG_HISTOGRAM);
+    } else if (smoothCheckBox.isSelected()) {
+      settings.setColorAlg(COLOR_ALG_SMOOTH);
+    } else {
+      settings.setColorAlg(COLOR_ALG_BANDED);
+    }
+
+    System.out.println("Color is: " + settings.getColorAlg());
+  }
+
+  /** Creates the listener for the palette cycling check box. */
+  private void createCycleCheckBoxListener() {
+    cycleCheckBox.addItemListener(new ItemListener() {
+      public void itemStateChanged(ItemEvent e) {
+        settings.setColorCycling(cycleCheckBox.isSelected());
+
+        System.out.println("Color cycling is: " + settings.isColorCycling());
+      }
+    });
+  }
+
+  /** Creates the listener for the distance estimation check box. */
+  private void createDistanceCheckBoxListener() {
+    distanceCheckBox.addItemListener(new ItemListener() {
+      public void itemStateChanged(ItemEvent e) {
+        settings.setDistanceEstimation(distanceCheckBox.isSelected());
 
-        System.out.println("Color is: " + settings.getColorAlg());
+        System.out.println("Distance estimation is: " + settings.isDistanceEstimation());
       }
     });
   }
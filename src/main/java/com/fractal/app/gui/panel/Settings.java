@@ -4,8 +4,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.math.AbstractComplexSet;
 import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.OrbitTrap;
 import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.gui.listener.ColorChangeListener;
 import com.fractal.app.gui.listener.StateChangeListener;
 import com.fractal.app.gui.listener.ZoomListener;
 import com.fractal.app.gui.shape.NullShapeProducer;
@@ -54,6 +57,12 @@ public class Settings {
   /** The default number of precision bits for precision calculations. */
   private static final int DEFAULT_PRECISION = 256;
 
+  /** The default largest acceptable error of the series approximation, in pixels. */
+  private static final double DEFAULT_APPROXIMATION_TOLERANCE = 0.01;
+
+  /** The default strategy for rendering the pixels of the image. */
+  private static final int DEFAULT_RENDER_MODE = AbstractComplexSet.RENDER_RASTER;
+
   /** The width of the image to generate. */
   private int width = SIZE_SMALL;
 
@@ -72,12 +81,36 @@ public class Settings {
   /** The algorithm selection for coloring the set. */
   private int colorAlg = DEFAULT_COLOR_ALG;
 
+  /** Represents whether or not the palette is cycled over the displayed image. */
+  private boolean colorCycling = false;
+
   /** Represents the number of precision bits for precision calculations. */
   private int precisionBits = DEFAULT_PRECISION;
 
   /** Represents whether or not precision calculations are enabled. */
   private boolean precision = false;
 
+  /** Represents whether or not the precision is chosen from the depth of each region. */
+  private boolean autoPrecision = true;
+
+  /** The largest acceptable error of the series approximation in pixels, zero to disable it. */
+  private double approximationTolerance = DEFAULT_APPROXIMATION_TOLERANCE;
+
+  /** The strategy for rendering the pixels of the image. */
+  private int renderMode = DEFAULT_RENDER_MODE;
+
+  /** Represents whether or not the distance of each pixel from the boundary is estimated. */
+  private boolean distanceEstimation = false;
+
+  /** The trap which the orbit of each pixel is measured against, null for none. */
+  private OrbitTrap trap;
+
+  /** The number of samples across each side of a supersampled pixel, one for none. */
+  private int supersampling = 1;
+
+  /** The largest number of additional samples per pixel when supersampling, on average. */
+  private double sampleBudget = Region.DEFAULT_SAMPLE_BUDGET;
+
   /** The lower bound of the Mandelbrot region. */
   private ComplexNumber min;
 
@@ -96,6 +129,9 @@ public class Settings {
   /** Listeners for changes in the application zoom settings. */
   private List<ZoomListener> zoomListeners;
 
+  /** Listeners for changes in the application coloring settings. */
+  private List<ColorChangeListener> colorListeners;
+
   /**
    * Creates a new {@link Settings} object for maintaining the settings associated with the "Fractal
    * Explorer" application. The private constructor ensures that only a single instance of this
@@ -106,6 +142,7 @@ public class Settings {
     max = new ComplexNumber(MAX_X, MAX_Y);
     listeners = new ArrayList<StateChangeListener>();
     zoomListeners = new ArrayList<ZoomListener>();
+    colorListeners = new ArrayList<ColorChangeListener>();
   }
 
   /**
@@ -209,12 +246,34 @@ public class Settings {
   }
 
   /**
-   * Sets the choice for the algorithm to color the set.
+   * Sets the choice for the algorithm to color the set. The current image is recolored without
+   * calculating it again.
    *
    * @param colorAlg The choice for the algorithm to color the set.
    */
   public void setColorAlg(int colorAlg) {
     this.colorAlg = colorAlg;
+    notifyColorChanged();
+  }
+
+  /**
+   * Determines if the palette is cycled over the displayed image.
+   *
+   * @return True if the palette is cycled, false otherwise.
+   */
+  public boolean isColorCycling() {
+    return colorCycling;
+  }
+
+  /**
+   * Enables or disables cycling the palette over the displayed image. The image is recolored at
+   * display rate without calculating it again.
+   *
+   * @param colorCycling True to cycle the palette, false to stop it.
+   */
+  public void setColorCycling(boolean colorCycling) {
+    this.colorCycling = colorCycling;
+    notifyColorChanged();
   }
 
   /**
@@ -235,6 +294,25 @@ public class Settings {
     this.precision = precision;
   }
 
+  /**
+   * Determines if the precision is chosen from the depth of each region.
+   *
+   * @return True if the precision is chosen automatically, false otherwise.
+   */
+  public boolean isAutoPrecision() {
+    return autoPrecision;
+  }
+
+  /**
+   * Enables or disables choosing the precision from the depth of each region.
+   *
+   * @param autoPrecision True to choose the precision automatically; false to use the precision
+   *        settings.
+   */
+  public void setAutoPrecision(boolean autoPrecision) {
+    this.autoPrecision = autoPrecision;
+  }
+
   /**
    * Returns the number of bits used for performing precision calculations.
    *
@@ -253,6 +331,114 @@ public class Settings {
     this.precisionBits = precisionBits;
   }
 
+  /**
+   * Returns the largest acceptable error of the series approximation, in pixels.
+   *
+   * @return The largest acceptable error; zero if the approximation is disabled.
+   */
+  public double getApproximationTolerance() {
+    return approximationTolerance;
+  }
+
+  /**
+   * Sets the largest acceptable error of the series approximation, in pixels.
+   *
+   * @param approximationTolerance The largest acceptable error, zero to disable the approximation.
+   */
+  public void setApproximationTolerance(double approximationTolerance) {
+    this.approximationTolerance = approximationTolerance;
+  }
+
+  /**
+   * Returns the strategy for rendering the pixels of the image.
+   *
+   * @return The render mode, one of the render modes of the {@link AbstractComplexSet}.
+   */
+  public int getRenderMode() {
+    return renderMode;
+  }
+
+  /**
+   * Sets the strategy for rendering the pixels of the image.
+   *
+   * @param renderMode The render mode, one of the render modes of the {@link AbstractComplexSet}.
+   */
+  public void setRenderMode(int renderMode) {
+    this.renderMode = renderMode;
+  }
+
+  /**
+   * Returns true if the distance of each pixel from the boundary of the set is estimated.
+   *
+   * @return True if distances are estimated, false otherwise.
+   */
+  public boolean isDistanceEstimation() {
+    return distanceEstimation;
+  }
+
+  /**
+   * Sets whether or not the distance of each pixel from the boundary of the set is estimated.
+   *
+   * @param distanceEstimation True to estimate distances, false otherwise.
+   */
+  public void setDistanceEstimation(boolean distanceEstimation) {
+    this.distanceEstimation = distanceEstimation;
+  }
+
+  /**
+   * Returns the trap which the orbit of each pixel is measured against.
+   *
+   * @return The {@link OrbitTrap}, null for none.
+   */
+  public OrbitTrap getTrap() {
+    return trap;
+  }
+
+  /**
+   * Sets the trap which the orbit of each pixel is measured against.
+   *
+   * @param trap The {@link OrbitTrap}, null for none.
+   */
+  public void setTrap(OrbitTrap trap) {
+    this.trap = trap;
+  }
+
+  /**
+   * Returns the number of samples across each side of a supersampled pixel.
+   *
+   * @return The number of samples across each side, one for none.
+   */
+  public int getSupersampling() {
+    return supersampling;
+  }
+
+  /**
+   * Sets the number of samples across each side of a supersampled pixel.
+   *
+   * @param supersampling The number of samples across each side, one for none.
+   */
+  public void setSupersampling(int supersampling) {
+    this.supersampling = supersampling;
+  }
+
+  /**
+   * Returns the largest number of additional samples per pixel when supersampling, on average.
+   *
+   * @return The sample budget, in samples per pixel.
+   */
+  public double getSampleBudget() {
+    return sampleBudget;
+  }
+
+  /**
+   * Sets the largest number of additional samples per pixel when supersampling, on average.
+   *
+   * @param sampleBudget The sample budget, in samples per pixel.
+   */
+  public void setSampleBudget(double sampleBudget) {
+    this.sampleBudget = sampleBudget;
+  }
+
   /**
    * Returns a point on which to base a Julia set.
    *
@@ -306,8 +492,18 @@ public class Settings {
    * @return the {@link Region} associated with the current settings.
    */
   public Region getRegion() {
-    return new Region(min, max, julia, width, height, maxIt, power, 0, 0, 0, colorAlg,
+    Region region = new Region(min, max, julia, width, height, maxIt, power, 0, 0, 0, colorAlg,
         precisionBits, precision);
+
+    region.setApproximationTolerance(approximationTolerance);
+    region.setAutoPrecision(autoPrecision);
+    region.setRenderMode(renderMode);
+    region.setDistanceEstimation(distanceEstimation);
+    region.setTrap(trap);
+    region.setSupersampling(supersampling);
+    region.setSampleBudget(sampleBudget);
+
+    return region;
   }
 
   /**
@@ -391,4 +587,29 @@ public class Settings {
       listener.zoomChanged();
     }
   }
+
+  /**
+   * Adds the specified {@link ColorChangeListener} to the list of listeners.
+   *
+   * @param listener The {@link ColorChangeListener} to add.
+   */
+  public void addColorChangeListener(ColorChangeListener listener) {
+    colorListeners.add(listener);
+  }
+
+  /**
+   * Removes the specified {@link ColorChangeListener} from the list of listeners.
+   *
+   * @param listener The {@link ColorChangeListener} to remove.
+   */
+  public void removeColorChangeListener(ColorChangeListener listener) {
+    colorListeners.remove(listener);
+  }
+
+  /** Notifies any listeners that the coloring settings have changed. */
+  public void notifyColorChanged() {
+    for (ColorChangeListener listener : colorListeners) {
+      listener.colorChanged();
+    }
+  }
 }
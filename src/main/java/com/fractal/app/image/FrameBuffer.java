@@ -0,0 +1,425 @@
+package com.fractal.app.image;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.math.SetFactory;
+
+/**
+ * This class models the frame displayed by the client, assembled from the {@link Image images} of
+ * the regions calculated by the servers. The {@link IterationField} of each image is kept, so that
+ * the whole frame can be colored again with another {@link ColoringAlgorithm} without calculating
+ * or transmitting it again. The frame is colored in parallel, in bands of rows.
+ * <p>
+ * The bands, coloring algorithms and tasks which color the whole frame are kept as a plan, and
+ * reused until a tile or the coloring algorithm changes, so that the palette can be cycled over the
+ * frame at display rate without allocating anything per frame. The coloring algorithms are
+ * immutable; the palette offset is passed to them as each band is colored.
+ * <p>
+ * A {@link HistogramColoringAlgorithm} needs the histogram of the escape counts of the whole
+ * frame. Until the frame is {@link #complete() complete}, each tile is colored with the histogram
+ * of its own field; the frame is then colored in two parallel passes, the first counting the
+ * escape counts of the bands into one striped counter per task and merging them, the second
+ * coloring the bands with an algorithm created with the merged histogram.
+ *
+ * @author Scott Gigawatt
+ * @version 7 July 2017
+ */
+public class FrameBuffer {
+  /** The number of rows of a tile colored by one task. */
+  private static final int BAND_HEIGHT = 16;
+
+  /** The image on which the frame is drawn. */
+  private final BufferedImage canvas;
+
+  /** The images of the frame which hold a field, in the order in which they were received. */
+  private final List<Image> tiles = new ArrayList<Image>();
+
+  /** The choice of coloring algorithm with which the frame is colored. */
+  private int colorAlg;
+
+  /** The number of entries by which the palette is rotated. */
+  private int paletteOffset;
+
+  /** The bands of the kept images, in the order of the images. */
+  private final List<Band> bands = new ArrayList<Band>();
+
+  /** The task which colors every kept image, null if it must be planned again. */
+  private ColorTask plan;
+
+  /** The pixels of the canvas. */
+  private final int[] pixels;
+
+  /**
+   * Constructs a new, black {@link FrameBuffer} with the specified width and height.
+   *
+   * @param width The width of the frame.
+   * @param height The height of the frame.
+   * @param colorAlg The choice of coloring algorithm with which to color the frame.
+   */
+  public FrameBuffer(int width, int height, int colorAlg) {
+    this.canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    this.pixels = ((DataBufferInt) canvas.getRaster().getDataBuffer()).getData();
+    this.colorAlg = colorAlg;
+  }
+
+  /**
+   * Draws the specified image onto the frame at its buffer index. An image which holds an
+   * {@link IterationField} is colored from it with the coloring algorithm of the frame and kept,
+   * replacing any kept images which it overlaps; any other image is copied as it is.
+   *
+   * @param image The image of a region of the frame.
+   */
+  public synchronized void addTile(Image image) {
+    if (image.getField() == null) {
+      int w = image.getWidth();
+      int h = image.getHeight();
+      int[] rgbArray = image.getImage().getRGB(0, 0, w, h, null, 0, w);
+
+      canvas.setRGB(image.getX(), image.getY(), w, h, rgbArray, 0, w);
+      return;
+    }
+
+    Rectangle bounds = getBounds(image);
+    Iterator<Image> it = tiles.iterator();
+
+    while (it.hasNext()) {
+      if (getBounds(it.next()).intersects(bounds)) {
+        it.remove();
+      }
+    }
+
+    List<Band> added = new ArrayList<Band>();
+
+    tiles.add(image);
+    addBands(image, SetFactory.createColoringAlgorithm(colorAlg, image.getField()), added);
+    plan = null;
+    color(new ColorTask(added, 0, added.size()));
+  }
+
+  /**
+   * Notifies the frame that every tile of it has been received. A frame colored by histogram
+   * equalization is colored again with the histogram of the whole frame.
+   */
+  public synchronized void complete() {
+    if (colorAlg == SetFactory.COLOR_ALG_HISTOGRAM) {
+      plan = null;
+      color(getPlan());
+    }
+  }
+
+  /**
+   * Sets the choice of coloring algorithm with which the frame is colored, coloring every kept
+   * image again if it has changed.
+   *
+   * @param colorAlg The choice of coloring algorithm.
+   */
+  public synchronized void setColorAlg(int colorAlg) {
+    if (this.colorAlg != colorAlg) {
+      this.colorAlg = colorAlg;
+      plan = null;
+      color(getPlan());
+    }
+  }
+
+  /**
+   * Rotates the palette with which the frame is colored by the specified number of entries and
+   * colors every kept image again. Once the frame has been planned, no objects are allocated.
+   *
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   */
+  public synchronized void setPaletteOffset(int paletteOffset) {
+    this.paletteOffset = paletteOffset;
+    color(getPlan());
+  }
+
+  /**
+   * Returns the choice of coloring algorithm with which the frame is colored.
+   *
+   * @return The choice of coloring algorithm.
+   */
+  public synchronized int getColorAlg() {
+    return colorAlg;
+  }
+
+  /**
+   * Returns the image on which the frame is drawn.
+   *
+   * @return The {@link BufferedImage} of the frame.
+   */
+  public BufferedImage getImage() {
+    return canvas;
+  }
+
+  /**
+   * Returns the task which colors every kept image, planning it if a tile or the coloring algorithm
+   * has changed since it was last planned. A {@link HistogramColoringAlgorithm} is created with
+   * the histogram of every kept image.
+   *
+   * @return The task, null if no image is kept.
+   */
+  private ColorTask getPlan() {
+    if (plan == null) {
+      long[] histogram = null;
+
+      if (colorAlg == SetFactory.COLOR_ALG_HISTOGRAM) {
+        histogram = countHistogram();
+      }
+
+      bands.clear();
+
+      for (Image image : tiles) {
+        IterationField field = image.getField();
+        ColoringAlgorithm alg = (histogram == null)
+            ? SetFactory.createColoringAlgorithm(colorAlg, field.getMaxIt())
+            : new HistogramColoringAlgorithm(field.getMaxIt(), histogram);
+
+        addBands(image, alg, bands);
+      }
+
+      plan = bands.isEmpty() ? null : new ColorTask(bands, 0, bands.size());
+    }
+
+    return plan;
+  }
+
+  /**
+   * Counts the escape counts of the bands of the kept images in parallel. The bands are divided
+   * into one contiguous stripe per worker of the common pool, each counted into its own counters,
+   * and the counters are then merged.
+   *
+   * @return The number of pixels of the frame which took each number of iterations.
+   */
+  private long[] countHistogram() {
+    List<Band> counted = new ArrayList<Band>();
+    int maxIt = 0;
+
+    for (Image image : tiles) {
+      maxIt = Math.max(maxIt, image.getField().getMaxIt());
+      addBands(image, null, counted);
+    }
+
+    int stripes = Math.min(counted.size(), ForkJoinPool.getCommonPoolParallelism() + 1);
+    int[][] counters = new int[stripes][maxIt];
+    long[] histogram = new long[maxIt];
+
+    if (stripes == 0) {
+      return histogram;
+    }
+
+    ForkJoinPool.commonPool().invoke(new CountTask(counted, counters, 0, stripes));
+
+    for (int[] counter : counters) {
+      for (int i = 0; i < maxIt; ++i) {
+        histogram[i] += counter[i];
+      }
+    }
+
+    return histogram;
+  }
+
+  /**
+   * Splits the specified image into bands of rows which are colored in parallel.
+   *
+   * @param image The image to split, holding a field.
+   * @param alg The {@link ColoringAlgorithm} with which to color the image, null if the bands are
+   *        only counted.
+   * @param bands The list to which the bands of the image are added.
+   */
+  private void addBands(Image image, ColoringAlgorithm alg, List<Band> bands) {
+    IterationField field = image.getField();
+    int scan = canvas.getWidth();
+    int offset = (image.getY() * scan) + image.getX();
+
+    for (int row = 0; row < field.getHeight(); row += BAND_HEIGHT) {
+      bands.add(new Band(field, alg, row, Math.min(row + BAND_HEIGHT, field.getHeight()), offset));
+    }
+  }
+
+  /**
+   * Runs the specified task in the common pool, resetting it first so that a planned task can be
+   * run again.
+   *
+   * @param task The task to run, can be null.
+   */
+  private void color(ColorTask task) {
+    if (task != null) {
+      task.reinitialize();
+      ForkJoinPool.commonPool().invoke(task);
+    }
+  }
+
+  /**
+   * Returns the area of the frame covered by the specified image.
+   *
+   * @param image The image of a region of the frame.
+   *
+   * @return The bounds of the image within the frame.
+   */
+  private static Rectangle getBounds(Image image) {
+    return new Rectangle(image.getX(), image.getY(), image.getWidth(), image.getHeight());
+  }
+
+  /**
+   * This class holds a band of rows of a field to be colored onto the canvas, with the palette
+   * offset of the frame.
+   */
+  private class Band {
+    /** The field to color. */
+    private final IterationField field;
+
+    /** The {@link ColoringAlgorithm} with which to color the field. */
+    private final ColoringAlgorithm colorAlg;
+
+    /** The first row of the band. */
+    private final int firstRow;
+
+    /** The row after the last row of the band. */
+    private final int lastRow;
+
+    /** The index within the canvas of the first pixel of the field. */
+    private final int offset;
+
+    /**
+     * Creates a new {@link Band} of the specified field.
+     *
+     * @param field The field to color.
+     * @param colorAlg The {@link ColoringAlgorithm} with which to color the field.
+     * @param firstRow The first row of the band.
+     * @param lastRow The row after the last row of the band.
+     * @param offset The index within the canvas of the first pixel of the field.
+     */
+    Band(IterationField field, ColoringAlgorithm colorAlg, int firstRow, int lastRow,
+        int offset) {
+      this.field = field;
+      this.colorAlg = colorAlg;
+      this.firstRow = firstRow;
+      this.lastRow = lastRow;
+      this.offset = offset;
+    }
+
+    /** Colors the band onto the canvas with the current palette offset of the frame. */
+    void color() {
+      field.color(colorAlg, paletteOffset, firstRow, lastRow, pixels, offset, canvas.getWidth());
+    }
+
+    /**
+     * Counts the escape counts of the band into the specified histogram.
+     *
+     * @param histogram The number of pixels which took each number of iterations.
+     */
+    void count(int[] histogram) {
+      field.count(firstRow, lastRow, histogram);
+    }
+  }
+
+  /** This class counts the escape counts of a range of stripes of bands, one stripe per task. */
+  private static class CountTask extends RecursiveAction {
+    /** A unique id associated with this {@link java.io.Serializable} object. */
+    private static final long serialVersionUID = 5407118250356893224L;
+
+    /** The bands to count. */
+    private final List<Band> bands;
+
+    /** The counters of each stripe. */
+    private final int[][] counters;
+
+    /** The first stripe of the range. */
+    private final int from;
+
+    /** The stripe after the last stripe of the range. */
+    private final int to;
+
+    /**
+     * Creates a new {@link CountTask} for the specified range of stripes.
+     *
+     * @param bands The bands to count.
+     * @param counters The counters of each stripe.
+     * @param from The first stripe of the range.
+     * @param to The stripe after the last stripe of the range.
+     */
+    CountTask(List<Band> bands, int[][] counters, int from, int to) {
+      this.bands = bands;
+      this.counters = counters;
+      this.from = from;
+      this.to = to;
+    }
+
+    /** Counts the range of stripes, forking its halves if it holds more than one stripe. */
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        int first = (int) ((long) from * bands.size() / counters.length);
+        int last = (int) ((long) to * bands.size() / counters.length);
+
+        for (int i = first; i < last; ++i) {
+          bands.get(i).count(counters[from]);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+
+        invokeAll(new CountTask(bands, counters, from, middle),
+            new CountTask(bands, counters, middle, to));
+      }
+    }
+  }
+
+  /**
+   * This class colors a range of bands, split in half until a single band remains. The halves are
+   * created with the task, so that the whole tree can be run again without allocating.
+   */
+  private static class ColorTask extends RecursiveAction {
+    /** A unique id associated with this {@link java.io.Serializable} object. */
+    private static final long serialVersionUID = -3318305405930367018L;
+
+    /** The band to color if the range holds a single band, null otherwise. */
+    private final Band band;
+
+    /** The task which colors the first half of the range, null if it holds a single band. */
+    private final ColorTask left;
+
+    /** The task which colors the second half of the range, null if it holds a single band. */
+    private final ColorTask right;
+
+    /**
+     * Creates a new {@link ColorTask} for the specified range of bands.
+     *
+     * @param bands The bands to color.
+     * @param from The index of the first band of the range.
+     * @param to The index after the last band of the range.
+     */
+    ColorTask(List<Band> bands, int from, int to) {
+      if (to - from == 1) {
+        band = bands.get(from);
+        left = null;
+        right = null;
+      } else {
+        int middle = (from + to) >>> 1;
+
+        band = null;
+        left = new ColorTask(bands, from, middle);
+        right = new ColorTask(bands, middle, to);
+      }
+    }
+
+    /** Colors the range of bands, forking its halves if it holds more than one band. */
+    @Override
+    protected void compute() {
+      if (band != null) {
+        band.color();
+      } else {
+        left.reinitialize();
+        right.reinitialize();
+        invokeAll(left, right);
+      }
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.fractal.app.image;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -8,6 +9,9 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.math.SetStatistics;
+
 /**
  * This class a models an image and provides functionality for writing JPEG image files.
  *
@@ -39,12 +43,21 @@ public class Image {
   /** The unique id number associated with this image. */
   private int id;
 
+  /** The number of the frame to which this image belongs. */
+  private int frame;
+
   /** The x-value image buffer index. */
   private int xCoord;
 
   /** The y-value image buffer index. */
   private int yCoord;
 
+  /** The statistics about the calculation of this image. */
+  private SetStatistics statistics;
+
+  /** The raw values from which this image is colored, null if the image was decoded. */
+  private IterationField field;
+
   /**
    * Constructs a new {@link Image} with a default width, height, and id number.
    */
@@ -76,6 +89,8 @@ public class Image {
     this.xCoord = xCoord;
     this.yCoord = yCoord;
     image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    statistics = new SetStatistics(1, width * height);
+    field = new IterationField(width, height);
   }
 
   /**
@@ -91,6 +106,29 @@ public class Image {
     this.id = id;
     this.xCoord = xCoord;
     this.yCoord = yCoord;
+    this.statistics = new SetStatistics(1, getWidth() * getHeight());
+  }
+
+  /**
+   * Constructs a new {@link Image} from the specified {@link IterationField}, colored with the
+   * specified {@link ColoringAlgorithm}.
+   *
+   * @param field The raw values from which the image is colored.
+   * @param colorAlg The {@link ColoringAlgorithm} with which to color the image.
+   * @param id The unique id number associated with this image.
+   * @param xCoord The x-value image buffer index.
+   * @param yCoord The y-value image buffer index.
+   */
+  public Image(IterationField field, ColoringAlgorithm colorAlg, int id, int xCoord, int yCoord) {
+    this.image =
+        new BufferedImage(field.getWidth(), field.getHeight(), BufferedImage.TYPE_INT_RGB);
+    this.id = id;
+    this.xCoord = xCoord;
+    this.yCoord = yCoord;
+    this.statistics = new SetStatistics(1, getWidth() * getHeight());
+    this.field = field;
+
+    field.color(colorAlg, getPixels());
   }
 
   /**
@@ -128,6 +166,28 @@ public class Image {
     return image;
   }
 
+  /**
+   * Returns the pixel buffer backing this image. Writing to the returned array updates the image
+   * directly, without the per-pixel color model conversion performed by
+   * {@link BufferedImage#setRGB(int, int, int)}. Only images created with a width and height are
+   * backed by an RGB integer buffer; images decoded from a byte array are not.
+   *
+   * @return The pixel buffer backing this image, one RGB value per pixel in row-major order.
+   */
+  public int[] getPixels() {
+    return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+  }
+
+  /**
+   * Returns the raw values from which this image is colored. Only images created with a width and
+   * height or from a field hold an {@link IterationField}; images decoded from a byte array do not.
+   *
+   * @return The {@link IterationField} of this image, or null if the image was decoded.
+   */
+  public IterationField getField() {
+    return field;
+  }
+
   /**
    * Returns the x-value offset into the image buffer.
    *
@@ -164,6 +224,24 @@ public class Image {
     return image.getHeight();
   }
 
+  /**
+   * Returns the statistics about the calculation of this image.
+   *
+   * @return The statistics about the calculation of this image.
+   */
+  public SetStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Sets the statistics about the calculation of this image.
+   *
+   * @param statistics The new statistics about the calculation of this image.
+   */
+  public void setStatistics(SetStatistics statistics) {
+    this.statistics = statistics;
+  }
+
   /**
    * Returns the unique id number for this image.
    *
@@ -172,4 +250,22 @@ public class Image {
   public int getId() {
     return id;
   }
+
+  /**
+   * Returns the number of the frame to which this image belongs.
+   *
+   * @return The number of the frame to which this image belongs.
+   */
+  public int getFrame() {
+    return frame;
+  }
+
+  /**
+   * Sets the number of the frame to which this image belongs.
+   *
+   * @param frame The number of the frame to which this image belongs.
+   */
+  public void setFrame(int frame) {
+    this.frame = frame;
+  }
 }
@@ -2,11 +2,13 @@ package com.fractal.app.image;
 
 import java.io.Serializable;
 
+import com.fractal.app.algorithms.math.SetStatistics;
 import com.fractal.app.networking.Data;
 
 /**
  * This class provides a wrapper for transmitting byte array representations of images arrays over a
- * network.
+ * network. The servers send the {@link IterationField} of an image instead of its encoded bytes, so
+ * that the client can color it, and color it again, itself.
  *
  * @author Scott Gigawatt
  * @version 7 July 2017
@@ -15,18 +17,27 @@ public class ImageByteArrayWrapper implements Data {
   /** A unique id associated with this {@link Serializable} object. */
   private static final long serialVersionUID = 8840529344787426130L;
 
-  /** The byte array representation of the image. */
+  /** The byte array representation of the image, null if the field is sent instead. */
   private byte[] image;
 
+  /** The raw values from which the image is colored, null if the image is encoded. */
+  private IterationField field;
+
   /** A unique id associated with this image. */
   private int id;
 
+  /** The number of the frame to which the image belongs. */
+  private int frame;
+
   /** The x-value image buffer index. */
   private int xCoord;
 
   /** The y-value image buffer index. */
   private int yCoord;
 
+  /** The statistics about the calculation of the image. */
+  private SetStatistics statistics;
+
   /**
    * Wraps the specified byte array in a {@link ImageByteArrayWrapper} and assigns it the specified
    * id.
@@ -43,15 +54,39 @@ public class ImageByteArrayWrapper implements Data {
     this.yCoord = yCoord;
   }
 
+  /**
+   * Wraps the specified {@link IterationField} in a {@link ImageByteArrayWrapper} and assigns it
+   * the specified id.
+   *
+   * @param field The raw values from which the image is colored.
+   * @param id The unique id associated with this image.
+   * @param xCoord The x-value image buffer index.
+   * @param yCoord The y-value image buffer index.
+   */
+  public ImageByteArrayWrapper(IterationField field, int id, int xCoord, int yCoord) {
+    this((byte[]) null, id, xCoord, yCoord);
+
+    this.field = field;
+  }
+
   /**
    * Returns the byte array representation of the image.
    *
-   * @return The byte array representation of the image.
+   * @return The byte array representation of the image, null if the field is sent instead.
    */
   public byte[] getImageByteArray() {
     return image;
   }
 
+  /**
+   * Returns the raw values from which the image is colored.
+   *
+   * @return The {@link IterationField} of the image, null if the image is encoded.
+   */
+  public IterationField getField() {
+    return field;
+  }
+
   /**
    * Returns the unique id associated with this image.
    *
@@ -61,6 +96,25 @@ public class ImageByteArrayWrapper implements Data {
     return id;
   }
 
+  /**
+   * Returns the number of the frame to which the image belongs.
+   *
+   * @return The number of the frame to which the image belongs.
+   */
+  public int getFrame() {
+    return frame;
+  }
+
+  /**
+   * Sets the number of the frame to which the image belongs.
+   *
+   * @param frame The number of the frame of the {@link com.fractal.app.algorithms.math.Region}
+   *        from which the image was calculated.
+   */
+  public void setFrame(int frame) {
+    this.frame = frame;
+  }
+
   /**
    * Returns the x-value offset into the image buffer.
    *
@@ -78,4 +132,22 @@ public class ImageByteArrayWrapper implements Data {
   public int getY() {
     return yCoord;
   }
+
+  /**
+   * Returns the statistics about the calculation of the image.
+   *
+   * @return The statistics about the calculation of the image, can be null.
+   */
+  public SetStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Sets the statistics about the calculation of the image.
+   *
+   * @param statistics The new statistics about the calculation of the image.
+   */
+  public void setStatistics(SetStatistics statistics) {
+    this.statistics = statistics;
+  }
 }
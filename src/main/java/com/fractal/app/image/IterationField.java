@@ -0,0 +1,622 @@
+package com.fractal.app.image;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
+
+/**
+ * This class holds the raw result of calculating an image: for each pixel, the number of iterations
+ * taken to escape, the smooth escape value mu and the magnitude of the final value of the point.
+ * The values are stored in primitive arrays in row-major order, so that the image can be colored,
+ * and colored again with another {@link ColoringAlgorithm}, without iterating any point again.
+ * Fields are sent from the servers in place of encoded images, so that the client can recolor them.
+ * <p>
+ * When distances are estimated, the field also holds the estimated distance of each pixel from the
+ * boundary of the set, and the colors of the pixels within {@link #SHADING_DISTANCE} of the
+ * boundary are darkened towards black, so that filaments thinner than a pixel stay visible. When
+ * the orbits are measured against a trap, it holds the smallest distance of each orbit from the
+ * trap, with which an {@link OrbitTrapColoringAlgorithm} colors the pixels.
+ * <p>
+ * When the pixels on the edges of the image are supersampled, the field holds the raw values of
+ * their additional samples in a field of its own, and each of those pixels is colored by the
+ * average of the colors of its samples.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class IterationField implements Serializable {
+  /** A unique id associated with this {@link Serializable} object. */
+  private static final long serialVersionUID = 4162394871651229302L;
+
+  /** Masks an RGB value to the bits stored by an RGB image buffer. */
+  private static final int RGB_MASK = 0xFFFFFF;
+
+  /** The distance from the boundary, in pixels, within which the color of a pixel is darkened. */
+  public static final float SHADING_DISTANCE = 1.0f;
+
+  /** The number of fractional bits of a fixed-point shading weight. */
+  private static final int SHADING_BITS = 8;
+
+  /** The red and blue bits of an RGB value. */
+  private static final int RED_BLUE = 0xFF00FF;
+
+  /** The green bits of an RGB value. */
+  private static final int GREEN = 0x00FF00;
+
+  /** The width of the field. */
+  private final int width;
+
+  /** The height of the field. */
+  private final int height;
+
+  /** The number of iterations taken to escape by each pixel, maxIt - 1 if it did not escape. */
+  private final int[] counts;
+
+  /** The smooth escape value of each pixel. */
+  private final float[] mu;
+
+  /** The magnitude of the final value of each pixel. */
+  private final float[] magnitudes;
+
+  /**
+   * The estimated distance of each pixel from the boundary of the set in pixels, infinite for a
+   * pixel which did not escape; null if distances are not estimated.
+   */
+  private float[] distances;
+
+  /**
+   * The smallest distance of the orbit of each pixel from the trap, in units of the radius of the
+   * trap; null if the orbits are not measured against a trap.
+   */
+  private float[] traps;
+
+  /** The indices of the supersampled pixels in ascending order, null if none are supersampled. */
+  private int[] refined;
+
+  /**
+   * The raw values of the additional samples of the supersampled pixels, one row holding the
+   * samples of each pixel in turn; null if none are supersampled.
+   */
+  private IterationField samples;
+
+  /** The number of additional samples of each supersampled pixel. */
+  private int samplesPerPixel;
+
+  /** True if the field belongs to a Mandelbrot set, false for a Julia set. */
+  private boolean mandelbrot = true;
+
+  /** The maximum number of iterations performed for the field. */
+  private int maxIt;
+
+  /**
+   * Constructs a new {@link IterationField} with the specified width and height.
+   *
+   * @param width The width of the field.
+   * @param height The height of the field.
+   */
+  public IterationField(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.counts = new int[width * height];
+    this.mu = new float[width * height];
+    this.magnitudes = new float[width * height];
+  }
+
+  /**
+   * Sets the raw values of the pixel with the specified index.
+   *
+   * @param index The index of the pixel, in row-major order.
+   * @param count The number of iterations taken to escape, maxIt - 1 if the pixel did not escape.
+   * @param mu The smooth escape value.
+   * @param magnitude The magnitude of the final value of the pixel.
+   */
+  public void set(int index, int count, float mu, float magnitude) {
+    this.counts[index] = count;
+    this.mu[index] = mu;
+    this.magnitudes[index] = magnitude;
+  }
+
+  /**
+   * Copies the raw values of one pixel to another.
+   *
+   * @param from The index of the pixel to copy.
+   * @param to The index of the pixel to overwrite.
+   */
+  public void copy(int from, int to) {
+    copy(this, from, to);
+  }
+
+  /**
+   * Copies the raw values of a pixel of the specified field to a pixel of this field. The fields
+   * must hold the same kinds of values.
+   *
+   * @param source The field holding the pixel to copy.
+   * @param from The index within the source of the pixel to copy.
+   * @param to The index of the pixel to overwrite.
+   */
+  private void copy(IterationField source, int from, int to) {
+    counts[to] = source.counts[from];
+    mu[to] = source.mu[from];
+    magnitudes[to] = source.magnitudes[from];
+
+    if (distances != null) {
+      distances[to] = source.distances[from];
+    }
+
+    if (traps != null) {
+      traps[to] = source.traps[from];
+    }
+  }
+
+  /**
+   * Returns a field holding the specified rows of this field in reverse order, and with the columns
+   * of each row reversed if specified; that is, the field of the region mirrored across the real
+   * axis, or through the origin, from those rows. The samples of the supersampled pixels within the
+   * rows are mirrored with them.
+   *
+   * @param firstRow The first row to mirror.
+   * @param lastRow The row after the last row to mirror.
+   * @param columns True to reverse the columns of each row as well, false otherwise.
+   *
+   * @return The mirrored field.
+   */
+  public IterationField mirror(int firstRow, int lastRow, boolean columns) {
+    IterationField mirror = new IterationField(width, lastRow - firstRow);
+    int[] mirrored = new int[(refined == null) ? 0 : refined.length];
+    int[] sources = new int[mirrored.length];
+    int count = 0;
+
+    mirror.setDistanceEstimation(distances != null);
+    mirror.setTrapped(traps != null);
+    mirror.setMandelbrot(mandelbrot);
+    mirror.setMaxIt(maxIt);
+
+    for (int i = 0, index = 0; i < mirror.height; ++i) {
+      for (int j = 0; j < width; ++j, ++index) {
+        int source = ((lastRow - 1 - i) * width) + (columns ? width - 1 - j : j);
+        int pixel = (refined == null) ? -1 : Arrays.binarySearch(refined, source);
+
+        mirror.copy(this, source, index);
+
+        if (pixel >= 0) {
+          mirrored[count] = index;
+          sources[count++] = pixel;
+        }
+      }
+    }
+
+    if (count > 0) {
+      mirror.setSupersampling(Arrays.copyOf(mirrored, count), samplesPerPixel);
+
+      for (int i = 0; i < count; ++i) {
+        for (int k = 0; k < samplesPerPixel; ++k) {
+          mirror.samples.copy(samples, (sources[i] * samplesPerPixel) + k,
+              (i * samplesPerPixel) + mirrorSample(k, columns));
+        }
+      }
+    }
+
+    return mirror;
+  }
+
+  /**
+   * Returns the position among the samples of a pixel of the sample mirrored from the sample at the
+   * specified position. The samples lie on a square grid, taken row by row, without the center of
+   * a grid of odd size, whose value is that of the pixel; the size of the grid is therefore the
+   * square root of one more than the number of samples, rounded down.
+   *
+   * @param sample The position of the sample.
+   * @param columns True if the columns are mirrored as well as the rows, false otherwise.
+   *
+   * @return The position of the mirrored sample.
+   */
+  private int mirrorSample(int sample, boolean columns) {
+    int size = (int) Math.sqrt(samplesPerPixel + 1);
+    int center = ((size & 1) != 0) ? (size * size) / 2 : -1;
+    int cell = (center >= 0 && sample >= center) ? sample + 1 : sample;
+    int row = size - 1 - (cell / size);
+    int column = columns ? size - 1 - (cell % size) : cell % size;
+
+    cell = (row * size) + column;
+
+    return (center >= 0 && cell > center) ? cell - 1 : cell;
+  }
+
+  /**
+   * Colors every pixel of the field into the specified pixel buffer.
+   *
+   * @param colorAlg The {@link ColoringAlgorithm} with which to color the pixels.
+   * @param pixels The pixel buffer, one RGB value per pixel in row-major order.
+   */
+  public void color(ColoringAlgorithm colorAlg, int[] pixels) {
+    color(colorAlg, 0, pixels);
+  }
+
+  /**
+   * Colors every pixel of the field into the specified pixel buffer, with the palette rotated by
+   * the specified number of entries.
+   *
+   * @param colorAlg The {@link ColoringAlgorithm} with which to color the pixels.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   * @param pixels The pixel buffer, one RGB value per pixel in row-major order.
+   */
+  public void color(ColoringAlgorithm colorAlg, int paletteOffset, int[] pixels) {
+    color(colorAlg, paletteOffset, 0, height, pixels, 0, width);
+  }
+
+  /**
+   * Colors the specified rows of the field into the specified pixel buffer, which may be larger
+   * than the field, as {@link java.awt.image.BufferedImage#setRGB(int, int, int, int, int[], int,
+   * int)} does. Pixels are colored by their distances from the trap if the field holds them and
+   * the algorithm is an {@link OrbitTrapColoringAlgorithm}, and supersampled pixels by the average
+   * of the colors of their samples.
+   *
+   * @param colorAlg The {@link ColoringAlgorithm} with which to color the pixels.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   * @param firstRow The first row to color.
+   * @param lastRow The row after the last row to color.
+   * @param pixels The pixel buffer.
+   * @param offset The index within the buffer of the first pixel of the field.
+   * @param scan The distance within the buffer between the first pixels of consecutive rows.
+   */
+  public void color(ColoringAlgorithm colorAlg, int paletteOffset, int firstRow, int lastRow,
+      int[] pixels, int offset, int scan) {
+    OrbitTrapColoringAlgorithm trapAlg = null;
+
+    if (traps != null && colorAlg instanceof OrbitTrapColoringAlgorithm) {
+      trapAlg = (OrbitTrapColoringAlgorithm) colorAlg;
+    }
+
+    // The supersampled pixels are found in order, from the first one within the rows.
+    int next = (refined == null) ? 0 : Arrays.binarySearch(refined, firstRow * width);
+    next = (next < 0) ? -(next + 1) : next;
+
+    for (int i = firstRow; i < lastRow; ++i) {
+      int index = i * width;
+      int target = offset + (i * scan);
+
+      for (int j = 0; j < width; ++j, ++index) {
+        int color = getColor(colorAlg, trapAlg, index, paletteOffset, mandelbrot);
+
+        if (refined != null && next < refined.length && refined[next] == index) {
+          color = average(colorAlg, trapAlg, color, next++, paletteOffset);
+        }
+
+        pixels[target + j] = color;
+      }
+    }
+  }
+
+  /**
+   * Returns the color of the pixel with the specified index, shaded by its distance from the
+   * boundary if the field holds it.
+   *
+   * @param colorAlg The {@link ColoringAlgorithm} with which to color the pixel.
+   * @param trapAlg The algorithm with which to color the pixel by its distance from the trap, null
+   *        to color it with the {@link ColoringAlgorithm}.
+   * @param index The index of the pixel, in row-major order.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   * @param isMandelbrot True if the pixel belongs to a Mandelbrot set, false for a Julia set.
+   *
+   * @return The RGB value of the pixel.
+   */
+  private int getColor(ColoringAlgorithm colorAlg, OrbitTrapColoringAlgorithm trapAlg, int index,
+      int paletteOffset, boolean isMandelbrot) {
+    int color = ((trapAlg != null) ? trapAlg.getTrapColor(traps[index], paletteOffset)
+        : colorAlg.getColor(counts[index], mu[index], magnitudes[index], isMandelbrot,
+            paletteOffset)) & RGB_MASK;
+
+    return (distances == null) ? color : shade(color, distances[index]);
+  }
+
+  /**
+   * Averages the specified color of a supersampled pixel with the colors of its samples, channel
+   * by channel.
+   *
+   * @param colorAlg The {@link ColoringAlgorithm} with which to color the samples.
+   * @param trapAlg The algorithm with which to color the samples by their distances from the trap,
+   *        can be null.
+   * @param color The RGB value of the pixel.
+   * @param pixel The position of the pixel among the supersampled pixels.
+   * @param paletteOffset The number of entries by which to rotate the palette.
+   *
+   * @return The averaged RGB value.
+   */
+  private int average(ColoringAlgorithm colorAlg, OrbitTrapColoringAlgorithm trapAlg, int color,
+      int pixel, int paletteOffset) {
+    int red = (color >> 16) & 0xFF;
+    int green = (color >> 8) & 0xFF;
+    int blue = color & 0xFF;
+    int first = pixel * samplesPerPixel;
+    int n = samplesPerPixel + 1;
+
+    for (int k = first; k < first + samplesPerPixel; ++k) {
+      int sample = samples.getColor(colorAlg, trapAlg, k, paletteOffset, mandelbrot);
+
+      red += (sample >> 16) & 0xFF;
+      green += (sample >> 8) & 0xFF;
+      blue += sample & 0xFF;
+    }
+
+    return (((red + (n / 2)) / n) << 16) | (((green + (n / 2)) / n) << 8) | ((blue + (n / 2)) / n);
+  }
+
+  /**
+   * Darkens the specified color by the distance of its pixel from the boundary of the set, in
+   * fixed point. Pixels on the boundary are black, and pixels farther than
+   * {@link #SHADING_DISTANCE} keep their color.
+   *
+   * @param color The RGB value of the pixel.
+   * @param distance The estimated distance of the pixel from the boundary, in pixels.
+   *
+   * @return The shaded RGB value.
+   */
+  private static int shade(int color, float distance) {
+    if (!(distance < SHADING_DISTANCE)) {
+      return color;
+    }
+
+    int weight = (int) (distance * ((1 << SHADING_BITS) / SHADING_DISTANCE));
+    int redBlue = ((color & RED_BLUE) * weight) >>> SHADING_BITS;
+    int green = ((color & GREEN) * weight) >>> SHADING_BITS;
+
+    return (redBlue & RED_BLUE) | (green & GREEN);
+  }
+
+  /**
+   * Counts the pixels of the specified rows of the field by the number of iterations they took to
+   * escape, adding to the counts already in the specified histogram.
+   *
+   * @param firstRow The first row to count.
+   * @param lastRow The row after the last row to count.
+   * @param histogram The number of pixels which took each number of iterations, at least maxIt
+   *        entries long.
+   */
+  public void count(int firstRow, int lastRow, int[] histogram) {
+    for (int i = firstRow * width; i < lastRow * width; ++i) {
+      ++histogram[counts[i]];
+    }
+  }
+
+  /**
+   * Returns the histogram of the escape counts of the field.
+   *
+   * @return The number of pixels which took each number of iterations, maxIt entries long.
+   */
+  public long[] getHistogram() {
+    int[] counted = new int[maxIt];
+    long[] histogram = new long[maxIt];
+
+    count(0, height, counted);
+
+    for (int i = 0; i < maxIt; ++i) {
+      histogram[i] = counted[i];
+    }
+
+    return histogram;
+  }
+
+  /**
+   * Returns the number of iterations taken to escape by the pixel with the specified index.
+   *
+   * @param index The index of the pixel, in row-major order.
+   *
+   * @return The number of iterations, maxIt - 1 if the pixel did not escape.
+   */
+  public int getCount(int index) {
+    return counts[index];
+  }
+
+  /**
+   * Returns the smooth escape value of the pixel with the specified index.
+   *
+   * @param index The index of the pixel, in row-major order.
+   *
+   * @return The smooth escape value.
+   */
+  public float getMu(int index) {
+    return mu[index];
+  }
+
+  /**
+   * Returns the magnitude of the final value of the pixel with the specified index.
+   *
+   * @param index The index of the pixel, in row-major order.
+   *
+   * @return The magnitude of the final value of the pixel.
+   */
+  public float getMagnitude(int index) {
+    return magnitudes[index];
+  }
+
+  /**
+   * Returns the estimated distance of the pixel with the specified index from the boundary of the
+   * set.
+   *
+   * @param index The index of the pixel, in row-major order.
+   *
+   * @return The distance in pixels, infinite if the pixel did not escape or distances are not
+   *         estimated.
+   */
+  public float getDistance(int index) {
+    return (distances == null) ? Float.POSITIVE_INFINITY : distances[index];
+  }
+
+  /**
+   * Sets the estimated distance of the pixel with the specified index from the boundary of the set.
+   * Distances must be estimated for the field.
+   *
+   * @param index The index of the pixel, in row-major order.
+   * @param distance The distance in pixels, infinite if the pixel did not escape.
+   */
+  public void setDistance(int index, float distance) {
+    distances[index] = distance;
+  }
+
+  /**
+   * Returns true if the field holds the estimated distance of each pixel from the boundary.
+   *
+   * @return True if distances are estimated, false otherwise.
+   */
+  public boolean isDistanceEstimation() {
+    return distances != null;
+  }
+
+  /**
+   * Sets whether or not the field holds the estimated distance of each pixel from the boundary.
+   *
+   * @param distanceEstimation True to estimate distances, false otherwise.
+   */
+  public void setDistanceEstimation(boolean distanceEstimation) {
+    if (!distanceEstimation) {
+      distances = null;
+    } else if (distances == null) {
+      distances = new float[width * height];
+    }
+  }
+
+  /**
+   * Returns the smallest distance of the orbit of the pixel with the specified index from the trap.
+   *
+   * @param index The index of the pixel, in row-major order.
+   *
+   * @return The distance in units of the radius of the trap, infinite if the orbits are not
+   *         measured against a trap.
+   */
+  public float getTrapDistance(int index) {
+    return (traps == null) ? Float.POSITIVE_INFINITY : traps[index];
+  }
+
+  /**
+   * Sets the smallest distance of the orbit of the pixel with the specified index from the trap.
+   * The orbits must be measured against a trap for the field.
+   *
+   * @param index The index of the pixel, in row-major order.
+   * @param trapDistance The distance in units of the radius of the trap.
+   */
+  public void setTrapDistance(int index, float trapDistance) {
+    traps[index] = trapDistance;
+  }
+
+  /**
+   * Returns true if the field holds the smallest distance of the orbit of each pixel from a trap.
+   *
+   * @return True if the orbits are measured against a trap, false otherwise.
+   */
+  public boolean isTrapped() {
+    return traps != null;
+  }
+
+  /**
+   * Sets whether or not the field holds the smallest distance of the orbit of each pixel from a
+   * trap.
+   *
+   * @param trapped True if the orbits are measured against a trap, false otherwise.
+   */
+  public void setTrapped(boolean trapped) {
+    if (!trapped) {
+      traps = null;
+    } else if (traps == null) {
+      traps = new float[width * height];
+    }
+  }
+
+  /**
+   * Sets the pixels which are supersampled, allocating a field for the raw values of their
+   * additional samples, which holds distances and distances from the trap if this field does.
+   *
+   * @param refined The indices of the supersampled pixels, in ascending order.
+   * @param samplesPerPixel The number of additional samples of each supersampled pixel.
+   */
+  public void setSupersampling(int[] refined, int samplesPerPixel) {
+    this.refined = refined;
+    this.samplesPerPixel = samplesPerPixel;
+    this.samples = new IterationField(refined.length * samplesPerPixel, 1);
+    samples.setDistanceEstimation(distances != null);
+    samples.setTrapped(traps != null);
+  }
+
+  /**
+   * Returns the indices of the supersampled pixels.
+   *
+   * @return The indices in ascending order, null if no pixel is supersampled.
+   */
+  public int[] getRefined() {
+    return refined;
+  }
+
+  /**
+   * Returns the field holding the raw values of the additional samples of the supersampled
+   * pixels, those of each pixel in turn in the order of {@link #getRefined()}.
+   *
+   * @return The field of the samples, null if no pixel is supersampled.
+   */
+  public IterationField getSamples() {
+    return samples;
+  }
+
+  /**
+   * Returns the number of additional samples of each supersampled pixel.
+   *
+   * @return The number of additional samples.
+   */
+  public int getSamplesPerPixel() {
+    return samplesPerPixel;
+  }
+
+  /**
+   * Returns true if the field belongs to a Mandelbrot set.
+   *
+   * @return True for a Mandelbrot set, false for a Julia set.
+   */
+  public boolean isMandelbrot() {
+    return mandelbrot;
+  }
+
+  /**
+   * Sets whether the field belongs to a Mandelbrot set.
+   *
+   * @param mandelbrot True for a Mandelbrot set, false for a Julia set.
+   */
+  public void setMandelbrot(boolean mandelbrot) {
+    this.mandelbrot = mandelbrot;
+  }
+
+  /**
+   * Returns the maximum number of iterations performed for the field.
+   *
+   * @return The maximum number of iterations.
+   */
+  public int getMaxIt() {
+    return maxIt;
+  }
+
+  /**
+   * Sets the maximum number of iterations performed for the field.
+   *
+   * @param maxIt The maximum number of iterations.
+   */
+  public void setMaxIt(int maxIt) {
+    this.maxIt = maxIt;
+  }
+
+  /**
+   * Returns the width of the field.
+   *
+   * @return The width of the field.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Returns the height of the field.
+   *
+   * @return The height of the field.
+   */
+  public int getHeight() {
+    return height;
+  }
+}
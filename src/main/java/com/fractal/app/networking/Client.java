@@ -12,18 +12,21 @@ import java.util.Scanner;
 
 import com.fractal.app.algorithms.balancers.BlockRegionBalancer;
 import com.fractal.app.algorithms.balancers.Distributable;
-import com.fractal.app.algorithms.math.ComplexSet;
-import com.fractal.app.algorithms.math.PrecisionComplexSet;
+import com.fractal.app.algorithms.balancers.ForkJoinRenderer;
 import com.fractal.app.algorithms.math.Region;
-import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.algorithms.math.SetStatistics;
 import com.fractal.app.gui.listener.ImageCreationListener;
 import com.fractal.app.image.Image;
 import com.fractal.app.image.ImageByteArrayWrapper;
+import com.fractal.app.image.IterationField;
 
 /**
  * This class encapsulates the client side logic of the distributed Mandelbrot application. This
  * class is responsible for distributing calculation requests among the connected servers.
- * Potentially available servers are read from the "servers.conf" configuration file.
+ * Potentially available servers are read from the "servers.conf" configuration file. When no
+ * server is connected, frames are rendered on the cores of this machine by a
+ * {@link ForkJoinRenderer}, whose images are received as those of the servers are.
  *
  * @author Scott Gigawatt
  * @version 7 July 2017
@@ -50,6 +53,32 @@ public class Client implements DataListener, SelectionListener {
   /** The algorithm responsible for load distribution. */
   private Distributable balancer = new BlockRegionBalancer(this);
 
+  /** The renderer which calculates frames on this machine when no server is connected. */
+  private ForkJoinRenderer renderer = new ForkJoinRenderer();
+
+  /** Receives the images rendered on this machine. */
+  private ImageCreationListener localListener = new ImageCreationListener() {
+    public void imageCreated(Image image) {
+      notifyImageCreated(image);
+    }
+
+    public void frameCompleted() {
+      // The frame is completed as its regions are counted by notifyImageCreated.
+    }
+  };
+
+  /** The statistics of the regions of the current frame which have been received. */
+  private SetStatistics frameStatistics = new SetStatistics();
+
+  /** The number of regions of the current frame which have not yet been received. */
+  private int pendingRegions;
+
+  /** The number of frames requested, which identifies the current frame. */
+  private volatile int frame;
+
+  /** The choice of coloring algorithm with which the current frame was requested. */
+  private int colorAlg;
+
   /** Constructs a new {@link Client} connected to the default port. */
   public Client() {
     this(DEFAULT_PORT);
@@ -153,48 +182,66 @@ public class Client implements DataListener, SelectionListener {
 
         balancer.regionReceived(iFace);
 
-        Image otherImage =
-            new Image(temp.getImageByteArray(), temp.getId(), temp.getX(), temp.getY());
+        // A region of an earlier frame would be mirrored into, and counted toward, the current one.
+        if (temp.getFrame() != frame) {
+          return;
+        }
+
+        Image otherImage = null;
+
+        if (temp.getField() != null) {
+          IterationField field = temp.getField();
+
+          otherImage = new Image(field, SetFactory.createColoringAlgorithm(colorAlg, field),
+              temp.getId(), temp.getX(), temp.getY());
+        } else {
+          otherImage =
+              new Image(temp.getImageByteArray(), temp.getId(), temp.getX(), temp.getY());
+        }
+
+        if (temp.getStatistics() != null) {
+          otherImage.setStatistics(temp.getStatistics());
+        }
+
+        otherImage.setFrame(temp.getFrame());
+
+        // The mirrored image is drawn first, so that the frame is complete with the last region.
+        Image mirror = balancer.mirror(otherImage);
+
+        if (mirror != null) {
+          notifyImageCreated(mirror);
+        }
+
         notifyImageCreated(otherImage);
       }
     }
   }
 
   /**
-   * Sends the requested {@link Region} to the servers for calculation.
+   * Sends the requested {@link Region} to the servers for calculation, as the next frame. The
+   * region is tagged with the number of the frame, so that the images of the frames requested
+   * before it which are still being calculated are dropped as they are received.
    *
    * @param region The {@link Region} to be calculated.
    *
    * @throws IOException If any input or output error should occur.
    */
   public void distributeCalcRequests(Region region) throws IOException {
+    synchronized (this) {
+      frameStatistics = new SetStatistics();
+      pendingRegions = (balancer.getNumServers() == 0) ? renderer.getNumRegions(region)
+          : balancer.getNumRegions(region);
+      colorAlg = region.getColorAlg();
+      region.setFrame(++frame);
+    }
+
     if (balancer.getNumServers() == 0) {
-      generateImage(region);
+      renderer.render(region, localListener);
     } else {
       balancer.distribute(region);
     }
   }
 
-  /**
-   * Creates the appropriate {@link Set} and generates the image.
-   *
-   * @param region The {@link Region} to be calculated.
-   */
-  private void generateImage(Region region) {
-    if (region != null) {
-      Set set = null;
-
-      if (!region.isPrecise()) {
-        set = new ComplexSet(region);
-      } else {
-        set = new PrecisionComplexSet(region);
-      }
-
-      set.generate(region.getJulia());
-      notifyImageCreated(set.getImage());
-    }
-  }
-
   /**
    * Adds the specified {@link ImageCreationListener} to the list of {@link ImageCreationListener}s.
    *
@@ -215,14 +262,61 @@ public class Client implements DataListener, SelectionListener {
   }
 
   /**
-   * Notifies all {@link ImageCreationListener}s that the specified image has been created.
+   * Notifies all {@link ImageCreationListener}s that the specified image has been created, unless
+   * it belongs to a frame which has since been replaced.
    *
    * @param image The image that has been created.
    */
   public void notifyImageCreated(Image image) {
+    if (image.getFrame() != frame) {
+      return;
+    }
+
+    boolean frameCompleted = regionCompleted(image);
+
     for (ImageCreationListener l : listeners) {
       l.imageCreated(image);
     }
+
+    if (frameCompleted) {
+      for (ImageCreationListener l : listeners) {
+        l.frameCompleted();
+      }
+    }
+  }
+
+  /**
+   * Adds the statistics of the specified image to the statistics of the current frame, and reports
+   * the iterations skipped by series approximation in the region and their estimated error as it
+   * is received, and the statistics of the frame once every region has been received. The image
+   * is not counted if another frame has been requested since it was checked.
+   *
+   * @param image The image of a region of the current frame.
+   *
+   * @return True if the image was the last region of the current frame to be received.
+   */
+  private synchronized boolean regionCompleted(Image image) {
+    SetStatistics statistics = image.getStatistics();
+
+    if (statistics != null && image.getFrame() == frame && pendingRegions > 0) {
+      frameStatistics.merge(statistics);
+
+      if (statistics.getSkippedIterations() > 0) {
+        System.out.println("Region (" + image.getX() + ", " + image.getY() + "): skipped "
+            + statistics.getSkippedIterationsPerPixel() + " iterations per pixel (error "
+            + statistics.getApproximationError() + " px)");
+      }
+
+      if (--pendingRegions == 0) {
+        if (!frameStatistics.isEmpty()) {
+          System.out.println("Frame: " + frameStatistics);
+        }
+
+        return true;
+      }
+    }
+
+    return false;
   }
 
   /**
@@ -234,9 +328,10 @@ public class Client implements DataListener, SelectionListener {
     source.removeDataListener(this);
   }
 
-  /** Closes any connected {@link Servers}. */
+  /** Closes any connected {@link Servers} and stops rendering on this machine. */
   public void close() {
     balancer.closeServers();
+    renderer.close();
   }
 
   /**
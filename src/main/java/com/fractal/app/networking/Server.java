@@ -7,10 +7,9 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
-import com.fractal.app.algorithms.math.ComplexSet;
-import com.fractal.app.algorithms.math.PrecisionComplexSet;
 import com.fractal.app.algorithms.math.Region;
 import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
 import com.fractal.app.image.Image;
 import com.fractal.app.image.ImageByteArrayWrapper;
 
@@ -166,20 +165,16 @@ public class Server implements DataListener {
      */
     private void generateImage(Region region) {
       if (region != null) {
-        Set set = null;
-
-        if (!region.isPrecise()) {
-          set = new ComplexSet(region);
-        } else {
-          set = new PrecisionComplexSet(region);
-        }
+        Set set = SetFactory.createSet(region);
 
         set.generate(region.getJulia());
 
         try {
           Image image = set.getImage();
-          Data data = new ImageByteArrayWrapper(image.toByteArray(), region.getId(), region.getX(),
-              region.getY());
+          ImageByteArrayWrapper data = new ImageByteArrayWrapper(image.getField(),
+              region.getId(), region.getX(), region.getY());
+          data.setStatistics(image.getStatistics());
+          data.setFrame(region.getFrame());
           Server.this.send(data);
         } catch (IOException ioe) {
           ioe.printStackTrace();
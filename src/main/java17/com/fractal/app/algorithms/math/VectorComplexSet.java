@@ -0,0 +1,342 @@
+package com.fractal.app.algorithms.math;
+
+import com.fractal.app.image.Image;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class models and displays a graphical representations of the well known Mandelbrot and Julia
+ * sets, iterating a group of adjacent pixels of a row at once with the incubating Java Vector API.
+ * The number of pixels in a group is the preferred number of double lanes of the host CPU. Each
+ * pixel is recorded as it escapes or enters a cycle, and the group is finished when every pixel
+ * has stopped, so each pixel is iterated exactly as {@link ComplexSet} iterates it and is colored
+ * identically.
+ * <p>
+ * Only images rendered in raster order are vectorized; other render modes, images whose distances
+ * are estimated or whose orbits are trapped, and the pixels left over at the end of a row are
+ * tested one at a time by {@link ComplexSet}. This class is compiled for Java 17 and requires the
+ * {@code jdk.incubator.vector} module, e.g. {@code --add-modules jdk.incubator.vector}; the
+ * {@link SetFactory} falls back to {@link ComplexSet} without it.
+ *
+ * @author Scott Gigawatt
+ *
+ * @version 6 July 2017
+ */
+public class VectorComplexSet extends ComplexSet {
+  /** The shape of the vectors used to iterate the pixels, chosen for the host CPU. */
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  /** The number of pixels iterated at once. */
+  private static final int LANES = SPECIES.length();
+
+  /**
+   * The power to which the set is raised if this class is a kernel created by the
+   * {@link KernelFactory}, zero otherwise. The JIT folds it into the squaring loop of the kernel.
+   */
+  private static final int POWER = KernelFactory.getPower(VectorComplexSet.class);
+
+  /** The point on which the set being generated is based, can be null. */
+  private ComplexNumber basis;
+
+  /** The real portions of the points of the current group. */
+  private double[] xs = new double[LANES];
+
+  /** The real portions of the values of the current group when they stopped. */
+  private double[] zxs = new double[LANES];
+
+  /** The imaginary coefficients of the values of the current group when they stopped. */
+  private double[] zys = new double[LANES];
+
+  /** The number of iterations of each pixel of the current group, maxIt if it did not escape. */
+  private int[] counts = new int[LANES];
+
+  /** True for each pixel of the current group which is still being iterated. */
+  private boolean[] running = new boolean[LANES];
+
+  /** The exponential smoothing sums of the orbits of the current group, for Julia sets. */
+  private double[] sums = new double[LANES];
+
+  /** The real portions, then the imaginary coefficients, of the values of the current group. */
+  private double[] values = new double[2 * LANES];
+
+  /** The real portions followed by the imaginary coefficients of the points added to the group. */
+  private double[] adds = new double[2 * LANES];
+
+  /**
+   * The real portions followed by the imaginary coefficients of the earlier values of the current
+   * group against which they are compared to detect cycles.
+   */
+  private double[] snapshot = new double[2 * LANES];
+
+  /**
+   * Creates a new {@link VectorComplexSet} based on the specified {@link Region}.
+   *
+   * @param region The {@link Region} on which to base the set.
+   */
+  public VectorComplexSet(Region region) {
+    super(region);
+  }
+
+  /**
+   * Returns true if the host CPU iterates more than one double at once, so that vectorizing the
+   * iteration can pay off.
+   *
+   * @return True if the vectorized set is supported, false otherwise.
+   */
+  public static boolean isSupported() {
+    return LANES > 1;
+  }
+
+  /**
+   * Returns the number of pixels iterated at once.
+   *
+   * @return The number of pixels iterated at once.
+   */
+  public static int getLanes() {
+    return LANES;
+  }
+
+  /**
+   * Computes a color value for each pixel representing a point within the set.
+   *
+   * @param basisPoint The point on which to base the set, can be null.
+   */
+  @Override
+  public void generate(ComplexNumber basisPoint) {
+    basis = basisPoint;
+
+    super.generate(basisPoint);
+  }
+
+  /** Computes the raw values of each pixel, a group of pixels at a time in raster order. */
+  @Override
+  protected void render() {
+    if (getRenderMode() != RENDER_RASTER || isDistanceEstimation() || getTrap() != null) {
+      super.render();
+      return;
+    }
+
+    Image image = getImage();
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double xMin = getMin().getX();
+    double yMin = getMin().getY();
+    double dx = (getMax().getX() - xMin) / width;
+    double dy = (getMax().getY() - yMin) / height;
+    int groups = width - (width % LANES);
+
+    for (int i = 0; i < height; ++i) {
+      double y = yMin + (i * dy);
+
+      for (int j = 0; j < groups; j += LANES) {
+        for (int k = 0; k < LANES; ++k) {
+          xs[k] = xMin + ((j + k) * dx);
+        }
+
+        testGroup(y);
+
+        for (int k = 0; k < LANES; ++k) {
+          finish(k, y, (i * width) + j + k);
+        }
+      }
+
+      for (int j = groups; j < width; ++j) {
+        testPixel(j, i);
+        store((i * width) + j);
+      }
+    }
+  }
+
+  /**
+   * Iterates the group of pixels whose real portions are held by {@link #xs} and whose imaginary
+   * coefficients are the specified value, recording the number of iterations and the final value
+   * of each pixel.
+   * <p>
+   * The values of the group are kept in arrays between iterations rather than in vectors, and the
+   * pixels which stop are parked at NaN, which never escapes or matches a snapshot, instead of
+   * being masked out. Vectors carried between iterations and mask operations are not all compiled
+   * to vector instructions by the JIT of Java 17, which then allocates them on every iteration.
+   *
+   * @param y The imaginary coefficient of the pixels.
+   */
+  private void testGroup(double y) {
+    boolean isMandelbrot = basis == null;
+    int maxIt = getMaxIt();
+    int power = (POWER != 0) ? POWER : getPower();
+    int top = Integer.highestOneBit(power);
+    boolean periodicityCheck = isPeriodicityCheck();
+    int remaining = 0;
+    int checkpoint = 1;
+
+    for (int k = 0; k < LANES; ++k) {
+      values[k] = isMandelbrot ? 0.0 : xs[k];
+      values[LANES + k] = isMandelbrot ? 0.0 : y;
+      adds[k] = isMandelbrot ? xs[k] : basis.getX();
+      adds[LANES + k] = isMandelbrot ? y : basis.getY();
+      zxs[k] = values[k];
+      zys[k] = values[LANES + k];
+      sums[k] = 0.0;
+      counts[k] = maxIt;
+
+      // Points inside the main cardioid and the period-2 bulb never escape, so are not iterated.
+      running[k] = !(isMandelbrot && power == 2 && isInteriorCheck() && isInterior(xs[k], y));
+
+      if (running[k]) {
+        ++remaining;
+      } else {
+        park(k);
+      }
+    }
+
+    System.arraycopy(values, 0, snapshot, 0, 2 * LANES);
+
+    for (int i = 0; i < maxIt && remaining > 0; ++i) {
+      if (!isMandelbrot) {
+        // The smoothing sums of the orbits are accumulated as they are iterated. The terms are
+        // looked up in a table, which would need a gather, so they are added one lane at a time.
+        for (int k = 0; k < LANES; ++k) {
+          if (running[k]) {
+            sums[k] += getSmoothingTerm(
+                (values[k] * values[k]) + (values[LANES + k] * values[LANES + k]));
+          }
+        }
+      }
+
+      DoubleVector zx = DoubleVector.fromArray(SPECIES, values, 0);
+      DoubleVector zy = DoubleVector.fromArray(SPECIES, values, LANES);
+
+      DoubleVector bx = zx;
+      DoubleVector by = zy;
+
+      // z^power by squaring for each bit of the power below the highest, multiplying by the
+      // starting value of the iteration for each bit which is set.
+      for (int bit = top >> 1; bit != 0; bit >>= 1) {
+        DoubleVector tmp = zx.mul(zx).sub(zy.mul(zy));
+        zy = zy.mul(zx).add(zx.mul(zy));
+        zx = tmp;
+
+        if ((power & bit) != 0) {
+          tmp = zx.mul(bx).sub(zy.mul(by));
+          zy = zy.mul(bx).add(zx.mul(by));
+          zx = tmp;
+        }
+      }
+
+      zx = zx.add(DoubleVector.fromArray(SPECIES, adds, 0));
+      zy = zy.add(DoubleVector.fromArray(SPECIES, adds, LANES));
+      zx.intoArray(values, 0);
+      zy.intoArray(values, LANES);
+
+      if (zx.mul(zx).add(zy.mul(zy)).compare(VectorOperators.GT, THRESHOLD).anyTrue()) {
+        remaining -= stopEscaped(i);
+      }
+
+      if (periodicityCheck) {
+        if (zx.compare(VectorOperators.EQ, DoubleVector.fromArray(SPECIES, snapshot, 0))
+            .anyTrue()) {
+          remaining -= stopPeriodic(i);
+        }
+
+        // Brent's method: compare against snapshots taken at doubling intervals.
+        if (i == checkpoint) {
+          System.arraycopy(values, 0, snapshot, 0, 2 * LANES);
+          checkpoint <<= 1;
+        }
+      }
+    }
+
+    for (int k = 0; k < LANES; ++k) {
+      if (running[k]) {
+        zxs[k] = values[k];
+        zys[k] = values[LANES + k];
+      }
+    }
+  }
+
+  /**
+   * Stops the pixels of the current group which have escaped in the specified iteration.
+   *
+   * @param iteration The number of the current iteration.
+   *
+   * @return The number of pixels stopped.
+   */
+  private int stopEscaped(int iteration) {
+    int stopped = 0;
+
+    for (int k = 0; k < LANES; ++k) {
+      double zx = values[k];
+      double zy = values[LANES + k];
+
+      if (running[k] && (zx * zx) + (zy * zy) > THRESHOLD) {
+        zxs[k] = zx;
+        zys[k] = zy;
+        counts[k] = iteration;
+        park(k);
+        ++stopped;
+      }
+    }
+
+    return stopped;
+  }
+
+  /**
+   * Stops the pixels of the current group which have returned to their snapshots in the specified
+   * iteration, and so never escape.
+   *
+   * @param iteration The number of the current iteration.
+   *
+   * @return The number of pixels stopped.
+   */
+  private int stopPeriodic(int iteration) {
+    int stopped = 0;
+
+    for (int k = 0; k < LANES; ++k) {
+      if (running[k] && values[k] == snapshot[k] && values[LANES + k] == snapshot[LANES + k]) {
+        getImage().getStatistics().addPeriodicPoint(getMaxIt() - 1 - iteration);
+        zxs[k] = values[k];
+        zys[k] = values[LANES + k];
+        park(k);
+        ++stopped;
+      }
+    }
+
+    return stopped;
+  }
+
+  /**
+   * Stops iterating the specified pixel of the current group by setting its value, the point added
+   * to it and its snapshot to NaN, so that it neither escapes nor enters a cycle again.
+   *
+   * @param lane The lane of the pixel.
+   */
+  private void park(int lane) {
+    running[lane] = false;
+    values[lane] = Double.NaN;
+    values[LANES + lane] = Double.NaN;
+    adds[lane] = Double.NaN;
+    adds[LANES + lane] = Double.NaN;
+    snapshot[lane] = Double.NaN;
+    snapshot[LANES + lane] = Double.NaN;
+  }
+
+  /**
+   * Stores the raw values of the specified pixel of the current group.
+   *
+   * @param lane The lane of the pixel.
+   * @param y The imaginary coefficient of the pixel.
+   * @param index The index of the pixel within the image.
+   */
+  private void finish(int lane, double y, int index) {
+    int iterations = Math.min(counts[lane], getMaxIt() - 1);
+
+    if (basis == null) {
+      escape(zxs[lane], zys[lane], xs[lane], y, iterations, true);
+    } else {
+      escape(zxs[lane], zys[lane], basis.getX(), basis.getY(), iterations, false, sums[lane]);
+    }
+
+    store(index);
+  }
+}
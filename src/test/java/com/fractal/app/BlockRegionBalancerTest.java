@@ -0,0 +1,210 @@
+package com.fractal.app;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.balancers.BlockRegionBalancer;
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.Image;
+
+/**
+ * JUnit tests for the {@link BlockRegionBalancer} class. The frames are bounded by binary
+ * fractions, so that every pixel of a sub-region lies exactly on the pixel of the frame it covers.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class BlockRegionBalancerTest {
+  /** The width and height of the frames. */
+  private static final int SIZE = 40;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** Tests that a frame without symmetry is broken apart into blocks covering it. */
+  @Test
+  public void testAsymmetric() {
+    Region region = createRegion(-2.0, 0.5, 0.125, 2.625, null, 2);
+
+    Assert.assertEquals(16, assertMirrored(region));
+
+    // An odd power of a Julia set is not symmetric about the origin.
+    region = createRegion(-1.25, 1.25, -1.25, 1.25, new ComplexNumber(-0.5, 0.5), 3);
+
+    Assert.assertEquals(16, assertMirrored(region));
+  }
+
+  /** Tests that a Mandelbrot frame is calculated above the real axis and mirrored below it. */
+  @Test
+  public void testMandelbrot() {
+    for (int power = 2; power <= 3; ++power) {
+      // The axis lies on row 16, so that rows 16 to 39 are calculated.
+      Region region = createRegion(-2.0, 0.5, -1.0, 1.5, null, power);
+
+      Assert.assertEquals(12, assertMirrored(region));
+    }
+
+    // The axis lies between rows, a tenth of a pixel away from them.
+    Region region = createRegion(-2.0, 0.5, -1.0 - (0.0625 * 0.6), 1.5 - (0.0625 * 0.6), null, 2);
+
+    Assert.assertEquals(12, assertMirrored(region));
+  }
+
+  /**
+   * Tests that a Julia frame centered on the origin is calculated below the real axis and mirrored
+   * through the origin above it, with its supersampled pixels.
+   */
+  @Test
+  public void testJulia() {
+    ComplexNumber julia = new ComplexNumber(-0.8, 0.156);
+    Region region = createRegion(-1.25, 1.25, -1.25, 1.25, julia, 2);
+
+    // The axis lies on row 20, so that rows 0 to 20 are calculated.
+    Assert.assertEquals(12, assertMirrored(region));
+
+    region.setSupersampling(3);
+    region.setSampleBudget(8.0);
+
+    Assert.assertEquals(12, assertMirrored(region));
+  }
+
+  /**
+   * Breaks apart the specified frame, and asserts that the images of the sub-regions and their
+   * mirrors cover every pixel of the frame once, and that each mirrored image matches the rows of
+   * the mirror of its sub-region calculated directly.
+   *
+   * @param region The frame to break apart.
+   *
+   * @return The number of sub-regions to be calculated.
+   */
+  private int assertMirrored(Region region) {
+    BlockRegionBalancer balancer = new BlockRegionBalancer(null);
+    int numRegions = balancer.getNumRegions(region);
+    List<Region> subRegions = balancer.subdivide(region);
+    ColoringAlgorithm alg = SetFactory.createColoringAlgorithm(region.getColorAlg(), MAX_IT);
+    Region first = subRegions.get(0);
+    double dx = (first.getMax().getX() - first.getMin().getX()) / first.getWidth();
+    double dy = (first.getMax().getY() - first.getMin().getY()) / first.getHeight();
+    double minX = first.getMin().getX() - (first.getX() * dx);
+    double minY = first.getMin().getY() - (first.getY() * dy);
+    int[] covered = new int[SIZE * SIZE];
+
+    Assert.assertEquals(numRegions, subRegions.size());
+
+    for (Region subRegion : subRegions) {
+      Image image = generate(subRegion);
+      Image mirror = balancer.mirror(image);
+
+      cover(covered, image);
+
+      if (mirror != null) {
+        // The source region mirrored as a whole, so that its edges are found as in the source.
+        int width = subRegion.getWidth();
+        int height = subRegion.getHeight();
+        double areaMinX = (region.getJulia() != null) ? dx - subRegion.getMax().getX()
+            : subRegion.getMin().getX();
+        double areaMinY = dy - subRegion.getMax().getY();
+        Region area = createRegion(areaMinX, areaMinX + (width * dx), areaMinY,
+            areaMinY + (height * dy), region.getJulia(), region.getPower(), width, height);
+        int[] expected = new int[width * height];
+        int[] actual = new int[mirror.getWidth() * mirror.getHeight()];
+
+        area.setSupersampling(region.getSupersampling());
+        area.setSampleBudget(region.getSampleBudget());
+        generate(area).getField().color(alg, expected);
+        mirror.getField().color(alg, actual);
+        cover(covered, mirror);
+
+        Assert.assertEquals(width, mirror.getWidth());
+        Assert.assertEquals(areaMinX, minX + (mirror.getX() * dx), 0.0);
+
+        for (int i = 0; i < mirror.getHeight(); ++i) {
+          int row = (int) Math.round((minY + ((mirror.getY() + i) * dy) - areaMinY) / dy);
+
+          for (int j = 0; j < width; ++j) {
+            Assert.assertEquals("Pixel " + j + ", " + i, expected[(row * width) + j],
+                actual[(i * width) + j]);
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < covered.length; ++i) {
+      Assert.assertEquals("Pixel " + i, 1, covered[i]);
+    }
+
+    return numRegions;
+  }
+
+  /**
+   * Counts the pixels of the frame covered by the specified image.
+   *
+   * @param covered The number of images covering each pixel of the frame.
+   * @param image The image of a part of the frame.
+   */
+  private static void cover(int[] covered, Image image) {
+    for (int i = 0; i < image.getHeight(); ++i) {
+      for (int j = 0; j < image.getWidth(); ++j) {
+        ++covered[((image.getY() + i) * SIZE) + image.getX() + j];
+      }
+    }
+  }
+
+  /**
+   * Generates the specified region.
+   *
+   * @param region The region to generate.
+   *
+   * @return The generated image.
+   */
+  private static Image generate(Region region) {
+    Set set = SetFactory.createSet(region);
+
+    set.generate(region.getJulia());
+
+    return set.getImage();
+  }
+
+  /**
+   * Creates a frame of {@link #SIZE} pixels square colored smoothly.
+   *
+   * @param minX The lowest real portion of the frame.
+   * @param maxX The highest real portion of the frame.
+   * @param minY The lowest imaginary coefficient of the frame.
+   * @param maxY The highest imaginary coefficient of the frame.
+   * @param julia The point of the Julia set, null for the Mandelbrot set.
+   * @param power The power to which the set is raised.
+   *
+   * @return The {@link Region}.
+   */
+  private static Region createRegion(double minX, double maxX, double minY, double maxY,
+      ComplexNumber julia, int power) {
+    return createRegion(minX, maxX, minY, maxY, julia, power, SIZE, SIZE);
+  }
+
+  /**
+   * Creates a region of the specified size colored smoothly.
+   *
+   * @param minX The lowest real portion of the region.
+   * @param maxX The highest real portion of the region.
+   * @param minY The lowest imaginary coefficient of the region.
+   * @param maxY The highest imaginary coefficient of the region.
+   * @param julia The point of the Julia set, null for the Mandelbrot set.
+   * @param power The power to which the set is raised.
+   * @param width The width of the region.
+   * @param height The height of the region.
+   *
+   * @return The {@link Region}.
+   */
+  private static Region createRegion(double minX, double maxX, double minY, double maxY,
+      ComplexNumber julia, int power, int width, int height) {
+    return new Region(new ComplexNumber(minX, minY), new ComplexNumber(maxX, maxY), julia, width,
+        height, MAX_IT, power, 0, 0, 0, SetFactory.COLOR_ALG_SMOOTH, 0, false);
+  }
+}
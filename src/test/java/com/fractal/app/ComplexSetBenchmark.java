@@ -0,0 +1,119 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing the primitive {@link ComplexSet} kernel with the {@link ComplexNumber}
+ * based {@link ReferenceComplexSet}. Scores are reported in pixels per microsecond, i.e. megapixels
+ * per second; the allocation rate is reported by the "gc" profiler, which the benchmark profile
+ * enables.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=ComplexSetBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComplexSetBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 100;
+
+  /** The number of pixels in a generated region. */
+  private static final int PIXELS = SIZE * SIZE;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The point on which to base the Julia set. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /**
+   * The region to generate: the whole set, the first preset of the selection panel or the whole
+   * Julia set of {@link #JULIA}.
+   */
+  @Param({"full", "preset1", "julia"})
+  public String view;
+
+  /** The coloring algorithm to use: 0 for banded and 1 for smooth. */
+  @Param({"0", "1"})
+  public int colorAlg;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the {@link Region} to generate. */
+  @Setup
+  public void setup() {
+    ComplexNumber min = new ComplexNumber(-2.0, -2.0);
+    ComplexNumber max = new ComplexNumber(2.0, 2.0);
+
+    if ("preset1".equals(view)) {
+      min = new ComplexNumber(-0.671665, 0.49216);
+      max = new ComplexNumber(-0.449535, 0.71429);
+    }
+
+    region = new Region(min, max, "julia".equals(view) ? JULIA : null, SIZE, SIZE, MAX_IT, 2, 0,
+        0, 0, colorAlg, 0, false);
+  }
+
+  /**
+   * Generates the region with the primitive kernel.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image primitive() {
+    return generate(new ComplexSet(region));
+  }
+
+  /**
+   * Generates the region with the {@link ComplexNumber} based kernel.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image reference() {
+    return generate(new ReferenceComplexSet(region));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(region.getJulia());
+
+    return set.getImage();
+  }
+}
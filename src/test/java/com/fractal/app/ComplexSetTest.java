@@ -0,0 +1,596 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.AbstractComplexSet;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.OrbitTrap;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.algorithms.math.SetStatistics;
+import com.fractal.app.image.IterationField;
+
+/**
+ * JUnit tests for the {@link ComplexSet} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class ComplexSetTest {
+  /** The width and height of the test images. */
+  private static final int SIZE = 48;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** The width and height of the images rendered by solid guessing, coarse at low sizes. */
+  private static final int GUESSING_SIZE = 100;
+
+  /** The maximum number of iterations to perform for the deep views, which need more. */
+  private static final int DEEP_MAX_IT = 1000;
+
+  /** The point on which to base the Julia sets. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /** Tests that the Mandelbrot set matches the reference implementation. */
+  @Test
+  public void testMandelbrotColors() {
+    for (int power = 2; power <= 3; ++power) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        assertSameImage(createRegion(null, power, colorAlg));
+      }
+    }
+  }
+
+  /** Tests that the Julia set matches the reference implementation. */
+  @Test
+  public void testJuliaColors() {
+    for (int power = 2; power <= 3; ++power) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        assertSameImage(createRegion(JULIA, power, colorAlg));
+      }
+    }
+  }
+
+  /**
+   * Tests that every power of the equation matches the reference implementation, which multiplies
+   * by z once per power. The set builds z^power by squaring, which rounds differently from the
+   * second squaring on, so no more than one percent of the pixels may differ.
+   */
+  @Test
+  public void testPowerColors() {
+    for (int power = 2; power <= 10; ++power) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        assertSimilarImage(createRegion(null, power, colorAlg));
+        assertSimilarImage(createRegion(JULIA, power, colorAlg));
+      }
+    }
+  }
+
+  /**
+   * Tests that the smooth escape value of a Mandelbrot point of every power does not depend on the
+   * iteration at which it is taken, so that the colors of adjacent iteration bands meet.
+   */
+  @Test
+  public void testPowerMu() {
+    double cx = 0.25;
+    double cy = 0.1;
+
+    for (int power = 2; power <= 10; ++power) {
+      // The point has just escaped after ten iterations; the next point of its orbit follows.
+      ComplexNumber z = new ComplexNumber(1.5, 1.5);
+      ComplexNumber next = z;
+
+      for (int i = 1; i < power; ++i) {
+        next = next.mult(z);
+      }
+
+      next = next.add(new ComplexNumber(cx, cy));
+
+      Assert.assertEquals("Power " + power,
+          AbstractComplexSet.getMu(z.getX(), z.getY(), cx, cy, 10, MAX_IT, true, power),
+          AbstractComplexSet.getMu(next.getX(), next.getY(), cx, cy, 11, MAX_IT, true, power),
+          1.0e-3);
+    }
+  }
+
+  /** Tests that testing a single point matches the reference implementation. */
+  @Test
+  public void testPoint() {
+    Region region = createRegion(null, 2, 1);
+    ComplexNumber point = new ComplexNumber(-0.75, 0.1);
+
+    Assert.assertEquals("Test point color", new ReferenceComplexSet(region).testPoint(point, null),
+        new ComplexSet(region).testPoint(point, null));
+  }
+
+  /** Tests the closed-form test for the main cardioid and the period-2 bulb. */
+  @Test
+  public void testIsInterior() {
+    Assert.assertTrue("Origin", ComplexSet.isInterior(0.0, 0.0));
+    Assert.assertTrue("Cardioid", ComplexSet.isInterior(0.2, 0.5));
+    Assert.assertTrue("Bulb", ComplexSet.isInterior(-1.1, 0.1));
+    Assert.assertFalse("Cusp", ComplexSet.isInterior(0.26, 0.0));
+    Assert.assertFalse("Between cardioid and bulb", ComplexSet.isInterior(-0.76, 0.1));
+    Assert.assertFalse("Outside", ComplexSet.isInterior(-2.0, 1.0));
+  }
+
+  /** Tests that skipping interior points does not change the colors of the presets. */
+  @Test
+  public void testInteriorCheckColors() {
+    for (String view : Presets.NAMES) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        Region region = Presets.createRegion(view, SIZE, MAX_IT, 2, colorAlg);
+        ComplexSet expected = new ComplexSet(region);
+        ComplexSet actual = new ComplexSet(region);
+
+        expected.setInteriorCheck(false);
+        expected.generate(null);
+        actual.generate(null);
+
+        Assert.assertArrayEquals(view, expected.getImage().getPixels(),
+            actual.getImage().getPixels());
+      }
+    }
+  }
+
+  /**
+   * Tests that stopping points whose orbits enter a cycle does not change the colors of the presets
+   * or of the Julia set, for every power.
+   */
+  @Test
+  public void testPeriodicityColors() {
+    for (String view : Presets.NAMES) {
+      for (int power = 2; power <= 10; ++power) {
+        for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+          assertSamePeriodicImage(Presets.createRegion(view, SIZE, MAX_IT, power, colorAlg));
+        }
+      }
+    }
+
+    for (int power = 2; power <= 10; ++power) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        assertSamePeriodicImage(createRegion(JULIA, power, colorAlg));
+      }
+    }
+  }
+
+  /** Tests that the iterations saved by detecting cycles are recorded in the statistics. */
+  @Test
+  public void testPeriodicityStatistics() {
+    Region region = Presets.createRegion("preset1", SIZE, MAX_IT, 2, 0);
+    ComplexSet set = new ComplexSet(region);
+
+    set.setInteriorCheck(false);
+    set.generate(null);
+
+    Assert.assertTrue("Periodic pixels", set.getImage().getStatistics().getPeriodicPixels() > 0);
+    Assert.assertTrue("Saved iterations", set.getImage().getStatistics().getSavedIterations()
+        < set.getImage().getStatistics().getPeriodicPixels() * MAX_IT);
+  }
+
+  /** Tests that rendering by subdivision matches rendering every pixel. */
+  @Test
+  public void testSubdivisionColors() {
+    for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+      for (String view : Presets.NAMES) {
+        assertSameSubdividedImage(Presets.createRegion(view, SIZE, MAX_IT, 2, colorAlg));
+      }
+
+      assertSameSubdividedImage(createRegion(JULIA, 2, colorAlg));
+    }
+  }
+
+  /** Tests that the pixels filled by subdivision are recorded in the statistics. */
+  @Test
+  public void testSubdivisionStatistics() {
+    Region region = createRegion(null, 2, 0);
+    Set set = null;
+
+    region.setRenderMode(AbstractComplexSet.RENDER_SUBDIVISION);
+    set = new ComplexSet(region);
+    set.generate(null);
+
+    Assert.assertTrue("Filled pixels", set.getImage().getStatistics().getFilledPixels() > 0);
+  }
+
+  /**
+   * Tests that solid guessing colors no more than two percent of the pixels of the stock views and
+   * of deep views differently from rendering every pixel, and that it guesses pixels. The deep
+   * views are calculated with double-doubles and by perturbation.
+   */
+  @Test
+  public void testGuessingErrorRate() {
+    for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+      for (String view : Presets.NAMES) {
+        assertGuessedImage(view, Presets.createRegion(view, GUESSING_SIZE, MAX_IT, 2, colorAlg));
+      }
+
+      assertGuessedImage("double-double", createDeepRegion("1e-16", 32, colorAlg));
+      assertGuessedImage("perturbation", createDeepRegion("1e-22", 40, colorAlg));
+    }
+  }
+
+  /**
+   * Tests that estimating distances leaves the raw values of the pixels of the presets and of the
+   * Julia set unchanged, except for the pixels stopped on the boundary, which are recorded in the
+   * statistics.
+   */
+  @Test
+  public void testDistanceEstimation() {
+    long boundary = 0;
+
+    for (String view : Presets.NAMES) {
+      boundary += assertSameDistanceField(Presets.createRegion(view, SIZE, MAX_IT, 2, 1));
+    }
+
+    boundary += assertSameDistanceField(createRegion(JULIA, 2, 1));
+
+    Assert.assertTrue("Boundary pixels", boundary > 0);
+  }
+
+  /**
+   * Tests the estimated distance of a point outside the set against its true distance. The nearest
+   * point of the set to 1 is the cusp of the main cardioid at 0.25, 75 pixels away at a spacing of
+   * one hundredth; the estimate is a lower bound on the distance, within a factor of four.
+   */
+  @Test
+  public void testDistance() {
+    Region region = new Region(new ComplexNumber(1.0, 0.0),
+        new ComplexNumber(1.0 + (0.01 * SIZE), 0.01 * SIZE), null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0,
+        1, 0, false);
+    Set set = null;
+
+    region.setDistanceEstimation(true);
+    set = new ComplexSet(region);
+    set.generate(null);
+
+    float distance = set.getImage().getField().getDistance(0);
+
+    Assert.assertTrue("Distance " + distance, distance > 75.0f / 4 && distance < 75.0f);
+  }
+
+  /**
+   * Tests that the distance of every pixel from each shape of trap is the smallest distance of its
+   * orbit from the trap, and that a region without a trap records no distances.
+   */
+  @Test
+  public void testOrbitTrap() {
+    for (int type = OrbitTrap.TRAP_POINT; type <= OrbitTrap.TRAP_CROSS; ++type) {
+      OrbitTrap trap = new OrbitTrap(type, 0.1, -0.2, 0.5, 0.25);
+
+      assertSameTrapField(createRegion(null, 2, 3), trap);
+      assertSameTrapField(createRegion(JULIA, 2, 3), trap);
+    }
+
+    Set set = new ComplexSet(createRegion(null, 2, 3));
+
+    set.generate(null);
+    Assert.assertFalse(set.getImage().getField().isTrapped());
+  }
+
+  /**
+   * Tests that supersampling only samples the pixels on edges again, within the sample budget,
+   * that each sample matches the point at its position, and that the statistics report the refined
+   * pixels and their cost.
+   */
+  @Test
+  public void testSupersampling() {
+    for (String view : Presets.NAMES) {
+      assertSupersampledImage(Presets.createRegion(view, SIZE, MAX_IT, 2, 1), 3);
+    }
+
+    assertSupersampledImage(createRegion(JULIA, 2, 0), 2);
+  }
+
+  /**
+   * Creates a {@link Region} covering the whole set.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param power The power to which the set will be raised.
+   * @param colorAlg Represents which coloring algorithm to use.
+   *
+   * @return The {@link Region}.
+   */
+  private Region createRegion(ComplexNumber julia, int power, int colorAlg) {
+    return new Region(new ComplexNumber(-2.0, -2.0), new ComplexNumber(2.0, 2.0), julia, SIZE,
+        SIZE, MAX_IT, power, 0, 0, 0, colorAlg, 0, false);
+  }
+
+  /**
+   * Creates a Mandelbrot region of {@link #GUESSING_SIZE} pixels square with the specified width
+   * on the real axis, calculated with the specified number of digits and {@link #DEEP_MAX_IT}
+   * iterations.
+   *
+   * @param width The width of the region.
+   * @param precision The number of digits with which to calculate the region.
+   * @param colorAlg The coloring algorithm to use.
+   *
+   * @return The {@link Region}.
+   */
+  private Region createDeepRegion(String width, int precision, int colorAlg) {
+    BigDecimal x = new BigDecimal("-1.7497591451303665");
+    BigDecimal radius = new BigDecimal(width).divide(new BigDecimal(2));
+
+    return new Region(new ComplexNumber(x.subtract(radius), radius.negate()),
+        new ComplexNumber(x.add(radius), radius), null, GUESSING_SIZE, GUESSING_SIZE, DEEP_MAX_IT,
+        2, 0, 0, 0, colorAlg, precision, true);
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} generates the same image with and without detecting cycles.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSamePeriodicImage(Region region) {
+    ComplexSet expected = new ComplexSet(region);
+    ComplexSet actual = new ComplexSet(region);
+
+    expected.setPeriodicityCheck(false);
+    expected.generate(region.getJulia());
+    actual.generate(region.getJulia());
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that the engine the {@link SetFactory} chooses for the specified region colors no more
+   * than two percent of its pixels differently by solid guessing than by rendering every pixel, and
+   * that it guesses pixels.
+   *
+   * @param view The name of the view, for the messages.
+   * @param region The {@link Region} to generate.
+   */
+  private void assertGuessedImage(String view, Region region) {
+    Set expected = SetFactory.createSet(region);
+    Set actual = null;
+    int[] expectedPixels = expected.getImage().getPixels();
+    int[] actualPixels = null;
+    int errors = 0;
+
+    expected.generate(null);
+    region.setRenderMode(AbstractComplexSet.RENDER_GUESSING);
+    actual = SetFactory.createSet(region);
+    actual.generate(null);
+    actualPixels = actual.getImage().getPixels();
+
+    for (int i = 0; i < expectedPixels.length; ++i) {
+      errors += (expectedPixels[i] != actualPixels[i]) ? 1 : 0;
+    }
+
+    Assert.assertTrue(view + " error rate", errors <= expectedPixels.length / 50);
+    Assert.assertTrue(view + " guessed pixels",
+        actual.getImage().getStatistics().getFilledPixels() > 0);
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} generates the same image by subdivision as by rendering
+   * every pixel.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSameSubdividedImage(Region region) {
+    Set expected = new ComplexSet(region);
+    Set actual = null;
+
+    expected.generate(region.getJulia());
+    region.setRenderMode(AbstractComplexSet.RENDER_SUBDIVISION);
+    actual = new ComplexSet(region);
+    actual.generate(region.getJulia());
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} generates the same image as the reference implementation.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSameImage(Region region) {
+    Set expected = new ReferenceComplexSet(region);
+    Set actual = new ComplexSet(region);
+
+    expected.generate(region.getJulia());
+    actual.generate(region.getJulia());
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} records the same raw values for every pixel with and
+   * without estimating distances, except for the pixels stopped on the boundary, and that every
+   * other pixel is given a positive distance.
+   *
+   * @param region The {@link Region} to generate.
+   *
+   * @return The number of pixels stopped on the boundary.
+   */
+  private long assertSameDistanceField(Region region) {
+    Set expected = new ComplexSet(region);
+    Set actual = null;
+
+    expected.generate(region.getJulia());
+    region.setDistanceEstimation(true);
+    actual = new ComplexSet(region);
+    actual.generate(region.getJulia());
+
+    IterationField plain = expected.getImage().getField();
+    IterationField field = actual.getImage().getField();
+
+    for (int i = 0; i < SIZE * SIZE; ++i) {
+      if (field.getDistance(i) == 0.0f) {
+        Assert.assertEquals(region + " boundary", MAX_IT - 1, field.getCount(i));
+        Assert.assertEquals(region + " boundary color", 0, actual.getImage().getPixels()[i]);
+      } else {
+        Assert.assertEquals(region + " count", plain.getCount(i), field.getCount(i));
+        Assert.assertEquals(region + " mu", plain.getMu(i), field.getMu(i), 0.0f);
+        Assert.assertTrue(region + " distance", field.getDistance(i) > 0.0f);
+      }
+    }
+
+    return actual.getImage().getStatistics().getBoundaryPixels();
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} records the same raw values for every escaped pixel with
+   * and without the specified trap, and that the distance of every pixel from the trap is the
+   * smallest distance from it of the points of its orbit, iterated until it escapes.
+   *
+   * @param region The {@link Region} to generate, of power two.
+   * @param trap The {@link OrbitTrap} to measure the orbits against.
+   */
+  private void assertSameTrapField(Region region, OrbitTrap trap) {
+    Set expected = new ComplexSet(region);
+    Set actual = null;
+    ComplexNumber julia = region.getJulia();
+    double xMin = region.getMin().getX();
+    double yMin = region.getMin().getY();
+    double dx = (region.getMax().getX() - xMin) / SIZE;
+    double dy = (region.getMax().getY() - yMin) / SIZE;
+
+    expected.generate(julia);
+    region.setTrap(trap);
+    actual = new ComplexSet(region);
+    actual.generate(julia);
+
+    IterationField plain = expected.getImage().getField();
+    IterationField field = actual.getImage().getField();
+
+    for (int i = 0; i < SIZE * SIZE; ++i) {
+      double x = xMin + ((i % SIZE) * dx);
+      double y = yMin + ((i / SIZE) * dy);
+      double zx = (julia == null) ? 0.0 : x;
+      double zy = (julia == null) ? 0.0 : y;
+      double cx = (julia == null) ? x : julia.getX();
+      double cy = (julia == null) ? y : julia.getY();
+      double trapped = Double.POSITIVE_INFINITY;
+
+      for (int j = 0; j < MAX_IT; ++j) {
+        double tmp = ((zx * zx) - (zy * zy)) + cx;
+
+        zy = ((zy * zx) + (zx * zy)) + cy;
+        zx = tmp;
+
+        if ((zx * zx) + (zy * zy) > AbstractComplexSet.THRESHOLD) {
+          break;
+        }
+
+        trapped = Math.min(trapped, trap.getSquaredDistance(zx, zy));
+      }
+
+      float distance = (float) (Math.sqrt(trapped) / trap.getRadius());
+
+      Assert.assertEquals(region + " count", plain.getCount(i), field.getCount(i));
+      Assert.assertEquals(region + " trap", distance, field.getTrapDistance(i), distance * 1e-5f);
+
+      if (field.getCount(i) < MAX_IT - 1) {
+        // Points in the set are not checked for the interior of the main cardioid and bulb.
+        Assert.assertEquals(region + " mu", plain.getMu(i), field.getMu(i), 0.0f);
+      }
+    }
+
+    region.setTrap(null);
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} supersamples the specified region on a grid of the
+   * specified size: pixels which are not refined keep their colors, every sample has the color of
+   * the point at its position within its pixel, the samples fit within the budget of the region,
+   * and the refined pixels and their cost are recorded.
+   *
+   * @param region The {@link Region} to generate.
+   * @param size The number of samples across each side of a supersampled pixel.
+   */
+  private void assertSupersampledImage(Region region, int size) {
+    ComplexNumber julia = region.getJulia();
+    Set expected = new ComplexSet(region);
+    Set actual = null;
+    ComplexSet point = new ComplexSet(region);
+    double xMin = region.getMin().getX();
+    double yMin = region.getMin().getY();
+    double dx = (region.getMax().getX() - xMin) / SIZE;
+    double dy = (region.getMax().getY() - yMin) / SIZE;
+
+    expected.generate(julia);
+    region.setSupersampling(size);
+    actual = new ComplexSet(region);
+    actual.generate(julia);
+    region.setSupersampling(0);
+
+    IterationField field = actual.getImage().getField();
+    SetStatistics statistics = actual.getImage().getStatistics();
+    int[] refined = field.getRefined();
+    int[] expectedPixels = expected.getImage().getPixels();
+    int[] actualPixels = actual.getImage().getPixels();
+    int perPixel = field.getSamplesPerPixel();
+    int[] samples = new int[refined.length * perPixel];
+    int next = 0;
+
+    Assert.assertEquals(region.toString(), (size * size) - (size & 1), perPixel);
+    Assert.assertEquals(region.toString(), refined.length, statistics.getRefinedPixels());
+    Assert.assertEquals(region.toString(), samples.length, statistics.getSamples());
+    Assert.assertTrue(region.toString(), refined.length > 0);
+    Assert.assertTrue(region.toString(),
+        samples.length <= region.getSampleBudget() * SIZE * SIZE);
+    Assert.assertEquals(region.toString(), (double) refined.length / (SIZE * SIZE),
+        statistics.getRefinedFraction(), 0.0);
+    Assert.assertTrue(region.toString(), statistics.getSupersamplingCost() > 1.0);
+
+    for (int i = 0; i < SIZE * SIZE; ++i) {
+      if (next < refined.length && refined[next] == i) {
+        ++next;
+      } else {
+        Assert.assertEquals(region + " pixel " + i, expectedPixels[i], actualPixels[i]);
+      }
+    }
+
+    field.getSamples().setMandelbrot(julia == null);
+    field.getSamples().color(SetFactory.createColoringAlgorithm(region.getColorAlg(), MAX_IT),
+        samples);
+
+    for (int k = 0; k < samples.length; ++k) {
+      int index = refined[k / perPixel];
+      int position = k % perPixel;
+
+      // The center of a grid of an odd size is the pixel itself, which is not sampled again.
+      position += ((size & 1) != 0 && position >= (size * size) / 2) ? 1 : 0;
+
+      double x = xMin + (((index % SIZE) + (((position % size) + 0.5) / size) - 0.5) * dx);
+      double y = yMin + (((index / SIZE) + (((position / size) + 0.5) / size) - 0.5) * dy);
+
+      Assert.assertEquals(region + " sample " + k,
+          point.testPoint(new ComplexNumber(x, y), julia) & 0xFFFFFF, samples[k]);
+    }
+  }
+
+  /**
+   * Asserts that the {@link ComplexSet} generates no more than one percent of the pixels of the
+   * image of the reference implementation differently.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSimilarImage(Region region) {
+    Set expected = new ReferenceComplexSet(region);
+    Set actual = new ComplexSet(region);
+    int[] expectedPixels = expected.getImage().getPixels();
+    int[] actualPixels = actual.getImage().getPixels();
+    int errors = 0;
+
+    expected.generate(region.getJulia());
+    actual.generate(region.getJulia());
+
+    for (int i = 0; i < expectedPixels.length; ++i) {
+      errors += (expectedPixels[i] != actualPixels[i]) ? 1 : 0;
+    }
+
+    Assert.assertTrue(region.toString(), errors <= expectedPixels.length / 100);
+  }
+}
@@ -0,0 +1,131 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks measuring the overhead of estimating distances over plain escape time. Each view
+ * is generated by the engine the {@link SetFactory} chooses for it, with and without distances,
+ * and one pixel at a time by the {@link ComplexSet} without distances, which is the kernel that
+ * estimates distances for regions calculated with doubles. The deep view is calculated by
+ * perturbation. Scores are reported in milliseconds per frame.
+ * <p>
+ * The bound on the overhead is one and a half times the frame time of the same engine without
+ * distances, and two and a half times that of the interleaved or vectorized engine, which regions
+ * estimating distances forgo. On one CPU at 200 x 200 and 1000 iterations: full 4.6 ms against
+ * 4.4 ms plain; preset2 93 ms against 78 ms scalar and 40 ms plain; deep 310 ms against 210 ms.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=DistanceEstimationBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceEstimationBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 200;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The number of digits to use for the deep view. */
+  private static final int PRECISION = 40;
+
+  /** The view to generate, one of {@link Presets#NAMES} or "deep". */
+  @Param({"full", "preset2", "deep"})
+  public String view;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the {@link Region} to generate. */
+  @Setup
+  public void setup() {
+    if ("deep".equals(view)) {
+      BigDecimal x = new BigDecimal("-1.7497591451303665");
+      BigDecimal y = new BigDecimal("3e-24");
+      BigDecimal radius = new BigDecimal("1e-22");
+
+      region = new Region(new ComplexNumber(x.subtract(radius), y.subtract(radius)),
+          new ComplexNumber(x.add(radius), y.add(radius)), null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0,
+          0, PRECISION, true);
+    } else {
+      region = Presets.createRegion(view, SIZE, MAX_IT, 2, 0);
+    }
+  }
+
+  /**
+   * Generates the region with the engine of the {@link SetFactory}, without distances.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image plain() {
+    region.setDistanceEstimation(false);
+
+    return generate(SetFactory.createSet(region));
+  }
+
+  /**
+   * Generates the region one pixel at a time, without distances.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image scalar() {
+    region.setDistanceEstimation(false);
+
+    return generate(region.isPrecise() ? SetFactory.createSet(region) : new ComplexSet(region));
+  }
+
+  /**
+   * Generates the region with the engine of the {@link SetFactory}, estimating distances.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image distance() {
+    region.setDistanceEstimation(true);
+
+    return generate(SetFactory.createSet(region));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(region.getJulia());
+
+    return set.getImage();
+  }
+}
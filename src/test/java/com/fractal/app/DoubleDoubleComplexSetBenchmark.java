@@ -0,0 +1,145 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.DoubleDoubleComplex;
+import com.fractal.app.algorithms.math.DoubleDoubleComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing the {@link DoubleDoubleComplexSet} with the 256 digit
+ * {@link ReferencePrecisionComplexSet} and, where doubles still suffice, the {@link ComplexSet}.
+ * Scores are reported in pixels per millisecond.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=DoubleDoubleComplexSetBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoubleDoubleComplexSetBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 20;
+
+  /** The number of pixels in a generated region. */
+  private static final int PIXELS = SIZE * SIZE;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The number of digits used by the {@link ReferencePrecisionComplexSet}. */
+  private static final int PRECISION = 256;
+
+  /**
+   * The region to generate: the first preset of the selection panel, or a region with a width of
+   * 2e-22, beyond the reach of doubles.
+   */
+  @Param({"preset1", "deep"})
+  public String view;
+
+  /** The double-double {@link Region} to generate. */
+  private Region region;
+
+  /** The 256 digit {@link Region} to generate. */
+  private Region preciseRegion;
+
+  /** Creates the {@link Region}s to generate. */
+  @Setup
+  public void setup() {
+    BigDecimal x = new BigDecimal("-0.56060");
+    BigDecimal y = new BigDecimal("0.603225");
+    BigDecimal radius = new BigDecimal("0.11106");
+
+    if ("deep".equals(view)) {
+      x = new BigDecimal("-1.7497591451303665");
+      y = new BigDecimal("3e-24");
+      radius = new BigDecimal("1e-22");
+    }
+
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+
+    region = new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 0,
+        DoubleDoubleComplex.DIGITS, true);
+    preciseRegion =
+        new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 0, PRECISION, true);
+  }
+
+  /**
+   * Generates the region with doubles; only accurate for the first preset.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image primitive() {
+    ComplexNumber min = region.getMin();
+    ComplexNumber max = region.getMax();
+    Region doubleRegion = new Region(
+        new ComplexNumber(min.getPx().doubleValue(), min.getPy().doubleValue()),
+        new ComplexNumber(max.getPx().doubleValue(), max.getPy().doubleValue()), null, SIZE, SIZE,
+        MAX_IT, 2, 0, 0, 0, 0, 0, false);
+
+    return generate(new ComplexSet(doubleRegion));
+  }
+
+  /**
+   * Generates the region with double-doubles.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image doubleDouble() {
+    return generate(new DoubleDoubleComplexSet(region));
+  }
+
+  /**
+   * Generates the region with 256 digit {@link BigDecimal}s.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image bigDecimal() {
+    return generate(new ReferencePrecisionComplexSet(preciseRegion));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(region.getJulia());
+
+    return set.getImage();
+  }
+}
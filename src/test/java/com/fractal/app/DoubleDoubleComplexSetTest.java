@@ -0,0 +1,208 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.DoubleDoubleComplex;
+import com.fractal.app.algorithms.math.DoubleDoubleComplexSet;
+import com.fractal.app.algorithms.math.PerturbationComplexSet;
+import com.fractal.app.algorithms.math.Region;
+
+/**
+ * JUnit tests for the {@link DoubleDoubleComplexSet} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class DoubleDoubleComplexSetTest {
+  /** The width and height of the test images. */
+  private static final int SIZE = 16;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The number of digits to use for the exact calculations. */
+  private static final int PRECISION = 40;
+
+  /**
+   * Tests that the arithmetic keeps the digits lost by doubles.
+   */
+  @Test
+  public void testArithmetic() {
+    BigDecimal x = new BigDecimal("1.0000000000000000000000000001");
+    DoubleDoubleComplex z = new DoubleDoubleComplex(x, BigDecimal.ZERO);
+
+    z.square();
+    z.add(new DoubleDoubleComplex(-1.0, 0.0));
+
+    Assert.assertEquals(2.0e-28, z.getX(), 1.0e-40);
+    Assert.assertEquals(0.0, z.getY(), 0.0);
+
+    z = new DoubleDoubleComplex(x, BigDecimal.ZERO);
+    z.multiply(new DoubleDoubleComplex(BigDecimal.ZERO, x));
+    z.add(new DoubleDoubleComplex(0.0, -1.0));
+
+    Assert.assertEquals(0.0, z.getX(), 0.0);
+    Assert.assertEquals(2.0e-28, z.getY(), 1.0e-40);
+  }
+
+  /**
+   * Tests that a region far beyond the reach of doubles matches iterating every pixel with
+   * increased precision.
+   */
+  @Test
+  public void testDeepZoom() {
+    testRegion(null);
+  }
+
+  /**
+   * Tests that a deep Julia region matches iterating every pixel with increased precision.
+   */
+  @Test
+  public void testJuliaDeepZoom() {
+    testRegion(new ComplexNumber(-0.8, 0.156));
+  }
+
+  /**
+   * Tests that deep Mandelbrot and Julia regions match the {@link BigDecimal} implementation with
+   * every coloring algorithm.
+   */
+  @Test
+  public void testReferenceColors() {
+    for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+      assertSameImage(null, "-1.7497591451303665", colorAlg);
+      assertSameImage(new ComplexNumber(-0.8, 0.156), "0.2", colorAlg);
+    }
+  }
+
+  /**
+   * Tests that every power of the equation matches iterating every pixel with increased
+   * precision.
+   */
+  @Test
+  public void testPowers() {
+    for (int power = 2; power <= 10; ++power) {
+      testRegion(null, "0", "0", "1.5", power);
+      testRegion(new ComplexNumber(-0.8, 0.156), "0", "0", "1.5", power);
+    }
+  }
+
+  /**
+   * Tests that stopping points whose orbits enter a cycle does not change the colors of a deep
+   * region inside a period-3 bulb of the Mandelbrot set and of a deep region of the Julia set, and
+   * that the iterations saved inside the bulb are counted.
+   */
+  @Test
+  public void testPeriodicity() {
+    assertSamePeriodicImage(null, "-0.1225", "0.7449", true);
+    assertSamePeriodicImage(new ComplexNumber(-0.8, 0.156), "0.2", "3e-24", false);
+  }
+
+  /**
+   * Asserts that a region with a width of 2e-22 is generated with the same colors as by the
+   * {@link BigDecimal} implementation with {@link #PRECISION} digits.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param cx The real portion of the center of the region.
+   * @param colorAlg Represents which coloring algorithm to use.
+   */
+  private void assertSameImage(ComplexNumber julia, String cx, int colorAlg) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal("3e-24");
+    BigDecimal radius = new BigDecimal("1e-22");
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+    Region region = new Region(min, max, julia, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, colorAlg,
+        DoubleDoubleComplex.DIGITS, true);
+    ReferencePrecisionComplexSet expected = new ReferencePrecisionComplexSet(
+        new Region(min, max, julia, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, colorAlg, PRECISION, true));
+    DoubleDoubleComplexSet actual = new DoubleDoubleComplexSet(region);
+
+    expected.generate(julia);
+    actual.generate(julia);
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that a region with a width of 2e-22 is generated with the same colors with and without
+   * detecting cycles.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param cx The real portion of the center of the region.
+   * @param cy The imaginary coefficient of the center of the region.
+   * @param interior True if the region lies inside the set, so that cycles must be detected.
+   */
+  private void assertSamePeriodicImage(ComplexNumber julia, String cx, String cy,
+      boolean interior) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal(cy);
+    BigDecimal radius = new BigDecimal("1e-22");
+    Region region = new Region(new ComplexNumber(x.subtract(radius), y.subtract(radius)),
+        new ComplexNumber(x.add(radius), y.add(radius)), julia, SIZE, SIZE, MAX_IT, 2, 0, 0, 0,
+        1, DoubleDoubleComplex.DIGITS, true);
+    DoubleDoubleComplexSet expected = new DoubleDoubleComplexSet(region);
+    DoubleDoubleComplexSet actual = new DoubleDoubleComplexSet(region);
+
+    expected.setPeriodicityCheck(false);
+    expected.generate(julia);
+    actual.generate(julia);
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+    Assert.assertEquals(interior, actual.getImage().getStatistics().getSavedIterations() > 0);
+  }
+
+  /**
+   * Compares the pixels of a region far beyond the reach of doubles against iterating every pixel
+   * with increased precision.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   */
+  private void testRegion(ComplexNumber julia) {
+    testRegion(julia, julia == null ? "-1.7497591451303665" : "0.2", "3e-24", "1e-22", 2);
+  }
+
+  /**
+   * Compares the pixels of a region against iterating every pixel with increased precision.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param cx The real portion of the center of the region.
+   * @param cy The imaginary coefficient of the center of the region.
+   * @param r Half the width of the region.
+   * @param power The power to which the set will be raised.
+   */
+  private void testRegion(ComplexNumber julia, String cx, String cy, String r, int power) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal(cy);
+    BigDecimal radius = new BigDecimal(r);
+    BigDecimal step = radius.add(radius).divide(new BigDecimal(SIZE), new MathContext(PRECISION));
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+    Region region = new Region(min, max, julia, SIZE, SIZE, MAX_IT, power, 0, 0, 0, 0,
+        DoubleDoubleComplex.DIGITS, true);
+    Region exactRegion =
+        new Region(min, max, julia, SIZE, SIZE, MAX_IT, power, 0, 0, 0, 0, PRECISION, true);
+    DoubleDoubleComplexSet set = new DoubleDoubleComplexSet(region);
+    PerturbationComplexSet exact = new PerturbationComplexSet(exactRegion);
+    int[] pixels = set.getImage().getPixels();
+
+    set.generate(julia);
+
+    for (int i = 0; i < SIZE; ++i) {
+      for (int j = 0; j < SIZE; ++j) {
+        ComplexNumber point =
+            new ComplexNumber(min.getPx().add(step.multiply(new BigDecimal(j))),
+                min.getPy().add(step.multiply(new BigDecimal(i))));
+
+        Assert.assertEquals("Test pixel " + j + ", " + i, exact.testPoint(point, julia),
+            pixels[(i * SIZE) + j]);
+      }
+    }
+  }
+}
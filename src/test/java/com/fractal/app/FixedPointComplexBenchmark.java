@@ -0,0 +1,196 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.FixedPointComplex;
+import com.fractal.app.algorithms.math.PerturbationComplexSet;
+import com.fractal.app.algorithms.math.ReferenceOrbit;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing {@link FixedPointComplex} arithmetic with {@link BigDecimal} arithmetic
+ * rounded through a {@link MathContext} of the same precision. The iteration benchmarks report
+ * iterations of z = z^2 + c per microsecond at the specified number of bits, including the
+ * {@link ReferenceOrbit} of the perturbation engine, the only engine which iterates on fixed-point
+ * numbers; the generation benchmarks report pixels per millisecond for a region with a width of
+ * 2e-22.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=FixedPointComplexBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FixedPointComplexBenchmark {
+  /** The number of iterations performed by the iteration benchmarks. */
+  private static final int ITERATIONS = 1000;
+
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 10;
+
+  /** The number of pixels in a generated region. */
+  private static final int PIXELS = SIZE * SIZE;
+
+  /** The maximum number of iterations to perform for the generated regions. */
+  private static final int MAX_IT = 1000;
+
+  /** The real portion of the point to iterate, inside the period-2 bulb so its orbit is bounded. */
+  private static final String X = "-0.9999999999999999999999999999";
+
+  /** The imaginary coefficient of the point to iterate. */
+  private static final String Y = "0.2";
+
+  /** The number of fraction bits to use. */
+  @Param({"256", "512", "1024"})
+  public int bits;
+
+  /** The math context with the same precision as the fixed-point numbers. */
+  private MathContext mc;
+
+  /** The fixed-point number to iterate. */
+  private FixedPointComplex z;
+
+  /** The fixed-point point to add in each iteration. */
+  private FixedPointComplex c;
+
+  /** The number of digits with the same precision as the fixed-point numbers. */
+  private int digits;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the numbers and the {@link Region}. */
+  @Setup
+  public void setup() {
+    digits = (int) Math.ceil(bits * Math.log(2) / Math.log(10));
+    BigDecimal x = new BigDecimal("-1.7497591451303665");
+    BigDecimal y = new BigDecimal("3e-24");
+    BigDecimal radius = new BigDecimal("1e-22");
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+
+    mc = new MathContext(digits, RoundingMode.HALF_EVEN);
+    z = new FixedPointComplex(bits);
+    c = new FixedPointComplex(bits, new BigDecimal(X), new BigDecimal(Y));
+    region = new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 0, digits, true);
+  }
+
+  /**
+   * Iterates the point with fixed-point arithmetic.
+   *
+   * @return The final value of the point.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ITERATIONS)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public FixedPointComplex iterateFixedPoint() {
+    z.setZero();
+
+    for (int i = 0; i < ITERATIONS; ++i) {
+      z.square();
+      z.add(c);
+    }
+
+    return z;
+  }
+
+  /**
+   * Iterates the point with {@link BigDecimal} arithmetic.
+   *
+   * @return The final real portion of the point.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ITERATIONS)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public BigDecimal iterateBigDecimal() {
+    BigDecimal two = new BigDecimal(2);
+    BigDecimal cx = new BigDecimal(X);
+    BigDecimal cy = new BigDecimal(Y);
+    BigDecimal zx = BigDecimal.ZERO;
+    BigDecimal zy = BigDecimal.ZERO;
+    BigDecimal tmp = null;
+
+    for (int i = 0; i < ITERATIONS; ++i) {
+      tmp = zx.multiply(zx, mc).subtract(zy.multiply(zy, mc), mc).add(cx, mc);
+      zy = two.multiply(zx, mc).multiply(zy, mc).add(cy, mc);
+      zx = tmp;
+    }
+
+    return zx;
+  }
+
+  /**
+   * Computes the {@link ReferenceOrbit} of the point with fixed-point arithmetic.
+   *
+   * @return The reference orbit.
+   */
+  @Benchmark
+  @OperationsPerInvocation(ITERATIONS)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public ReferenceOrbit referenceOrbit() {
+    return new ReferenceOrbit(new BigDecimal(X), new BigDecimal(Y), null, 2, ITERATIONS,
+        digits);
+  }
+
+  /**
+   * Generates the region by perturbation against a fixed-point {@link ReferenceOrbit}.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Image generatePerturbation() {
+    return generate(new PerturbationComplexSet(region));
+  }
+
+  /**
+   * Generates the region with the {@link BigDecimal} based {@link ReferencePrecisionComplexSet}.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public Image generateBigDecimal() {
+    return generate(new ReferencePrecisionComplexSet(region));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(region.getJulia());
+
+    return set.getImage();
+  }
+}
@@ -0,0 +1,129 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.FixedPointComplex;
+
+/**
+ * JUnit tests for the {@link FixedPointComplex} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class FixedPointComplexTest {
+  /** The number of fraction bits to test. */
+  private static final int BITS = 256;
+
+  /** The math context for the exact calculations, well beyond the precision under test. */
+  private static final MathContext MC = new MathContext(200);
+
+  /** The largest acceptable error, i.e. a thousand times the resolution of the fraction. */
+  private static final BigDecimal TOLERANCE = new BigDecimal("1e-74");
+
+  /** Tests that values survive the conversion to and from fixed-point numbers. */
+  @Test
+  public void testConversion() {
+    BigDecimal x = new BigDecimal("-1.25");
+    BigDecimal y = new BigDecimal("0.000000000000000000000000000000000000000001");
+    FixedPointComplex z = new FixedPointComplex(BITS, x, y);
+
+    Assert.assertEquals(0, x.compareTo(z.getPreciseX()));
+    assertClose(y, z.getPreciseY());
+    Assert.assertEquals(-1.25, z.getX(), 0.0);
+    Assert.assertEquals(1.0e-42, z.getY(), 1.0e-57);
+  }
+
+  /** Tests comparing numbers for equality. */
+  @Test
+  public void testIsEqual() {
+    BigDecimal x = new BigDecimal("0.75");
+    BigDecimal y = new BigDecimal("-0.5");
+    FixedPointComplex z = new FixedPointComplex(BITS, x, y);
+    FixedPointComplex w = new FixedPointComplex(BITS, x, y);
+
+    Assert.assertTrue("Equal", z.isEqual(w));
+
+    w.set(x.add(BigDecimal.ONE.divide(BigDecimal.valueOf(2).pow(BITS))), y);
+    Assert.assertFalse("Last bit", z.isEqual(w));
+
+    w.set(x, y.negate());
+    Assert.assertFalse("Opposite signs", z.isEqual(w));
+
+    z.setZero();
+    w.set(BigDecimal.ZERO, BigDecimal.ZERO.negate());
+    Assert.assertTrue("Zero", z.isEqual(w));
+  }
+
+  /** Tests that the arithmetic matches exact arithmetic for values of every sign. */
+  @Test
+  public void testArithmetic() {
+    Random random = new Random(42);
+
+    for (int i = 0; i < 100; ++i) {
+      BigDecimal a = randomValue(random);
+      BigDecimal b = randomValue(random);
+      BigDecimal c = randomValue(random);
+      BigDecimal d = randomValue(random);
+      FixedPointComplex z = new FixedPointComplex(BITS, a, b);
+      FixedPointComplex w = new FixedPointComplex(BITS, c, d);
+
+      z.square();
+      assertClose(a.multiply(a).subtract(b.multiply(b)), z.getPreciseX());
+      assertClose(a.multiply(b).multiply(new BigDecimal(2)), z.getPreciseY());
+
+      z.set(a, b);
+      z.multiply(w);
+      assertClose(a.multiply(c).subtract(b.multiply(d)), z.getPreciseX());
+      assertClose(a.multiply(d).add(b.multiply(c)), z.getPreciseY());
+
+      z.set(a, b);
+      z.add(w);
+      assertClose(a.add(c), z.getPreciseX());
+      assertClose(b.add(d), z.getPreciseY());
+    }
+  }
+
+  /** Tests the points of a grid. */
+  @Test
+  public void testGridPoint() {
+    FixedPointComplex origin =
+        new FixedPointComplex(BITS, new BigDecimal("-2"), new BigDecimal("0.5"));
+    FixedPointComplex step =
+        new FixedPointComplex(BITS, new BigDecimal("0.01"), new BigDecimal("-0.001"));
+    FixedPointComplex point = new FixedPointComplex(BITS);
+
+    point.setGridPoint(origin, step, 250, 700);
+
+    assertClose(new BigDecimal("0.5"), point.getPreciseX());
+    assertClose(new BigDecimal("-0.2"), point.getPreciseY());
+  }
+
+  /**
+   * Returns a random value between -2 and 2 with more digits than a double.
+   *
+   * @param random The source of randomness.
+   *
+   * @return The random value.
+   */
+  private BigDecimal randomValue(Random random) {
+    BigDecimal value = new BigDecimal(random.nextDouble() * 4.0 - 2.0);
+
+    return value.add(new BigDecimal(random.nextDouble()).movePointLeft(30), MC);
+  }
+
+  /**
+   * Asserts that a fixed-point value is within the tolerance of the exact value.
+   *
+   * @param expected The exact value.
+   * @param actual The fixed-point value.
+   */
+  private void assertClose(BigDecimal expected, BigDecimal actual) {
+    Assert.assertTrue(expected + " != " + actual,
+        expected.subtract(actual).abs().compareTo(TOLERANCE) <= 0);
+  }
+}
@@ -0,0 +1,179 @@
+package com.fractal.app;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.balancers.ForkJoinRenderer;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.gui.listener.ImageCreationListener;
+import com.fractal.app.image.FrameBuffer;
+import com.fractal.app.image.Image;
+
+/**
+ * JUnit tests for the {@link ForkJoinRenderer} class. The frames are bounded by binary fractions,
+ * so that every pixel of a block lies exactly on the pixel of the frame it covers.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class ForkJoinRendererTest {
+  /** The width and height of the frames. */
+  private static final int SIZE = 64;
+
+  /** The width and height of a block. */
+  private static final int BLOCK_SIZE = 16;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /**
+   * Tests that the images of a frame rendered in blocks, mirrored about the real axis or not,
+   * match the frame generated as a whole.
+   */
+  @Test
+  public void testRender() {
+    ForkJoinRenderer renderer = new ForkJoinRenderer(2, BLOCK_SIZE);
+
+    try {
+      // The axis of the first frame lies on row 24, so that rows 24 to 63 are calculated.
+      assertRendered(renderer, createRegion(-2.0, 0.0, -0.75, 1.25), 12);
+      assertRendered(renderer, createRegion(-2.0, 0.0, 0.125, 2.125), 16);
+    } finally {
+      renderer.close();
+    }
+  }
+
+  /** Tests that no image of a frame is passed on once another frame has been rendered. */
+  @Test
+  public void testNewFrame() {
+    ForkJoinRenderer renderer = new ForkJoinRenderer(2, BLOCK_SIZE);
+    final AtomicBoolean replaced = new AtomicBoolean();
+    final AtomicInteger late = new AtomicInteger();
+
+    try {
+      ForkJoinTask<Void> first = renderer.render(createRegion(-2.0, 0.0, 0.125, 2.125),
+          new ImageCreationListener() {
+            public void imageCreated(Image image) {
+              if (replaced.get()) {
+                late.incrementAndGet();
+              }
+            }
+
+            public void frameCompleted() {}
+          });
+      ForkJoinTask<Void> second =
+          renderer.render(createRegion(-2.0, 0.0, -0.75, 1.25), new CountingListener());
+
+      replaced.set(true);
+      first.join();
+      second.join();
+
+      Assert.assertEquals(0, late.get());
+    } finally {
+      renderer.close();
+    }
+  }
+
+  /**
+   * Tests that every image of a frame, calculated or mirrored, carries the number of the frame, by
+   * which the client drops the images of frames it has replaced.
+   */
+  @Test
+  public void testFrameNumber() {
+    ForkJoinRenderer renderer = new ForkJoinRenderer(2, BLOCK_SIZE);
+    final AtomicInteger images = new AtomicInteger();
+    final AtomicInteger stale = new AtomicInteger();
+    Region region = createRegion(-2.0, 0.0, -0.75, 1.25);
+
+    region.setFrame(7);
+
+    try {
+      renderer.render(region, new ImageCreationListener() {
+        public void imageCreated(Image image) {
+          images.incrementAndGet();
+
+          if (image.getFrame() != 7) {
+            stale.incrementAndGet();
+          }
+        }
+
+        public void frameCompleted() {}
+      }).join();
+
+      // The frame is symmetric, so that mirrored images are passed on as well as the 12 blocks.
+      Assert.assertTrue(images.get() > 12);
+      Assert.assertEquals(0, stale.get());
+    } finally {
+      renderer.close();
+    }
+  }
+
+  /**
+   * Renders the specified frame and asserts that its images cover it as the frame generated as a
+   * whole, with the specified number of blocks calculated.
+   *
+   * @param renderer The renderer with which to render the frame.
+   * @param region The frame to render.
+   * @param numRegions The expected number of blocks calculated.
+   */
+  private static void assertRendered(ForkJoinRenderer renderer, Region region, int numRegions) {
+    final FrameBuffer frame = new FrameBuffer(SIZE, SIZE, region.getColorAlg());
+    CountingListener listener = new CountingListener() {
+      @Override
+      public void imageCreated(Image image) {
+        super.imageCreated(image);
+        frame.addTile(image);
+      }
+    };
+
+    Assert.assertEquals(numRegions, renderer.getNumRegions(region));
+
+    renderer.render(region, listener).join();
+
+    Set set = SetFactory.createSet(region);
+
+    set.generate(region.getJulia());
+
+    Assert.assertEquals(numRegions, listener.regions.get());
+    Assert.assertArrayEquals(set.getImage().getImage().getRGB(0, 0, SIZE, SIZE, null, 0, SIZE),
+        frame.getImage().getRGB(0, 0, SIZE, SIZE, null, 0, SIZE));
+  }
+
+  /**
+   * Creates a Mandelbrot frame of {@link #SIZE} pixels square colored smoothly.
+   *
+   * @param minX The lowest real portion of the frame.
+   * @param maxX The highest real portion of the frame.
+   * @param minY The lowest imaginary coefficient of the frame.
+   * @param maxY The highest imaginary coefficient of the frame.
+   *
+   * @return The {@link Region}.
+   */
+  private static Region createRegion(double minX, double maxX, double minY, double maxY) {
+    return new Region(new ComplexNumber(minX, minY), new ComplexNumber(maxX, maxY), null, SIZE,
+        SIZE, MAX_IT, 2, 0, 0, 0, SetFactory.COLOR_ALG_SMOOTH, 0, false);
+  }
+
+  /** This class counts the images passed to it which were calculated, rather than mirrored. */
+  private static class CountingListener implements ImageCreationListener {
+    /** The number of calculated images passed to the listener. */
+    final AtomicInteger regions = new AtomicInteger();
+
+    /** Counts the image if it was calculated. */
+    public void imageCreated(Image image) {
+      if (image.getStatistics() != null) {
+        regions.incrementAndGet();
+      }
+    }
+
+    /** Ignores the completion of the frame. */
+    public void frameCompleted() {}
+  }
+}
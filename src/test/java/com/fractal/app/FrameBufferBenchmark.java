@@ -0,0 +1,80 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.FrameBuffer;
+
+/**
+ * JMH benchmarks of recoloring a frame of the largest size the selection panel offers from its
+ * iteration data, as palette cycling does on every frame. A frame must be recolored in well under
+ * 16.7 milliseconds to be cycled at 60 frames per second. Scores are reported in milliseconds per
+ * frame.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=FrameBufferBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrameBufferBenchmark {
+  /** The width and height of the frame, the large size of the selection panel. */
+  private static final int SIZE = 700;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The choice of coloring algorithm. */
+  @Param({"0", "1", "2"})
+  public int colorAlg;
+
+  /** The frame to recolor. */
+  private FrameBuffer frame;
+
+  /** The number of entries by which the palette is rotated. */
+  private int offset;
+
+  /** Generates preset2 and keeps it in the frame. */
+  @Setup
+  public void setup() {
+    Region region = Presets.createRegion("preset2", SIZE, MAX_IT, 2, colorAlg);
+    Set set = SetFactory.createSet(region);
+
+    set.generate(null);
+    frame = new FrameBuffer(SIZE, SIZE, colorAlg);
+    frame.addTile(set.getImage());
+  }
+
+  /**
+   * Rotates the palette by one more entry and recolors the frame.
+   *
+   * @return The frame.
+   */
+  @Benchmark
+  public FrameBuffer cycle() {
+    frame.setPaletteOffset(++offset);
+
+    return frame;
+  }
+}
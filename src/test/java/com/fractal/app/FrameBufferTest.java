@@ -0,0 +1,215 @@
+package com.fractal.app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.HistogramColoringAlgorithm;
+import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.FrameBuffer;
+import com.fractal.app.image.Image;
+import com.fractal.app.image.ImageByteArrayWrapper;
+import com.fractal.app.image.IterationField;
+
+/**
+ * JUnit tests for the {@link FrameBuffer} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class FrameBufferTest {
+  /** The width and height of each tile of the frame. */
+  private static final int WIDTH = 47;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** Tests that recoloring a frame of tiles matches the tiles generated with the other colors. */
+  @Test
+  public void testRecolor() throws Exception {
+    FrameBuffer frame = new FrameBuffer(2 * WIDTH, WIDTH, SetFactory.COLOR_ALG_BANDED);
+
+    frame.addTile(receive(generate(0, SetFactory.COLOR_ALG_BANDED)));
+    frame.addTile(receive(generate(1, SetFactory.COLOR_ALG_BANDED)));
+    assertFrame(frame, SetFactory.COLOR_ALG_BANDED);
+
+    frame.setColorAlg(SetFactory.COLOR_ALG_SMOOTH);
+    assertFrame(frame, SetFactory.COLOR_ALG_SMOOTH);
+
+    // A tile received after the change is colored as the rest of the frame.
+    frame.addTile(receive(generate(1, SetFactory.COLOR_ALG_BANDED)));
+    assertFrame(frame, SetFactory.COLOR_ALG_SMOOTH);
+
+    frame.setColorAlg(SetFactory.COLOR_ALG_BANDED);
+    assertFrame(frame, SetFactory.COLOR_ALG_BANDED);
+  }
+
+  /** Tests that rotating the palette recolors every tile of the frame with the rotated palette. */
+  @Test
+  public void testPaletteOffset() throws Exception {
+    FrameBuffer frame = new FrameBuffer(2 * WIDTH, WIDTH, SetFactory.COLOR_ALG_SMOOTH);
+    Image[] tiles = {generate(0, SetFactory.COLOR_ALG_SMOOTH),
+        generate(1, SetFactory.COLOR_ALG_SMOOTH)};
+
+    frame.addTile(tiles[0]);
+    frame.addTile(tiles[1]);
+
+    for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+      frame.setColorAlg(colorAlg);
+
+      for (int offset : new int[] {1, 37, 500, -3}) {
+        frame.setPaletteOffset(offset);
+
+        for (int tile = 0; tile <= 1; ++tile) {
+          ColoringAlgorithm alg = SetFactory.createColoringAlgorithm(colorAlg, MAX_IT);
+          int[] expected = new int[WIDTH * WIDTH];
+
+          int[] actual = frame.getImage().getRGB(tile * WIDTH, 0, WIDTH, WIDTH, null, 0, WIDTH);
+
+          tiles[tile].getField().color(alg, offset, expected);
+
+          for (int i = 0; i < actual.length; ++i) {
+            actual[i] &= 0xFFFFFF;
+          }
+
+          Assert.assertArrayEquals(expected, actual);
+        }
+      }
+    }
+
+    // A full cycle of the palette restores the original colors.
+    frame.setPaletteOffset(SmoothColoringAlgorithm.DEFAULT_COLOR_RANGE);
+    assertFrame(frame, SetFactory.COLOR_ALG_SMOOTH);
+    frame.setColorAlg(SetFactory.COLOR_ALG_BANDED);
+    frame.setPaletteOffset(MAX_IT - 1);
+    assertFrame(frame, SetFactory.COLOR_ALG_BANDED);
+  }
+
+  /**
+   * Tests that each tile of a frame colored by histogram equalization is colored with its own
+   * histogram until the frame is complete, and with the histogram of the whole frame afterwards.
+   */
+  @Test
+  public void testHistogram() throws Exception {
+    FrameBuffer frame = new FrameBuffer(2 * WIDTH, WIDTH, SetFactory.COLOR_ALG_HISTOGRAM);
+    Image[] tiles = {receive(generate(0, SetFactory.COLOR_ALG_BANDED)),
+        receive(generate(1, SetFactory.COLOR_ALG_BANDED))};
+    long[] histogram = new long[MAX_IT];
+
+    frame.addTile(tiles[0]);
+    frame.addTile(tiles[1]);
+    assertFrame(frame, SetFactory.COLOR_ALG_HISTOGRAM);
+
+    for (Image tile : tiles) {
+      long[] counted = tile.getField().getHistogram();
+
+      for (int i = 0; i < MAX_IT; ++i) {
+        histogram[i] += counted[i];
+      }
+    }
+
+    frame.complete();
+
+    for (int tile = 0; tile <= 1; ++tile) {
+      HistogramColoringAlgorithm alg = new HistogramColoringAlgorithm(MAX_IT, histogram);
+      int[] expected = new int[WIDTH * WIDTH];
+      int[] actual = frame.getImage().getRGB(tile * WIDTH, 0, WIDTH, WIDTH, null, 0, WIDTH);
+
+      tiles[tile].getField().color(alg, expected);
+
+      for (int i = 0; i < actual.length; ++i) {
+        actual[i] &= 0xFFFFFF;
+      }
+
+      Assert.assertArrayEquals(expected, actual);
+    }
+
+    // The colors are spread over the whole palette, from the first color to the last.
+    HistogramColoringAlgorithm alg = new HistogramColoringAlgorithm(MAX_IT, histogram);
+    int[] colors =
+        SmoothColoringAlgorithm.createColors(HistogramColoringAlgorithm.DEFAULT_COLOR_RANGE);
+    int last = MAX_IT - 2;
+
+    while (histogram[last] == 0) {
+      --last;
+    }
+
+    Assert.assertEquals(colors[colors.length - 1], alg.getColor(last, 0.0f, 0.0f, true));
+  }
+
+  /**
+   * Asserts that each tile of the specified frame matches the tile generated with the specified
+   * coloring algorithm.
+   *
+   * @param frame The {@link FrameBuffer} to check.
+   * @param colorAlg The choice of coloring algorithm.
+   */
+  private void assertFrame(FrameBuffer frame, int colorAlg) {
+    for (int tile = 0; tile <= 1; ++tile) {
+      Image expected = generate(tile, colorAlg);
+      int[] actual = frame.getImage().getRGB(tile * WIDTH, 0, WIDTH, WIDTH, null, 0, WIDTH);
+
+      Assert.assertArrayEquals(expected.getImage().getRGB(0, 0, WIDTH, WIDTH, null, 0, WIDTH),
+          actual);
+    }
+  }
+
+  /**
+   * Generates the specified tile of the frame, the left or right half of the full view.
+   *
+   * @param tile The index of the tile, 0 for the left half or 1 for the right half.
+   * @param colorAlg The choice of coloring algorithm.
+   *
+   * @return The image of the tile.
+   */
+  private Image generate(int tile, int colorAlg) {
+    ComplexNumber min = new ComplexNumber(-2.0 + (2.0 * tile), -1.0);
+    ComplexNumber max = new ComplexNumber(2.0 * tile, 1.0);
+    Region region = new Region(min, max, null, WIDTH, WIDTH, MAX_IT, 2, tile, tile * WIDTH, 0,
+        colorAlg, 0, false);
+    Set set = SetFactory.createSet(region);
+
+    set.generate(null);
+
+    return set.getImage();
+  }
+
+  /**
+   * Sends the field of the specified image through an object stream, as a server does, and
+   * rebuilds the image from it as the client does.
+   *
+   * @param image The image to send.
+   *
+   * @return The received image.
+   *
+   * @throws IOException If the image cannot be sent.
+   * @throws ClassNotFoundException If the image cannot be received.
+   */
+  private Image receive(Image image) throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(
+          new ImageByteArrayWrapper(image.getField(), image.getId(), image.getX(), image.getY()));
+    }
+
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      ImageByteArrayWrapper data = (ImageByteArrayWrapper) in.readObject();
+      IterationField field = data.getField();
+
+      return new Image(field, SetFactory.createColoringAlgorithm(SetFactory.COLOR_ALG_BANDED,
+          field.getMaxIt()), data.getId(), data.getX(), data.getY());
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.AbstractComplexSet;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks measuring the wall-clock time of a frame of each stock view of the Mandelbrot set
+ * rendered pixel by pixel and by solid guessing, at the default maximum number of iterations.
+ * Scores are reported in milliseconds per frame. The fraction of pixels which solid guessing colors
+ * differently from rendering every pixel is printed when each trial is set up.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=GuessingBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GuessingBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 200;
+
+  /** The maximum number of iterations to perform, the default of the settings. */
+  private static final int MAX_IT = 10000;
+
+  /** The view to generate, one of {@link Presets#NAMES}. */
+  @Param({"full", "preset1", "preset2", "preset3", "preset4", "preset5", "preset6"})
+  public String view;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the {@link Region} to generate and prints the error rate of solid guessing. */
+  @Setup
+  public void setup() {
+    int[] expected = null;
+    int[] actual = null;
+    int errors = 0;
+
+    region = Presets.createRegion(view, SIZE, MAX_IT, 2, 0);
+    expected = raster().getPixels();
+    actual = guessing().getPixels();
+
+    for (int i = 0; i < expected.length; ++i) {
+      errors += (expected[i] != actual[i]) ? 1 : 0;
+    }
+
+    System.out.println(view + " guessing error rate: " + ((double) errors / expected.length));
+  }
+
+  /**
+   * Generates the region pixel by pixel.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image raster() {
+    return generate(AbstractComplexSet.RENDER_RASTER);
+  }
+
+  /**
+   * Generates the region by solid guessing.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image guessing() {
+    return generate(AbstractComplexSet.RENDER_GUESSING);
+  }
+
+  /**
+   * Generates the region with the specified render mode.
+   *
+   * @param renderMode The render mode.
+   *
+   * @return The generated image.
+   */
+  private Image generate(int renderMode) {
+    ComplexSet set = null;
+
+    region.setRenderMode(renderMode);
+    set = new ComplexSet(region);
+    set.generate(null);
+
+    return set.getImage();
+  }
+}
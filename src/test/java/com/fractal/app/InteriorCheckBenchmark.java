@@ -0,0 +1,94 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks measuring the wall-clock time of a frame of each stock view of the power-2
+ * Mandelbrot set with and without the closed-form test for the main cardioid and the period-2
+ * bulb, at the default maximum number of iterations. Scores are reported in milliseconds per frame.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=InteriorCheckBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InteriorCheckBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 100;
+
+  /** The maximum number of iterations to perform, the default of the settings. */
+  private static final int MAX_IT = 10000;
+
+  /** The view to generate, one of {@link Presets#NAMES}. */
+  @Param({"full", "preset1", "preset2", "preset3", "preset4", "preset5", "preset6"})
+  public String view;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the {@link Region} to generate. */
+  @Setup
+  public void setup() {
+    region = Presets.createRegion(view, SIZE, MAX_IT, 2, 0);
+  }
+
+  /**
+   * Generates the region, skipping points inside the main cardioid and the period-2 bulb.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image checked() {
+    return generate(true);
+  }
+
+  /**
+   * Generates the region, iterating every point.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image unchecked() {
+    return generate(false);
+  }
+
+  /**
+   * Generates the region with the interior check enabled or disabled.
+   *
+   * @param interiorCheck True to skip interior points.
+   *
+   * @return The generated image.
+   */
+  private Image generate(boolean interiorCheck) {
+    ComplexSet set = new ComplexSet(region);
+
+    set.setInteriorCheck(interiorCheck);
+    set.generate(null);
+
+    return set.getImage();
+  }
+}
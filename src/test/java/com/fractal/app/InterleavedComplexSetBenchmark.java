@@ -0,0 +1,97 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.InterleavedComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing the {@link InterleavedComplexSet} with the {@link ComplexSet} at each
+ * power the selection panel offers, on the whole set and on preset2, which is dominated by pixels
+ * near the boundary. Scores are reported in milliseconds per frame.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=InterleavedComplexSetBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterleavedComplexSetBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 200;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The view to generate, one of {@link Presets#NAMES}. */
+  @Param({"full", "preset2"})
+  public String view;
+
+  /** The power to which the set is raised. */
+  @Param({"2", "3", "4", "5", "6", "7", "8", "9", "10"})
+  public int power;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the {@link Region} to generate. */
+  @Setup
+  public void setup() {
+    region = Presets.createRegion(view, SIZE, MAX_IT, power, 0);
+  }
+
+  /**
+   * Generates the region one pixel at a time.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image scalar() {
+    return generate(new ComplexSet(region));
+  }
+
+  /**
+   * Generates the region several pixels at a time.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image interleaved() {
+    return generate(new InterleavedComplexSet(region));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(null);
+
+    return set.getImage();
+  }
+}
@@ -0,0 +1,114 @@
+package com.fractal.app;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.AbstractComplexSet;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.InterleavedComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+
+/**
+ * JUnit tests for the {@link InterleavedComplexSet} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class InterleavedComplexSetTest {
+  /** The width of the test images. */
+  private static final int WIDTH = 47;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** The point on which to base the Julia sets. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /** Tests that the Mandelbrot set matches the scalar set on the stock views. */
+  @Test
+  public void testMandelbrotColors() {
+    for (String view : Presets.NAMES) {
+      for (int power = 2; power <= 10; ++power) {
+        for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+          assertSameImage(Presets.createRegion(view, WIDTH, MAX_IT, power, colorAlg));
+        }
+      }
+    }
+  }
+
+  /** Tests that the Julia set matches the scalar set. */
+  @Test
+  public void testJuliaColors() {
+    for (int power = 2; power <= 10; ++power) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        Region region = Presets.createRegion("full", WIDTH, MAX_IT, power, colorAlg);
+
+        region.setJulia(JULIA);
+        assertSameImage(region);
+      }
+    }
+  }
+
+  /** Tests that the sets match without the interior and periodicity checks. */
+  @Test
+  public void testWithoutChecks() {
+    Region region = Presets.createRegion("preset1", WIDTH, MAX_IT, 2, 0);
+    ComplexSet expected = new ComplexSet(region);
+    ComplexSet actual = new InterleavedComplexSet(region);
+
+    expected.setInteriorCheck(false);
+    expected.setPeriodicityCheck(false);
+    actual.setInteriorCheck(false);
+    actual.setPeriodicityCheck(false);
+    expected.generate(null);
+    actual.generate(null);
+
+    Assert.assertArrayEquals(expected.getImage().getPixels(), actual.getImage().getPixels());
+    Assert.assertEquals(0, actual.getImage().getStatistics().getPeriodicPixels());
+  }
+
+  /** Tests that images with fewer pixels than slots are calculated. */
+  @Test
+  public void testSmallImage() {
+    Region region = Presets.createRegion("full", 1, MAX_IT, 2, 0);
+
+    assertSameImage(region);
+  }
+
+  /** Tests that the other render modes match the scalar set. */
+  @Test
+  public void testRenderModes() {
+    for (int mode = AbstractComplexSet.RENDER_SUBDIVISION;
+        mode <= AbstractComplexSet.RENDER_GUESSING; ++mode) {
+      Region region = Presets.createRegion("preset1", WIDTH, MAX_IT, 2, 0);
+
+      region.setRenderMode(mode);
+      assertSameImage(region);
+    }
+  }
+
+  /**
+   * Asserts that the {@link InterleavedComplexSet} generates the same image and statistics as the
+   * {@link ComplexSet}.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSameImage(Region region) {
+    Set expected = new ComplexSet(region);
+    Set actual = new InterleavedComplexSet(region);
+
+    expected.generate(region.getJulia());
+    actual.generate(region.getJulia());
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+    Assert.assertEquals(region.toString(),
+        expected.getImage().getStatistics().getPeriodicPixels(),
+        actual.getImage().getStatistics().getPeriodicPixels());
+    Assert.assertEquals(region.toString(),
+        expected.getImage().getStatistics().getSavedIterations(),
+        actual.getImage().getStatistics().getSavedIterations());
+  }
+}
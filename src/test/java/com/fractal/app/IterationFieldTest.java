@@ -0,0 +1,229 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.color.BandedColoringAlgorithm;
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.OrbitTrapColoringAlgorithm;
+import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.OrbitTrap;
+import com.fractal.app.algorithms.math.PerturbationComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.IterationField;
+
+/**
+ * JUnit tests for the {@link IterationField} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class IterationFieldTest {
+  /** The width of the test images. */
+  private static final int WIDTH = 47;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** The point on which to base the Julia sets. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /** Tests that recoloring the field of an image matches generating it with the other colors. */
+  @Test
+  public void testRecolor() {
+    for (String view : Presets.NAMES) {
+      for (int power = 2; power <= 4; ++power) {
+        Region region = Presets.createRegion(view, WIDTH, MAX_IT, power, 0);
+
+        assertRecolored(region);
+        region.setJulia(JULIA);
+        assertRecolored(region);
+      }
+    }
+  }
+
+  /** Tests that the field holds the raw values of the points as the set tested them. */
+  @Test
+  public void testValues() {
+    Region region = Presets.createRegion("preset1", WIDTH, MAX_IT, 2, 1);
+    ComplexSet set = new ComplexSet(region);
+    IterationField field = set.getImage().getField();
+    ComplexNumber min = region.getMin();
+    ComplexNumber max = region.getMax();
+    double dx = (max.getX() - min.getX()) / WIDTH;
+    double dy = (max.getY() - min.getY()) / WIDTH;
+
+    set.generate(null);
+
+    for (int i = 0; i < WIDTH; i += 5) {
+      for (int j = 0; j < WIDTH; j += 5) {
+        ComplexNumber point = new ComplexNumber(min.getX() + (j * dx), min.getY() + (i * dy));
+        int index = (i * WIDTH) + j;
+
+        Assert.assertEquals(set.testPoint(point, null) & 0xFFFFFF,
+            set.getImage().getPixels()[index]);
+        Assert.assertTrue(field.getCount(index) >= 0 && field.getCount(index) < MAX_IT);
+        Assert.assertTrue(field.getCount(index) == MAX_IT - 1
+            || field.getMagnitude(index) * field.getMagnitude(index) > ComplexSet.THRESHOLD);
+      }
+    }
+  }
+
+  /** Tests that an engine which does not render through the scalar set also fills the field. */
+  @Test
+  public void testPerturbation() {
+    ComplexNumber min = new ComplexNumber(new BigDecimal("-0.75"), new BigDecimal("0.05"));
+    ComplexNumber max = new ComplexNumber(new BigDecimal("-0.7"), new BigDecimal("0.1"));
+    Region banded = new Region(min, max, null, WIDTH, WIDTH, MAX_IT, 2, 0, 0, 0, 0, 40, true);
+    Region smooth = new Region(min, max, null, WIDTH, WIDTH, MAX_IT, 2, 0, 0, 0, 1, 40, true);
+    Set set = new PerturbationComplexSet(banded);
+    Set expected = new PerturbationComplexSet(smooth);
+    int[] pixels = new int[WIDTH * WIDTH];
+
+    set.generate(null);
+    expected.generate(null);
+    set.getImage().getField().color(new SmoothColoringAlgorithm(MAX_IT), pixels);
+
+    Assert.assertArrayEquals(expected.getImage().getPixels(), pixels);
+  }
+
+  /**
+   * Tests that the colors of pixels are darkened by their distance from the boundary, down to black
+   * on the boundary, and that copying a pixel copies its distance.
+   */
+  @Test
+  public void testShading() {
+    IterationField field = new IterationField(4, 1);
+    ColoringAlgorithm alg = new BandedColoringAlgorithm(MAX_IT);
+    int[] pixels = new int[4];
+    int color = alg.getColor(1, 0.0f, 0.0f, true) & 0xFFFFFF;
+
+    field.setMaxIt(MAX_IT);
+    field.setDistanceEstimation(true);
+
+    for (int i = 0; i < 4; ++i) {
+      field.set(i, 1, 0.0f, 0.0f);
+    }
+
+    field.setDistance(0, 0.0f);
+    field.setDistance(1, 0.5f * IterationField.SHADING_DISTANCE);
+    field.setDistance(2, IterationField.SHADING_DISTANCE);
+    field.setDistance(3, 3.0f);
+    field.color(alg, pixels);
+
+    Assert.assertEquals(0, pixels[0]);
+    Assert.assertEquals((color >> 1) & 0x7F7F7F, pixels[1]);
+    Assert.assertEquals(color, pixels[2]);
+    Assert.assertEquals(color, pixels[3]);
+
+    field.copy(0, 3);
+    Assert.assertEquals(0.0f, field.getDistance(3), 0.0f);
+
+    field.setDistanceEstimation(false);
+    Assert.assertEquals(Float.POSITIVE_INFINITY, field.getDistance(0), 0.0f);
+  }
+
+  /**
+   * Tests that recoloring the field of an image generated with an orbit trap matches the image, and
+   * that copying a pixel copies its distance from the trap.
+   */
+  @Test
+  public void testTrapColors() {
+    Region region = new Region(new ComplexNumber(-2.0, -1.5), new ComplexNumber(1.0, 1.5), null,
+        WIDTH, WIDTH, MAX_IT, 2, 0, 0, 0, SetFactory.COLOR_ALG_TRAP, 0, false);
+    Set set = null;
+    int[] pixels = new int[WIDTH * WIDTH];
+
+    region.setTrap(new OrbitTrap(OrbitTrap.TRAP_CROSS, 0.0, 0.0, 0.0, 0.5));
+    set = new ComplexSet(region);
+    set.generate(null);
+
+    IterationField field = set.getImage().getField();
+
+    field.color(new OrbitTrapColoringAlgorithm(MAX_IT), pixels);
+    Assert.assertArrayEquals(set.getImage().getPixels(), pixels);
+
+    field.copy(0, WIDTH + 1);
+    Assert.assertEquals(field.getTrapDistance(0), field.getTrapDistance(WIDTH + 1), 0.0f);
+
+    field.setTrapped(false);
+    Assert.assertEquals(Float.POSITIVE_INFINITY, field.getTrapDistance(0), 0.0f);
+  }
+
+  /**
+   * Tests that a supersampled pixel is colored by the average of the colors of its samples, and
+   * that recoloring the field of a supersampled image matches the image.
+   */
+  @Test
+  public void testSupersampledColors() {
+    IterationField field = new IterationField(2, 1);
+    ColoringAlgorithm alg = new BandedColoringAlgorithm(MAX_IT);
+    int[] pixels = new int[2];
+    int[] colors = {alg.getColor(1, 0.0f, 0.0f, true), alg.getColor(40, 0.0f, 0.0f, true),
+        alg.getColor(MAX_IT - 1, 0.0f, 0.0f, true)};
+    int expected = 0;
+
+    field.setMaxIt(MAX_IT);
+    field.set(0, 1, 0.0f, 0.0f);
+    field.set(1, 1, 0.0f, 0.0f);
+    field.setSupersampling(new int[] {1}, 2);
+    field.getSamples().set(0, 40, 0.0f, 0.0f);
+    field.getSamples().set(1, MAX_IT - 1, 0.0f, 0.0f);
+    field.color(alg, pixels);
+
+    for (int shift = 0; shift < 24; shift += 8) {
+      int sum = ((colors[0] >> shift) & 0xFF) + ((colors[1] >> shift) & 0xFF)
+          + ((colors[2] >> shift) & 0xFF);
+
+      expected |= ((sum + 1) / 3) << shift;
+    }
+
+    Assert.assertEquals(colors[0] & 0xFFFFFF, pixels[0]);
+    Assert.assertEquals(expected, pixels[1]);
+
+    Region region = new Region(new ComplexNumber(-2.0, -1.5), new ComplexNumber(1.0, 1.5), null,
+        WIDTH, WIDTH, MAX_IT, 2, 0, 0, 0, 1, 0, false);
+    Set set = null;
+
+    pixels = new int[WIDTH * WIDTH];
+    region.setSupersampling(2);
+    set = new ComplexSet(region);
+    set.generate(null);
+    set.getImage().getField().color(new SmoothColoringAlgorithm(MAX_IT), pixels);
+    Assert.assertArrayEquals(set.getImage().getPixels(), pixels);
+  }
+
+  /**
+   * Asserts that recoloring the field of each coloring of the specified region matches the image
+   * generated with the other coloring.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertRecolored(Region region) {
+    for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+      ColoringAlgorithm recolor = (colorAlg == 0) ? new SmoothColoringAlgorithm(MAX_IT)
+          : new BandedColoringAlgorithm(MAX_IT);
+      int[] pixels = new int[WIDTH * WIDTH];
+
+      region.getColorAlg(colorAlg);
+
+      Set set = SetFactory.createSet(region);
+
+      set.generate(region.getJulia());
+      set.getImage().getField().color(recolor, pixels);
+      region.getColorAlg(1 - colorAlg);
+
+      Set expected = SetFactory.createSet(region);
+
+      expected.generate(region.getJulia());
+
+      Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(), pixels);
+    }
+  }
+}
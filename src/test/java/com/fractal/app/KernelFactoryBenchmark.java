@@ -0,0 +1,116 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.InterleavedComplexSet;
+import com.fractal.app.algorithms.math.KernelFactory;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing the {@link InterleavedComplexSet} with the kernel the
+ * {@link KernelFactory} specializes from it, at each power the selection panel offers, on the whole
+ * set and on preset2, which is dominated by pixels near the boundary. Scores are reported in
+ * milliseconds per frame.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=KernelFactoryBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KernelFactoryBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 200;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The view to generate, one of {@link Presets#NAMES}. */
+  @Param({"full", "preset2"})
+  public String view;
+
+  /** The power to which the set is raised. */
+  @Param({"2", "3", "4", "5", "6", "7", "8", "9", "10"})
+  public int power;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /**
+   * Creates the {@link Region} to generate, after generating every power, formula and coloring
+   * algorithm once with both sets, as a session of the client would. The set shared by every
+   * configuration is then profiled and compiled for all of them, while each kernel only sees its
+   * own.
+   */
+  @Setup
+  public void setup() {
+    for (int p = 2; p <= 10; ++p) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        for (ComplexNumber julia : new ComplexNumber[] {null, new ComplexNumber(-0.8, 0.156)}) {
+          Region visited = Presets.createRegion("full", SIZE, MAX_IT, p, colorAlg);
+
+          visited.setJulia(julia);
+          new InterleavedComplexSet(visited).generate(julia);
+          KernelFactory.createSet(InterleavedComplexSet.class, visited).generate(julia);
+        }
+      }
+    }
+
+    region = Presets.createRegion(view, SIZE, MAX_IT, power, 0);
+  }
+
+  /**
+   * Generates the region with the set shared by every configuration.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image generic() {
+    return generate(new InterleavedComplexSet(region));
+  }
+
+  /**
+   * Generates the region with the kernel specialized for its configuration.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image kernel() {
+    return generate(KernelFactory.createSet(InterleavedComplexSet.class, region));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(null);
+
+    return set.getImage();
+  }
+}
@@ -0,0 +1,132 @@
+package com.fractal.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.InterleavedComplexSet;
+import com.fractal.app.algorithms.math.KernelFactory;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+
+/**
+ * JUnit tests for the {@link KernelFactory} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class KernelFactoryTest {
+  /** The width of the test images. */
+  private static final int WIDTH = 47;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** The point on which to base the Julia sets. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /** The number of {@link Unlinkable} sets created. */
+  static int unlinkable;
+
+  /** Tests that the kernels match the scalar set for every configuration. */
+  @Test
+  public void testKernelColors() {
+    for (int power = 2; power <= 10; ++power) {
+      for (int colorAlg = 0; colorAlg <= 2; ++colorAlg) {
+        Region region = Presets.createRegion("full", WIDTH, MAX_IT, power, colorAlg);
+
+        assertSameImage(region);
+        region.setJulia(JULIA);
+        assertSameImage(region);
+      }
+    }
+  }
+
+  /** Tests that a kernel is a copy of the original class which is shared by its configuration. */
+  @Test
+  public void testCache() {
+    Region region = Presets.createRegion("full", WIDTH, MAX_IT, 3, 0);
+    Set set = KernelFactory.createSet(InterleavedComplexSet.class, region);
+    Class<?> kernel = set.getClass();
+
+    Assert.assertNotSame(InterleavedComplexSet.class, kernel);
+    Assert.assertEquals(InterleavedComplexSet.class.getName(), kernel.getName());
+    Assert.assertTrue(set instanceof ComplexSet);
+    Assert.assertEquals(3, KernelFactory.getPower(kernel));
+    Assert.assertEquals(0, KernelFactory.getPower(InterleavedComplexSet.class));
+    Assert.assertSame(kernel,
+        KernelFactory.createSet(InterleavedComplexSet.class, region).getClass());
+
+    region.setPower(4);
+    Assert.assertNotSame(kernel,
+        KernelFactory.createSet(InterleavedComplexSet.class, region).getClass());
+  }
+
+  /**
+   * Tests that a class whose kernel cannot be linked is reported once, and that its sets are
+   * created from the original class from then on.
+   */
+  @Test
+  public void testFailure() {
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+    PrintStream err = System.err;
+
+    System.setErr(new PrintStream(log, true));
+
+    try {
+      for (int colorAlg = 0; colorAlg <= 2; ++colorAlg) {
+        Region region = Presets.createRegion("full", WIDTH, MAX_IT, 5, colorAlg);
+
+        Assert.assertSame(Unlinkable.class,
+            KernelFactory.createSet(Unlinkable.class, region).getClass());
+      }
+    } finally {
+      System.setErr(err);
+    }
+
+    String report = log.toString();
+
+    Assert.assertEquals(3, unlinkable);
+    Assert.assertTrue(report, report.contains(IllegalAccessError.class.getName()));
+    Assert.assertEquals(report, report.indexOf(IllegalAccessError.class.getName()),
+        report.lastIndexOf(IllegalAccessError.class.getName()));
+  }
+
+  /**
+   * Asserts that the kernel of the {@link InterleavedComplexSet} generates the same image as the
+   * {@link ComplexSet}.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSameImage(Region region) {
+    Set expected = new ComplexSet(region);
+    Set actual = KernelFactory.createSet(InterleavedComplexSet.class, region);
+
+    expected.generate(region.getJulia());
+    actual.generate(region.getJulia());
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+  }
+
+  /**
+   * A set whose kernel cannot be linked, as it counts its instances in a package-private field of
+   * another class, which a copy in a different runtime package may not access.
+   */
+  public static class Unlinkable extends ComplexSet {
+    /**
+     * Creates a new {@link Unlinkable} set based on the specified {@link Region}.
+     *
+     * @param region The {@link Region} on which to base the set.
+     */
+    public Unlinkable(Region region) {
+      super(region);
+
+      ++unlinkable;
+    }
+  }
+}
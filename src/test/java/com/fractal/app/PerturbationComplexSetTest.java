@@ -0,0 +1,370 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.OrbitTrap;
+import com.fractal.app.algorithms.math.PerturbationComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.SetStatistics;
+import com.fractal.app.image.IterationField;
+
+/**
+ * JUnit tests for the {@link PerturbationComplexSet} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class PerturbationComplexSetTest {
+  /** The width and height of the test images. */
+  private static final int SIZE = 16;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The number of digits to use for precision calculations. */
+  private static final int PRECISION = 40;
+
+  /** The point on which to base the Julia sets. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /**
+   * Tests that a region far beyond the reach of doubles matches iterating every pixel with
+   * increased precision.
+   */
+  @Test
+  public void testDeepZoom() {
+    testRegion("-1.7497591451303665", "3e-24", "1e-22", 2);
+  }
+
+  /**
+   * Tests that deep Mandelbrot and Julia regions match the {@link BigDecimal} implementation with
+   * every coloring algorithm.
+   */
+  @Test
+  public void testReferenceColors() {
+    for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+      assertSameImage(null, "-1.7497591451303665", colorAlg);
+      assertSameImage(JULIA, "0.2", colorAlg);
+    }
+  }
+
+  /** Tests that testing a single point matches the {@link BigDecimal} implementation. */
+  @Test
+  public void testPoint() {
+    BigDecimal x = new BigDecimal("-1.7497591451303665");
+    BigDecimal y = new BigDecimal("3e-24");
+    BigDecimal radius = new BigDecimal("1e-22");
+    Region region = new Region(new ComplexNumber(x.subtract(radius), y.subtract(radius)),
+        new ComplexNumber(x.add(radius), y.add(radius)), null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 1,
+        PRECISION, true);
+    ComplexNumber point = new ComplexNumber(x, y);
+
+    Assert.assertEquals("Test point color",
+        new ReferencePrecisionComplexSet(region).testPoint(point, null),
+        new PerturbationComplexSet(region).testPoint(point, null));
+  }
+
+  /**
+   * Tests that every power of the equation matches iterating every pixel with increased
+   * precision.
+   */
+  @Test
+  public void testPowers() {
+    for (int power = 2; power <= 10; ++power) {
+      testRegion("0", "0", "1.5", power);
+    }
+  }
+
+  /**
+   * Tests that skipping iterations by series approximation reports the skipped iterations and
+   * leaves the colors of a banded deep Mandelbrot zoom and of a smooth deep Julia zoom unchanged.
+   * The smoothing sum of a Julia pixel must include the terms of the skipped iterations.
+   */
+  @Test
+  public void testSeriesApproximation() {
+    assertSameApproximatedImage(null, "-1.7497591451303665", "3e-24", "1e-22", 0);
+    assertSameApproximatedImage(JULIA, "0.2", "0", "1e-20", 1);
+  }
+
+  /**
+   * Tests that the distances estimated by perturbation match those estimated with doubles, and that
+   * the derivative taken from the series approximation of a deep zoom leaves them unchanged.
+   */
+  @Test
+  public void testDistanceEstimation() {
+    ComplexNumber min = new ComplexNumber(new BigDecimal("-0.75"), new BigDecimal("0.05"));
+    ComplexNumber max = new ComplexNumber(new BigDecimal("-0.7"), new BigDecimal("0.1"));
+    Region region =
+        new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 0, PRECISION, true);
+    PerturbationComplexSet set = null;
+    ComplexSet expected = null;
+
+    region.setDistanceEstimation(true);
+    set = new PerturbationComplexSet(region);
+    set.generate(null);
+    region.setPrecise(false);
+    region.setMin(new ComplexNumber(-0.75, 0.05));
+    region.setMax(new ComplexNumber(-0.7, 0.1));
+    expected = new ComplexSet(region);
+    expected.generate(null);
+    assertSameDistances(expected.getImage().getField(), set.getImage().getField());
+
+    BigDecimal x = new BigDecimal("-1.7497591451303665");
+    BigDecimal y = new BigDecimal("3e-24");
+    BigDecimal radius = new BigDecimal("1e-22");
+
+    min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    max = new ComplexNumber(x.add(radius), y.add(radius));
+    region = new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 0, PRECISION, true);
+    region.setDistanceEstimation(true);
+    set = new PerturbationComplexSet(region);
+    set.generate(null);
+    region.setApproximationTolerance(0.01);
+
+    PerturbationComplexSet approximated = new PerturbationComplexSet(region);
+
+    approximated.generate(null);
+    assertSameDistances(set.getImage().getField(), approximated.getImage().getField());
+  }
+
+  /**
+   * Tests that the distances of the pixels of a region from an orbit trap match those of the
+   * {@link ComplexSet}, and that the series approximation skips no iterations of a trapped region.
+   */
+  @Test
+  public void testOrbitTrap() {
+    ComplexNumber min = new ComplexNumber(new BigDecimal("-0.75"), new BigDecimal("0.05"));
+    ComplexNumber max = new ComplexNumber(new BigDecimal("-0.7"), new BigDecimal("0.1"));
+    Region region =
+        new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 0, PRECISION, true);
+    PerturbationComplexSet set = null;
+    ComplexSet expected = null;
+
+    region.setTrap(new OrbitTrap(OrbitTrap.TRAP_POINT, -0.5, 0.0, 0.0, 0.5));
+    set = new PerturbationComplexSet(region);
+    set.generate(null);
+    region.setApproximationTolerance(0.01);
+
+    PerturbationComplexSet approximated = new PerturbationComplexSet(region);
+
+    approximated.generate(null);
+    Assert.assertEquals(0L, approximated.getImage().getStatistics().getSkippedIterations());
+    region.setPrecise(false);
+    region.setMin(new ComplexNumber(-0.75, 0.05));
+    region.setMax(new ComplexNumber(-0.7, 0.1));
+    expected = new ComplexSet(region);
+    expected.generate(null);
+
+    IterationField field = set.getImage().getField();
+
+    for (int i = 0; i < SIZE * SIZE; ++i) {
+      float distance = expected.getImage().getField().getTrapDistance(i);
+
+      Assert.assertEquals("Count " + i, expected.getImage().getField().getCount(i),
+          field.getCount(i));
+      Assert.assertEquals("Trap " + i, distance, field.getTrapDistance(i), distance * 1e-3f);
+      Assert.assertEquals("Series " + i, field.getTrapDistance(i),
+          approximated.getImage().getField().getTrapDistance(i), 0.0f);
+    }
+  }
+
+  /**
+   * Tests that supersampling a deep region keeps the colors of the pixels which are not refined,
+   * and samples the pixels on edges within the sample budget against their reference orbits.
+   */
+  @Test
+  public void testSupersampling() {
+    BigDecimal x = new BigDecimal("-1.7497591451303665");
+    BigDecimal y = new BigDecimal("3e-24");
+    BigDecimal radius = new BigDecimal("1e-22");
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+    Region region =
+        new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 1, PRECISION, true);
+    PerturbationComplexSet expected = new PerturbationComplexSet(region);
+    PerturbationComplexSet actual = null;
+
+    expected.generate(null);
+    region.setSupersampling(3);
+    actual = new PerturbationComplexSet(region);
+    actual.generate(null);
+
+    int[] refined = actual.getImage().getField().getRefined();
+    int[] expectedPixels = expected.getImage().getPixels();
+    int[] actualPixels = actual.getImage().getPixels();
+    int next = 0;
+
+    Assert.assertTrue(refined.length > 0);
+    Assert.assertTrue(actual.getImage().getStatistics().getSamples() <= SIZE * SIZE);
+
+    for (int i = 0; i < SIZE * SIZE; ++i) {
+      if (next < refined.length && refined[next] == i) {
+        ++next;
+      } else {
+        Assert.assertEquals("Pixel " + i, expectedPixels[i], actualPixels[i]);
+      }
+    }
+  }
+
+  /**
+   * Tests that stopping points whose orbits enter a cycle does not change the colors of a deep
+   * region inside a period-3 bulb, whose saved iterations are counted, nor of a deep region around
+   * the point i. The orbit of i lands on a repelling cycle, which the pixels around it follow
+   * within less than the precision of a double for many iterations before they escape.
+   */
+  @Test
+  public void testPeriodicity() {
+    assertSamePeriodicImage("-0.1225", "0.7449", true);
+    assertSamePeriodicImage("0", "1", false);
+  }
+
+  /**
+   * Asserts that a region is generated with the same colors with and without skipping iterations by
+   * series approximation, and that iterations are skipped within the error bound.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param cx The real portion of the center of the region.
+   * @param cy The imaginary coefficient of the center of the region.
+   * @param r Half the width of the region.
+   * @param colorAlg Represents which coloring algorithm to use.
+   */
+  private void assertSameApproximatedImage(ComplexNumber julia, String cx, String cy, String r,
+      int colorAlg) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal(cy);
+    BigDecimal radius = new BigDecimal(r);
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+    Region region =
+        new Region(min, max, julia, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, colorAlg, PRECISION, true);
+    PerturbationComplexSet expected = new PerturbationComplexSet(region);
+
+    expected.generate(julia);
+    region.setApproximationTolerance(0.01);
+
+    PerturbationComplexSet set = new PerturbationComplexSet(region);
+    SetStatistics statistics = set.getImage().getStatistics();
+
+    set.generate(julia);
+
+    Assert.assertTrue("Test skipped iterations", statistics.getSkippedIterations() > 0);
+    Assert.assertTrue("Test error bound", statistics.getApproximationError() <= 0.01);
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        set.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that a Mandelbrot region with a width of 2e-22 is generated with the same colors with
+   * and without detecting cycles.
+   *
+   * @param cx The real portion of the center of the region.
+   * @param cy The imaginary coefficient of the center of the region.
+   * @param interior True if the region lies inside the set, so that cycles must be detected.
+   */
+  private void assertSamePeriodicImage(String cx, String cy, boolean interior) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal(cy);
+    BigDecimal radius = new BigDecimal("1e-22");
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+    Region region = new Region(min, max, null, SIZE, SIZE, MAX_IT, 2, 0, 0, 0, 1, PRECISION, true);
+    PerturbationComplexSet expected = new PerturbationComplexSet(region);
+    PerturbationComplexSet actual = new PerturbationComplexSet(region);
+
+    expected.setPeriodicityCheck(false);
+    expected.generate(null);
+    actual.generate(null);
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+
+    if (interior) {
+      Assert.assertEquals(SIZE * SIZE, actual.getImage().getStatistics().getPeriodicPixels());
+      Assert.assertTrue("Saved iterations",
+          actual.getImage().getStatistics().getSavedIterations() > 0);
+    }
+  }
+
+  /**
+   * Asserts that a region with a width of 2e-22 is generated with the same colors as by the
+   * {@link BigDecimal} implementation.
+   *
+   * @param julia The point on which to base a Julia set, can be null.
+   * @param cx The real portion of the center of the region.
+   * @param colorAlg Represents which coloring algorithm to use.
+   */
+  private void assertSameImage(ComplexNumber julia, String cx, int colorAlg) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal("3e-24");
+    BigDecimal radius = new BigDecimal("1e-22");
+    Region region = new Region(new ComplexNumber(x.subtract(radius), y.subtract(radius)),
+        new ComplexNumber(x.add(radius), y.add(radius)), julia, SIZE, SIZE, MAX_IT, 2, 0, 0, 0,
+        colorAlg, PRECISION, true);
+    ReferencePrecisionComplexSet expected = new ReferencePrecisionComplexSet(region);
+    PerturbationComplexSet actual = new PerturbationComplexSet(region);
+
+    expected.generate(julia);
+    actual.generate(julia);
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that two fields record the same iterations for every pixel, and estimated distances
+   * within a thousandth of each other.
+   *
+   * @param expected The expected field.
+   * @param actual The actual field.
+   */
+  private void assertSameDistances(IterationField expected, IterationField actual) {
+    for (int i = 0; i < SIZE * SIZE; ++i) {
+      float distance = expected.getDistance(i);
+
+      Assert.assertEquals("Count " + i, expected.getCount(i), actual.getCount(i));
+      Assert.assertEquals("Distance " + i, distance, actual.getDistance(i),
+          Float.isInfinite(distance) ? 0.0f : distance * 1e-3f);
+    }
+  }
+
+  /**
+   * Compares the pixels of a Mandelbrot region against iterating every pixel with increased
+   * precision.
+   *
+   * @param cx The real portion of the center of the region.
+   * @param cy The imaginary coefficient of the center of the region.
+   * @param r Half the width of the region.
+   * @param power The power to which the set will be raised.
+   */
+  private void testRegion(String cx, String cy, String r, int power) {
+    BigDecimal x = new BigDecimal(cx);
+    BigDecimal y = new BigDecimal(cy);
+    BigDecimal radius = new BigDecimal(r);
+    BigDecimal step = radius.add(radius).divide(new BigDecimal(SIZE), new MathContext(PRECISION));
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), y.subtract(radius));
+    ComplexNumber max = new ComplexNumber(x.add(radius), y.add(radius));
+    Region region =
+        new Region(min, max, null, SIZE, SIZE, MAX_IT, power, 0, 0, 0, 0, PRECISION, true);
+    PerturbationComplexSet set = new PerturbationComplexSet(region);
+    int[] pixels = set.getImage().getPixels();
+
+    set.generate(null);
+
+    for (int i = 0; i < SIZE; ++i) {
+      for (int j = 0; j < SIZE; ++j) {
+        ComplexNumber point =
+            new ComplexNumber(min.getPx().add(step.multiply(new BigDecimal(j))),
+                min.getPy().add(step.multiply(new BigDecimal(i))));
+
+        Assert.assertEquals(region + " pixel " + j + ", " + i, set.testPoint(point, null),
+            pixels[(i * SIZE) + j]);
+      }
+    }
+  }
+}
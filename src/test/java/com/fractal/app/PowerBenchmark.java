@@ -0,0 +1,132 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.DoubleDoubleComplex;
+import com.fractal.app.algorithms.math.DoubleDoubleComplexSet;
+import com.fractal.app.algorithms.math.PerturbationComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks measuring the throughput of each engine at each power the selection panel offers,
+ * on the square of width 3 centered at the origin, which holds the set at every power. Scores are
+ * reported in pixels per millisecond.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=PowerBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PowerBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 32;
+
+  /** The number of pixels in a generated region. */
+  private static final int PIXELS = SIZE * SIZE;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The number of digits used by the perturbation engine. */
+  private static final int PRECISION = 40;
+
+  /** The power to which the set is raised. */
+  @Param({"2", "3", "4", "5", "6", "7", "8", "9", "10"})
+  public int power;
+
+  /** The {@link Region} calculated with doubles. */
+  private Region region;
+
+  /** The double-double {@link Region}. */
+  private Region doubleDoubleRegion;
+
+  /** The {@link Region} calculated with {@link #PRECISION} digits. */
+  private Region preciseRegion;
+
+  /** Creates the {@link Region}s to generate. */
+  @Setup
+  public void setup() {
+    BigDecimal radius = new BigDecimal("1.5");
+    ComplexNumber min = new ComplexNumber(radius.negate(), radius.negate());
+    ComplexNumber max = new ComplexNumber(radius, radius);
+
+    region = new Region(new ComplexNumber(-1.5, -1.5), new ComplexNumber(1.5, 1.5), null, SIZE,
+        SIZE, MAX_IT, power, 0, 0, 0, 0, 0, false);
+    doubleDoubleRegion = new Region(min, max, null, SIZE, SIZE, MAX_IT, power, 0, 0, 0, 0,
+        DoubleDoubleComplex.DIGITS, true);
+    preciseRegion =
+        new Region(min, max, null, SIZE, SIZE, MAX_IT, power, 0, 0, 0, 0, PRECISION, true);
+  }
+
+  /**
+   * Generates the region with doubles.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image doubles() {
+    return generate(new ComplexSet(region));
+  }
+
+  /**
+   * Generates the region with double-doubles.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image doubleDoubles() {
+    return generate(new DoubleDoubleComplexSet(doubleDoubleRegion));
+  }
+
+  /**
+   * Generates the region by perturbation against reference orbits.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  @OperationsPerInvocation(PIXELS)
+  public Image perturbation() {
+    return generate(new PerturbationComplexSet(preciseRegion));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(null);
+
+    return set.getImage();
+  }
+}
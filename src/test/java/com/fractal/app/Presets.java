@@ -0,0 +1,57 @@
+package com.fractal.app;
+
+import java.util.Arrays;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.Region;
+
+/**
+ * The stock views of the explorer, i.e. the whole set and the presets of the selection panel, for
+ * use by tests and benchmarks.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public final class Presets {
+  /** The names of the views, as accepted by {@link #createRegion}. */
+  public static final String[] NAMES = {"full", "preset1", "preset2", "preset3", "preset4",
+      "preset5", "preset6"};
+
+  /** The minimum points of the views, indexed as {@link #NAMES}. */
+  private static final ComplexNumber[] MIN = {new ComplexNumber(-2.0, -2.0),
+      new ComplexNumber(-0.671665, 0.49216), new ComplexNumber(-0.74745, 0.10671),
+      new ComplexNumber(-0.74591, 0.11196), new ComplexNumber(-0.74542995, 0.1130076),
+      new ComplexNumber(-1.253879, 0.046252), new ComplexNumber(-0.1325, -0.992)};
+
+  /** The maximum points of the views, indexed as {@link #NAMES}. */
+  private static final ComplexNumber[] MAX = {new ComplexNumber(2.0, 2.0),
+      new ComplexNumber(-0.449535, 0.71429), new ComplexNumber(-0.74637, 0.10779),
+      new ComplexNumber(-0.74448, 0.11339), new ComplexNumber(-0.74542905, 0.1130085),
+      new ComplexNumber(-1.253006, 0.047125), new ComplexNumber(-0.1235, -0.983)};
+
+  /** Prevents instantiation of this utility class. */
+  private Presets() {
+  }
+
+  /**
+   * Creates a {@link Region} of the specified view of the Mandelbrot set.
+   *
+   * @param name The name of the view, one of {@link #NAMES}.
+   * @param size The width and height of the region.
+   * @param maxIt The maximum number of iterations to perform.
+   * @param power The power to which the set will be raised.
+   * @param colorAlg Represents which coloring algorithm to use.
+   *
+   * @return The {@link Region}.
+   */
+  public static Region createRegion(String name, int size, int maxIt, int power, int colorAlg) {
+    int view = Arrays.asList(NAMES).indexOf(name);
+
+    if (view < 0) {
+      throw new IllegalArgumentException("Unknown view: " + name);
+    }
+
+    return new Region(MIN[view], MAX[view], null, size, size, maxIt, power, 0, 0, 0, colorAlg, 0,
+        false);
+  }
+}
@@ -0,0 +1,217 @@
+package com.fractal.app;
+
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.math.AbstractComplexSet;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+
+/**
+ * A reference implementation of the double precision Mandelbrot and Julia sets which iterates on
+ * {@link ComplexNumber} objects, exactly as {@link ComplexSet} did before it was rewritten to
+ * iterate on primitive values. It is used to verify the output of the faster sets and as a baseline
+ * for benchmarks. It colors its points itself, writing each color directly into the image rather
+ * than coloring the image from its iteration field.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class ReferenceComplexSet extends AbstractComplexSet {
+  /** Represents the selection of the banded coloring algorithm. */
+  private static final int COLOR_ALG_BANDED = 0;
+
+  /** The range of the colors used by the smooth coloring algorithm. */
+  private static final int COLOR_RANGE = 768;
+
+  /** The maximum allowable value for an RGB value. */
+  private static final int MAX_RGB_VALUE = 255;
+
+  /** The maximum number of iterations to perform. */
+  private int maxIt;
+
+  /** The power to which the set will be raised. */
+  private int power;
+
+  /** True if the smooth coloring algorithm should be used. */
+  private boolean smooth;
+
+  /** The colors used by the banded coloring algorithm. */
+  private int[] bandedColors;
+
+  /** The colors used by the smooth coloring algorithm. */
+  private int[] smoothColors;
+
+  /** The color of the last point tested. */
+  private int color;
+
+  /**
+   * Creates a new {@link ReferenceComplexSet} based on the specified {@link Region}.
+   *
+   * @param region The {@link Region} on which to base the set.
+   */
+  public ReferenceComplexSet(Region region) {
+    super(region);
+
+    this.maxIt = region.getMaxIt();
+    this.power = region.getPower();
+    this.smooth = region.getColorAlg() != COLOR_ALG_BANDED;
+    this.bandedColors = new int[maxIt];
+    this.smoothColors = new int[COLOR_RANGE];
+
+    for (int i = 0; i < maxIt; ++i) {
+      bandedColors[maxIt - 1 - i] = (i * 4) ^ ((i * 3) << 8) ^ ((i * 7) << 16);
+    }
+
+    for (int i = 0; i < COLOR_RANGE; ++i) {
+      int r = 0;
+      int g = 0;
+      int b = 0;
+
+      if (i >= (2 * MAX_RGB_VALUE + 2)) {
+        r = i - (2 * MAX_RGB_VALUE + 2);
+        g = MAX_RGB_VALUE - r;
+      } else if (i >= MAX_RGB_VALUE + 1) {
+        g = i - (MAX_RGB_VALUE + 1);
+        b = MAX_RGB_VALUE - g;
+      } else {
+        b = i;
+      }
+
+      smoothColors[i] = b | g << 8 | r << 16;
+    }
+  }
+
+  /**
+   * Tests for point inclusion within the set, based on some point.
+   *
+   * @param z The point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
+   *
+   * @return The RGB value of the color for the point.
+   */
+  public int testPoint(ComplexNumber z, ComplexNumber c) {
+    boolean isMandelbrot = c == null;
+    double sum = 0.0;
+
+    if (isMandelbrot) {
+      c = z;
+      z = new ComplexNumber(0.0, 0.0);
+    }
+
+    for (int i = 0; i < maxIt; ++i) {
+      ComplexNumber base = z;
+
+      if (!isMandelbrot) {
+        sum += getSmoothingTerm(z.mag());
+      }
+
+      for (int j = 1; j < power; ++j) {
+        z = z.mult(base);
+      }
+
+      z = z.add(c);
+
+      if (z.mag() > THRESHOLD) {
+        color = getColor(z, c, i, isMandelbrot, sum);
+
+        return color;
+      }
+    }
+
+    color = getColor(z, c, maxIt - 1, isMandelbrot, sum);
+
+    return color;
+  }
+
+  /**
+   * Returns null, as this set colors its points itself.
+   *
+   * @return Null.
+   */
+  @Override
+  protected ColoringAlgorithm getColoringAlgorithm() {
+    return null;
+  }
+
+  /**
+   * Writes the color of the last point tested into the image.
+   *
+   * @param index The index of the pixel, in row-major order.
+   */
+  @Override
+  protected void store(int index) {
+    getImage().getPixels()[index] = color & RGB_MASK;
+  }
+
+  /**
+   * Does nothing, as the pixels are colored as they are tested.
+   *
+   * @param isMandelbrot True if the set is a Mandelbrot set, false for a Julia set.
+   */
+  @Override
+  protected void color(boolean isMandelbrot) {
+  }
+
+  /**
+   * Maps the escaped point to a color.
+   *
+   * @param z The value of the point when it "escaped".
+   * @param c The point to color.
+   * @param iterations The number of iterations taken to "escape".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set.
+   * @param sum The sum of the smoothing terms of the orbit of a Julia point before it escaped.
+   *
+   * @return The RGB value of the color to assign to the point.
+   */
+  private int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot,
+      double sum) {
+    if (!smooth) {
+      return bandedColors[iterations];
+    }
+
+    float position;
+
+    if (isMandelbrot) {
+      for (int i = 0; i < 3 && z.mag() < 1.0e32; ++i, ++iterations) {
+        ComplexNumber base = z;
+
+        for (int j = 1; j < power; ++j) {
+          z = z.mult(base);
+        }
+
+        z = z.add(c);
+      }
+
+      float mu =
+          (float) (iterations - (Math.log(Math.log(Math.sqrt(z.mag()))) / Math.log(power)));
+
+      position = mu / maxIt * COLOR_RANGE;
+    } else if (z.mag() > THRESHOLD) {
+      float smoothColor = (float) (sum + Math.exp(-Math.sqrt(z.mag())));
+
+      position = smoothColor / maxIt * COLOR_RANGE;
+    } else {
+      position = Float.NaN;
+    }
+
+    if (Float.isNaN(position) || position < 0 || position >= COLOR_RANGE) {
+      return smoothColors[0];
+    }
+
+    // The two colors around the position are blended by its fraction, in 1/256ths.
+    int fixed = (int) (position * 256);
+    int from = smoothColors[fixed / 256];
+    int to = smoothColors[(fixed / 256 + 1) % COLOR_RANGE];
+    int weight = fixed % 256;
+    int color = 0;
+
+    for (int shift = 0; shift <= 16; shift += 8) {
+      int blended = ((((from >> shift) & 0xFF) * (256 - weight))
+          + (((to >> shift) & 0xFF) * weight)) / 256;
+
+      color |= blended << shift;
+    }
+
+    return color;
+  }
+}
@@ -0,0 +1,137 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+
+import com.fractal.app.algorithms.color.BandedColoringAlgorithm;
+import com.fractal.app.algorithms.color.ColoringAlgorithm;
+import com.fractal.app.algorithms.color.SmoothColoringAlgorithm;
+import com.fractal.app.algorithms.math.AbstractComplexSet;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.Region;
+
+/**
+ * A reference implementation of the increased precision Mandelbrot and Julia sets which iterates on
+ * {@link BigDecimal}s rounded through a {@link java.math.MathContext}. Points escape when their
+ * exact squared magnitude exceeds the threshold, and are colored from the double values of the
+ * escaped point. It is used to verify the output of the double-double and perturbation engines and
+ * as a baseline for benchmarks.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class ReferencePrecisionComplexSet extends AbstractComplexSet {
+  /** Represents the selection of the {@link BandedColoringAlgorithm}. */
+  private static final int COLOR_ALG_BANDED = 0;
+
+  /** The escape threshold for testing points. */
+  private static final BigDecimal THRESHOLD = new BigDecimal(AbstractComplexSet.THRESHOLD);
+
+  /** The maximum number of iterations to perform. */
+  private int maxIt;
+
+  /** The power to which the set will be raised. */
+  private int power;
+
+  /** The number of digits to use for the precision calculations. */
+  private int precision;
+
+  /** The algorithm used to choose colors for points within the set. */
+  private ColoringAlgorithm colorAlg;
+
+  /**
+   * Creates a new {@link ReferencePrecisionComplexSet} based on the specified {@link Region}.
+   *
+   * @param region The {@link Region} on which to base the set.
+   */
+  public ReferencePrecisionComplexSet(Region region) {
+    super(region);
+
+    this.power = region.getPower();
+    this.maxIt = region.getMaxIt();
+    this.precision = region.getPrecisionBits();
+
+    if (region.getColorAlg() == COLOR_ALG_BANDED) {
+      colorAlg = new BandedColoringAlgorithm(maxIt);
+    } else {
+      colorAlg = new SmoothColoringAlgorithm(maxIt);
+    }
+  }
+
+  /**
+   * Returns the {@link ColoringAlgorithm} of the set.
+   *
+   * @return The {@link ColoringAlgorithm} of the set.
+   */
+  @Override
+  protected ColoringAlgorithm getColoringAlgorithm() {
+    return colorAlg;
+  }
+
+  /**
+   * Tests for point inclusion within the set. Point inclusion can be based on a specified point, c,
+   * e.g. calculating Julia sets.
+   *
+   * @param point The point to test for set inclusion.
+   * @param c The point on which to base set, can be null.
+   *
+   * @return The RGB value of the color for the point.
+   */
+  public int testPoint(ComplexNumber point, ComplexNumber c) {
+    boolean isMandelbrot = c == null;
+    ComplexNumber add = isMandelbrot ? point : c;
+    ComplexNumber z = new ComplexNumber(BigDecimal.ZERO, BigDecimal.ZERO);
+
+    if (!isMandelbrot) {
+      z = new ComplexNumber(point.getPreciseX(), point.getPreciseY());
+    }
+
+    add = new ComplexNumber(add.getPreciseX(), add.getPreciseY());
+    z.setPrecision(precision);
+    double sum = 0.0;
+
+    for (int i = 0; i < maxIt; ++i) {
+      ComplexNumber base = z;
+
+      if (!isMandelbrot) {
+        double x = z.getPx().doubleValue();
+        double y = z.getPy().doubleValue();
+
+        sum += getSmoothingTerm((x * x) + (y * y));
+      }
+
+      for (int j = 1; j < power; ++j) {
+        z = z.pMult(base);
+        z.setPrecision(precision);
+      }
+
+      z = z.pAdd(add);
+      z.setPrecision(precision);
+
+      if (z.pMag().compareTo(THRESHOLD) > 0) {
+        return getColor(z, add, i, isMandelbrot, sum);
+      }
+    }
+
+    return getColor(z, add, maxIt - 1, isMandelbrot, sum);
+  }
+
+  /**
+   * Records the raw values of a point from the double values of the point and the point added in
+   * each iteration, and colors it.
+   *
+   * @param z The value of the point when it "escaped".
+   * @param c The point added in each iteration.
+   * @param iterations The number of iterations taken to "escape".
+   * @param isMandelbrot True if the point belongs to a Mandelbrot set, false for a Julia set.
+   * @param sum The sum of the smoothing terms of the orbit of a Julia point before it escaped.
+   *
+   * @return The RGB value of the color for the point.
+   */
+  private int getColor(ComplexNumber z, ComplexNumber c, int iterations, boolean isMandelbrot,
+      double sum) {
+    escape(z.getPx().doubleValue(), z.getPy().doubleValue(), c.getPx().doubleValue(),
+        c.getPy().doubleValue(), iterations, isMandelbrot, sum);
+
+    return getColor();
+  }
+}
@@ -0,0 +1,156 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.AbstractComplexSet;
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.DoubleDoubleComplexSet;
+import com.fractal.app.algorithms.math.PerturbationComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+
+/**
+ * JUnit tests for the {@link SetFactory} class.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class SetFactoryTest {
+  /** The width and height of the test regions. */
+  private static final int SIZE = 10;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 100;
+
+  /** The width and height of the regions rendered by subdivision. */
+  private static final int SUBDIVISION_SIZE = 64;
+
+  /** The maximum number of iterations to perform for the regions rendered by subdivision. */
+  private static final int SUBDIVISION_MAX_IT = 1000;
+
+  /** Tests that shallow regions are calculated with doubles. */
+  @Test
+  public void testDoubleEngine() {
+    Region region = createRegion("1e-2");
+    Set set = SetFactory.createSet(region);
+
+    Assert.assertTrue(set instanceof ComplexSet);
+    Assert.assertFalse(region.isPrecise());
+    Assert.assertEquals(-1.75, region.getMin().getX(), 0.1);
+    Assert.assertEquals(1,
+        set.getImage().getStatistics().getEngineRegions(SetFactory.ENGINE_DOUBLE));
+  }
+
+  /** Tests that regions just beyond the reach of doubles are calculated with double-doubles. */
+  @Test
+  public void testDoubleDoubleEngine() {
+    Set set = SetFactory.createSet(createRegion("1e-16"));
+
+    Assert.assertTrue(set instanceof DoubleDoubleComplexSet);
+    Assert.assertEquals(1,
+        set.getImage().getStatistics().getEngineRegions(SetFactory.ENGINE_DOUBLE_DOUBLE));
+  }
+
+  /** Tests that regions beyond the reach of double-doubles are calculated by perturbation. */
+  @Test
+  public void testPerturbationEngine() {
+    Region region = createRegion("1e-40");
+    Set set = SetFactory.createSet(region);
+
+    Assert.assertTrue(set instanceof PerturbationComplexSet);
+    Assert.assertTrue(region.getPrecisionBits() > 40);
+    Assert.assertEquals(1,
+        set.getImage().getStatistics().getEngineRegions(SetFactory.ENGINE_PERTURBATION));
+  }
+
+  /** Tests that the precision settings of regions which do not choose it are kept. */
+  @Test
+  public void testFixedPrecision() {
+    Region region = createRegion("1e-40");
+
+    region.setAutoPrecision(false);
+    region.setPrecise(false);
+
+    Assert.assertTrue(SetFactory.createSet(region) instanceof ComplexSet);
+  }
+
+  /**
+   * Tests that the regions given to the precise engines are rendered by subdivision as they are
+   * rendered pixel by pixel, with pixels filled.
+   */
+  @Test
+  public void testPreciseSubdivision() {
+    Region region = createRegion("1e-16", SUBDIVISION_SIZE, SUBDIVISION_MAX_IT);
+
+    assertSameSubdividedImage(region, DoubleDoubleComplexSet.class);
+
+    // A region within the reach of double-doubles, calculated with more digits by perturbation.
+    region = createRegion("1e-22", SUBDIVISION_SIZE, SUBDIVISION_MAX_IT);
+    region.setAutoPrecision(false);
+    region.setPrecisionBits(40);
+
+    assertSameSubdividedImage(region, PerturbationComplexSet.class);
+  }
+
+  /**
+   * Asserts that the {@link SetFactory} chooses the specified engine for the specified region, and
+   * that the engine generates the same image by subdivision as by rendering every pixel.
+   *
+   * @param region The {@link Region} to generate.
+   * @param engine The class of the expected engine.
+   */
+  private void assertSameSubdividedImage(Region region, Class<?> engine) {
+    Set expected = SetFactory.createSet(region);
+    Set actual = null;
+
+    expected.generate(region.getJulia());
+    region.setRenderMode(AbstractComplexSet.RENDER_SUBDIVISION);
+    actual = SetFactory.createSet(region);
+    actual.generate(region.getJulia());
+
+    Assert.assertEquals(engine, actual.getClass());
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+    Assert.assertTrue("Filled pixels", actual.getImage().getStatistics().getFilledPixels() > 0);
+  }
+
+  /**
+   * Creates a {@link Region} near the real axis with the specified width, which chooses its
+   * precision automatically.
+   *
+   * @param width The width of the region.
+   *
+   * @return The {@link Region}.
+   */
+  private Region createRegion(String width) {
+    return createRegion(width, SIZE, MAX_IT);
+  }
+
+  /**
+   * Creates a {@link Region} near the real axis with the specified width, size and maximum number
+   * of iterations, which chooses its precision automatically.
+   *
+   * @param width The width of the region.
+   * @param size The width and height of the region in pixels.
+   * @param maxIt The maximum number of iterations to perform.
+   *
+   * @return The {@link Region}.
+   */
+  private Region createRegion(String width, int size, int maxIt) {
+    BigDecimal x = new BigDecimal("-1.7497591451303665");
+    BigDecimal radius = new BigDecimal(width).divide(new BigDecimal(2));
+    ComplexNumber min = new ComplexNumber(x.subtract(radius), radius.negate());
+    ComplexNumber max = new ComplexNumber(x.add(radius), radius);
+    Region region =
+        new Region(min, max, null, size, size, maxIt, 2, 0, 0, 0, 0, 256, true);
+
+    region.setAutoPrecision(true);
+
+    return region;
+  }
+}
@@ -0,0 +1,149 @@
+package com.fractal.app;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing supersampling only the pixels on edges against supersampling every
+ * pixel. Each view is generated by the engine the {@link SetFactory} chooses for it with a single
+ * sample per pixel, with the pixels on edges supersampled on a grid of three by three within the
+ * default sample budget, and at three times the width and height, which is the cost of sampling
+ * every pixel on the same grid. The deep view is calculated by perturbation. Scores are reported
+ * in milliseconds per frame.
+ * <p>
+ * Samples are calculated one point at a time, so where the budget is spent in full the frame time
+ * grows faster than the iterations. On one CPU at 200 x 200 and 1000 iterations: full 9.1 ms
+ * against 4.2 ms single and 33 ms uniform; preset2 121 ms against 34 ms and 294 ms; deep 272 ms
+ * against 233 ms and 2250 ms.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=SupersamplingBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SupersamplingBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 200;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 1000;
+
+  /** The number of digits to use for the deep view. */
+  private static final int PRECISION = 40;
+
+  /** The number of samples across each side of a supersampled pixel. */
+  private static final int SAMPLES = 3;
+
+  /** The view to generate, one of {@link Presets#NAMES} or "deep". */
+  @Param({"full", "preset2", "deep"})
+  public String view;
+
+  /** The {@link Region} to generate with a sample per pixel or supersampled on edges. */
+  private Region region;
+
+  /** The {@link Region} to generate with every pixel supersampled. */
+  private Region uniform;
+
+  /** Creates the {@link Region}s to generate. */
+  @Setup
+  public void setup() {
+    region = createRegion(SIZE);
+    uniform = createRegion(SIZE * SAMPLES);
+  }
+
+  /**
+   * Generates the region with a single sample per pixel.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image single() {
+    region.setSupersampling(1);
+
+    return generate(region);
+  }
+
+  /**
+   * Generates the region with the pixels on edges supersampled.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image adaptive() {
+    region.setSupersampling(SAMPLES);
+
+    return generate(region);
+  }
+
+  /**
+   * Generates the region with every pixel supersampled.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image uniform() {
+    return generate(uniform);
+  }
+
+  /**
+   * Creates the region of the view with the specified width and height.
+   *
+   * @param size The width and height of the region.
+   *
+   * @return The {@link Region}.
+   */
+  private Region createRegion(int size) {
+    if ("deep".equals(view)) {
+      BigDecimal x = new BigDecimal("-1.7497591451303665");
+      BigDecimal y = new BigDecimal("3e-24");
+      BigDecimal radius = new BigDecimal("1e-22");
+
+      return new Region(new ComplexNumber(x.subtract(radius), y.subtract(radius)),
+          new ComplexNumber(x.add(radius), y.add(radius)), null, size, size, MAX_IT, 2, 0, 0, 0,
+          1, PRECISION, true);
+    }
+
+    return Presets.createRegion(view, size, MAX_IT, 2, 1);
+  }
+
+  /**
+   * Generates the specified region with the engine of the {@link SetFactory}.
+   *
+   * @param region The region to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Region region) {
+    Set set = SetFactory.createSet(region);
+
+    set.generate(region.getJulia());
+
+    return set.getImage();
+  }
+}
@@ -0,0 +1,98 @@
+package com.fractal.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.VectorComplexSet;
+import com.fractal.app.image.Image;
+
+/**
+ * JMH benchmarks comparing the {@link VectorComplexSet} with the scalar {@link ComplexSet} at the
+ * default maximum number of iterations, on the whole set and preset1, which are dominated by
+ * interior pixels, and on preset2 and preset4, which are dominated by pixels near the boundary.
+ * Scores are reported in milliseconds per frame.
+ *
+ * <pre>
+ * mvn -P benchmark test -Dbenchmark=VectorComplexSetBenchmark
+ * </pre>
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorComplexSetBenchmark {
+  /** The width and height of the generated regions. */
+  private static final int SIZE = 200;
+
+  /** The maximum number of iterations to perform, the default of the settings. */
+  private static final int MAX_IT = 10000;
+
+  /** The view to generate, one of {@link Presets#NAMES}. */
+  @Param({"full", "preset1", "preset2", "preset4"})
+  public String view;
+
+  /** The coloring algorithm to use: 0 for banded and 1 for smooth. */
+  @Param({"0", "1"})
+  public int colorAlg;
+
+  /** The {@link Region} to generate. */
+  private Region region;
+
+  /** Creates the {@link Region} to generate. */
+  @Setup
+  public void setup() {
+    region = Presets.createRegion(view, SIZE, MAX_IT, 2, colorAlg);
+  }
+
+  /**
+   * Generates the region with the scalar kernel.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image scalar() {
+    return generate(new ComplexSet(region));
+  }
+
+  /**
+   * Generates the region with the vectorized kernel.
+   *
+   * @return The generated image.
+   */
+  @Benchmark
+  public Image vector() {
+    return generate(new VectorComplexSet(region));
+  }
+
+  /**
+   * Generates the specified set.
+   *
+   * @param set The set to generate.
+   *
+   * @return The generated image.
+   */
+  private Image generate(Set set) {
+    set.generate(null);
+
+    return set.getImage();
+  }
+}
@@ -0,0 +1,103 @@
+package com.fractal.app;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fractal.app.algorithms.math.ComplexNumber;
+import com.fractal.app.algorithms.math.ComplexSet;
+import com.fractal.app.algorithms.math.Region;
+import com.fractal.app.algorithms.math.Set;
+import com.fractal.app.algorithms.math.SetFactory;
+import com.fractal.app.algorithms.math.VectorComplexSet;
+
+/**
+ * JUnit tests for the {@link VectorComplexSet} class. The tests are skipped if the Vector API is
+ * not available.
+ *
+ * @author Scott Gigawatt
+ * @version 6 July 2017
+ */
+public class VectorComplexSetTest {
+  /** The width of the test images, which is not a multiple of the number of lanes. */
+  private static final int WIDTH = 47;
+
+  /** The maximum number of iterations to perform. */
+  private static final int MAX_IT = 300;
+
+  /** The point on which to base the Julia sets. */
+  private static final ComplexNumber JULIA = new ComplexNumber(-0.8, 0.156);
+
+  /** Skips the tests if the vectorized set is not used. */
+  @Before
+  public void assumeVectorized() {
+    Assume.assumeTrue(SetFactory.isVectorized());
+  }
+
+  /** Tests that the Mandelbrot set matches the scalar set on the stock views. */
+  @Test
+  public void testMandelbrotColors() {
+    for (String view : Presets.NAMES) {
+      for (int power = 2; power <= 10; ++power) {
+        for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+          Region region = Presets.createRegion(view, WIDTH, MAX_IT, power, colorAlg);
+
+          assertSameImage(region);
+        }
+      }
+    }
+  }
+
+  /** Tests that the Julia set matches the scalar set. */
+  @Test
+  public void testJuliaColors() {
+    for (int power = 2; power <= 10; ++power) {
+      for (int colorAlg = 0; colorAlg <= 1; ++colorAlg) {
+        Region region = Presets.createRegion("full", WIDTH, MAX_IT, power, colorAlg);
+
+        region.setJulia(JULIA);
+        assertSameImage(region);
+      }
+    }
+  }
+
+  /**
+   * Tests that the factory creates the kernel of the vectorized set for regions calculated with
+   * doubles, and that the kernel matches the scalar set.
+   */
+  @Test
+  public void testFactory() {
+    Region region = Presets.createRegion("preset1", WIDTH, MAX_IT, 3, 0);
+    Set expected = new ComplexSet(region);
+    Set actual = null;
+
+    region.setAutoPrecision(true);
+    actual = SetFactory.createSet(region);
+    expected.generate(null);
+    actual.generate(null);
+
+    Assert.assertEquals(VectorComplexSet.class.getName(), actual.getClass().getName());
+    Assert.assertArrayEquals(expected.getImage().getPixels(), actual.getImage().getPixels());
+  }
+
+  /**
+   * Asserts that the {@link VectorComplexSet} generates the same image and statistics as the
+   * {@link ComplexSet}.
+   *
+   * @param region The {@link Region} to generate.
+   */
+  private void assertSameImage(Region region) {
+    Set expected = new ComplexSet(region);
+    Set actual = new VectorComplexSet(region);
+
+    expected.generate(region.getJulia());
+    actual.generate(region.getJulia());
+
+    Assert.assertArrayEquals(region.toString(), expected.getImage().getPixels(),
+        actual.getImage().getPixels());
+    Assert.assertEquals(region.toString(),
+        expected.getImage().getStatistics().getSavedIterations(),
+        actual.getImage().getStatistics().getSavedIterations());
+  }
+}